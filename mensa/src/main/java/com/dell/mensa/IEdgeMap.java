@@ -13,6 +13,7 @@
 package com.dell.mensa;
 
 import java.util.Collection;
+import java.util.Comparator;
 
 /**
  * {@link IEdgeMap} is the interface to a collection of <i>edges</i> representing state transition from some state
@@ -51,6 +52,19 @@ public interface IEdgeMap<S>
 	 */
 	void optimize();
 
+	/**
+	 * Optimizes this instance as for {@link #optimize()}, additionally arranging the edges so that a lookup encounters
+	 * them in a specified order (e.g., most frequently traversed first). The default edge, if any, is always
+	 * encountered last. Implementations for which lookup cost does not depend on edge order may simply optimize.
+	 *
+	 * @param order_
+	 *            specifies the order of the (non-{@code null}) symbols.
+	 */
+	default void optimize(final Comparator<? super S> order_)
+	{
+		optimize();
+	}
+
 	/**
 	 * Adds an edge to this map.
 	 *
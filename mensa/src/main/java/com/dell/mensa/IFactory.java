@@ -12,6 +12,13 @@
  *******************************************************************************/
 package com.dell.mensa;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 import com.dell.mensa.impl.generic.GotoFunction;
 import com.dell.mensa.impl.generic.OutputFunction;
 
@@ -62,6 +69,25 @@ public interface IFactory<S>
 	 */
 	INextMoveFunction<S> createNextMoveFunction();
 
+	/**
+	 * Optionally replaces a complete next move function with an equivalent implementation that is faster to evaluate
+	 * (e.g., generated code). This method is called once the next move function has been constructed and optimized,
+	 * and the result is used for all subsequent matching. The default implementation returns the specified instance.
+	 *
+	 * @param nextMoveFunction_
+	 *            specifies the complete, optimized next move function.
+	 * @param numStates_
+	 *            specifies the number of states of the machine.
+	 *
+	 * @return Returns an equivalent next move function, which may be the specified instance.
+	 *
+	 * @see com.dell.mensa.impl.generic.AhoCorasickMachine#buildNextMoveFunction()
+	 */
+	default INextMoveFunction<S> compileNextMoveFunction(final INextMoveFunction<S> nextMoveFunction_, final int numStates_)
+	{
+		return nextMoveFunction_;
+	}
+
 	/**
 	 * Creates a concrete {@link OutputFunction} instance.
 	 *
@@ -69,6 +95,58 @@ public interface IFactory<S>
 	 */
 	OutputFunction<S> createOutputFunction();
 
+	/**
+	 * Creates a {@link Predicate} that accepts exactly the specified symbols. The returned filter is used for
+	 * membership tests on the matching hot path, so implementations should make {@link Predicate#test(Object)} as
+	 * fast as possible for the symbol type. The default implementation is backed by a {@link HashSet}.
+	 *
+	 * @param symbols_
+	 *            specifies the symbols to accept; {@code null} elements are ignored.
+	 *
+	 * @return Returns a newly created instance.
+	 */
+	default Predicate<S> createSymbolFilter(final Collection<S> symbols_)
+	{
+		final Set<S> symbols = new HashSet<>(symbols_);
+		symbols.remove(null);
+
+		return new Predicate<S>()
+		{
+			@Override
+			public boolean test(final S a_)
+			{
+				return symbols.contains(a_);
+			}
+		};
+	}
+
+	/**
+	 * Creates a {@link ToLongFunction} that maps each of the specified symbols to its bit mask and every other symbol
+	 * to zero. The returned function is evaluated for every input symbol by the
+	 * {@link com.dell.mensa.impl.generic.MatchEngine#BIT_PARALLEL} engine, so implementations should make
+	 * {@link ToLongFunction#applyAsLong(Object)} as fast as possible for the symbol type. The default implementation is
+	 * backed by a {@link HashMap}.
+	 *
+	 * @param masks_
+	 *            specifies the bit mask of each symbol.
+	 *
+	 * @return Returns a newly created instance.
+	 */
+	default ToLongFunction<S> createSymbolMasks(final Map<S, Long> masks_)
+	{
+		final Map<S, Long> masks = new HashMap<>(masks_);
+
+		return new ToLongFunction<S>()
+		{
+			@Override
+			public long applyAsLong(final S a_)
+			{
+				final Long mask = masks.get(a_);
+				return mask == null ? 0 : mask.longValue();
+			}
+		};
+	}
+
 	/**
 	 * Creates a concrete {@link IStateMap} instance.
 	 *
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa;
+
+import com.dell.mensa.impl.generic.MatchPublisher;
+
+/**
+ * {@link IMatchSubscriber} defines the interface used by a {@link MatchPublisher} to deliver matches to a consumer
+ * that controls the rate of delivery. The protocol is that of a reactive streams subscriber (e.g.,
+ * {@code java.util.concurrent.Flow.Subscriber}): {@link #onSubscribe(IMatchSubscription)} is called once, followed by
+ * zero or more calls to {@link #onNext(IMatch)} (never more than requested via {@link IMatchSubscription#request(long)}
+ * ), optionally followed by exactly one call to either {@link #onComplete()} or {@link #onError(Throwable)}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+public interface IMatchSubscriber<S extends Comparable<S>>
+{
+	/**
+	 * Called when all matches have been delivered (i.e., end-of-file has been reached). No further methods are called
+	 * after this method.
+	 */
+	void onComplete();
+
+	/**
+	 * Called when matching fails (e.g., due to an I/O error). No further methods are called after this method.
+	 *
+	 * @param throwable_
+	 *            specifies the cause of the failure.
+	 */
+	void onError(Throwable throwable_);
+
+	/**
+	 * Called to deliver the next match.
+	 *
+	 * @param match_
+	 *            specifies the next match.
+	 */
+	void onNext(IMatch<S> match_);
+
+	/**
+	 * Called before any other method to provide the subscription used to request matches or cancel matching.
+	 *
+	 * @param subscription_
+	 *            specifies the new subscription.
+	 */
+	void onSubscribe(IMatchSubscription subscription_);
+}
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa;
+
+/**
+ * {@link IMatchSubscription} defines the interface used by an {@link IMatchSubscriber} to control the delivery of
+ * matches. Matching only proceeds while there is outstanding demand; it pauses when demand is exhausted and resumes
+ * upon the next call to {@link #request(long)}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public interface IMatchSubscription
+{
+	/**
+	 * Stops matching. Matches may still be delivered if matching is in progress on another thread, but matching stops
+	 * as soon as possible and no completion notification is delivered.
+	 */
+	void cancel();
+
+	/**
+	 * Adds to the number of matches that may be delivered. Demand is cumulative; a demand of {@link Long#MAX_VALUE} is
+	 * considered unbounded.
+	 *
+	 * @param n_
+	 *            specifies the number of additional matches requested. A non-positive value causes the subscription
+	 *            to be cancelled and an {@link IllegalArgumentException} to be delivered to
+	 *            {@link IMatchSubscriber#onError(Throwable)}.
+	 */
+	void request(long n_);
+}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa;
+
+import java.util.function.Predicate;
+
+/**
+ * {@link IPatternKeyword} is a keyword in which some positions match any symbol of a <i>symbol class</i> (e.g., a
+ * single-symbol wildcard or a small set of digits) rather than a single literal symbol. A pattern keyword is matched
+ * in a single pass without entering every concrete keyword it describes into the machine.
+ *
+ * <p>
+ * At a class position, {@link #symbolAt(int)} returns a placeholder symbol that is never compared with input symbols;
+ * the class position is treated as a required symbol that is neither whitespace nor punctuation. A pattern keyword
+ * must contain at least one literal symbol.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ */
+public interface IPatternKeyword<S> extends IKeyword<S>
+{
+	/**
+	 * Gets the symbol class at a specified position of this keyword.
+	 *
+	 * @param index_
+	 *            specifies the position.
+	 *
+	 * @return Returns a predicate that accepts the (effective, but not case-normalized) input symbols matched by the
+	 *         specified position, or {@code null} if the position holds the literal symbol returned by
+	 *         {@link #symbolAt(int)}.
+	 */
+	Predicate<S> classAt(int index_);
+}
@@ -13,6 +13,7 @@
 package com.dell.mensa;
 
 import java.io.IOException;
+import java.util.function.Predicate;
 import com.dell.mensa.impl.generic.AhoCorasickMachine;
 
 /**
@@ -47,6 +48,39 @@ public interface ITextSource<S>
 	 */
 	long getPosition();
 
+	/**
+	 * Returns the position of an effective symbol preceding a specified position. Effective symbols are counted
+	 * backward from the specified position, skipping "extra" symbols (see {@link #getTailBuffer()}), so the position
+	 * returned is that of the first of the specified number of effective symbols that precede the specified position.
+	 * The default implementation walks backward through the tail buffer; implementations may do so more efficiently.
+	 *
+	 * @param position_
+	 *            specifies the position from which to count.
+	 * @param count_
+	 *            specifies the number of effective symbols to count.
+	 *
+	 * @return Returns the position of the effective symbol, or the specified position if the count is zero.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             if that effective symbol is not within the tail buffer.
+	 * @throws IllegalStateException
+	 *             if the text source is not open.
+	 */
+	default long getPositionBefore(final long position_, final int count_)
+	{
+		final ITailBuffer<S> buffer = getTailBuffer();
+
+		long position = position_;
+		for (int i = 0; i < count_; i++)
+		{
+			while (buffer.symbolAt(--position) == null)
+			{
+				// skip "extra" symbol
+			}
+		}
+		return position;
+	}
+
 	/**
 	 * Returns a read-only {@link ITailBuffer} view of the raw symbol input stream. The raw symbol stream is the exact
 	 * sequence of symbols present in the underlying source. This sequence may differ from the symbols actually returned
@@ -132,6 +166,58 @@ public interface ITextSource<S>
 	 */
 	S read() throws IOException;
 
+	/**
+	 * Reads and consumes the specified number of input symbols, or fewer if end-of-file is reached first. Skipped
+	 * symbols are consumed exactly as if by {@link #read()} (e.g., they are added to the tail buffers), but
+	 * implementations may do so more efficiently than by calling {@link #read()} repeatedly.
+	 *
+	 * @param count_
+	 *            specifies the number of symbols to skip.
+	 *
+	 * @return Returns the number of symbols skipped.
+	 *
+	 * @throws IOException
+	 *             if any error occurs reading the input.
+	 * @throws IllegalStateException
+	 *             if the text source is not open.
+	 */
+	default long skip(final long count_) throws IOException
+	{
+		long n = 0;
+		while (n < count_ && !isEof())
+		{
+			read();
+			++n;
+		}
+		return n;
+	}
+
+	/**
+	 * Reads and consumes input symbols until the next input symbol satisfies the specified condition or end-of-file is
+	 * reached. Skipped symbols are consumed exactly as if by {@link #read()} (e.g., they are added to the tail
+	 * buffers), but implementations may do so more efficiently than by calling {@link #read()} repeatedly.
+	 *
+	 * @param stop_
+	 *            specifies the condition that stops skipping; it is tested against each next input symbol.
+	 *
+	 * @return Returns the number of symbols skipped.
+	 *
+	 * @throws IOException
+	 *             if any error occurs reading the input.
+	 * @throws IllegalStateException
+	 *             if the text source is not open.
+	 */
+	default long skip(final Predicate<? super S> stop_) throws IOException
+	{
+		long n = 0;
+		while (!isEof() && !stop_.test(peek()))
+		{
+			read();
+			++n;
+		}
+		return n;
+	}
+
 	/**
 	 * Sets the current input position to an earlier position. This provides the ability to "unread" symbols previously
 	 * returned by {@link #read()}, provided the position is still within the associated {@link ITailBuffer}.
@@ -565,6 +565,18 @@ public abstract class AbstractCharacterTextSource extends AbstractTextSource<Cha
 	 */
 	abstract protected Reader getReader() throws IOException;
 
+	/**
+	 * Determines if the {@link Reader} returned by {@link #getReader()} needs no additional buffering. By default, the
+	 * reader is wrapped in a {@link BufferedReader}; a derived class reading from memory may override this method to
+	 * avoid the cost of allocating a buffer each time the text source is opened.
+	 *
+	 * @return Returns {@code true} if the reader should be used as is; {@code false} if it should be buffered.
+	 */
+	protected boolean isReaderBuffered()
+	{
+		return false;
+	}
+
 	// =========================================================================
 	// AbstractTextSource abstract methods
 	// =========================================================================
@@ -594,7 +606,7 @@ public abstract class AbstractCharacterTextSource extends AbstractTextSource<Cha
 	@Override
 	protected void openImpl() throws IOException
 	{
-		reader = new BufferedReader(getReader());
+		reader = isReaderBuffered() ? getReader() : new BufferedReader(getReader());
 		pushBack = -1;
 	}
 
@@ -13,8 +13,10 @@
 package com.dell.mensa.impl.character;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -32,12 +34,17 @@ public class CharacterCompactEdgeMap implements IEdgeMap<Character>
 {
 	private static final char NULL_SYMBOL = (char) -1;
 
+	private static final String PARM_order = "order_";
 	private static final String PARM_state = "state_";
 
 	private char[] symbols;
 	private int[] states;
 	private int n;
-	private boolean bOptimized;
+
+	/**
+	 * Indicates if the symbols are sorted, so that a search can stop once it passes the symbol it is looking for.
+	 */
+	private boolean bSorted;
 
 	// =========================================================================
 	// Constructors
@@ -47,7 +54,7 @@ public class CharacterCompactEdgeMap implements IEdgeMap<Character>
 		this.symbols = new char[initialCapacity_];
 		this.states = new int[initialCapacity_];
 		this.n = 0;
-		this.bOptimized = false;
+		this.bSorted = false;
 	}
 
 	// =========================================================================
@@ -99,7 +106,49 @@ public class CharacterCompactEdgeMap implements IEdgeMap<Character>
 
 		setCapacity(n);
 		quickSort(0, n - 1);
-		bOptimized = true;
+		bSorted = true;
+	}
+
+	@Override
+	public void optimize(final Comparator<? super Character> order_)
+	{
+		Verify.notNull(order_, PARM_order);
+
+		optimize();
+
+		// The default edge, if any, sorts last by symbol and stays there.
+		final int nSymbols = n > 0 && symbols[n - 1] == NULL_SYMBOL ? n - 1 : n;
+		final Integer[] indexes = new Integer[nSymbols];
+		for (int i = 0; i < nSymbols; i++)
+		{
+			indexes[i] = i;
+		}
+
+		Arrays.sort(indexes, new Comparator<Integer>()
+		{
+			@Override
+			public int compare(final Integer i1_, final Integer i2_)
+			{
+				return order_.compare(symbols[i1_], symbols[i2_]);
+			}
+		});
+
+		final char[] sortedSymbols = new char[n];
+		final int[] sortedStates = new int[n];
+		for (int i = 0; i < nSymbols; i++)
+		{
+			sortedSymbols[i] = symbols[indexes[i]];
+			sortedStates[i] = states[indexes[i]];
+		}
+		if (nSymbols < n)
+		{
+			sortedSymbols[nSymbols] = NULL_SYMBOL;
+			sortedStates[nSymbols] = states[nSymbols];
+		}
+
+		symbols = sortedSymbols;
+		states = sortedStates;
+		bSorted = false;
 	}
 
 	@Override
@@ -107,7 +156,7 @@ public class CharacterCompactEdgeMap implements IEdgeMap<Character>
 	{
 		Verify.notNegative(state_, PARM_state);
 
-		bOptimized = false;
+		bSorted = false;
 
 		final int index = indexOf(a_);
 		if (index == -1)
@@ -177,7 +226,7 @@ public class CharacterCompactEdgeMap implements IEdgeMap<Character>
 	{
 		final char key = key_ == null ? NULL_SYMBOL : key_.charValue();
 
-		if (bOptimized)
+		if (bSorted)
 		{
 			for (int i = 0; i < n; i++)
 			{
@@ -187,7 +236,7 @@ public class CharacterCompactEdgeMap implements IEdgeMap<Character>
 					return i;
 				}
 
-				// When optimized, the symbols are sorted. Short-circuit the search if we've
+				// Short-circuit the search if we've
 				// already passed the value we're looking for.
 				if (key < symbol)
 				{
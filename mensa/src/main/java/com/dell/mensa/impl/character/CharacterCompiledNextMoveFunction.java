@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.util.Collection;
+import java.util.function.IntBinaryOperator;
+import com.dell.mensa.IEdgeMap;
+import com.dell.mensa.IGotoFunction;
+import com.dell.mensa.INextMoveFunction;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link CharacterCompiledNextMoveFunction} is an immutable {@link INextMoveFunction} whose transitions are evaluated by
+ * a class generated by {@link CharacterNextMoveFunctionCompiler}. The original next move function is retained to
+ * answer structural queries (e.g., {@link #getEdgeMap(int)}) and to report errors for states or symbols that the
+ * generated code does not handle, so that this instance behaves exactly like the function it was compiled from.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ */
+public class CharacterCompiledNextMoveFunction implements INextMoveFunction<Character>
+{
+	private static final String PARM_nextMoveFunction = "nextMoveFunction_";
+	private static final String PARM_operator = "operator_";
+
+	private static final String MSG_IMMUTABLE = "a compiled next move function cannot be modified";
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final INextMoveFunction<Character> nextMoveFunction;
+	private final IntBinaryOperator operator;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param nextMoveFunction_
+	 *            specifies the next move function from which the operator was compiled.
+	 * @param operator_
+	 *            specifies the compiled operator mapping a state and {@code char} value to the next state, or to
+	 *            {@link IGotoFunction#NO_STATE} if the state is unknown.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if either argument is {@code null}.
+	 */
+	public CharacterCompiledNextMoveFunction(final INextMoveFunction<Character> nextMoveFunction_,
+			final IntBinaryOperator operator_)
+	{
+		Verify.notNull(nextMoveFunction_, PARM_nextMoveFunction);
+		Verify.notNull(operator_, PARM_operator);
+
+		this.nextMoveFunction = nextMoveFunction_;
+		this.operator = operator_;
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * @return Returns the next move function from which this instance was compiled.
+	 */
+	public INextMoveFunction<Character> getNextMoveFunction()
+	{
+		return nextMoveFunction;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.IGotoFunction#clearCalls()
+	 */
+	@Override
+	public void clearCalls()
+	{
+		nextMoveFunction.clearCalls();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.IGotoFunction#eval(int, java.lang.Object)
+	 */
+	@Override
+	public int eval(final int state_, final Character a_)
+	{
+		if (a_ != null)
+		{
+			final int state = operator.applyAsInt(state_, a_.charValue());
+			if (state != IGotoFunction.NO_STATE)
+			{
+				return state;
+			}
+		}
+
+		// Defer to the original function for default transitions and for its handling of unknown states.
+		return nextMoveFunction.eval(state_, a_);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.IGotoFunction#getCalls()
+	 */
+	@Override
+	public int getCalls()
+	{
+		return nextMoveFunction.getCalls();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.IGotoFunction#getEdgeMap(int)
+	 */
+	@Override
+	public IEdgeMap<Character> getEdgeMap(final int state_)
+	{
+		return nextMoveFunction.getEdgeMap(state_);
+	}
+
+	/**
+	 * A compiled function is already optimized; this method does nothing.
+	 *
+	 * @see com.dell.mensa.IGotoFunction#optimize()
+	 */
+	@Override
+	public void optimize()
+	{
+		// Nothing to do.
+	}
+
+	/**
+	 * A compiled function is immutable.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             always.
+	 *
+	 * @see com.dell.mensa.IGotoFunction#put(int, java.lang.Object, int)
+	 */
+	@Override
+	public void put(final int state_, final Character a_, final int nextState_)
+	{
+		throw new UnsupportedOperationException(MSG_IMMUTABLE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.IGotoFunction#symbols()
+	 */
+	@Override
+	public Collection<Character> symbols()
+	{
+		return nextMoveFunction.symbols();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("CharacterCompiledNextMoveFunction [operator=%s]", operator.getClass().getName());
+	}
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import com.dell.mensa.INextMoveFunction;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link CharacterCompilingFactory} is a {@link CharacterFactory} that replaces the next move function of every machine
+ * it builds with generated code (see {@link CharacterNextMoveFunctionCompiler}). Machines for which code cannot be
+ * generated or compiled silently keep their original next move function, so this factory can be used anywhere a
+ * {@link CharacterFactory} can.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterCompilingFactory extends CharacterFactory
+{
+	private static final String PARM_compiler = "compiler_";
+
+	private final CharacterNextMoveFunctionCompiler compiler;
+
+	/**
+	 * Constructs a new instance that uses the specified compiler.
+	 *
+	 * @param compiler_
+	 *            specifies the compiler.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified compiler is {@code null}.
+	 */
+	public CharacterCompilingFactory(final CharacterNextMoveFunctionCompiler compiler_)
+	{
+		Verify.notNull(compiler_, PARM_compiler);
+
+		this.compiler = compiler_;
+	}
+
+	/**
+	 * Constructs a new instance that uses a default {@link CharacterNextMoveFunctionCompiler}.
+	 */
+	public CharacterCompilingFactory()
+	{
+		this(new CharacterNextMoveFunctionCompiler());
+	}
+
+	/**
+	 * @return Returns a {@link CharacterCompiledNextMoveFunction} or, if the function cannot be compiled, the specified
+	 *         function.
+	 *
+	 * @see com.dell.mensa.IFactory#compileNextMoveFunction(INextMoveFunction, int)
+	 */
+	@Override
+	public INextMoveFunction<Character> compileNextMoveFunction(final INextMoveFunction<Character> nextMoveFunction_,
+			final int numStates_)
+	{
+		final INextMoveFunction<Character> compiled = compiler.compile(nextMoveFunction_, numStates_);
+		return compiled == null ? nextMoveFunction_ : compiled;
+	}
+}
@@ -13,6 +13,10 @@
 
 package com.dell.mensa.impl.character;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 import com.dell.mensa.IEdgeMap;
 import com.dell.mensa.IStateMap;
 import com.dell.mensa.impl.generic.Factory;
@@ -37,6 +41,28 @@ public class CharacterFactory extends Factory<Character>
 		return new CharacterCompactEdgeMap(INITIAL_EDGE_MAP_CAPACITY);
 	}
 
+	/**
+	 * @return Returns a new {@link CharacterSymbolFilter} instance.
+	 *
+	 * @see com.dell.mensa.IFactory#createSymbolFilter(java.util.Collection)
+	 */
+	@Override
+	public Predicate<Character> createSymbolFilter(final Collection<Character> symbols_)
+	{
+		return new CharacterSymbolFilter(symbols_);
+	}
+
+	/**
+	 * @return Returns a new {@link CharacterSymbolMasks} instance.
+	 *
+	 * @see com.dell.mensa.IFactory#createSymbolMasks(java.util.Map)
+	 */
+	@Override
+	public ToLongFunction<Character> createSymbolMasks(final Map<Character, Long> masks_)
+	{
+		return new CharacterSymbolMasks(masks_);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
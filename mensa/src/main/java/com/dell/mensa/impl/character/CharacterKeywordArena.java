@@ -0,0 +1,694 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import com.dell.mensa.IKeyword;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.impl.generic.AbstractKeyword;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link CharacterKeywordArena} is a compact {@link IKeywords} implementation for very large sets of character
+ * keywords. Rather than holding one {@link CharacterKeyword} object per keyword, it packs the symbols of all keywords
+ * into a single {@code char[]} arena and keeps the offset, length, flags, hash code and (optional) user data of each
+ * keyword in parallel arrays. Keywords are de-duplicated by an open-addressing hash table of keyword indexes, whose
+ * hash codes are computed from the arena without boxing symbols.
+ *
+ * <p>
+ * The elements of the set are lightweight views (see {@link #get(int)}) that are created on demand and hold only a
+ * reference to the arena and an index. A view is equal to, and has the same hash code as, any other {@link IKeyword}
+ * with the same symbols, flags and user data, such as a {@link CharacterKeyword}. Keywords are iterated in insertion
+ * order, like {@link com.dell.mensa.impl.generic.OrderedKeywords}, so keywords added in sorted order are entered into a
+ * machine in sorted order.
+ * </p>
+ *
+ * <p>
+ * Keywords can be added, but not removed individually (other than by {@link #clear()}, after which existing views
+ * must no longer be used). The arena is not thread-safe.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterKeywordArena extends AbstractSet<IKeyword<Character>> implements IKeywords<Character>
+{
+	private static final String PARM_initialCapacity = "initialCapacity_";
+	private static final String PARM_initialSymbolCapacity = "initialSymbolCapacity_";
+	private static final String PARM_keyword = "keyword_";
+	private static final String PARM_symbols = "symbols_";
+	private static final String PARM_offset = "offset_";
+	private static final String PARM_length = "length_";
+	private static final String PARM_index = "index_";
+
+	private static final int ALL_FLAGS = AbstractKeyword.CASE_SENSITIVE | AbstractKeyword.PUNCTUATION_SENSITIVE;
+	private static final String MSG_UNKNOWN_FLAGS = "unknown flags";
+
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int DEFAULT_SYMBOL_CAPACITY = 128;
+
+	/**
+	 * Hash codes of the flags, as combined by {@link AbstractKeyword#hashCode()}.
+	 */
+	private static final int HASH_TRUE = 1231;
+	private static final int HASH_FALSE = 1237;
+	private static final int HASH_PRIME = 31;
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private char[] arena;
+	private int arenaSize;
+
+	private int[] offsets;
+	private int[] lengths;
+	private byte[] flags;
+	private int[] hashes;
+	private Object[] userData; // null until a keyword with user data is added
+	private int size;
+
+	private int[] table; // keyword index + 1, or 0 if empty
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	public CharacterKeywordArena()
+	{
+		this(DEFAULT_CAPACITY, DEFAULT_SYMBOL_CAPACITY);
+	}
+
+	/**
+	 * @param initialCapacity_
+	 *            the initial number of keywords for which space is reserved.
+	 * @param initialSymbolCapacity_
+	 *            the initial number of symbols (over all keywords) for which space is reserved.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if either capacity is not positive.
+	 */
+	public CharacterKeywordArena(final int initialCapacity_, final int initialSymbolCapacity_)
+	{
+		Verify.isPositive(initialCapacity_, PARM_initialCapacity);
+		Verify.isPositive(initialSymbolCapacity_, PARM_initialSymbolCapacity);
+
+		this.arena = new char[initialSymbolCapacity_];
+		this.offsets = new int[initialCapacity_];
+		this.lengths = new int[initialCapacity_];
+		this.flags = new byte[initialCapacity_];
+		this.hashes = new int[initialCapacity_];
+		this.table = new int[tableCapacity(initialCapacity_)];
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * Adds a keyword given as a range of a character array, without creating a {@link CharacterKeyword} or
+	 * {@link String}. The symbols are copied into the arena.
+	 *
+	 * @param symbols_
+	 *            specifies the array holding the symbols of the keyword.
+	 * @param offset_
+	 *            specifies the index of the first symbol in the array.
+	 * @param length_
+	 *            specifies the number of symbols.
+	 * @param userData_
+	 *            specifies user an arbitrary user data object to associate with this keyword; may be {@code null}.
+	 * @param flags_
+	 *            specifies bit flags that control various keyword features (see {@link AbstractKeyword}).
+	 *
+	 * @return Returns {@code true} if the keyword was added; {@code false} if this set already contained it.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified array is {@code null}.
+	 * @throws IndexOutOfBoundsException
+	 *             if the specified range is empty or out of bounds.
+	 * @throws IllegalStateException
+	 *             if the specified flags contain unknown values.
+	 */
+	public boolean add(final char[] symbols_, final int offset_, final int length_, final Object userData_, final int flags_)
+	{
+		Verify.notNull(symbols_, PARM_symbols);
+		Verify.inClosedRange(offset_, 0, symbols_.length, PARM_offset);
+		Verify.inClosedRange(length_, 1, symbols_.length - offset_, PARM_length);
+		Verify.condition((flags_ & ~ALL_FLAGS) == 0, MSG_UNKNOWN_FLAGS);
+
+		final int hash = hash(symbols_, offset_, length_, userData_, flags_);
+		if (find(symbols_, offset_, length_, userData_, flags_, hash) >= 0)
+		{
+			return false;
+		}
+
+		ensureSymbolCapacity(arenaSize + length_);
+		System.arraycopy(symbols_, offset_, arena, arenaSize, length_);
+		append(arenaSize, length_, userData_, flags_, hash);
+		arenaSize += length_;
+		return true;
+	}
+
+	/**
+	 * Adds a keyword given as a string, as for {@link CharacterKeyword#CharacterKeyword(String, Object, int)}.
+	 *
+	 * @param keyword_
+	 *            the string value of the keyword.
+	 * @param userData_
+	 *            specifies user an arbitrary user data object to associate with this keyword; may be {@code null}.
+	 * @param flags_
+	 *            specifies bit flags that control various keyword features (see {@link AbstractKeyword}).
+	 *
+	 * @return Returns {@code true} if the keyword was added; {@code false} if this set already contained it.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified keyword string is null or empty.
+	 * @throws IllegalStateException
+	 *             if the specified flags contain unknown values.
+	 */
+	public boolean add(final String keyword_, final Object userData_, final int flags_)
+	{
+		Verify.notEmpty(keyword_, PARM_keyword);
+
+		final char[] symbols = keyword_.toCharArray();
+		return add(symbols, 0, symbols.length, userData_, flags_);
+	}
+
+	/**
+	 * Returns a view of the keyword at a specified position in insertion order.
+	 *
+	 * @param index_
+	 *            specifies the position of the keyword.
+	 *
+	 * @return Returns the keyword.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             if the specified index is out of range.
+	 */
+	public IKeyword<Character> get(final int index_)
+	{
+		Verify.inRange(index_, 0, size, PARM_index);
+		return new ArenaKeyword(index_);
+	}
+
+	/**
+	 * @return Returns the total number of symbols held in the arena.
+	 */
+	public int getNumSymbols()
+	{
+		return arenaSize;
+	}
+
+	/**
+	 * Releases any unused space reserved for keywords or symbols.
+	 */
+	public void trimToSize()
+	{
+		arena = Arrays.copyOf(arena, Math.max(1, arenaSize));
+		resizeKeywords(Math.max(1, size));
+	}
+
+	// =========================================================================
+	// Set methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractCollection#add(java.lang.Object)
+	 */
+	@Override
+	public boolean add(final IKeyword<Character> keyword_)
+	{
+		Verify.notNull(keyword_, PARM_keyword);
+
+		if (keyword_ instanceof ArenaKeyword && ((ArenaKeyword) keyword_).getArena() == this)
+		{
+			return false;
+		}
+
+		final int length = keyword_.length();
+		final char[] symbols = new char[length];
+		for (int i = 0; i < length; i++)
+		{
+			symbols[i] = keyword_.symbolAt(i);
+		}
+
+		return add(symbols, 0, length, keyword_.getUserData(), getFlags(keyword_));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractSet#clear()
+	 */
+	@Override
+	public void clear()
+	{
+		arenaSize = 0;
+		size = 0;
+		userData = null;
+		Arrays.fill(table, 0);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractCollection#contains(java.lang.Object)
+	 */
+	@Override
+	public boolean contains(final Object object_)
+	{
+		if (!(object_ instanceof IKeyword))
+		{
+			return false;
+		}
+
+		if (object_ instanceof ArenaKeyword && ((ArenaKeyword) object_).getArena() == this)
+		{
+			return true;
+		}
+
+		final IKeyword<?> keyword = (IKeyword<?>) object_;
+		final int length = keyword.length();
+		if (length == 0)
+		{
+			return false;
+		}
+
+		final char[] symbols = new char[length];
+		for (int i = 0; i < length; i++)
+		{
+			final Object symbol = keyword.symbolAt(i);
+			if (!(symbol instanceof Character))
+			{
+				return false;
+			}
+			symbols[i] = (Character) symbol;
+		}
+
+		final Object userData = keyword.getUserData();
+		final int flags = getFlags(keyword);
+		return find(symbols, 0, length, userData, flags, hash(symbols, 0, length, userData, flags)) >= 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractCollection#iterator()
+	 */
+	@Override
+	public Iterator<IKeyword<Character>> iterator()
+	{
+		return new Iterator<IKeyword<Character>>()
+		{
+			private int next = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return next < size;
+			}
+
+			@Override
+			public IKeyword<Character> next()
+			{
+				if (next >= size)
+				{
+					throw new NoSuchElementException();
+				}
+				return new ArenaKeyword(next++);
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	// =========================================================================
+	// Internal methods
+	// =========================================================================
+	private void append(final int offset_, final int length_, final Object userData_, final int flags_, final int hash_)
+	{
+		if (size == offsets.length)
+		{
+			resizeKeywords(size + (size >> 1) + 1);
+		}
+
+		offsets[size] = offset_;
+		lengths[size] = length_;
+		flags[size] = (byte) flags_;
+		hashes[size] = hash_;
+
+		if (userData_ != null)
+		{
+			if (userData == null)
+			{
+				userData = new Object[offsets.length];
+			}
+			userData[size] = userData_;
+		}
+
+		++size;
+
+		if (2 * size > table.length)
+		{
+			rehash(2 * table.length);
+		}
+		else
+		{
+			insert(size - 1);
+		}
+	}
+
+	private void ensureSymbolCapacity(final int capacity_)
+	{
+		if (capacity_ > arena.length)
+		{
+			arena = Arrays.copyOf(arena, Math.max(capacity_, arena.length + (arena.length >> 1)));
+		}
+	}
+
+	/**
+	 * Finds a keyword.
+	 *
+	 * @return Returns the index of the keyword, or -1 if this set does not contain it.
+	 */
+	private int find(final char[] symbols_, final int offset_, final int length_, final Object userData_, final int flags_, final int hash_)
+	{
+		final int mask = table.length - 1;
+		for (int i = slot(hash_, mask);; i = (i + 1) & mask)
+		{
+			final int entry = table[i];
+			if (entry == 0)
+			{
+				return -1;
+			}
+
+			final int index = entry - 1;
+			if (hashes[index] == hash_ && matches(index, symbols_, offset_, length_, userData_, flags_))
+			{
+				return index;
+			}
+		}
+	}
+
+	private Object getUserData(final int index_)
+	{
+		return userData == null ? null : userData[index_];
+	}
+
+	private void insert(final int index_)
+	{
+		final int mask = table.length - 1;
+		int i = slot(hashes[index_], mask);
+		while (table[i] != 0)
+		{
+			i = (i + 1) & mask;
+		}
+		table[i] = index_ + 1;
+	}
+
+	private boolean matches(final int index_, final char[] symbols_, final int offset_, final int length_, final Object userData_,
+			final int flags_)
+	{
+		if (lengths[index_] != length_ || flags[index_] != flags_)
+		{
+			return false;
+		}
+
+		final Object userData = getUserData(index_);
+		if (userData == null ? userData_ != null : !userData.equals(userData_))
+		{
+			return false;
+		}
+
+		final int offset = offsets[index_];
+		for (int i = 0; i < length_; i++)
+		{
+			if (arena[offset + i] != symbols_[offset_ + i])
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private void rehash(final int capacity_)
+	{
+		table = new int[capacity_];
+		for (int index = 0; index < size; index++)
+		{
+			insert(index);
+		}
+	}
+
+	private void resizeKeywords(final int capacity_)
+	{
+		offsets = Arrays.copyOf(offsets, capacity_);
+		lengths = Arrays.copyOf(lengths, capacity_);
+		flags = Arrays.copyOf(flags, capacity_);
+		hashes = Arrays.copyOf(hashes, capacity_);
+		if (userData != null)
+		{
+			userData = Arrays.copyOf(userData, capacity_);
+		}
+	}
+
+	private static int getFlags(final IKeyword<?> keyword_)
+	{
+		return (keyword_.isCaseSensitive() ? AbstractKeyword.CASE_SENSITIVE : 0)
+				| (keyword_.isPunctuationSensitive() ? AbstractKeyword.PUNCTUATION_SENSITIVE : 0);
+	}
+
+	/**
+	 * Computes the hash code of a keyword exactly as {@link AbstractKeyword#hashCode()} does, but without boxing its
+	 * symbols.
+	 */
+	private static int hash(final char[] symbols_, final int offset_, final int length_, final Object userData_, final int flags_)
+	{
+		int result = 1;
+		result = HASH_PRIME * result + ((flags_ & AbstractKeyword.CASE_SENSITIVE) != 0 ? HASH_TRUE : HASH_FALSE);
+		result = HASH_PRIME * result + ((flags_ & AbstractKeyword.PUNCTUATION_SENSITIVE) != 0 ? HASH_TRUE : HASH_FALSE);
+		result = HASH_PRIME * result + (userData_ == null ? 0 : userData_.hashCode());
+
+		for (int i = 0; i < length_; i++)
+		{
+			result = HASH_PRIME * result + symbols_[offset_ + i];
+		}
+
+		return result;
+	}
+
+	/**
+	 * Selects the table slot for a hash code, spreading its high-order bits into the low-order bits used.
+	 */
+	private static int slot(final int hash_, final int mask_)
+	{
+		return (hash_ ^ (hash_ >>> 16)) & mask_;
+	}
+
+	private static int tableCapacity(final int capacity_)
+	{
+		return Integer.highestOneBit(Math.max(2, 2 * capacity_ - 1)) << 1;
+	}
+
+	// =========================================================================
+	// class: ArenaKeyword
+	// =========================================================================
+	/**
+	 * {@link ArenaKeyword} is a view of a single keyword of the arena.
+	 *
+	 * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+	 *
+	 */
+	private final class ArenaKeyword implements IKeyword<Character>
+	{
+		private final int index;
+
+		// =========================================================================
+		// Constructors
+		// =========================================================================
+		ArenaKeyword(final int index_)
+		{
+			this.index = index_;
+		}
+
+		// =========================================================================
+		// Internal methods
+		// =========================================================================
+		private CharacterKeywordArena getArena()
+		{
+			return CharacterKeywordArena.this;
+		}
+
+		// =========================================================================
+		// IKeyword methods
+		// =========================================================================
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see com.dell.mensa.IKeyword#getUserData()
+		 */
+		@Override
+		public Object getUserData()
+		{
+			return CharacterKeywordArena.this.getUserData(index);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see com.dell.mensa.IKeyword#isCaseSensitive()
+		 */
+		@Override
+		public boolean isCaseSensitive()
+		{
+			return (flags[index] & AbstractKeyword.CASE_SENSITIVE) != 0;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see com.dell.mensa.IKeyword#isPunctuationSensitive()
+		 */
+		@Override
+		public boolean isPunctuationSensitive()
+		{
+			return (flags[index] & AbstractKeyword.PUNCTUATION_SENSITIVE) != 0;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see com.dell.mensa.IKeyword#length()
+		 */
+		@Override
+		public int length()
+		{
+			return lengths[index];
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see com.dell.mensa.IKeyword#symbolAt(int)
+		 */
+		@Override
+		public Character symbolAt(final int index_)
+		{
+			if (index_ < 0 || index_ >= lengths[index])
+			{
+				throw new IndexOutOfBoundsException(String.valueOf(index_));
+			}
+			return arena[offsets[index] + index_];
+		}
+
+		// =========================================================================
+		// hashCode() and equals()
+		// =========================================================================
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode()
+		{
+			return hashes[index];
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(final Object object_)
+		{
+			if (this == object_)
+			{
+				return true;
+			}
+
+			if (object_ instanceof ArenaKeyword && ((ArenaKeyword) object_).getArena() == getArena())
+			{
+				// Keywords of the same arena are unique.
+				return ((ArenaKeyword) object_).index == index;
+			}
+
+			if (!(object_ instanceof IKeyword))
+			{
+				return false;
+			}
+
+			final IKeyword<?> other = (IKeyword<?>) object_;
+			if (other.hashCode() != hashCode() || other.length() != length() || getFlags(other) != flags[index])
+			{
+				return false;
+			}
+
+			final Object userData = getUserData();
+			if (userData == null ? other.getUserData() != null : !userData.equals(other.getUserData()))
+			{
+				return false;
+			}
+
+			final int offset = offsets[index];
+			for (int i = 0; i < lengths[index]; i++)
+			{
+				if (!Character.valueOf(arena[offset + i]).equals(other.symbolAt(i)))
+				{
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString()
+		{
+			return String.format("%s [\"%s\"%s%s]",
+					CharacterKeyword.class.getSimpleName(),
+					new String(arena, offsets[index], lengths[index]),
+					isCaseSensitive() ? ", case-sensitive" : "",
+					isPunctuationSensitive() ? ", punctuation-sensitive" : ""
+					);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractCollection#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("CharacterKeywordArena [size=%d, symbols=%d]", size, arenaSize);
+	}
+}
@@ -0,0 +1,440 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import com.dell.mensa.impl.generic.AbstractKeyword;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link CharacterKeywordLoader} reads large keyword files directly into a {@link CharacterKeywordArena}. The file is
+ * read through an NIO channel and decoded into a reusable character buffer, from which each keyword is added to the
+ * arena as a range of the buffer, so no {@link String}, {@link CharacterKeyword} or hash set entry is created per
+ * keyword.
+ *
+ * <p>
+ * The file holds one keyword per line. A line may have up to two further columns, separated from the keyword and from
+ * each other by a tab character:
+ * </p>
+ * <ol>
+ * <li>the keyword flags, as a decimal integer (see {@link AbstractKeyword#CASE_SENSITIVE} and
+ * {@link AbstractKeyword#PUNCTUATION_SENSITIVE}); if this column is missing or empty, the default flags (see
+ * {@link #setDefaultFlags(int)}) apply.</li>
+ * <li>the user data of the keyword, as a {@link String}; if this column is missing or empty, the keyword has no user
+ * data.</li>
+ * </ol>
+ *
+ * <p>
+ * Lines may end with {@code "\n"} or {@code "\r\n"}, and blank lines are ignored. Input that is malformed, or
+ * cannot be mapped to characters, in the character set of the loader is reported as an {@link IOException} giving the
+ * number of the offending line.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterKeywordLoader
+{
+	private static final String PARM_arena = "arena_";
+	private static final String PARM_bufferSize = "bufferSize_";
+	private static final String PARM_channel = "channel_";
+	private static final String PARM_charset = "charset_";
+	private static final String PARM_file = "file_";
+	private static final String PARM_inputStream = "inputStream_";
+	private static final String PARM_maxKeywords = "maxKeywords_";
+
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+	private static final int MIN_BUFFER_SIZE = 16; // room for any encoded character, and any decoded character
+	private static final int ALL_FLAGS = AbstractKeyword.CASE_SENSITIVE | AbstractKeyword.PUNCTUATION_SENSITIVE;
+
+	private static final char COLUMN_SEPARATOR = '\t';
+
+	private static final String MSG_UNKNOWN_FLAGS = "unknown flags";
+	private static final String MSG_EMPTY_KEYWORD = "line %d: empty keyword";
+	private static final String MSG_INVALID_FLAGS = "line %d: invalid keyword flags";
+	private static final String MSG_MALFORMED_INPUT = "line %d: malformed input for %s";
+	private static final String MSG_UNMAPPABLE_CHARACTER = "line %d: unmappable character for %s";
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final Charset charset;
+	private final int bufferSize;
+	private int defaultFlags;
+	private int maxKeywords;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a loader that reads UTF-8 keyword files.
+	 */
+	public CharacterKeywordLoader()
+	{
+		this(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Constructs a loader that reads keyword files using the specified character set.
+	 *
+	 * @param charset_
+	 *            the character set used to interpret the file content.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified character set is {@code null}.
+	 */
+	public CharacterKeywordLoader(final Charset charset_)
+	{
+		this(charset_, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param charset_
+	 *            the character set used to interpret the file content.
+	 * @param bufferSize_
+	 *            the initial size of the byte and character buffers, which is raised to a small minimum if necessary.
+	 */
+	CharacterKeywordLoader(final Charset charset_, final int bufferSize_)
+	{
+		Verify.notNull(charset_, PARM_charset);
+		Verify.isPositive(bufferSize_, PARM_bufferSize);
+
+		this.charset = charset_;
+		this.bufferSize = Math.max(MIN_BUFFER_SIZE, bufferSize_);
+		this.defaultFlags = 0;
+		this.maxKeywords = 0;
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * @return Returns the character set used to interpret the file content.
+	 */
+	public Charset getCharset()
+	{
+		return charset;
+	}
+
+	/**
+	 * @return Returns the flags of keywords for which the file specifies none.
+	 */
+	public int getDefaultFlags()
+	{
+		return defaultFlags;
+	}
+
+	/**
+	 * Sets the flags of keywords for which the file specifies none. Defaults to zero.
+	 *
+	 * @param defaultFlags_
+	 *            specifies bit flags that control various keyword features (see {@link AbstractKeyword}).
+	 *
+	 * @throws IllegalStateException
+	 *             if the specified flags contain unknown values.
+	 */
+	public void setDefaultFlags(final int defaultFlags_)
+	{
+		Verify.condition((defaultFlags_ & ~ALL_FLAGS) == 0, MSG_UNKNOWN_FLAGS);
+		this.defaultFlags = defaultFlags_;
+	}
+
+	/**
+	 * @return Returns the maximum number of keywords added by a single load, or zero if there is no limit.
+	 */
+	public int getMaxKeywords()
+	{
+		return maxKeywords;
+	}
+
+	/**
+	 * Sets the maximum number of keywords added by a single load. Loading stops once that many keywords have been added
+	 * to the arena. Defaults to zero, for no limit.
+	 *
+	 * @param maxKeywords_
+	 *            specifies the maximum number of keywords, or zero for no limit.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified maximum is negative.
+	 */
+	public void setMaxKeywords(final int maxKeywords_)
+	{
+		Verify.notNegative(maxKeywords_, PARM_maxKeywords);
+		this.maxKeywords = maxKeywords_;
+	}
+
+	/**
+	 * Loads the keywords of a file.
+	 *
+	 * @param file_
+	 *            specifies the keyword file.
+	 * @param arena_
+	 *            specifies the arena to which the keywords are added.
+	 *
+	 * @return Returns the number of keywords added, which excludes keywords the arena already contained.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified file or arena is {@code null}.
+	 * @throws IOException
+	 *             if an error occurs reading the file, or the file is malformed.
+	 */
+	public int load(final File file_, final CharacterKeywordArena arena_) throws IOException
+	{
+		Verify.notNull(file_, PARM_file);
+
+		try (final FileChannel channel = FileChannel.open(file_.toPath(), StandardOpenOption.READ))
+		{
+			return load(channel, arena_);
+		}
+	}
+
+	/**
+	 * Loads the keywords of a stream.
+	 *
+	 * @param inputStream_
+	 *            specifies the stream from which the keywords are read. The caller is responsible for closing the
+	 *            stream.
+	 * @param arena_
+	 *            specifies the arena to which the keywords are added.
+	 *
+	 * @return Returns the number of keywords added, which excludes keywords the arena already contained.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified stream or arena is {@code null}.
+	 * @throws IOException
+	 *             if an error occurs reading the stream, or the stream is malformed.
+	 */
+	public int load(final InputStream inputStream_, final CharacterKeywordArena arena_) throws IOException
+	{
+		Verify.notNull(inputStream_, PARM_inputStream);
+		return load(Channels.newChannel(inputStream_), arena_);
+	}
+
+	/**
+	 * Loads the keywords of a channel.
+	 *
+	 * @param channel_
+	 *            specifies the channel from which the keywords are read. The caller is responsible for closing the
+	 *            channel.
+	 * @param arena_
+	 *            specifies the arena to which the keywords are added.
+	 *
+	 * @return Returns the number of keywords added, which excludes keywords the arena already contained.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified channel or arena is {@code null}.
+	 * @throws IOException
+	 *             if an error occurs reading the channel, or the channel content is malformed.
+	 */
+	public int load(final ReadableByteChannel channel_, final CharacterKeywordArena arena_) throws IOException
+	{
+		Verify.notNull(channel_, PARM_channel);
+		Verify.notNull(arena_, PARM_arena);
+
+		final CharsetDecoder decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+
+		final ByteBuffer bytes = ByteBuffer.allocateDirect(bufferSize);
+		CharBuffer chars = CharBuffer.allocate(bufferSize);
+
+		final int max = maxKeywords == 0 ? Integer.MAX_VALUE : maxKeywords;
+		int nAdded = 0;
+		int nLines = 0;
+		int scanned = 0; // number of buffered characters known to contain no line end
+
+		boolean bEndOfInput = false;
+		boolean bFlushing = false;
+		boolean bFlushed = false;
+		while (!bFlushed)
+		{
+			if (!bFlushing)
+			{
+				if (!bEndOfInput && channel_.read(bytes) < 0)
+				{
+					bEndOfInput = true;
+				}
+
+				bytes.flip();
+				final CoderResult result = decoder.decode(bytes, chars, bEndOfInput);
+				bytes.compact();
+
+				if (result.isError())
+				{
+					// The offending input follows the characters decoded so far.
+					final int lineNumber = nLines + 1 + count(chars.array(), '\n', 0, chars.position());
+					final String format = result.isMalformed() ? MSG_MALFORMED_INPUT : MSG_UNMAPPABLE_CHARACTER;
+					throw new IOException(String.format(format, lineNumber, charset));
+				}
+
+				bFlushing = bEndOfInput && result.isUnderflow();
+			}
+
+			if (bFlushing)
+			{
+				bFlushed = decoder.flush(chars).isUnderflow();
+			}
+
+			// Add the keywords of all complete lines (and, at the end of input, of the last line).
+			final char[] a = chars.array();
+			final int end = chars.position();
+			int start = 0;
+			for (int i = scanned; i < end; i++)
+			{
+				if (a[i] == '\n')
+				{
+					nAdded += addLine(a, start, i, ++nLines, arena_);
+					if (nAdded == max)
+					{
+						return nAdded;
+					}
+					start = i + 1;
+				}
+			}
+
+			if (bFlushed && start < end)
+			{
+				nAdded += addLine(a, start, end, ++nLines, arena_);
+				start = end;
+			}
+
+			// Keep the incomplete last line, growing the buffer if the line fills more than half of it.
+			final int remaining = end - start;
+			if (2 * remaining > a.length)
+			{
+				chars = CharBuffer.allocate(2 * a.length);
+				chars.put(a, 0, remaining);
+			}
+			else
+			{
+				System.arraycopy(a, start, a, 0, remaining);
+				chars.position(remaining);
+			}
+			scanned = remaining;
+		}
+
+		return nAdded;
+	}
+
+	// =========================================================================
+	// Internal methods
+	// =========================================================================
+	/**
+	 * Adds the keyword of a line.
+	 *
+	 * @return Returns 1 if a keyword was added; 0 otherwise.
+	 */
+	private int addLine(final char[] a_, final int start_, final int end_, final int lineNumber_, final CharacterKeywordArena arena_) throws IOException
+	{
+		final int end = end_ > start_ && a_[end_ - 1] == '\r' ? end_ - 1 : end_;
+		if (end == start_)
+		{
+			return 0;
+		}
+
+		final int keywordEnd = indexOf(a_, COLUMN_SEPARATOR, start_, end);
+		if (keywordEnd == start_)
+		{
+			throw new IOException(String.format(MSG_EMPTY_KEYWORD, lineNumber_));
+		}
+
+		int flags = defaultFlags;
+		Object userData = null;
+
+		if (keywordEnd < end)
+		{
+			final int flagsEnd = indexOf(a_, COLUMN_SEPARATOR, keywordEnd + 1, end);
+			if (flagsEnd > keywordEnd + 1)
+			{
+				flags = parseFlags(a_, keywordEnd + 1, flagsEnd, lineNumber_);
+			}
+
+			if (flagsEnd + 1 < end)
+			{
+				userData = new String(a_, flagsEnd + 1, end - flagsEnd - 1);
+			}
+		}
+
+		return arena_.add(a_, start_, keywordEnd - start_, userData, flags) ? 1 : 0;
+	}
+
+	private static int count(final char[] a_, final char c_, final int start_, final int end_)
+	{
+		int n = 0;
+		for (int i = start_; i < end_; i++)
+		{
+			if (a_[i] == c_)
+			{
+				++n;
+			}
+		}
+		return n;
+	}
+
+	private static int indexOf(final char[] a_, final char c_, final int start_, final int end_)
+	{
+		for (int i = start_; i < end_; i++)
+		{
+			if (a_[i] == c_)
+			{
+				return i;
+			}
+		}
+		return end_;
+	}
+
+	private static int parseFlags(final char[] a_, final int start_, final int end_, final int lineNumber_) throws IOException
+	{
+		int flags = 0;
+		for (int i = start_; i < end_; i++)
+		{
+			final int digit = a_[i] - '0';
+			if (digit < 0 || digit > 9)
+			{
+				throw new IOException(String.format(MSG_INVALID_FLAGS, lineNumber_));
+			}
+
+			flags = 10 * flags + digit;
+			if ((flags & ~ALL_FLAGS) != 0)
+			{
+				throw new IOException(String.format(MSG_INVALID_FLAGS, lineNumber_));
+			}
+		}
+
+		return flags;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("CharacterKeywordLoader [charset=%s, defaultFlags=%d, maxKeywords=%d]", charset, defaultFlags, maxKeywords);
+	}
+}
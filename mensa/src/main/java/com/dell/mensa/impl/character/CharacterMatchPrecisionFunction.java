@@ -114,12 +114,13 @@ public class CharacterMatchPrecisionFunction extends DefaultMatchPrecisionFuncti
 	{
 		final ITailBuffer<Character> buffer = textSource_.getTailBuffer();
 		final ITailBuffer<Character> rawBuffer = textSource_.getRawTailBuffer();
-		final long bufferEnd = buffer.end();
 		final int keywordLength = keyword_.length();
 
+		// Only the matched symbols are evaluated: symbols beyond the end of the match may or may not have been read
+		// yet, and the precision must not depend on how far ahead the text source has been read.
 		double sum = 0.0;
 		long position = start_;
-		for (int i = 0; i < keywordLength && position < bufferEnd; ++i)
+		for (int i = 0; i < keywordLength && position < end_; ++i)
 		{
 			final Character keywordSymbol = keyword_.symbolAt(i);
 
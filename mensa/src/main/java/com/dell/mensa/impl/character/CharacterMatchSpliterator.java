@@ -0,0 +1,338 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.FrozenMachine;
+import com.dell.mensa.impl.generic.Match;
+import com.dell.mensa.impl.generic.MatchSession;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link CharacterMatchSpliterator} is a {@link Spliterator} over the matches found in record-delimited text (e.g., the
+ * lines of a document), enabling matches to be processed using a (possibly parallel) {@link Stream}.
+ *
+ * <p>
+ * Each record (i.e., the characters between consecutive delimiters) is matched independently, so a match never spans
+ * a record delimiter. This is equivalent to matching each record with its own text source, but a single reusable
+ * {@link CharacterSequenceTextSource} is used for all records covered by a spliterator. Match positions are reported
+ * relative to the start of the entire text.
+ * </p>
+ *
+ * <p>
+ * Splitting divides the remaining text at a record delimiter near its midpoint, so that {@link Stream#parallel()}
+ * distributes records across threads. Each spliterator uses its own {@link MatchSession}, copied from the session
+ * supplied at construction (see {@link MatchSession#copy()}). The spliterator is {@link #ORDERED} (matches are
+ * encountered in the same order as a sequential scan) and {@link #NONNULL}; its size estimate is the number of
+ * characters remaining.
+ * </p>
+ *
+ * <p>
+ * The text is never split unless the machine is a {@link FrozenMachine}, since any other machine (i.e., a
+ * {@link com.dell.mensa.impl.generic.LazyMachine}) is single-threaded; a parallel stream then matches the whole text on
+ * one thread.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ */
+public class CharacterMatchSpliterator implements Spliterator<IMatch<Character>>
+{
+	private static final String PARM_machine = "machine_";
+	private static final String PARM_session = "session_";
+	private static final String PARM_text = "text_";
+	private static final String PARM_start = "start_";
+	private static final String PARM_end = "end_";
+	private static final String PARM_action = "action_";
+
+	/**
+	 * The default record delimiter: line feed.
+	 */
+	public static final char DEFAULT_DELIMITER = AbstractCharacterTextSource.LF;
+
+	/**
+	 * Ranges smaller than this (in characters) are not split.
+	 */
+	private static final int MIN_SPLIT_SIZE = 1024;
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final MatchSession<Character> session;
+	private final CharSequence text;
+	private final char delimiter;
+	private final CharacterSequenceTextSource textSource;
+
+	private int position; // start of the next record to match
+	private final int end; // end of the range covered by this spliterator
+
+	private Iterator<IMatch<Character>> iterator; // matches in the current record
+	private int recordStart; // start of the current record
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a new instance covering the entire specified text, using {@link #DEFAULT_DELIMITER} as the record
+	 * delimiter.
+	 *
+	 * @param session_
+	 *            specifies a session defining the matching options. The session itself is never used for matching.
+	 * @param text_
+	 *            specifies the text to match.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified session or text is {@code null}.
+	 */
+	public CharacterMatchSpliterator(final MatchSession<Character> session_, final CharSequence text_)
+	{
+		this(session_, text_, DEFAULT_DELIMITER, 0, text_ == null ? 0 : text_.length());
+	}
+
+	/**
+	 * Constructs a new instance covering a range of the specified text.
+	 *
+	 * @param session_
+	 *            specifies a session defining the matching options. The session itself is never used for matching.
+	 * @param text_
+	 *            specifies the text to match.
+	 * @param delimiter_
+	 *            specifies the record delimiter.
+	 * @param start_
+	 *            specifies the start (inclusive) of the range, which should be the start of a record.
+	 * @param end_
+	 *            specifies the end (exclusive) of the range, which should be the end of a record.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified session or text is {@code null}, or if the range is not within the text.
+	 */
+	public CharacterMatchSpliterator(final MatchSession<Character> session_, final CharSequence text_, final char delimiter_, final int start_, final int end_)
+	{
+		Verify.notNull(session_, PARM_session);
+		Verify.notNull(text_, PARM_text);
+		Verify.inClosedRange(end_, 0, text_.length(), PARM_end);
+		Verify.inClosedRange(start_, 0, end_, PARM_start);
+
+		this.session = session_.copy();
+		this.text = text_;
+		this.delimiter = delimiter_;
+		this.textSource = new CharacterSequenceTextSource(text_);
+		this.position = start_;
+		this.end = end_;
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * Creates a {@link Stream} of the matches found in record-delimited text.
+	 *
+	 * @param session_
+	 *            specifies a session defining the matching options.
+	 * @param text_
+	 *            specifies the text to match, with records delimited by {@link #DEFAULT_DELIMITER}.
+	 * @param bParallel_
+	 *            specify {@code true} to create a parallel stream; {@code false} to create a sequential stream.
+	 *
+	 * @return Returns a new {@link Stream}.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified session or text is {@code null}.
+	 */
+	public static Stream<IMatch<Character>> stream(final MatchSession<Character> session_, final CharSequence text_, final boolean bParallel_)
+	{
+		return StreamSupport.stream(new CharacterMatchSpliterator(session_, text_), bParallel_);
+	}
+
+	/**
+	 * Creates a {@link Stream} of the matches found in record-delimited text using a new session of the specified
+	 * machine.
+	 *
+	 * @param machine_
+	 *            specifies the initialized machine.
+	 * @param text_
+	 *            specifies the text to match, with records delimited by {@link #DEFAULT_DELIMITER}.
+	 * @param bParallel_
+	 *            specify {@code true} to create a parallel stream; {@code false} to create a sequential stream.
+	 *
+	 * @return Returns a new {@link Stream}.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified machine or text is {@code null}.
+	 */
+	public static Stream<IMatch<Character>> stream(final AhoCorasickMachine<Character> machine_, final CharSequence text_, final boolean bParallel_)
+	{
+		Verify.notNull(machine_, PARM_machine);
+		return stream(machine_.createSession(), text_, bParallel_);
+	}
+
+	// =========================================================================
+	// Spliterator methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Spliterator#characteristics()
+	 */
+	@Override
+	public int characteristics()
+	{
+		return ORDERED | NONNULL;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Spliterator#estimateSize()
+	 */
+	@Override
+	public long estimateSize()
+	{
+		return end - position;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Spliterator#tryAdvance(java.util.function.Consumer)
+	 */
+	@Override
+	public boolean tryAdvance(final Consumer<? super IMatch<Character>> action_)
+	{
+		Verify.notNull(action_, PARM_action);
+
+		try
+		{
+			while (iterator == null || !iterator.hasNext())
+			{
+				if (!nextRecord())
+				{
+					return false;
+				}
+			}
+
+			action_.accept(relocate(iterator.next()));
+			return true;
+		}
+		catch (final IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Spliterator#trySplit()
+	 */
+	@Override
+	public Spliterator<IMatch<Character>> trySplit()
+	{
+		// A prefix can only be split off between records.
+		if (iterator != null || end - position < MIN_SPLIT_SIZE || !(session.getMachine() instanceof FrozenMachine))
+		{
+			return null;
+		}
+
+		final int split = indexOfDelimiter(position + (end - position) / 2) + 1;
+		if (split >= end)
+		{
+			return null;
+		}
+
+		final CharacterMatchSpliterator prefix = new CharacterMatchSpliterator(session, text, delimiter, position, split);
+		position = split;
+		return prefix;
+	}
+
+	// =========================================================================
+	// Internal methods
+	// =========================================================================
+	private int indexOfDelimiter(final int from_)
+	{
+		for (int i = from_; i < end; i++)
+		{
+			if (text.charAt(i) == delimiter)
+			{
+				return i;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Closes the current record, if any, and opens the next record, if any.
+	 *
+	 * @return Returns {@code true} if a record was opened; {@code false} if there are no more records.
+	 *
+	 * @throws IOException
+	 *             if an error occurs opening or closing the text source.
+	 */
+	private boolean nextRecord() throws IOException
+	{
+		if (iterator != null)
+		{
+			iterator = null;
+			textSource.close();
+		}
+
+		if (position >= end)
+		{
+			return false;
+		}
+
+		final int recordEnd = indexOfDelimiter(position);
+		recordStart = position;
+		position = recordEnd + 1;
+
+		textSource.setRange(recordStart, recordEnd);
+		textSource.open();
+		iterator = session.matchIterator(textSource);
+		return true;
+	}
+
+	/**
+	 * Converts a match reported relative to the current record into a match relative to the entire text.
+	 *
+	 * @param match_
+	 *            the match to convert.
+	 *
+	 * @return Returns the converted match.
+	 */
+	private IMatch<Character> relocate(final IMatch<Character> match_)
+	{
+		final Match<Character> match = new Match<>(match_.getMachine(), match_.getKeyword(), recordStart + match_.getStart(), recordStart
+				+ match_.getEnd());
+		match.setPrecision(match_.getPrecision());
+		match.setRawSymbols(match_.getRawSymbols());
+		return match;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("CharacterMatchSpliterator [position=%s, end=%s, delimiter=%s]", position, end, (int) delimiter);
+	}
+}
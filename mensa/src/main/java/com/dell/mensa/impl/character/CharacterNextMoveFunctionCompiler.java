@@ -0,0 +1,407 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntBinaryOperator;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import com.dell.mensa.IEdge;
+import com.dell.mensa.IEdgeMap;
+import com.dell.mensa.IGotoFunction;
+import com.dell.mensa.INextMoveFunction;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link CharacterNextMoveFunctionCompiler} translates a complete {@link INextMoveFunction} into Java source code for a
+ * specialized class in which every state is a {@code switch} statement over the {@code char} value of the input
+ * symbol, then compiles and loads that class in-process using the system {@link JavaCompiler}.
+ *
+ * <p>
+ * The generated class implements {@link IntBinaryOperator}, mapping a state and a {@code char} value to the next state
+ * (or {@link IGotoFunction#NO_STATE} for an unknown state). Because it depends on no Mensa types, it can be compiled
+ * without a classpath and loaded by an isolated class loader, which allows it to be unloaded together with the
+ * {@link CharacterCompiledNextMoveFunction} that wraps it.
+ * </p>
+ *
+ * <p>
+ * Compilation is strictly optional: {@link #compile(INextMoveFunction, int)} returns {@code null} when no compiler is
+ * available (e.g., when running on a JRE) or when the machine is too large for the generated code to fit within the
+ * limits of the class file format.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ */
+public class CharacterNextMoveFunctionCompiler
+{
+	private static final String PARM_maxStates = "maxStates_";
+	private static final String PARM_nextMoveFunction = "nextMoveFunction_";
+	private static final String PARM_numStates = "numStates_";
+
+	private static final String CLASS_NAME = "GeneratedNextMoveFunction";
+
+	/**
+	 * The default maximum number of states that will be compiled.
+	 */
+	public static final int DEFAULT_MAX_STATES = 4096;
+
+	/**
+	 * The maximum number of explicit edges compiled into a single state method; this keeps every generated method well
+	 * below the 64KB bytecode limit.
+	 */
+	private static final int MAX_STATE_EDGES = 4096;
+
+	/**
+	 * States are dispatched in groups of 2<sup>{@value #LOG2_GROUP_SIZE}</sup> so that no single {@code switch}
+	 * statement grows with the size of the machine.
+	 */
+	private static final int LOG2_GROUP_SIZE = 8;
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final int maxStates;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a new instance that compiles machines of up to the specified number of states.
+	 *
+	 * @param maxStates_
+	 *            specifies the maximum number of states to compile.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified number of states is not positive.
+	 */
+	public CharacterNextMoveFunctionCompiler(final int maxStates_)
+	{
+		Verify.isPositive(maxStates_, PARM_maxStates);
+
+		this.maxStates = maxStates_;
+	}
+
+	/**
+	 * Constructs a new instance that compiles machines of up to {@value #DEFAULT_MAX_STATES} states.
+	 */
+	public CharacterNextMoveFunctionCompiler()
+	{
+		this(DEFAULT_MAX_STATES);
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * @return Returns the maximum number of states to compile.
+	 */
+	public int getMaxStates()
+	{
+		return maxStates;
+	}
+
+	/**
+	 * Compiles a complete next move function.
+	 *
+	 * @param nextMoveFunction_
+	 *            specifies the next move function to compile.
+	 * @param numStates_
+	 *            specifies the number of states of the machine.
+	 *
+	 * @return Returns an equivalent {@link CharacterCompiledNextMoveFunction} or {@code null} if the specified function
+	 *         cannot be compiled.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified function is {@code null} or the number of states is negative.
+	 */
+	public CharacterCompiledNextMoveFunction compile(final INextMoveFunction<Character> nextMoveFunction_,
+			final int numStates_)
+	{
+		Verify.notNull(nextMoveFunction_, PARM_nextMoveFunction);
+		Verify.notNegative(numStates_, PARM_numStates);
+
+		if (numStates_ > maxStates)
+		{
+			return null;
+		}
+
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null)
+		{
+			return null;
+		}
+
+		final String source = generateSource(nextMoveFunction_, numStates_);
+		if (source == null)
+		{
+			return null;
+		}
+
+		final IntBinaryOperator operator = compileOperator(compiler, source);
+		return operator == null ? null : new CharacterCompiledNextMoveFunction(nextMoveFunction_, operator);
+	}
+
+	/**
+	 * Generates the source code of the class that implements the specified next move function.
+	 *
+	 * @param nextMoveFunction_
+	 *            specifies the next move function.
+	 * @param numStates_
+	 *            specifies the number of states of the machine.
+	 *
+	 * @return Returns the generated source code or {@code null} if some state has too many edges to be compiled.
+	 */
+	public static String generateSource(final INextMoveFunction<Character> nextMoveFunction_, final int numStates_)
+	{
+		final StringBuilder sb = new StringBuilder();
+		final int numGroups = (numStates_ + (1 << LOG2_GROUP_SIZE) - 1) >>> LOG2_GROUP_SIZE;
+
+		sb.append("public final class ").append(CLASS_NAME).append(" implements java.util.function.IntBinaryOperator\n");
+		sb.append("{\n");
+
+		// Top-level dispatch by group
+		sb.append("\tpublic int applyAsInt(final int s, final int c)\n\t{\n");
+		sb.append("\t\tswitch (s >>> ").append(LOG2_GROUP_SIZE).append(")\n\t\t{\n");
+		for (int group = 0; group < numGroups; ++group)
+		{
+			sb.append("\t\tcase ").append(group).append(": return g").append(group).append("(s, c);\n");
+		}
+		sb.append("\t\tdefault: return ").append(IGotoFunction.NO_STATE).append(";\n\t\t}\n\t}\n");
+
+		// Group dispatch by state
+		for (int group = 0; group < numGroups; ++group)
+		{
+			sb.append("\tprivate static int g").append(group).append("(final int s, final int c)\n\t{\n");
+			sb.append("\t\tswitch (s)\n\t\t{\n");
+			final int lastState = Math.min(numStates_, (group + 1) << LOG2_GROUP_SIZE);
+			for (int state = group << LOG2_GROUP_SIZE; state < lastState; ++state)
+			{
+				if (nextMoveFunction_.getEdgeMap(state) != null)
+				{
+					sb.append("\t\tcase ").append(state).append(": return s").append(state).append("(c);\n");
+				}
+			}
+			sb.append("\t\tdefault: return ").append(IGotoFunction.NO_STATE).append(";\n\t\t}\n\t}\n");
+		}
+
+		// State transitions
+		for (int state = 0; state < numStates_; ++state)
+		{
+			final IEdgeMap<Character> edgeMap = nextMoveFunction_.getEdgeMap(state);
+			if (edgeMap == null)
+			{
+				continue;
+			}
+			if (!generateState(sb, state, edgeMap))
+			{
+				return null;
+			}
+		}
+
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("CharacterNextMoveFunctionCompiler [maxStates=%s]", maxStates);
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static boolean generateState(final StringBuilder sb_, final int state_, final IEdgeMap<Character> edgeMap_)
+	{
+		final Map<Character, Integer> edges = new HashMap<>();
+		for (final IEdge<Character> edge : edgeMap_.getEdges())
+		{
+			if (edge.getSymbol() != null)
+			{
+				edges.put(edge.getSymbol(), Integer.valueOf(edge.getState()));
+			}
+		}
+
+		if (edges.size() > MAX_STATE_EDGES)
+		{
+			return false;
+		}
+
+		final Character[] symbols = edges.keySet().toArray(new Character[edges.size()]);
+		Arrays.sort(symbols);
+
+		sb_.append("\tprivate static int s").append(state_).append("(final int c)\n\t{\n");
+		if (symbols.length > 0)
+		{
+			sb_.append("\t\tswitch (c)\n\t\t{\n");
+			for (final Character a : symbols)
+			{
+				sb_.append("\t\tcase ").append((int) a.charValue()).append(": return ").append(edges.get(a)).append(";\n");
+			}
+			sb_.append("\t\tdefault: break;\n\t\t}\n");
+		}
+		sb_.append("\t\treturn ").append(edgeMap_.get(null)).append(";\n\t}\n");
+		return true;
+	}
+
+	private static IntBinaryOperator compileOperator(final JavaCompiler compiler_, final String source_)
+	{
+		final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		final StandardJavaFileManager standardFileManager = compiler_.getStandardFileManager(diagnostics, null, null);
+		final ClassFileManager fileManager = new ClassFileManager(standardFileManager);
+		try
+		{
+			final JavaFileObject sourceFile = new SourceFileObject(CLASS_NAME, source_);
+			final boolean bSuccess = compiler_.getTask(null, fileManager, diagnostics, Arrays.asList("-g:none"), null,
+					Collections.singletonList(sourceFile)).call().booleanValue();
+			if (!bSuccess || fileManager.classFile == null)
+			{
+				return null;
+			}
+
+			final Class<?> clazz = new GeneratedClassLoader().define(CLASS_NAME, fileManager.classFile.toByteArray());
+			return (IntBinaryOperator) clazz.getConstructor().newInstance();
+		}
+		catch (final ReflectiveOperationException | LinkageError e)
+		{
+			return null;
+		}
+		finally
+		{
+			try
+			{
+				fileManager.close();
+			}
+			catch (final IOException e)
+			{
+				// Nothing was written to disk; ignore.
+			}
+		}
+	}
+
+	// =========================================================================
+	// SourceFileObject
+	// =========================================================================
+	private static class SourceFileObject extends SimpleJavaFileObject
+	{
+		private final String source;
+
+		SourceFileObject(final String className_, final String source_)
+		{
+			super(URI.create("string:///" + className_ + Kind.SOURCE.extension), Kind.SOURCE);
+			this.source = source_;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see javax.tools.SimpleJavaFileObject#getCharContent(boolean)
+		 */
+		@Override
+		public CharSequence getCharContent(final boolean ignoreEncodingErrors_)
+		{
+			return source;
+		}
+	}
+
+	// =========================================================================
+	// ClassFileObject
+	// =========================================================================
+	private static class ClassFileObject extends SimpleJavaFileObject
+	{
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		ClassFileObject(final String className_)
+		{
+			super(URI.create("bytes:///" + className_ + Kind.CLASS.extension), Kind.CLASS);
+		}
+
+		byte[] toByteArray()
+		{
+			return bytes.toByteArray();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see javax.tools.SimpleJavaFileObject#openOutputStream()
+		 */
+		@Override
+		public OutputStream openOutputStream()
+		{
+			return bytes;
+		}
+	}
+
+	// =========================================================================
+	// ClassFileManager
+	// =========================================================================
+	private static class ClassFileManager extends ForwardingJavaFileManager<JavaFileManager>
+	{
+		ClassFileObject classFile;
+
+		ClassFileManager(final JavaFileManager fileManager_)
+		{
+			super(fileManager_);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see javax.tools.ForwardingJavaFileManager#getJavaFileForOutput(javax.tools.JavaFileManager.Location,
+		 * java.lang.String, javax.tools.JavaFileObject.Kind, javax.tools.FileObject)
+		 */
+		@Override
+		public JavaFileObject getJavaFileForOutput(final Location location_, final String className_,
+				final JavaFileObject.Kind kind_, final FileObject sibling_)
+		{
+			classFile = new ClassFileObject(className_);
+			return classFile;
+		}
+	}
+
+	// =========================================================================
+	// GeneratedClassLoader
+	// =========================================================================
+	private static class GeneratedClassLoader extends ClassLoader
+	{
+		GeneratedClassLoader()
+		{
+			super(CharacterNextMoveFunctionCompiler.class.getClassLoader());
+		}
+
+		Class<?> define(final String className_, final byte[] bytes_)
+		{
+			return defineClass(className_, bytes_, 0, bytes_.length);
+		}
+	}
+}
@@ -0,0 +1,355 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import com.dell.mensa.IPatternKeyword;
+import com.dell.mensa.impl.generic.AbstractKeyword;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link CharacterPatternKeyword} is a {@link Character}-valued {@link IPatternKeyword} defined by a simple pattern
+ * syntax:
+ *
+ * <ul>
+ *
+ * <li>{@code ?} matches any single symbol;</li>
+ *
+ * <li>{@code [...]} matches any single symbol of a character class, which is a list of characters and character
+ * ranges (e.g., {@code [0-9a-f]}); a class beginning with {@code ^} matches any symbol <i>not</i> listed;</li>
+ *
+ * <li>{@code \} escapes the following character, both inside and outside a class; and</li>
+ *
+ * <li>any other character matches itself, subject to the usual case, punctuation, and whitespace extensions.</li>
+ *
+ * </ul>
+ *
+ * <p>
+ * For example, {@code "ID-[0-9][0-9]??"} matches {@code "ID-42ab"} but not {@code "ID-4x2a"}.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterPatternKeyword extends AbstractKeyword<Character> implements IPatternKeyword<Character>
+{
+	private static final String PARM_pattern = "pattern_";
+
+	private static final String MSG_INVALID_PATTERN = "invalid pattern at index %d: %s";
+
+	private static final char ESCAPE = '\\';
+	private static final char WILDCARD = '?';
+	private static final char CLASS_BEGIN = '[';
+	private static final char CLASS_END = ']';
+	private static final char CLASS_NEGATE = '^';
+	private static final char CLASS_RANGE = '-';
+
+	/**
+	 * The symbol returned by {@link #symbolAt(int)} at class positions.
+	 */
+	public static final char PLACEHOLDER = '\uFFFF';
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final String pattern;
+	private final char[] symbols;
+	private final CharacterClass[] classes;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a keyword instance based on the specified pattern, user data, and bit flags.
+	 *
+	 * @param pattern_
+	 *            the pattern defining the keyword.
+	 * @param userData_
+	 *            specifies user an arbitrary user data object to associate with this keyword; may be {@code null}.
+	 * @param flags_
+	 *            specifies bit flags that control various keyword features. To specify multiple bit flags, OR together
+	 *            individual bit values, e.g., {@link #CASE_SENSITIVE}|{@link #PUNCTUATION_SENSITIVE}.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified pattern is null, empty, or malformed, or if the specified flags contain unknown
+	 *             values
+	 */
+	public CharacterPatternKeyword(final String pattern_, final Object userData_, final int flags_)
+	{
+		super(userData_, flags_);
+
+		Verify.notEmpty(pattern_, PARM_pattern);
+		this.pattern = pattern_;
+
+		final StringBuilder sb = new StringBuilder(pattern_.length());
+		final List<CharacterClass> classList = new ArrayList<>(pattern_.length());
+
+		int i = 0;
+		while (i < pattern_.length())
+		{
+			final char c = pattern_.charAt(i++);
+			if (c == ESCAPE)
+			{
+				sb.append(charAt(pattern_, i++));
+				classList.add(null);
+			}
+			else if (c == WILDCARD)
+			{
+				sb.append(PLACEHOLDER);
+				classList.add(new CharacterClass(new char[0], true));
+			}
+			else if (c == CLASS_BEGIN)
+			{
+				final boolean bNegated = i < pattern_.length() && pattern_.charAt(i) == CLASS_NEGATE;
+				if (bNegated)
+				{
+					++i;
+				}
+
+				final StringBuilder ranges = new StringBuilder();
+				while (charAt(pattern_, i) != CLASS_END)
+				{
+					char lo = pattern_.charAt(i++);
+					if (lo == ESCAPE)
+					{
+						lo = charAt(pattern_, i++);
+					}
+
+					char hi = lo;
+					if (charAt(pattern_, i) == CLASS_RANGE && charAt(pattern_, i + 1) != CLASS_END)
+					{
+						hi = pattern_.charAt(i + 1);
+						i += 2;
+						if (hi == ESCAPE)
+						{
+							hi = charAt(pattern_, i++);
+						}
+						if (hi < lo)
+						{
+							throw invalidPattern(i - 1);
+						}
+					}
+					ranges.append(lo).append(hi);
+				}
+				++i; // CLASS_END
+
+				if (ranges.length() == 0)
+				{
+					throw invalidPattern(i - 1);
+				}
+
+				sb.append(PLACEHOLDER);
+				classList.add(new CharacterClass(ranges.toString().toCharArray(), bNegated));
+			}
+			else
+			{
+				sb.append(c);
+				classList.add(null);
+			}
+		}
+
+		this.symbols = sb.toString().toCharArray();
+		this.classes = classList.toArray(new CharacterClass[classList.size()]);
+	}
+
+	/**
+	 * Constructs a keyword instance based on the specified pattern and user data and no flags.
+	 *
+	 * @param pattern_
+	 *            the pattern defining the keyword.
+	 * @param userData_
+	 *            specifies user an arbitrary user data object to associate with this keyword; may be {@code null}.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified pattern is null, empty, or malformed
+	 */
+	public CharacterPatternKeyword(final String pattern_, final Object userData_)
+	{
+		this(pattern_, userData_, 0);
+	}
+
+	/**
+	 * Constructs a keyword instance based on the specified pattern and no user data and no flags.
+	 *
+	 * @param pattern_
+	 *            the pattern defining the keyword.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified pattern is null, empty, or malformed
+	 */
+	public CharacterPatternKeyword(final String pattern_)
+	{
+		this(pattern_, null, 0);
+	}
+
+	// =========================================================================
+	// AbstractKeyword methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.impl.generic.AbstractKeyword#asString()
+	 */
+	@Override
+	protected String asString()
+	{
+		return pattern;
+	}
+
+	// =========================================================================
+	// IKeyword methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.IKeyword#length()
+	 */
+	@Override
+	public int length()
+	{
+		return symbols.length;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.IKeyword#symbolAt(int)
+	 */
+	@Override
+	public Character symbolAt(final int index_)
+	{
+		return symbols[index_];
+	}
+
+	// =========================================================================
+	// IPatternKeyword methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.IPatternKeyword#classAt(int)
+	 */
+	@Override
+	public Predicate<Character> classAt(final int index_)
+	{
+		return classes[index_];
+	}
+
+	// =========================================================================
+	// hashCode() and equals()
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.impl.generic.AbstractKeyword#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return 31 * super.hashCode() + pattern.hashCode();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.impl.generic.AbstractKeyword#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object object_)
+	{
+		return object_ instanceof CharacterPatternKeyword && super.equals(object_) && pattern.equals(((CharacterPatternKeyword) object_).pattern);
+	}
+
+	// =========================================================================
+	// Internal methods
+	// =========================================================================
+	private char charAt(final String pattern_, final int index_)
+	{
+		if (index_ >= pattern_.length())
+		{
+			throw invalidPattern(index_);
+		}
+		return pattern_.charAt(index_);
+	}
+
+	private IllegalArgumentException invalidPattern(final int index_)
+	{
+		final String msg = String.format(MSG_INVALID_PATTERN, index_, pattern);
+		return new IllegalArgumentException(msg);
+	}
+
+	// =========================================================================
+	// class: CharacterClass
+	// =========================================================================
+	/**
+	 * {@link CharacterClass} is a set of character ranges, or the complement of such a set.
+	 *
+	 * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+	 *
+	 */
+	private static class CharacterClass implements Predicate<Character>
+	{
+		private final char[] ranges;
+		private final boolean bNegated;
+
+		/**
+		 * @param ranges_
+		 *            specifies the inclusive bounds of each range, in pairs.
+		 * @param bNegated_
+		 *            specifies whether the class is the complement of the ranges.
+		 */
+		public CharacterClass(final char[] ranges_, final boolean bNegated_)
+		{
+			this.ranges = ranges_;
+			this.bNegated = bNegated_;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.util.function.Predicate#test(java.lang.Object)
+		 */
+		@Override
+		public boolean test(final Character a_)
+		{
+			if (a_ == null)
+			{
+				return false;
+			}
+
+			final char c = a_.charValue();
+			for (int i = 0; i < ranges.length; i += 2)
+			{
+				if (ranges[i] <= c && c <= ranges[i + 1])
+				{
+					return !bNegated;
+				}
+			}
+			return bNegated;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString()
+		{
+			return String.format("CharacterClass [ranges=%s, bNegated=%s]", Arrays.toString(ranges), bNegated);
+		}
+	}
+}
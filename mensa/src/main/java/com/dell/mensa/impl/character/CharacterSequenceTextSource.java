@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.io.Reader;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link CharacterSequenceTextSource} is a concrete {@link ITextSource} for reading {@link Character} symbols from a
+ * range of a {@link CharSequence}.
+ *
+ * <p>
+ * Unlike {@link CharacterStringTextSource}, this text source reads directly from the character sequence, without
+ * copying or buffering, and the range may be changed (via {@link #setRange(int, int)}) between uses. Since its tail
+ * buffers are reused when it is reopened, a single instance can be used to match a long series of short
+ * records (e.g., the lines of a document) without allocating per-record objects. Positions reported by this text
+ * source are relative to the start of the current range.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ */
+public class CharacterSequenceTextSource extends AbstractCharacterTextSource
+{
+	private static final String PARM_start = "start_";
+	private static final String PARM_end = "end_";
+	private static final String PARM_text = "text_";
+
+	private static final String MSG_OPEN = "range cannot be changed while the text source is open";
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final CharSequence text;
+	private final SequenceReader reader;
+	private int start;
+	private int end;
+
+	/**
+	 * @return Returns the start (inclusive) of the current range.
+	 */
+	public int getStart()
+	{
+		return start;
+	}
+
+	/**
+	 * @return Returns the end (exclusive) of the current range.
+	 */
+	public int getEnd()
+	{
+		return end;
+	}
+
+	/**
+	 * Sets the range of the character sequence read by this text source.
+	 *
+	 * @param start_
+	 *            specifies the start (inclusive) of the range.
+	 * @param end_
+	 *            specifies the end (exclusive) of the range.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified range is not within the character sequence.
+	 *
+	 * @throws IllegalStateException
+	 *             if this text source is open.
+	 */
+	public void setRange(final int start_, final int end_)
+	{
+		Verify.condition(!isOpen(), MSG_OPEN);
+		Verify.inClosedRange(end_, 0, text.length(), PARM_end);
+		Verify.inClosedRange(start_, 0, end_, PARM_start);
+
+		this.start = start_;
+		this.end = end_;
+	}
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a new instance that reads {@link Character} symbols from the entire specified character sequence.
+	 *
+	 * @param text_
+	 *            the character sequence containing the {@link Character} symbols.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified character sequence is {@code null}
+	 */
+	public CharacterSequenceTextSource(final CharSequence text_)
+	{
+		super();
+		Verify.notNull(text_, PARM_text);
+		this.text = text_;
+		this.reader = new SequenceReader();
+		this.start = 0;
+		this.end = text_.length();
+	}
+
+	// =========================================================================
+	// AbstractCharacterTextSource abstract methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.impl.character.AbstractCharacterTextSource#getReader()
+	 */
+	@Override
+	protected Reader getReader() throws IOException
+	{
+		reader.position = start;
+		return reader;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.impl.character.AbstractCharacterTextSource#isReaderBuffered()
+	 */
+	@Override
+	protected boolean isReaderBuffered()
+	{
+		return true;
+	}
+
+	// =========================================================================
+	// AbstractTextSource methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.impl.generic.AbstractTextSource#isTailBufferReused()
+	 */
+	@Override
+	protected boolean isTailBufferReused()
+	{
+		return true;
+	}
+
+	// =========================================================================
+	// class: SequenceReader
+	// =========================================================================
+	/**
+	 * A reusable {@link Reader} over the current range of {@link #text}.
+	 */
+	private class SequenceReader extends Reader
+	{
+		private int position;
+
+		@Override
+		public void close()
+		{
+			// Nothing to release; the reader is reused.
+		}
+
+		@Override
+		public int read()
+		{
+			return position < end ? text.charAt(position++) : -1;
+		}
+
+		@Override
+		public int read(final char[] cbuf_, final int off_, final int len_)
+		{
+			if (position >= end)
+			{
+				return -1;
+			}
+
+			final int n = Math.min(len_, end - position);
+			for (int i = 0; i < n; i++)
+			{
+				cbuf_[off_ + i] = text.charAt(position++);
+			}
+			return n;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.util.Collection;
+import java.util.function.Predicate;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link CharacterSymbolFilter} is a {@link Predicate} that accepts a fixed set of {@link Character} symbols. Membership
+ * is recorded in a bitmap covering the entire {@code char} range, so a test costs a single array access.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ */
+public class CharacterSymbolFilter implements Predicate<Character>
+{
+	private static final String PARM_symbols = "symbols_";
+
+	private static final int BITS_PER_WORD = Long.SIZE;
+	private static final int LOG2_BITS_PER_WORD = 6;
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final long[] bitmap;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a new instance that accepts the specified symbols.
+	 *
+	 * @param symbols_
+	 *            specifies the symbols to accept; {@code null} elements are ignored.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified collection is {@code null}.
+	 */
+	public CharacterSymbolFilter(final Collection<Character> symbols_)
+	{
+		Verify.notNull(symbols_, PARM_symbols);
+
+		bitmap = new long[(Character.MAX_VALUE + 1) / BITS_PER_WORD];
+		for (final Character a : symbols_)
+		{
+			if (a != null)
+			{
+				final char c = a.charValue();
+				bitmap[c >>> LOG2_BITS_PER_WORD] |= 1L << c;
+			}
+		}
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * Tests a primitive {@code char} value, avoiding boxing.
+	 *
+	 * @param c_
+	 *            the character to test.
+	 *
+	 * @return Returns {@code true} if the character is accepted; {@code false} otherwise.
+	 */
+	public boolean test(final char c_)
+	{
+		return (bitmap[c_ >>> LOG2_BITS_PER_WORD] & (1L << c_)) != 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.function.Predicate#test(java.lang.Object)
+	 */
+	@Override
+	public boolean test(final Character a_)
+	{
+		return a_ != null && test(a_.charValue());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		int n = 0;
+		for (final long word : bitmap)
+		{
+			n += Long.bitCount(word);
+		}
+		return String.format("CharacterSymbolFilter [size=%s]", n);
+	}
+}
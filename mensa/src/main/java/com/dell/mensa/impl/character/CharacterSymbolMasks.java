@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link CharacterSymbolMasks} is a {@link ToLongFunction} that maps a fixed set of {@link Character} symbols to bit
+ * masks, and every other symbol to zero. The masks are recorded in a {@code long[]} table indexed by {@code char},
+ * covering the range up to the greatest symbol, so a lookup costs a single array access.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ */
+public class CharacterSymbolMasks implements ToLongFunction<Character>
+{
+	private static final String PARM_masks = "masks_";
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final long[] table;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a new instance that maps the specified symbols to their masks.
+	 *
+	 * @param masks_
+	 *            specifies the bit mask of each symbol; {@code null} keys and values are ignored.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified map is {@code null}.
+	 */
+	public CharacterSymbolMasks(final Map<Character, Long> masks_)
+	{
+		Verify.notNull(masks_, PARM_masks);
+
+		int size = 0;
+		for (final Character a : masks_.keySet())
+		{
+			if (a != null)
+			{
+				size = Math.max(size, a.charValue() + 1);
+			}
+		}
+
+		table = new long[size];
+		for (final Map.Entry<Character, Long> entry : masks_.entrySet())
+		{
+			if (entry.getKey() != null && entry.getValue() != null)
+			{
+				table[entry.getKey().charValue()] = entry.getValue().longValue();
+			}
+		}
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * Looks up the mask of a primitive {@code char} value, avoiding boxing.
+	 *
+	 * @param c_
+	 *            the character to look up.
+	 *
+	 * @return Returns the mask of the character, or zero if it has none.
+	 */
+	public long applyAsLong(final char c_)
+	{
+		return c_ < table.length ? table[c_] : 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.function.ToLongFunction#applyAsLong(java.lang.Object)
+	 */
+	@Override
+	public long applyAsLong(final Character a_)
+	{
+		return a_ == null ? 0 : applyAsLong(a_.charValue());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		int n = 0;
+		for (final long mask : table)
+		{
+			if (mask != 0)
+			{
+				++n;
+			}
+		}
+		return String.format("CharacterSymbolMasks [size=%s]", n);
+	}
+}
@@ -13,6 +13,7 @@
 package com.dell.mensa.impl.generic;
 
 import java.io.IOException;
+import java.util.function.Predicate;
 import com.dell.mensa.ITailBuffer;
 import com.dell.mensa.ITextSource;
 import com.dell.mensa.util.Verify;
@@ -81,12 +82,14 @@ public abstract class AbstractTextSource<S> implements ITextSource<S>
 	private ITailBuffer<S> nextSymbolBuffer;
 
 	/**
-	 * A {@link ITailBuffer} view of the effective symbol stream. Defined only when this {@link ITextSource} is open.
+	 * A {@link ITailBuffer} view of the effective symbol stream. Defined only when this {@link ITextSource} is open,
+	 * unless tail buffers are reused (see {@link #isTailBufferReused()}).
 	 */
 	private ITailBuffer<S> buffer;
 
 	/**
-	 * A {@link ITailBuffer} view of the raw symbol input stream. Defined only when this {@link ITextSource} is open.
+	 * A {@link ITailBuffer} view of the raw symbol input stream. Defined only when this {@link ITextSource} is open,
+	 * unless tail buffers are reused (see {@link #isTailBufferReused()}).
 	 */
 	private ITailBuffer<S> rawBuffer;
 
@@ -100,6 +103,20 @@ public abstract class AbstractTextSource<S> implements ITextSource<S>
 	 */
 	private ITailBuffer<S> readOnlyBuffer;
 
+	/**
+	 * The positions of the most recently consumed effective symbols, used as a circular buffer indexed by the ordinal
+	 * of each symbol (i.e., the number of effective symbols consumed before it) modulo its length. Defined as for
+	 * {@link #buffer}.
+	 *
+	 * @see #getPositionBefore(long, int)
+	 */
+	private long[] symbolPositions;
+
+	/**
+	 * The number of effective symbols consumed since the text source was opened.
+	 */
+	private long numSymbols;
+
 	// =========================================================================
 	// Abstract methods
 	// =========================================================================
@@ -135,6 +152,22 @@ public abstract class AbstractTextSource<S> implements ITextSource<S>
 	 */
 	protected abstract S readImpl(final ITailBuffer<S> buffer_) throws IOException;
 
+	// =========================================================================
+	// Protected methods
+	// =========================================================================
+	/**
+	 * Determines if the tail buffers are retained when this text source is closed, to be reused if it is opened again.
+	 * By default, they are released when closed. A derived class that is typically opened many times (e.g., once per
+	 * short record) may override this method to avoid allocating new tail buffers each time. Retained buffers are
+	 * inaccessible while the text source is closed.
+	 *
+	 * @return Returns {@code true} if tail buffers are reused; {@code false} otherwise.
+	 */
+	protected boolean isTailBufferReused()
+	{
+		return false;
+	}
+
 	// =========================================================================
 	// ITextSource methods
 	// =========================================================================
@@ -151,11 +184,16 @@ public abstract class AbstractTextSource<S> implements ITextSource<S>
 		{
 			closeImpl();
 			bOpen = false;
-			buffer = null;
-			rawBuffer = null;
-			readOnlyBuffer = null;
-			readOnlyRawBuffer = null;
-			nextSymbolBuffer = null;
+
+			if (!isTailBufferReused())
+			{
+				buffer = null;
+				rawBuffer = null;
+				readOnlyBuffer = null;
+				readOnlyRawBuffer = null;
+				nextSymbolBuffer = null;
+				symbolPositions = null;
+			}
 		}
 	}
 
@@ -181,6 +219,33 @@ public abstract class AbstractTextSource<S> implements ITextSource<S>
 		return buffer.end();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.ITextSource#getPositionBefore(long, int)
+	 */
+	@Override
+	public long getPositionBefore(final long position_, final int count_)
+	{
+		verifyOpen();
+
+		// The ordinal of the first effective symbol at or after the position.
+		final long ordinal = position_ == buffer.end() ? numSymbols : findOrdinal(position_);
+		final long target = ordinal - count_;
+
+		if (count_ > 0 && target >= Math.max(0, numSymbols - symbolPositions.length))
+		{
+			final long result = symbolPositions[(int) (target % symbolPositions.length)];
+			if (result >= buffer.start())
+			{
+				return result;
+			}
+		}
+
+		// Let the backward walk report an out-of-range position.
+		return ITextSource.super.getPositionBefore(position_, count_);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -247,13 +312,27 @@ public abstract class AbstractTextSource<S> implements ITextSource<S>
 
 		position = -1;
 
-		buffer = new TailBuffer<>(BUFFER_CAPACITY);
-		rawBuffer = new TailBuffer<>(BUFFER_CAPACITY);
+		if (buffer == null)
+		{
+			buffer = new TailBuffer<>(BUFFER_CAPACITY);
+			rawBuffer = new TailBuffer<>(BUFFER_CAPACITY);
 
-		nextSymbolBuffer = new TailBuffer<>(MAX_NEXT_SYMBOL_SIZE);
+			nextSymbolBuffer = new TailBuffer<>(MAX_NEXT_SYMBOL_SIZE);
 
-		readOnlyBuffer = new ReadOnlyTailBuffer<>(buffer);
-		readOnlyRawBuffer = new ReadOnlyTailBuffer<>(rawBuffer);
+			readOnlyBuffer = new ReadOnlyTailBuffer<>(buffer);
+			readOnlyRawBuffer = new ReadOnlyTailBuffer<>(rawBuffer);
+
+			symbolPositions = new long[BUFFER_CAPACITY];
+		}
+		else
+		{
+			// Reopening: reuse the tail buffers from the previous opening; see isTailBufferReused().
+			buffer.clear();
+			rawBuffer.clear();
+			nextSymbolBuffer.clear();
+		}
+
+		numSymbols = 0;
 
 		// Prime the pump!
 		loadNextSymbol();
@@ -314,27 +393,57 @@ public abstract class AbstractTextSource<S> implements ITextSource<S>
 			throw new IOException(MSG_AT_EOF);
 		}
 
-		final S symbol = nextSymbol;
-		assert symbol != null;
+		return consumeNextSymbol();
+	}
 
-		// Add next symbol to the effective symbol buffer.
-		buffer.add(symbol);
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.ITextSource#skip(long)
+	 */
+	@Override
+	public long skip(final long count_) throws IOException
+	{
+		verifyOpen();
 
-		// Move raw symbol(s) from nextSymbolBuffer to rawBuffer.
-		while (!nextSymbolBuffer.isEmpty())
+		if (position != -1)
 		{
-			rawBuffer.add(nextSymbolBuffer.remove());
+			// Re-reading previously read symbols; this is never a long run.
+			return ITextSource.super.skip(count_);
 		}
 
-		// Add additional null symbols to the effective symbol buffer for each additional
-		// raw symbol that was consumed, if any.
-		while (buffer.end() < rawBuffer.end())
+		long n = 0;
+		while (n < count_ && nextSymbol != null)
 		{
-			buffer.add(null);
+			consumeNextSymbol();
+			++n;
 		}
+		return n;
+	}
 
-		loadNextSymbol();
-		return symbol;
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.ITextSource#skip(java.util.function.Predicate)
+	 */
+	@Override
+	public long skip(final Predicate<? super S> stop_) throws IOException
+	{
+		verifyOpen();
+
+		if (position != -1)
+		{
+			// Re-reading previously read symbols; this is never a long run.
+			return ITextSource.super.skip(stop_);
+		}
+
+		long n = 0;
+		while (nextSymbol != null && !stop_.test(nextSymbol))
+		{
+			consumeNextSymbol();
+			++n;
+		}
+		return n;
 	}
 
 	/*
@@ -366,6 +475,69 @@ public abstract class AbstractTextSource<S> implements ITextSource<S>
 	// =========================================================================
 	// Internal methods
 	// =========================================================================
+	/**
+	 * Consumes {@link #nextSymbol}, moving it (and its raw symbols) into the tail buffers, and loads the following
+	 * symbol.
+	 *
+	 * @return Returns the consumed symbol.
+	 *
+	 * @throws IOException
+	 *             if {@link #readImpl(ITailBuffer)} throws an exception.
+	 */
+	private S consumeNextSymbol() throws IOException
+	{
+		final S symbol = nextSymbol;
+		assert symbol != null;
+
+		// Add next symbol to the effective symbol buffer, recording its position.
+		symbolPositions[(int) (numSymbols++ % symbolPositions.length)] = buffer.end();
+		buffer.add(symbol);
+
+		// Move raw symbol(s) from nextSymbolBuffer to rawBuffer.
+		while (!nextSymbolBuffer.isEmpty())
+		{
+			rawBuffer.add(nextSymbolBuffer.remove());
+		}
+
+		// Add additional null symbols to the effective symbol buffer for each additional
+		// raw symbol that was consumed, if any.
+		while (buffer.end() < rawBuffer.end())
+		{
+			buffer.add(null);
+		}
+
+		loadNextSymbol();
+		return symbol;
+	}
+
+	/**
+	 * Finds the ordinal of the first effective symbol at or after a position, by binary search of
+	 * {@link #symbolPositions}.
+	 *
+	 * @param position_
+	 *            specifies the position.
+	 *
+	 * @return Returns the ordinal, or the ordinal of the oldest recorded symbol if the position precedes it.
+	 */
+	private long findOrdinal(final long position_)
+	{
+		long lo = Math.max(0, numSymbols - symbolPositions.length);
+		long hi = numSymbols;
+		while (lo < hi)
+		{
+			final long mid = (lo + hi) >>> 1;
+			if (symbolPositions[(int) (mid % symbolPositions.length)] < position_)
+			{
+				lo = mid + 1;
+			}
+			else
+			{
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
 	/**
 	 * Load the next symbol into {@link #nextSymbol} and {@link #nextSymbolBuffer}.
 	 *
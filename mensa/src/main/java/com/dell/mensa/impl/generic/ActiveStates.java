@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.util.Arrays;
+
+/**
+ * {@link ActiveStates} is the set of trie states reached by the alignments of an approximate search, recording for each
+ * state the smallest edit distance with which it was reached and the starting position of that alignment. Among
+ * alignments with the same distance, the latest starting one (i.e., the shortest) is kept.
+ *
+ * <p>
+ * The position of each state in the set is recorded in an array indexed by state, which is valid only if the state's
+ * stamp matches the current generation, so the set is cleared in constant time.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+final class ActiveStates
+{
+	private static final int INITIAL_CAPACITY = 16;
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final int[] positions;
+	private final int[] stamps;
+	private int generation;
+
+	private int[] states = new int[INITIAL_CAPACITY];
+	private int[] distances = new int[INITIAL_CAPACITY];
+	private long[] starts = new long[INITIAL_CAPACITY];
+	private int size;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * @param numStates_
+	 *            specifies the number of states of the trie.
+	 */
+	ActiveStates(final int numStates_)
+	{
+		this.positions = new int[numStates_];
+		this.stamps = new int[numStates_];
+		this.generation = 1;
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * @return Returns the number of states in the set.
+	 */
+	int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return Returns the state at the specified index, in the order in which states were added.
+	 */
+	int state(final int i_)
+	{
+		return states[i_];
+	}
+
+	/**
+	 * @return Returns the edit distance of the alignment of the state at the specified index.
+	 */
+	int distance(final int i_)
+	{
+		return distances[i_];
+	}
+
+	/**
+	 * @return Returns the starting position of the alignment of the state at the specified index.
+	 */
+	long start(final int i_)
+	{
+		return starts[i_];
+	}
+
+	/**
+	 * Removes all states.
+	 */
+	void clear()
+	{
+		size = 0;
+		if (++generation == 0)
+		{
+			Arrays.fill(stamps, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * Adds or improves the alignment of a state.
+	 *
+	 * @return Returns {@code true} if the state was added or improved; {@code false} otherwise.
+	 */
+	boolean offer(final int state_, final int distance_, final long start_)
+	{
+		if (stamps[state_] != generation)
+		{
+			if (size == states.length)
+			{
+				states = Arrays.copyOf(states, 2 * size);
+				distances = Arrays.copyOf(distances, 2 * size);
+				starts = Arrays.copyOf(starts, 2 * size);
+			}
+			stamps[state_] = generation;
+			positions[state_] = size;
+			states[size] = state_;
+			distances[size] = distance_;
+			starts[size] = start_;
+			++size;
+			return true;
+		}
+
+		final int j = positions[state_];
+		if (distance_ < distances[j] || (distance_ == distances[j] && start_ > starts[j]))
+		{
+			distances[j] = distance_;
+			starts[j] = start_;
+			return true;
+		}
+		return false;
+	}
+
+	// =========================================================================
+	// Object methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("ActiveStates [size=%s]", size);
+	}
+}
@@ -16,14 +16,20 @@ import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
-import java.util.TreeSet;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
 import com.dell.mensa.IEdge;
 import com.dell.mensa.IEdgeMap;
 import com.dell.mensa.IFactory;
@@ -36,6 +42,7 @@ import com.dell.mensa.IMatchListener;
 import com.dell.mensa.IMatchPrecisionFunction;
 import com.dell.mensa.INextMoveFunction;
 import com.dell.mensa.IOutputFunction;
+import com.dell.mensa.IPatternKeyword;
 import com.dell.mensa.ISymbolClassifier;
 import com.dell.mensa.ITailBuffer;
 import com.dell.mensa.ITextSource;
@@ -105,6 +112,14 @@ import com.dell.mensa.util.Verify;
  * match a given collection of keywords.
  *
  * <p>
+ * Building returns a {@link CompiledMachine}: a {@link FrozenMachine}, or, if subtrees remain to be expanded (see
+ * {@link #setLazyDepth(int)}), a {@link LazyMachine}. A compiled machine shares the data structures of the machine
+ * that built it, but cannot itself be modified: its setters, {@link #build(IKeywords)}, and {@link #reset()} throw
+ * {@link IllegalStateException}. The machine that built it cannot be rebuilt, nor can the settings that take effect
+ * when it is built be changed, until it is reset.
+ * </p>
+ *
+ * <p>
  * An application may also set various machine options, such as {@link #setNotifyLongestMatch(boolean)} or
  * {@link #setNotifyRawSymbols(boolean)} during the initialization phase. (Although it is possible to change options
  * during the matching phase, in most applications, doing so is not necessary.)
@@ -148,8 +163,19 @@ import com.dell.mensa.util.Verify;
  * <h3>Thread Safety</h3>
  *
  * <p>
- * Instances of this class are thread-safe, in that, <i>once initialized</i>, a single instance can be used concurrently
- * by multiple threads to perform matching operations against different text sources.
+ * A {@link FrozenMachine} is thread-safe: a single instance can be used concurrently by multiple threads to perform
+ * matching operations against different text sources. Matching never modifies it: all per-scan state, including
+ * matching options and transition counters, is held by a {@link MatchSession} (see {@link #createSession()}), which
+ * is intended to be used by a single thread. Thus, one frozen machine can be shared by all worker threads, each using
+ * its own session(s), possibly with differing options. A {@link LazyMachine}, which expands subtrees as matching
+ * requires them, is single-threaded; see {@link LazyMachine#freeze()}. Once initialized, the machine that built a
+ * compiled machine matches using it, and is thread-safe if its compiled machine is.
+ * </p>
+ *
+ * <p>
+ * The option setters of this class (e.g., {@link #setNotifyLongestMatch(boolean)}) define the <i>default</i> options
+ * for new sessions, including the implicit sessions created by {@link #match(ITextSource, IMatchListener)} and
+ * {@link #matchIterator(ITextSource)}. They should be set during the initialization phase.
  * </p>
  *
  * <h3><a name="paper">Reference</a></h3>
@@ -170,21 +196,56 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 
 	private static final String PARM_factory = "factory_";
 	private static final String PARM_classifier = "classifier_";
+	private static final String PARM_matchEngine = "matchEngine_";
+	private static final String PARM_matchSemantics = "matchSemantics_";
 	private static final String PARM_keywords = "keywords_";
-	private static final String PARM_listener = "listener_";
+	private static final String PARM_lazyDepth = "lazyDepth_";
+	private static final String PARM_longKeywordThreshold = "longKeywordThreshold_";
+	private static final String PARM_maxDistance = "maxDistance_";
+	private static final String PARM_profile = "profile_";
+	private static final String PARM_stateOrder = "stateOrder_";
 	private static final String PARM_textSource = "textSource_";
+	private static final String PARM_transitionCacheSize = "transitionCacheSize_";
 
+	private static final String MSG_ALREADY_BUILT = "machine is already built";
+	private static final String MSG_COMPILED = "compiled machine cannot be modified";
 	private static final String MSG_CONSECUTIVE_WHITESPACE = "keyword contains consecutive whitespace symbols: %s";
 	private static final String MSG_GOTO_ALREADY_CONSTRUCTED = "goto function is already constructed";
 	private static final String MSG_GOTO_NOT_CONSTRUCTED = "goto function has not yet been constructed";
 	private static final String MSG_FAILURE_ALREADY_CONSTRUCTED = "failure function is already constructed";
 	private static final String MSG_FAILURE_NOT_CONSTRUCTED = "failure function has not yet been constructed";
 	private static final String MSG_LEADING_WHITESPACE = "keyword contains leading whitespace symbols: %s";
+	private static final String MSG_LONG_KEYWORD_THRESHOLD = "%s must be zero or at least %d: %d";
+	private static final String MSG_MAX_DISTANCE = "%s must be in range [1, %d]: %d";
+	private static final String MSG_NOT_OPEN = "textSource_ must be open";
 	private static final String MSG_NEXT_MOVE_ALREADY_CONSTRUCTED = "next move function is already constructed";
 	private static final String MSG_RANGE_OUTSIDE_BUFFER = "requested range [%d, %d) is outside available buffer range [%d, %d)";
 	private static final String MSG_TRAILING_WHITESPACE = "keyword contains trailing whitespace symbols: %s";
+	private static final String MSG_TRANSITION_CACHE_SIZE = "%s must be zero or a power of two in range [%d, %d]: %d";
 	private static final double PRECISION_DELTA = 0.0000001;
 
+	private static final int INITIAL_STATE_CAPACITY = 16;
+	private static final int INITIAL_KEYWORD_CAPACITY = 16;
+
+	/**
+	 * The number of trailing symbols of a long keyword entered into the goto function to trigger verification of the
+	 * whole keyword. See {@link #setLongKeywordThreshold(int)}.
+	 */
+	private static final int LONG_KEYWORD_TRIGGER_SIZE = 16;
+
+	/**
+	 * The smallest and largest number of entries of a transition cache. See {@link #setTransitionCacheSize(int)}.
+	 */
+	private static final int MIN_TRANSITION_CACHE_SIZE = 16;
+	private static final int MAX_TRANSITION_CACHE_SIZE = 1 << 20;
+
+	/**
+	 * The largest edit distance supported by approximate matching (see
+	 * {@link #matchApproximate(ITextSource, IMatchListener, int)}). The number of active trie states grows roughly
+	 * exponentially with the distance, so larger distances are not practical for natural dictionaries.
+	 */
+	public static final int MAX_EDIT_DISTANCE = 2;
+
 	// =========================================================================
 	// Properties
 	// =========================================================================
@@ -208,9 +269,166 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	private IFailureFunction failureFunction;
 	private IOutputFunction<S> outputFunction;
 
+	/**
+	 * The number of (effective) keyword symbols on the goto path to each state, indexed by state.
+	 */
+	private int[] stateDepths;
+
+	/**
+	 * The index of the keyword trie used by approximate matching, or {@code null} if it has not yet been constructed
+	 * for the current state numbering. Constructed when a {@link FrozenMachine} is created, and otherwise the first time
+	 * it is required. See {@link #getTrieIndex()}.
+	 */
+	private TrieIndex<S> trieIndex;
+
+	/**
+	 * The greatest number of optional prefix symbols of any keyword.
+	 */
+	private int maxPrefixSize;
+
+	/**
+	 * The ID of each keyword entered into the machine, keyed by keyword instance. IDs are assigned consecutively, from
+	 * zero, in the order in which keywords are entered (i.e., the order of the keywords used to build the machine).
+	 */
+	private Map<IKeyword<S>, Integer> keywordIds;
+
+	/**
+	 * The keywords entered into the machine, indexed by keyword ID.
+	 */
+	private List<IKeyword<S>> keywordsById;
+
+	/**
+	 * The IDs of the keywords output by each state, indexed by state and sorted in the order defined by
+	 * {@link #keywordComparator}, or {@code null} for states without output. Computed when the failure function is
+	 * constructed (i.e., once the output function is complete).
+	 */
+	private int[][] stateOutputs;
+
+	/**
+	 * Accepts the (unnormalized) input symbols on which the machine leaves {@link IGotoFunction#START_STATE}. While the
+	 * machine is in the start state, runs of symbols not accepted by this filter are skipped by
+	 * {@link ITextSource#skip(Predicate)} rather than processed one at a time. Computed when the failure function is
+	 * constructed.
+	 */
+	private Predicate<S> rootFilter;
+
+	/**
+	 * The number of required (i.e., non-optional) symbols of each keyword, indexed by keyword ID.
+	 */
+	private int[] keywordRequiredSizes;
+
+	/**
+	 * The number of optional prefix symbols of each keyword, indexed by keyword ID.
+	 */
+	private int[] keywordPrefixSizes;
+
+	/**
+	 * The number of optional suffix symbols of each keyword, indexed by keyword ID.
+	 */
+	private int[] keywordSuffixSizes;
+
+	/**
+	 * The word start bit of each keyword, indexed by keyword ID. A keyword whose word break at its start can be
+	 * determined from the word break history of the {@link Scanner} has the bit that corresponds to the symbol preceding its required
+	 * symbols; other keywords have zero.
+	 */
+	private long[] keywordWordStartBits;
+
+	/**
+	 * Indicates if any keyword has a non-zero word start bit, so the scanner must record word breaks.
+	 */
+	private boolean bWordStartBits;
+
+	/**
+	 * The shifts used by the {@link MatchEngine#BLOCK_SKIP} engine, or {@code null} if block skipping is not possible.
+	 * Computed when the failure function is constructed.
+	 */
+	private BlockShiftTable<S> blockShifts;
+
+	/**
+	 * The required symbols of each keyword, indexed by keyword ID, retained while the goto function is constructed so
+	 * that {@link #bitParallel} can be computed; {@code null} once the keywords have too many symbols in total for the
+	 * {@link MatchEngine#BIT_PARALLEL} engine.
+	 */
+	private List<List<S>> bitParallelSymbols;
+	private int bitParallelSize;
+
+	/**
+	 * The tables of the {@link MatchEngine#BIT_PARALLEL} engine, or {@code null} if that engine is not possible.
+	 * Computed when the failure function is constructed.
+	 */
+	private BitParallelAutomaton<S> bitParallel;
+
+	/**
+	 * The long keywords (see {@link #setLongKeywordThreshold(int)}) entered into the machine, indexed by keyword ID.
+	 * The entry of any other keyword is {@code null}.
+	 */
+	private LongKeyword<S>[] longKeywords;
+
+	/**
+	 * The greatest number of required symbols of any long keyword, or zero if there are no long keywords.
+	 */
+	private int maxLongKeywordSize;
+
+	/**
+	 * The pattern keywords (see {@link IPatternKeyword}) entered into the machine, indexed by keyword ID. The entry of
+	 * any other keyword is {@code null}.
+	 */
+	private PatternKeyword<S>[] patternKeywords;
+
+	/**
+	 * The greatest number of required symbols of any pattern keyword, or zero if there are no pattern keywords.
+	 */
+	private int maxPatternKeywordSize;
+
+	/**
+	 * The subtrees of the goto function not yet constructed. Their depth is the value of {@link #lazyDepth} when the
+	 * goto function was constructed. See {@link #setLazyDepth(int)}.
+	 */
+	private LazySubtrees<S> lazySubtrees;
+
+	/**
+	 * The greatest (in lexicographic order) symbol sequence entered from the start state while the goto function is
+	 * being constructed, and the states along its goto path (indexed by depth). See {@link #enter(List)}.
+	 */
+	private List<S> greatestPath;
+	private int[] greatestPathStates;
+
+	/**
+	 * The symbol masks of case-sensitive and punctuation-sensitive keywords (see {@link SensitivityMask}), indexed by
+	 * keyword ID. The entry of a keyword without a mask is {@code null}.
+	 */
+	private SensitivityMask[] sensitivityMasks;
+
+	/**
+	 * Indicates if any {@link SensitivityMask} constrains symbol case, so the scanner must record the case of the
+	 * symbols it reads.
+	 */
+	private boolean bCaseMasks;
+
+	/**
+	 * Indicates if any {@link SensitivityMask} constrains punctuation, so the scanner must record the punctuation of
+	 * the symbols it reads.
+	 */
+	private boolean bPunctuationMasks;
+
+	/**
+	 * The compiled machine that matches on behalf of this machine, or {@code null} if it has not yet been created (see
+	 * {@link #compiled()}). A {@link CompiledMachine} refers to itself.
+	 */
+	private volatile CompiledMachine<S> compiled;
+
+	private int lazyDepth;
+	private int longKeywordThreshold;
+	private MatchEngine matchEngine;
+	private StateOrder stateOrder;
+	private StateProfile<S> stateProfile;
+	private int transitionCacheSize;
+	private MatchSemantics matchSemantics;
 	private boolean bNotifyLongestMatch;
 	private boolean bNotifyMostPreciseMatch;
 	private boolean bNotifyRawSymbols;
+	private boolean bSensitivityMasksEnabled;
 
 	/**
 	 * Returns the associated {@link ISymbolClassifier}.
@@ -238,6 +456,51 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 		return gotoFunction;
 	}
 
+	/**
+	 * Determines the depth below which the goto function is constructed lazily. See {@link #setLazyDepth(int)} for
+	 * further discussion.
+	 *
+	 * @return Returns the lazy depth, or zero if the goto function is constructed eagerly.
+	 */
+	public int getLazyDepth()
+	{
+		return lazyDepth;
+	}
+
+	/**
+	 * Determines which keywords are matched as long keywords. See {@link #setLongKeywordThreshold(int)} for further
+	 * discussion.
+	 *
+	 * @return Returns the long keyword threshold, or zero if long keyword matching is disabled.
+	 */
+	public int getLongKeywordThreshold()
+	{
+		return longKeywordThreshold;
+	}
+
+	/**
+	 * Determines how text sources are scanned. See {@link #setMatchEngine(MatchEngine)} for further discussion.
+	 *
+	 * @return Returns the match engine.
+	 */
+	public MatchEngine getMatchEngine()
+	{
+		return matchEngine;
+	}
+
+	/**
+	 * Determines which keyword matches are reported by default. See {@link #setMatchSemantics(MatchSemantics)} for
+	 * further discussion.
+	 *
+	 * @return Returns the default match semantics.
+	 *
+	 * @see MatchSession#getMatchSemantics()
+	 */
+	public MatchSemantics getMatchSemantics()
+	{
+		return matchSemantics;
+	}
+
 	/**
 	 * @return the nextMoveFunction
 	 */
@@ -247,11 +510,44 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	}
 
 	/**
-	 * @return The number of states.
+	 * @return The number of states. Once this machine has been compiled, this is the number of states of the compiled
+	 *         machine, which grows as a {@link LazyMachine} expands subtrees.
 	 */
 	public int getNumStates()
 	{
-		return numStates;
+		return compiled == null || compiled == this ? numStates : compiled.getNumStates();
+	}
+
+	/**
+	 * Determines how states are numbered. See {@link #setStateOrder(StateOrder)} for further discussion.
+	 *
+	 * @return Returns the state order.
+	 */
+	public StateOrder getStateOrder()
+	{
+		return stateOrder;
+	}
+
+	/**
+	 * Determines the profile used to lay out states and edges. See {@link #setStateProfile(StateProfile)} for further
+	 * discussion.
+	 *
+	 * @return Returns the state profile, or {@code null} if there is none.
+	 */
+	public StateProfile<S> getStateProfile()
+	{
+		return stateProfile;
+	}
+
+	/**
+	 * Determines the number of entries of the transition cache of each session. See
+	 * {@link #setTransitionCacheSize(int)} for further discussion.
+	 *
+	 * @return Returns the transition cache size, which is zero if transition caching is disabled.
+	 */
+	public int getTransitionCacheSize()
+	{
+		return transitionCacheSize;
 	}
 
 	/**
@@ -263,11 +559,13 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	}
 
 	/**
-	 * Determines how multiple keyword matches the same ending position are reported. See
-	 * {@link #isNotifyLongestMatch()} for further discussion.
+	 * Determines how multiple keyword matches the same ending position are reported by default. See
+	 * {@link #setNotifyLongestMatch(boolean)} for further discussion.
 	 *
 	 * @return Returns {@code true} if only the longest keyword at an ending position will be reported. Returns
 	 *         {@code false} if all keywords at an ending position will be reported.
+	 *
+	 * @see MatchSession#isNotifyLongestMatch()
 	 */
 	public boolean isNotifyLongestMatch()
 	{
@@ -276,6 +574,8 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 
 	/**
 	 * @return the bNotifyMostPreciseMatch
+	 *
+	 * @see MatchSession#isNotifyMostPreciseMatch()
 	 */
 	public boolean isNotifyMostPreciseMatch()
 	{
@@ -287,6 +587,8 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	 * further discussion.
 	 *
 	 * @return Returns {@code true} if raw symbols are reported in match notifications; {@code false} otherwise.
+	 *
+	 * @see MatchSession#isNotifyRawSymbols()
 	 */
 	public boolean isNotifyRawSymbols()
 	{
@@ -294,112 +596,435 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	}
 
 	/**
-	 * Determines whether or not match length filtering is performed when reporting matches. Match length filtering
-	 * affects how multiple keyword matches at the same match position are reported.
+	 * Determines if case-sensitive and punctuation-sensitive keywords are given sensitivity masks. See
+	 * {@link #setSensitivityMasksEnabled(boolean)} for further discussion.
+	 *
+	 * @return Returns {@code true} if sensitivity masks are enabled; {@code false} otherwise.
+	 */
+	public boolean isSensitivityMasksEnabled()
+	{
+		return bSensitivityMasksEnabled;
+	}
+
+	/**
+	 * Determines the depth below which the goto function is constructed lazily. By default, the whole goto function is
+	 * constructed eagerly (i.e., the lazy depth is zero).
 	 *
 	 * <p>
-	 * When match length filtering is disabled, all matches are reported. When match length filtering is enabled, only
-	 * those matches having the greatest match length are reported.
+	 * With a lazy depth of <i>d</i>, only the first <i>d</i> levels of the keyword trie are constructed when the machine
+	 * is built. The keywords continuing below each state of depth <i>d</i> are merely listed with that state, and the
+	 * subtree they form is constructed, along with its failure and output functions, the first time a matching
+	 * operation evaluates a transition from that state. For very large dictionaries, most of whose subtrees are never
+	 * entered by the text actually scanned, this saves most of the time and memory required to build the machine. The
+	 * matches reported are the same as for an eagerly constructed machine.
 	 * </p>
 	 *
-	 * @param bEnable_
-	 *            specify {@code true} to enable match length filtering, or {@code false} to disable match length
-	 *            filtering.
+	 * <p>
+	 * A next move function cannot be constructed for a partially constructed goto function, so {@link #build(IKeywords)}
+	 * does not construct one while subtrees remain to be expanded, and {@link #buildNextMoveFunction()} first expands
+	 * all subtrees (see {@link #expandSubtrees()}). The {@link MatchEngine#BLOCK_SKIP} engine is not used if its
+	 * window is deeper than the lazy depth.
+	 * </p>
+	 *
+	 * <p>
+	 * Since matching then modifies the machine, a machine built with unexpanded subtrees (see
+	 * {@link #hasUnexpandedSubtrees()}) compiles to a single-threaded {@link LazyMachine}: it must not be used for
+	 * concurrent matching operations, whether through separate sessions or otherwise. {@link ConcurrentMatcher}
+	 * accepts only a {@link FrozenMachine}, and {@link com.dell.mensa.impl.character.CharacterMatchSpliterator} does
+	 * not split the text of any other machine. To share the machine between threads, call {@link LazyMachine#freeze()}.
+	 * </p>
+	 *
+	 * <p>
+	 * This setting takes effect when the machine is next built.
+	 * </p>
+	 *
+	 * @param lazyDepth_
+	 *            specifies the lazy depth, or zero to construct the goto function eagerly.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified depth is negative.
+	 *
+	 * @throws IllegalStateException
+	 *             if this machine has already been built.
 	 */
-	public void setNotifyLongestMatch(final boolean bEnable_)
+	public void setLazyDepth(final int lazyDepth_)
 	{
-		this.bNotifyLongestMatch = bEnable_;
+		verifyNotBuilt();
+		Verify.notNegative(lazyDepth_, PARM_lazyDepth);
+		this.lazyDepth = lazyDepth_;
 	}
 
 	/**
-	 * Determines whether or not precision filtering is performed when reporting matches. Precision filtering affects
-	 * how multiple keyword matches at the same match position are reported.
+	 * Determines which keywords are matched as <i>long keywords</i>. By default, long keyword matching is disabled
+	 * (i.e., the threshold is zero).
 	 *
 	 * <p>
-	 * When precision filtering is disabled, all matches are reported. When precision filtering is enabled, only those
-	 * matches having the highest precision value are reported.
+	 * Every symbol of an ordinary keyword is entered into the goto function, so very long keywords (e.g., boilerplate
+	 * clauses of hundreds of symbols) create long chains of states, each with its own edge map and next move entries.
+	 * A keyword with more required (i.e., non-optional) symbols than the threshold is instead matched in two steps:
+	 * only its last 16 required symbols are entered into the goto function, and whenever these are recognized, the
+	 * whole keyword is verified against the tail buffer of the text source, by comparing a rolling hash of the
+	 * preceding symbols (computed once per distinct keyword length) and then the symbols themselves. Long keywords are
+	 * reported exactly as if they had been entered into the goto function. As before, a keyword can be matched only if
+	 * it fits in the tail buffer of the text source.
 	 * </p>
 	 *
-	 * @param bEnable_
-	 *            specify {@code true} to enable precision filtering, or {@code false} to disable precision filtering.
+	 * <p>
+	 * This setting takes effect when the machine is next built.
+	 * </p>
+	 *
+	 * @param longKeywordThreshold_
+	 *            specifies the threshold, which must be zero (to disable long keyword matching) or at least 16.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified threshold is negative or less than 16, but not zero.
+	 *
+	 * @throws IllegalStateException
+	 *             if this machine has already been built.
 	 */
-	public void setNotifyMostPreciseMatch(final boolean bEnable_)
+	public void setLongKeywordThreshold(final int longKeywordThreshold_)
 	{
-		this.bNotifyMostPreciseMatch = bEnable_;
+		verifyNotBuilt();
+		if (longKeywordThreshold_ != 0 && longKeywordThreshold_ < LONG_KEYWORD_TRIGGER_SIZE)
+		{
+			final String msg = String.format(MSG_LONG_KEYWORD_THRESHOLD, PARM_longKeywordThreshold, LONG_KEYWORD_TRIGGER_SIZE, longKeywordThreshold_);
+			throw new IllegalArgumentException(msg);
+		}
+		this.longKeywordThreshold = longKeywordThreshold_;
 	}
 
 	/**
-	 * Controls whether or not raw symbols are included in match notifications.
+	 * Determines how text sources are scanned. By default, every input symbol is processed by the automaton (i.e.,
+	 * {@link MatchEngine#AHO_CORASICK}).
 	 *
 	 * <p>
-	 * When {@link #match(ITextSource, IMatchListener)} or {@link #match(ITextSource, IMatchListener)} finds a new
-	 * match, a new {@link IMatch} instance is created containing details of the match. By default, the details do not
-	 * include the raw symbols from the input text source that were matched. However, calling
-	 * {@link #setNotifyRawSymbols(boolean)} with a value of {@code true} instructs the machine to include the raw
-	 * symbols matched in the details.
+	 * With {@link MatchEngine#BLOCK_SKIP}, input is examined a window at a time and the automaton is run only over
+	 * windows that may begin a keyword, which is much faster when all keywords are long. With
+	 * {@link MatchEngine#BIT_PARALLEL}, the automaton is simulated by bit operations on a single {@code long}, which is
+	 * faster for small dictionaries. Either way, exactly the same matches are reported, for all options and extensions. Only {@link MatchSession#getTransitions()} differs, since it
+	 * counts only symbols processed by the automaton.
 	 * </p>
 	 *
-	 * @param bEnable_
-	 *            specify {@code true} to include raw symbols in match details, or {@code false} to omit raw symbols
-	 *            from match details.
+	 * <p>
+	 * This setting takes effect when the machine is next built, and applies to all sessions of the compiled machine.
+	 * </p>
 	 *
-	 * @see IMatch#getRawSymbols()
+	 * @param matchEngine_
+	 *            specifies the match engine.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified match engine is {@code null}.
+	 *
+	 * @throws IllegalStateException
+	 *             if this machine has already been built.
 	 */
-	public void setNotifyRawSymbols(final boolean bEnable_)
+	public void setMatchEngine(final MatchEngine matchEngine_)
 	{
-		this.bNotifyRawSymbols = bEnable_;
+		verifyNotBuilt();
+		Verify.notNull(matchEngine_, PARM_matchEngine);
+		this.matchEngine = matchEngine_;
 	}
 
-	// =========================================================================
-	// Constructors
-	// =========================================================================
 	/**
-	 * Constructs a new instance using the specified object factory and a {@link DefaultSymbolClassifier}.
+	 * Determines which keyword matches are reported. By default, all matches are reported (i.e.,
+	 * {@link MatchSemantics#OVERLAPPING}).
 	 *
-	 * @param factory_
-	 *            specifies the object factory to use with this instance.
+	 * <p>
+	 * With {@link MatchSemantics#LEFTMOST_LONGEST} or {@link MatchSemantics#LEFTMOST_FIRST}, only non-overlapping
+	 * matches are reported, in order of starting position. These semantics are implemented within the scan: a
+	 * candidate match is reported as soon as the current machine state shows that no better candidate can start at or
+	 * before its starting position, so matches are still reported incrementally and only unresolved candidates are
+	 * retained. Length and precision filtering, if enabled, are applied to candidates before they are considered.
+	 * </p>
+	 *
+	 * <p>
+	 * This setting is the default for new sessions; see {@link MatchSession#setMatchSemantics(MatchSemantics)}.
+	 * </p>
+	 *
+	 * @param matchSemantics_
+	 *            specifies the match semantics.
 	 *
 	 * @throws IllegalArgumentException
-	 *             if the specified object factory is {@code null}.
+	 *             if the specified match semantics is {@code null}.
+	 *
+	 * @throws IllegalStateException
+	 *             if this is a compiled machine.
 	 */
-	public AhoCorasickMachine(final IFactory<S> factory_)
+	public void setMatchSemantics(final MatchSemantics matchSemantics_)
 	{
-		this(factory_, new DefaultSymbolClassifier<S>());
+		verifyNotCompiled();
+		Verify.notNull(matchSemantics_, PARM_matchSemantics);
+		this.matchSemantics = matchSemantics_;
 	}
 
 	/**
-	 * Constructs a new instance using the specified object factory and symbol classifier.
+	 * Determines how states are numbered. By default, states keep the numbers assigned as keywords are entered (i.e.,
+	 * {@link StateOrder#INSERTION}).
 	 *
-	 * @param factory_
-	 *            specifies the object factory to use with this instance.
-	 * @param classifier_
-	 *            specifies the symbol classifier to use with this instance.
+	 * <p>
+	 * With any other order, states are renumbered as the next move function is constructed, and the output function
+	 * and all other per-state structures are renumbered along with it. The goto and failure functions, which are
+	 * discarded once the next move function is constructed, keep the original numbers.
+	 * </p>
+	 *
+	 * <p>
+	 * Renumbering is an optimization of the next move function only. A machine that matches with its goto and failure
+	 * functions (i.e., one for which {@link #buildNextMoveFunction()} has not been called, including a machine built
+	 * with unexpanded subtrees; see {@link #setLazyDepth(int)}) always uses {@link StateOrder#INSERTION} numbering,
+	 * whatever this setting.
+	 * </p>
+	 *
+	 * <p>
+	 * This setting takes effect when the next move function is next constructed.
+	 * </p>
+	 *
+	 * @param stateOrder_
+	 *            specifies the state order.
 	 *
 	 * @throws IllegalArgumentException
-	 *             if the specified object factory or symbol classifier is {@code null}.
+	 *             if the specified state order is {@code null}.
+	 *
+	 * @throws IllegalStateException
+	 *             if this machine has already been built.
 	 */
-	public AhoCorasickMachine(final IFactory<S> factory_, final ISymbolClassifier<S> classifier_)
+	public void setStateOrder(final StateOrder stateOrder_)
 	{
-		Verify.notNull(factory_, PARM_factory);
-		Verify.notNull(classifier_, PARM_classifier);
-
-		this.factory = factory_;
-		this.classifier = classifier_;
-		this.space = classifier_.getSpace();
-		this.isCaseExtensionEnabled = classifier_.isCaseExtensionEnabled();
-		this.isPunctuationExtensionEnabled = classifier_.isPunctuationExtensionEnabled() && space != null;
-		this.isWordBreakExtensionEnabled = classifier.isWordBreakExtensionEnabled();
-		this.matchPrecisionFunction = classifier_.getMatchPrecisionFunction();
+		verifyNotBuilt();
+		Verify.notNull(stateOrder_, PARM_stateOrder);
+		this.stateOrder = stateOrder_;
+	}
 
-		this.keywordComparator = new Comparator<IKeyword<S>>()
-		{
-			@Override
-			public int compare(final IKeyword<S> keyword1_, final IKeyword<S> keyword2_)
-			{
-				// Sort key #1: length
-				// keyword1_ comes before keyword2_ if keyword1_ is *longer* than keyword2_.
-				int result = keyword2_.length() - keyword1_.length();
-				if (result != 0)
+	/**
+	 * Specifies a profile of the states and edges used while scanning representative text (see
+	 * {@link #profile(ITextSource, StateProfile)}). By default, there is no profile.
+	 *
+	 * <p>
+	 * When constructing the next move function, the edges of each profiled state are arranged so that the most
+	 * frequently traversed edges are looked up first. With {@link StateOrder#PROFILED}, the most frequently visited
+	 * states are also numbered first, so they are placed together. The profile may have been recorded by a machine
+	 * built for a different set of keywords: only states representing the same keyword prefixes are affected. The
+	 * matches reported do not depend on the profile.
+	 * </p>
+	 *
+	 * <p>
+	 * This setting takes effect when the next move function is next constructed.
+	 * </p>
+	 *
+	 * @param stateProfile_
+	 *            specifies the state profile, or {@code null} for none.
+	 *
+	 * @throws IllegalStateException
+	 *             if this machine has already been built.
+	 */
+	public void setStateProfile(final StateProfile<S> stateProfile_)
+	{
+		verifyNotBuilt();
+		this.stateProfile = stateProfile_;
+	}
+
+	/**
+	 * Determines the number of entries of the transition cache of each session. By default, transition caching is
+	 * disabled (i.e., the size is zero).
+	 *
+	 * <p>
+	 * A transition cache is a direct-mapped cache of recent transitions {@code (state, symbol) -> next state},
+	 * consulted before the next move function or, if the machine has none, before the goto and failure functions.
+	 * Text is highly repetitive at the level of transitions, so a few thousand entries absorb most lookups. Caching
+	 * pays off most for a machine without a next move function, where each transition may follow a chain of failure
+	 * transitions, or one whose states have many edges; it does not pay off for a compiled next move function (see
+	 * {@link IFactory#compileNextMoveFunction(INextMoveFunction, int)}). Each {@link MatchSession} has its own cache,
+	 * which persists across the matching operations of the session. The matches reported do not depend on the cache.
+	 * </p>
+	 *
+	 * <p>
+	 * This setting takes effect when the machine is next built.
+	 * </p>
+	 *
+	 * @param transitionCacheSize_
+	 *            specifies the number of entries, which must be zero (to disable transition caching) or a power of two
+	 *            from 16 to 1048576.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified size is neither zero nor a power of two in range.
+	 *
+	 * @throws IllegalStateException
+	 *             if this machine has already been built.
+	 */
+	public void setTransitionCacheSize(final int transitionCacheSize_)
+	{
+		verifyNotBuilt();
+		if (transitionCacheSize_ != 0 && (Integer.bitCount(transitionCacheSize_) != 1 || transitionCacheSize_ < MIN_TRANSITION_CACHE_SIZE
+				|| transitionCacheSize_ > MAX_TRANSITION_CACHE_SIZE))
+		{
+			final String msg = String.format(MSG_TRANSITION_CACHE_SIZE, PARM_transitionCacheSize, MIN_TRANSITION_CACHE_SIZE,
+					MAX_TRANSITION_CACHE_SIZE, transitionCacheSize_);
+			throw new IllegalArgumentException(msg);
+		}
+		this.transitionCacheSize = transitionCacheSize_;
+	}
+
+	/**
+	 * Determines whether or not match length filtering is performed when reporting matches. Match length filtering
+	 * affects how multiple keyword matches at the same match position are reported.
+	 *
+	 * <p>
+	 * When match length filtering is disabled, all matches are reported. When match length filtering is enabled, only
+	 * those matches having the greatest match length are reported.
+	 * </p>
+	 *
+	 * <p>
+	 * This setting is the default for new sessions; see {@link MatchSession#setNotifyLongestMatch(boolean)}.
+	 * </p>
+	 *
+	 * @param bEnable_
+	 *            specify {@code true} to enable match length filtering, or {@code false} to disable match length
+	 *            filtering.
+	 *
+	 * @throws IllegalStateException
+	 *             if this is a compiled machine.
+	 */
+	public void setNotifyLongestMatch(final boolean bEnable_)
+	{
+		verifyNotCompiled();
+		this.bNotifyLongestMatch = bEnable_;
+	}
+
+	/**
+	 * Determines whether or not precision filtering is performed when reporting matches. Precision filtering affects
+	 * how multiple keyword matches at the same match position are reported.
+	 *
+	 * <p>
+	 * When precision filtering is disabled, all matches are reported. When precision filtering is enabled, only those
+	 * matches having the highest precision value are reported.
+	 * </p>
+	 *
+	 * <p>
+	 * This setting is the default for new sessions; see {@link MatchSession#setNotifyMostPreciseMatch(boolean)}.
+	 * </p>
+	 *
+	 * @param bEnable_
+	 *            specify {@code true} to enable precision filtering, or {@code false} to disable precision filtering.
+	 *
+	 * @throws IllegalStateException
+	 *             if this is a compiled machine.
+	 */
+	public void setNotifyMostPreciseMatch(final boolean bEnable_)
+	{
+		verifyNotCompiled();
+		this.bNotifyMostPreciseMatch = bEnable_;
+	}
+
+	/**
+	 * Controls whether or not raw symbols are included in match notifications.
+	 *
+	 * <p>
+	 * When {@link #match(ITextSource, IMatchListener)} or {@link #match(ITextSource, IMatchListener)} finds a new
+	 * match, a new {@link IMatch} instance is created containing details of the match. By default, the details do not
+	 * include the raw symbols from the input text source that were matched. However, calling
+	 * {@link #setNotifyRawSymbols(boolean)} with a value of {@code true} instructs the machine to include the raw
+	 * symbols matched in the details.
+	 * </p>
+	 *
+	 * <p>
+	 * This setting is the default for new sessions; see {@link MatchSession#setNotifyRawSymbols(boolean)}.
+	 * </p>
+	 *
+	 * @param bEnable_
+	 *            specify {@code true} to include raw symbols in match details, or {@code false} to omit raw symbols
+	 *            from match details.
+	 *
+	 * @throws IllegalStateException
+	 *             if this is a compiled machine.
+	 *
+	 * @see IMatch#getRawSymbols()
+	 */
+	public void setNotifyRawSymbols(final boolean bEnable_)
+	{
+		verifyNotCompiled();
+		this.bNotifyRawSymbols = bEnable_;
+	}
+
+	/**
+	 * Determines if case-sensitive and punctuation-sensitive keywords are given <i>sensitivity masks</i>. By default,
+	 * sensitivity masks are enabled.
+	 *
+	 * <p>
+	 * Case-sensitive and punctuation-sensitive keywords share the case-normalized and punctuation-normalized goto paths
+	 * of all other keywords, so in mixed text most of their recognized occurrences (e.g., of an acronym spelled in lower
+	 * case) are false candidates, each of which would otherwise be rejected only by walking back through the tail
+	 * buffers. A sensitivity mask records, one bit per required symbol, the case and punctuation each symbol requires.
+	 * While matching, the case and punctuation of the most recently read symbols are recorded the same way, so such
+	 * false candidates are rejected in constant time as they are recognized. Masks apply to keywords of at most 64
+	 * required symbols whose whitespace is not collapsed; other keywords are verified as before. The same matches are
+	 * reported either way.
+	 * </p>
+	 *
+	 * <p>
+	 * This setting takes effect when the machine is next built.
+	 * </p>
+	 *
+	 * @param bEnable_
+	 *            specify {@code true} to enable sensitivity masks, or {@code false} to disable them.
+	 *
+	 * @throws IllegalStateException
+	 *             if this machine has already been built.
+	 */
+	public void setSensitivityMasksEnabled(final boolean bEnable_)
+	{
+		verifyNotBuilt();
+		this.bSensitivityMasksEnabled = bEnable_;
+	}
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a new instance using the specified object factory and a {@link DefaultSymbolClassifier}.
+	 *
+	 * @param factory_
+	 *            specifies the object factory to use with this instance.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified object factory is {@code null}.
+	 */
+	public AhoCorasickMachine(final IFactory<S> factory_)
+	{
+		this(factory_, new DefaultSymbolClassifier<S>());
+	}
+
+	/**
+	 * Constructs a new instance using the specified object factory and symbol classifier.
+	 *
+	 * @param factory_
+	 *            specifies the object factory to use with this instance.
+	 * @param classifier_
+	 *            specifies the symbol classifier to use with this instance.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified object factory or symbol classifier is {@code null}.
+	 */
+	public AhoCorasickMachine(final IFactory<S> factory_, final ISymbolClassifier<S> classifier_)
+	{
+		Verify.notNull(factory_, PARM_factory);
+		Verify.notNull(classifier_, PARM_classifier);
+
+		this.factory = factory_;
+		this.classifier = classifier_;
+		this.space = classifier_.getSpace();
+		this.isCaseExtensionEnabled = classifier_.isCaseExtensionEnabled();
+		this.isPunctuationExtensionEnabled = classifier_.isPunctuationExtensionEnabled() && space != null;
+		this.isWordBreakExtensionEnabled = classifier.isWordBreakExtensionEnabled();
+		this.matchPrecisionFunction = classifier_.getMatchPrecisionFunction();
+
+		this.keywordComparator = new Comparator<IKeyword<S>>()
+		{
+			@Override
+			public int compare(final IKeyword<S> keyword1_, final IKeyword<S> keyword2_)
+			{
+				// Sort key #1: length
+				// keyword1_ comes before keyword2_ if keyword1_ is *longer* than keyword2_.
+				int result = keyword2_.length() - keyword1_.length();
+				if (result != 0)
 				{
 					return result;
 				}
@@ -450,29 +1075,131 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 		_reset();
 	}
 
+	/**
+	 * Constructs a compiled copy of the specified machine. The copy shares the automaton and all other data structures
+	 * of the machine, and its settings and default options are those of the machine. See {@link CompiledMachine}.
+	 *
+	 * @param machine_
+	 *            specifies the (initialized) machine to copy.
+	 */
+	AhoCorasickMachine(final AhoCorasickMachine<S> machine_)
+	{
+		this.factory = machine_.factory;
+		this.classifier = machine_.classifier;
+		this.space = machine_.space;
+		this.isCaseExtensionEnabled = machine_.isCaseExtensionEnabled;
+		this.isPunctuationExtensionEnabled = machine_.isPunctuationExtensionEnabled;
+		this.isWordBreakExtensionEnabled = machine_.isWordBreakExtensionEnabled;
+		this.matchPrecisionFunction = machine_.matchPrecisionFunction;
+		this.keywordComparator = machine_.keywordComparator;
+
+		this.numStates = machine_.numStates;
+		this.nextMoveFunction = machine_.nextMoveFunction;
+		this.gotoFunction = machine_.gotoFunction;
+		this.failureFunction = machine_.failureFunction;
+		this.outputFunction = machine_.outputFunction;
+		this.stateDepths = machine_.stateDepths;
+		this.trieIndex = machine_.trieIndex;
+		this.maxPrefixSize = machine_.maxPrefixSize;
+		this.keywordIds = machine_.keywordIds;
+		this.keywordsById = machine_.keywordsById;
+		this.stateOutputs = machine_.stateOutputs;
+		this.rootFilter = machine_.rootFilter;
+		this.keywordRequiredSizes = machine_.keywordRequiredSizes;
+		this.keywordPrefixSizes = machine_.keywordPrefixSizes;
+		this.keywordSuffixSizes = machine_.keywordSuffixSizes;
+		this.keywordWordStartBits = machine_.keywordWordStartBits;
+		this.bWordStartBits = machine_.bWordStartBits;
+		this.blockShifts = machine_.blockShifts;
+		this.bitParallelSymbols = null;
+		this.bitParallelSize = 0;
+		this.bitParallel = machine_.bitParallel;
+		this.longKeywords = machine_.longKeywords;
+		this.maxLongKeywordSize = machine_.maxLongKeywordSize;
+		this.patternKeywords = machine_.patternKeywords;
+		this.maxPatternKeywordSize = machine_.maxPatternKeywordSize;
+		this.lazySubtrees = machine_.lazySubtrees;
+		this.greatestPath = null;
+		this.greatestPathStates = null;
+		this.sensitivityMasks = machine_.sensitivityMasks;
+		this.bCaseMasks = machine_.bCaseMasks;
+		this.bPunctuationMasks = machine_.bPunctuationMasks;
+
+		this.lazyDepth = machine_.lazyDepth;
+		this.longKeywordThreshold = machine_.longKeywordThreshold;
+		this.matchEngine = machine_.matchEngine;
+		this.stateOrder = machine_.stateOrder;
+		this.stateProfile = machine_.stateProfile;
+		this.transitionCacheSize = machine_.transitionCacheSize;
+		this.matchSemantics = machine_.matchSemantics;
+		this.bNotifyLongestMatch = machine_.bNotifyLongestMatch;
+		this.bNotifyMostPreciseMatch = machine_.bNotifyMostPreciseMatch;
+		this.bNotifyRawSymbols = machine_.bNotifyRawSymbols;
+		this.bSensitivityMasksEnabled = machine_.bSensitivityMasksEnabled;
+
+		this.compiled = (CompiledMachine<S>) this;
+	}
+
 	// =========================================================================
 	// Public methods
 	// =========================================================================
 
 	/**
-	 * Builds the machine state necessary to match the specified keywords.
+	 * Builds the machine state necessary to match the specified keywords, and compiles this machine.
 	 *
 	 * @param keywords_
 	 *            specifies the set of keywords to be matched by the machine. This list may be empty but must not be
 	 *            {@code null}.
 	 *
+	 * @return Returns the compiled machine: a {@link LazyMachine} if subtrees remain to be expanded (see
+	 *         {@link #setLazyDepth(int)}), or a {@link FrozenMachine} otherwise. This machine matches using the
+	 *         compiled machine.
+	 *
 	 * @throws IllegalArgumentException
 	 *             if the keywords parameter is {@code null} or if a keyword contains non-normalized whitespace symbols.
 	 *             See {@link #buildGotoFunction(IKeywords)} for further discussion.
 	 *
 	 * @throws IllegalStateException
-	 *             if a goto function or next move function has already been constructed.
+	 *             if this machine has already been built, or if a goto function or next move function has already
+	 *             been constructed.
+	 *
+	 * @see #setLazyDepth(int)
 	 */
-	public void build(final IKeywords<S> keywords_)
+	public CompiledMachine<S> build(final IKeywords<S> keywords_)
 	{
+		verifyNotBuilt();
+
 		buildGotoFunction(keywords_);
 		buildFailureFunction();
-		buildNextMoveFunction();
+		if (lazySubtrees.isEmpty())
+		{
+			buildNextMoveFunction();
+		}
+
+		return compiled();
+	}
+
+	/**
+	 * Expands every subtree of the goto function that has not yet been constructed. See {@link #setLazyDepth(int)}.
+	 *
+	 * @throws IllegalStateException
+	 *             if the goto function has not yet been constructed or if this machine has already been built.
+	 */
+	public void expandSubtrees()
+	{
+		verifyNotBuilt();
+		expandAllSubtrees();
+	}
+
+	/**
+	 * Determines if subtrees of the goto function remain to be expanded, so that matching may modify the machine. See
+	 * {@link #setLazyDepth(int)}.
+	 *
+	 * @return Returns {@code true} if subtrees remain to be expanded; {@code false} otherwise.
+	 */
+	public boolean hasUnexpandedSubtrees()
+	{
+		return !lazySubtrees.isEmpty();
 	}
 
 	/**
@@ -488,11 +1215,13 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	 *         {@link #getFailureFunction()}.
 	 *
 	 * @throws IllegalStateException
-	 *             if the goto function has not yet been constructed or the failure function (or next move function) has
-	 *             already been constructed.
+	 *             if the goto function has not yet been constructed, if the failure function (or next move function)
+	 *             has already been constructed, or if this machine has already been built.
 	 */
 	public IFailureFunction buildFailureFunction()
 	{
+		verifyNotBuilt();
+
 		if (nextMoveFunction != null)
 		{
 			throw new IllegalStateException(MSG_NEXT_MOVE_ALREADY_CONSTRUCTED);
@@ -552,6 +1281,11 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 			}
 		}
 
+		buildStateOutputs();
+		buildRootFilter();
+		buildBlockShifts();
+		buildBitMasks();
+
 		return failureFunction;
 	}
 
@@ -573,10 +1307,12 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	 *             symbols.
 	 *
 	 * @throws IllegalStateException
-	 *             if a goto function or next move function has already been constructed.
+	 *             if a goto function or next move function has already been constructed, or if this machine has
+	 *             already been built.
 	 */
 	public IGotoFunction<S> buildGotoFunction(final IKeywords<S> keywords_)
 	{
+		verifyNotBuilt();
 		Verify.notNull(keywords_, PARM_keywords);
 
 		if (nextMoveFunction != null)
@@ -592,6 +1328,12 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 		final int startState = createState();
 		gotoFunction = factory.createGotoFunction();
 		outputFunction = factory.createOutputFunction();
+		bitParallelSymbols = new ArrayList<>();
+		bitParallelSize = 0;
+		lazySubtrees = new LazySubtrees<>(lazyDepth);
+		greatestPath = Collections.emptyList();
+		greatestPathStates = new int[INITIAL_STATE_CAPACITY];
+		greatestPathStates[0] = startState;
 
 		for (final IKeyword<S> keyword : keywords_)
 		{
@@ -599,6 +1341,8 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 		}
 
 		gotoFunction.put(startState, null, startState);
+		greatestPath = null;
+		greatestPathStates = null;
 
 		return gotoFunction;
 	}
@@ -611,78 +1355,94 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	 *         {@link #getNextMoveFunction()}.
 	 *
 	 * @throws IllegalStateException
-	 *             if the goto and failure functions have not yet been constructed or the next move function has already
-	 *             been constructed.
+	 *             if the goto and failure functions have not yet been constructed, if the next move function has
+	 *             already been constructed, or if this machine has already been built.
 	 */
 	public INextMoveFunction<S> buildNextMoveFunction()
 	{
-		if (nextMoveFunction != null)
-		{
-			throw new IllegalStateException(MSG_NEXT_MOVE_ALREADY_CONSTRUCTED);
-		}
-
-		if (failureFunction == null)
-		{
-			throw new IllegalStateException(MSG_FAILURE_NOT_CONSTRUCTED);
-		}
-
-		if (gotoFunction == null)
-		{
-			throw new IllegalStateException(MSG_GOTO_NOT_CONSTRUCTED);
-		}
-
-		nextMoveFunction = factory.createNextMoveFunction();
-
-		final Queue<Integer> queue = new ArrayDeque<>(); // new LinkedList<>();
-		final Collection<S> symbols = gotoFunction.symbols();
-
-		for (final S a : symbols)
-		{
-			final int s = gotoFunction.eval(IGotoFunction.START_STATE, a);
-			nextMoveFunction.put(IGotoFunction.START_STATE, a, s);
-			if (s != IGotoFunction.START_STATE)
-			{
-				queue.add(s);
-			}
-		}
-
-		while (!queue.isEmpty())
-		{
-			final int r = queue.remove();
-
-			for (final S a : symbols)
-			{
-				final int s = gotoFunction.eval(r, a);
-				final int next;
-				if (s == IGotoFunction.NO_STATE)
-				{
-					next = nextMoveFunction.eval(failureFunction.eval(r), a);
-				}
-				else
-				{
-					queue.add(s);
-					next = s;
-				}
-				nextMoveFunction.put(r, a, next);
-			}
-		}
-
-		nextMoveFunction.optimize();
-
-		gotoFunction = null;
-		failureFunction = null;
-
-		return nextMoveFunction;
+		verifyNotBuilt();
+		return _buildNextMoveFunction();
 	}
 
 	/**
-	 * Runs this pattern matching machine to find keywords in a specified text source. This method implements (an
-	 * enhanced version of) <b>Algorithm 1</b> described in <a href="#paper">Aho-Corasick 1975</a>.
+	 * Determines if any keyword occurs in a specified text source. This is a short-circuit alternative to
+	 * {@link #match(ITextSource, IMatchListener)} for callers that only need a yes/no answer: scanning stops at the
+	 * first accepted match, and no {@link IMatch} instances, match precisions, or raw symbols are produced.
 	 *
 	 * <p>
-	 * This machine instance must be have already been initialized such that it has a "next move" function OR it has
-	 * both "goto" and "error" functions. Note that, for performance reasons, it is generally preferable to use a
-	 * "next move" function.
+	 * A keyword occurrence is <i>accepted</i> if it would be reported by {@link #match(ITextSource, IMatchListener)}
+	 * with all filtering options disabled and {@link MatchSemantics#OVERLAPPING} semantics. Since length and precision
+	 * filtering never eliminate every match ending at a position, and non-overlapping semantics always report the
+	 * leftmost match, the result is the same regardless of those options.
+	 * </p>
+	 *
+	 * @param textSource_
+	 *            specifies the input text source in against which matching is performed. The caller is responsible for
+	 *            opening and closing the text source. When a keyword is found, the text source is left positioned just
+	 *            after the keyword occurrence.
+	 *
+	 * @return Returns {@code true} if at least one keyword occurs in the text source; {@code false} otherwise.
+	 *
+	 * @throws IllegalStateException
+	 *             if this instance has not been properly initialized of if the specified text source is not open.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading the text source.
+	 */
+	public boolean contains(final ITextSource<S> textSource_) throws IOException
+	{
+		return createSession().contains(textSource_);
+	}
+
+	/**
+	 * Counts the occurrences of each keyword in a specified text source. The counts are the same as the number of
+	 * matches that would be reported for each keyword by {@link #match(ITextSource, IMatchListener)}, but, unless
+	 * length or precision filtering or non-overlapping {@link MatchSemantics} are enabled, no {@link IMatch} instances,
+	 * match precisions, or raw symbols are produced.
+	 *
+	 * @param textSource_
+	 *            specifies the input text source in against which matching is performed. The caller is responsible for
+	 *            opening and closing the text source.
+	 *
+	 * @return Returns a map from each matched keyword to its number of occurrences. Keywords that do not occur are not
+	 *         included.
+	 *
+	 * @throws IllegalStateException
+	 *             if this instance has not been properly initialized of if the specified text source is not open.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading the text source.
+	 */
+	public Map<IKeyword<S>, Integer> count(final ITextSource<S> textSource_) throws IOException
+	{
+		return createSession().count(textSource_);
+	}
+
+	/**
+	 * Creates a new {@link MatchSession} for performing matching operations using this machine. The new session's
+	 * options are initialized from the current default options of this machine (e.g., {@link #isNotifyLongestMatch()}
+	 * ), but may be subsequently changed without affecting this machine or any other session. Matching is performed by
+	 * the compiled machine (see {@link #build(IKeywords)}), which is created, if necessary, from the functions
+	 * constructed so far.
+	 *
+	 * @return Returns a new {@link MatchSession}.
+	 *
+	 * @throws IllegalStateException
+	 *             if this instance has not been properly initialized.
+	 */
+	public MatchSession<S> createSession()
+	{
+		return new MatchSession<>(compiled(), this);
+	}
+
+	/**
+	 * Runs this pattern matching machine to find keywords in a specified text source. This method implements (an
+	 * enhanced version of) <b>Algorithm 1</b> described in <a href="#paper">Aho-Corasick 1975</a>.
+	 *
+	 * <p>
+	 * This machine instance must be have already been initialized such that it has a "next move" function OR it has
+	 * both "goto" and "error" functions. Note that, for performance reasons, it is generally preferable to use a
+	 * "next move" function.
 	 * </p>
 	 *
 	 * <p>
@@ -701,100 +1461,856 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	 * </p>
 	 *
 	 * <p>
-	 * Matching proceeds until end-of-file reached or until the listener returns {@code false}, indicating that it is no
-	 * longer interested in receiving further notifications.
+	 * Matching proceeds until end-of-file reached or until the listener returns {@code false}, indicating that it is no
+	 * longer interested in receiving further notifications.
+	 * </p>
+	 *
+	 * @param textSource_
+	 *            specifies the input text source in against which matching is performed. The caller is responsible for
+	 *            opening and closing the text source.
+	 * @param listener_
+	 *            specifes the listener to notify of matches.
+	 *
+	 * @return Returns the number of keywords matched.
+	 *
+	 * @throws IllegalStateException
+	 *             if this instance has not been properly initialized of if the specified text source is not open.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading the text source.
+	 */
+	public int match(final ITextSource<S> textSource_, final IMatchListener<S> listener_) throws IOException
+	{
+		return createSession().match(textSource_, listener_);
+	}
+
+	/**
+	 * Runs this pattern matching machine to find approximate occurrences of keywords in a specified text source. A
+	 * keyword occurs approximately at a range of the text source if the (normalized) symbols in that range can be
+	 * transformed into the keyword's required symbols by at most {@code maxDistance_} symbol insertions, deletions, or
+	 * substitutions (i.e., the Levenshtein distance is at most {@code maxDistance_}).
+	 *
+	 * <p>
+	 * Rather than entering every variant of every keyword, the search walks the keyword trie already embodied by this
+	 * machine, tracking, for each trie state that can be reached from some suffix of the input within the permitted
+	 * number of edits, the fewest edits needed and the position at which that alignment started. The dictionary
+	 * therefore keeps its natural size regardless of the distance.
+	 * </p>
+	 *
+	 * <p>
+	 * Of several overlapping occurrences of the same keyword, only the one with the smallest distance (the earliest
+	 * ending one in case of a tie) is reported. An occurrence must match at least one symbol of the keyword exactly and,
+	 * when word-break extensions are enabled, must start and end at word breaks. The precision of each reported match
+	 * is {@link IMatchPrecisionFunction#MAX_PRECISION} reduced in proportion to the distance relative to the number of
+	 * required keyword symbols, so an exact occurrence has maximum precision. Case-sensitive and punctuation-sensitive
+	 * keyword filters, {@link MatchSemantics}, and longest/most-precise match filtering do not apply, and keywords
+	 * matched as long keywords (see {@link #setLongKeywordThreshold(int)}) are never reported approximately.
+	 * </p>
+	 *
+	 * <p>
+	 * Matches are reported in order of increasing ending position and, for equal ending positions, in order of
+	 * increasing starting position.
+	 * </p>
+	 *
+	 * @param textSource_
+	 *            specifies the input text source in against which matching is performed. The caller is responsible for
+	 *            opening and closing the text source.
+	 * @param listener_
+	 *            specifes the listener to notify of matches.
+	 * @param maxDistance_
+	 *            specifies the maximum edit distance, which must be in the range [1, {@value #MAX_EDIT_DISTANCE}].
+	 *
+	 * @return Returns the number of keywords matched.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the maximum distance is out of range.
+	 *
+	 * @throws IllegalStateException
+	 *             if this instance has not been properly initialized of if the specified text source is not open.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading the text source.
+	 */
+	public int matchApproximate(final ITextSource<S> textSource_, final IMatchListener<S> listener_, final int maxDistance_) throws IOException
+	{
+		return createSession().matchApproximate(textSource_, listener_, maxDistance_);
+	}
+
+	/**
+	 * Creates an {@link Iterator} that uses this pattern matching machine to find keywords in a specified text source.
+	 * This method implements (an enhanced version of) <b>Algorithm 1</b> described in <a href="#paper">Aho-Corasick
+	 * 1975</a>.
+	 *
+	 * <p>
+	 * This machine instance must be have already been initialized such that it has a "next move" function OR it has
+	 * both "goto" and "error" functions. Note that, for performance reasons, it is generally preferable to use a
+	 * "next move" function.
+	 * </p>
+	 *
+	 * <p>
+	 * Matching proceeds sequentially through the input text source beginning with position zero and proceeding to
+	 * end-of-file. Matches are returned by the returned iterator's {@code next()} method in the order in which they are
+	 * discovered based on the <i>ending</i> position of the match. Thus, returned ending positions will increase
+	 * monotonically, but returned starting positions may not necessarily increase monotonically. (E.g., A shorter
+	 * keyword contained within a longer keyword may be returned before the longer keyword, even thought the longer
+	 * keyword <i>started</i> before the shorter keyword.)
+	 * </p>
+	 *
+	 * <p>
+	 * When multiple keywords share the same ending position, they are returned in order of descending keyword length
+	 * (and thus, increasing starting position). By default, all such keywords are returned, but this behavior can be
+	 * changed using {@link #setNotifyLongestMatch(boolean)}.
+	 * </p>
+	 *
+	 * <p>
+	 * Matching proceeds until end-of-file reached.
+	 * </p>
+	 *
+	 * @param textSource_
+	 *            specifies the input text source in against which matching is performed. The caller is responsible for
+	 *            opening and closing the text source.
+	 *
+	 *
+	 * @return Returns an new {@link Iterator} that uses this pattern matching machine to find keywords in a specified
+	 *         text source.
+	 *
+	 * @throws IllegalStateException
+	 *             if this instance has not been properly initialized of if the specified text source is not open.
+	 */
+	public Iterator<IMatch<S>> matchIterator(final ITextSource<S> textSource_)
+	{
+		return createSession().matchIterator(textSource_);
+	}
+
+	/**
+	 * Runs this pattern matching machine through a specified text source, adding to a specified profile the number of
+	 * times each state is entered and each edge is traversed. No matches are reported. Profiling a sample of the text
+	 * a machine is expected to scan allows machines subsequently built for that kind of text to place their most
+	 * frequently used states and edges first (see {@link #setStateProfile(StateProfile)}).
+	 *
+	 * <p>
+	 * Every input symbol drives a single transition of the automaton, regardless of the {@link MatchEngine} selected.
+	 * Profiles from several text sources, or from several machines built for the same or overlapping keywords, can be
+	 * accumulated in a single profile.
+	 * </p>
+	 *
+	 * @param textSource_
+	 *            specifies the input text source to be profiled. The caller is responsible for opening and closing the
+	 *            text source.
+	 * @param profile_
+	 *            specifies the profile to which counts are added.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified text source or profile is {@code null}.
+	 *
+	 * @throws IllegalStateException
+	 *             if this instance has not been properly initialized of if the specified text source is not open.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading the text source.
+	 */
+	public void profile(final ITextSource<S> textSource_, final StateProfile<S> profile_) throws IOException
+	{
+		Verify.notNull(textSource_, PARM_textSource);
+		Verify.notNull(profile_, PARM_profile);
+		Verify.condition(textSource_.isOpen(), MSG_NOT_OPEN);
+
+		final AhoCorasickMachine<S> machine = compiled();
+		if (machine != this)
+		{
+			machine.profile(textSource_, profile_);
+			return;
+		}
+
+		final long[] visits = new long[numStates];
+		final List<Map<S, long[]>> traversals = new ArrayList<>(Collections.nCopies(numStates, (Map<S, long[]>) null));
+
+		int state = IGotoFunction.START_STATE;
+		while (!textSource_.isEof())
+		{
+			final S a = textSource_.read();
+			final S b = isCaseExtensionEnabled ? classifier.toLowerCase(a) : a;
+
+			Map<S, long[]> edges = traversals.get(state);
+			if (edges == null)
+			{
+				edges = new HashMap<>();
+				traversals.set(state, edges);
+			}
+
+			final long[] n = edges.get(b);
+			if (n == null)
+			{
+				edges.put(b, new long[] { 1 });
+			}
+			else
+			{
+				++n[0];
+			}
+
+			state = move(state, b);
+			++visits[state];
+		}
+
+		profile_.add(numStates, stateDepths, new IntFunction<IEdgeMap<S>>()
+		{
+			@Override
+			public IEdgeMap<S> apply(final int state_)
+			{
+				return getTrieEdgeMap(state_);
+			}
+		}, visits, traversals);
+	}
+
+	/**
+	 * Resets the machine to its initial state. This allows a machine instance to be rebuilt for use with a different
+	 * set of keywords. Compiled machines previously built by this machine are not affected.
+	 *
+	 * @throws IllegalStateException
+	 *             if this is a compiled machine.
+	 */
+	public void reset()
+	{
+		verifyNotCompiled();
+		_reset();
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * Gets the compiled machine that matches on behalf of this machine, compiling this machine the first time it is
+	 * required.
+	 *
+	 * @return Returns the compiled machine.
+	 *
+	 * @throws IllegalStateException
+	 *             if this instance has not been properly initialized.
+	 */
+	synchronized CompiledMachine<S> compiled()
+	{
+		if (compiled == null)
+		{
+			verifyMatchable();
+			compiled = lazySubtrees.isEmpty() ? new FrozenMachine<>(this) : new LazyMachine<>(this);
+		}
+		return compiled;
+	}
+
+	/**
+	 * Expands every subtree of the goto function that has not yet been constructed. See {@link #expandSubtrees()}.
+	 *
+	 * @throws IllegalStateException
+	 *             if the goto function has not yet been constructed.
+	 */
+	void expandAllSubtrees()
+	{
+		Verify.condition(gotoFunction != null || nextMoveFunction != null, MSG_GOTO_NOT_CONSTRUCTED);
+
+		while (!lazySubtrees.isEmpty())
+		{
+			expandSubtree(lazySubtrees.anyRoot());
+		}
+	}
+
+	/**
+	 * Constructs the next move function of a machine whose subtrees have all been expanded, if it has none. See
+	 * {@link LazyMachine#freeze()}.
+	 */
+	void completeNextMoveFunction()
+	{
+		if (nextMoveFunction == null)
+		{
+			_buildNextMoveFunction();
+		}
+	}
+
+	/**
+	 * Creates an {@link Iterator} that finds approximate keyword occurrences in a specified text source using the
+	 * options of, and counting transitions in, a specified session. See
+	 * {@link #matchApproximate(ITextSource, IMatchListener, int)} for further discussion.
+	 *
+	 * @param session_
+	 *            specifies the session performing the matching operation.
+	 * @param textSource_
+	 *            specifies the (open) input text source.
+	 * @param maxDistance_
+	 *            specifies the maximum edit distance.
+	 *
+	 * @return Returns a new {@link Iterator}.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the maximum distance is out of range.
+	 *
+	 * @throws IllegalStateException
+	 *             if this instance has not been properly initialized of if the specified text source is not open.
+	 */
+	Iterator<IMatch<S>> approximateMatchIterator(final MatchSession<S> session_, final ITextSource<S> textSource_, final int maxDistance_)
+	{
+		assert session_ != null;
+		assert session_.getMachine() == this;
+
+		Verify.notNull(textSource_, PARM_textSource);
+		Verify.condition(textSource_.isOpen(), MSG_NOT_OPEN);
+		if (maxDistance_ < 1 || maxDistance_ > MAX_EDIT_DISTANCE)
+		{
+			final String msg = String.format(MSG_MAX_DISTANCE, PARM_maxDistance, MAX_EDIT_DISTANCE, maxDistance_);
+			throw new IllegalArgumentException(msg);
+		}
+
+		// Approximate matching follows the goto paths of the keyword trie rather than transitions.
+		expandAllSubtrees();
+
+		verifyMatchable();
+		return new ApproximateMatchIterator<>(session_, textSource_, maxDistance_, getTrieIndex());
+	}
+
+	/**
+	 * Counts the accepted keyword occurrences in a specified text source without constructing {@link IMatch}
+	 * instances. See {@link #contains(ITextSource)} for the definition of an accepted occurrence. Length and precision
+	 * filtering are not performed.
+	 *
+	 * @param session_
+	 *            specifies the session performing the matching operation.
+	 * @param textSource_
+	 *            specifies the (open) input text source.
+	 * @param counts_
+	 *            specifies the per-keyword counts to which counts are added, indexed by keyword ID (see
+	 *            {@link #createKeywordCounts()}), or {@code null} if per-keyword counts are not required.
+	 * @param limit_
+	 *            specifies the number of occurrences after which scanning stops.
+	 *
+	 * @return Returns the total number of accepted occurrences found, which is at most {@code limit_}.
+	 *
+	 * @throws IllegalStateException
+	 *             if this instance has not been properly initialized of if the specified text source is not open.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading the text source.
+	 */
+	long countAccepted(final MatchSession<S> session_, final ITextSource<S> textSource_, final int[] counts_, final long limit_)
+			throws IOException
+	{
+		assert session_ != null;
+		assert session_.getMachine() == this;
+		assert limit_ > 0;
+
+		Verify.notNull(textSource_, PARM_textSource);
+		Verify.condition(textSource_.isOpen(), MSG_NOT_OPEN);
+		verifyMatchable();
+
+		long total = 0;
+		final Scanner<S> scanner = createScanner(session_, textSource_);
+		while (scanner.advance())
+		{
+			final int[] outputs = scanner.outputs();
+			if (outputs != null && isWordBreak(textSource_.peek()))
+			{
+				final long matchPosition = textSource_.getPosition();
+				for (final int keywordId : outputs)
+				{
+					if (accept(keywordId, textSource_, matchPosition))
+					{
+						if (counts_ != null)
+						{
+							++counts_[keywordId];
+						}
+
+						if (++total >= limit_)
+						{
+							return total;
+						}
+					}
+				}
+			}
+		}
+
+		return total;
+	}
+
+	/**
+	 * Creates per-keyword counts for {@link #countAccepted(MatchSession, ITextSource, int[], long)} and
+	 * {@link #increment(int[], IMatch)}.
+	 *
+	 * @return Returns a zero count for each keyword, indexed by keyword ID.
+	 */
+	int[] createKeywordCounts()
+	{
+		return new int[keywordsById.size()];
+	}
+
+	/**
+	 * Converts per-keyword counts to a map.
+	 *
+	 * @param counts_
+	 *            specifies the per-keyword counts, indexed by keyword ID (see {@link #createKeywordCounts()}).
+	 *
+	 * @return Returns a map from each keyword with a non-zero count to its count.
+	 */
+	Map<IKeyword<S>, Integer> getKeywordCounts(final int[] counts_)
+	{
+		int n = 0;
+		for (final int count : counts_)
+		{
+			if (count != 0)
+			{
+				++n;
+			}
+		}
+
+		final Map<IKeyword<S>, Integer> result = new HashMap<>(2 * n);
+		for (int id = 0; id < counts_.length; id++)
+		{
+			if (counts_[id] != 0)
+			{
+				result.put(keywordsById.get(id), counts_[id]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Increments the count of a matched keyword.
+	 *
+	 * @param counts_
+	 *            specifies the per-keyword counts, indexed by keyword ID (see {@link #createKeywordCounts()}).
+	 * @param match_
+	 *            specifies the match of the keyword whose count is incremented, which must have been found by
+	 *            {@link #matchIterator(MatchSession, ITextSource)}.
+	 */
+	void increment(final int[] counts_, final IMatch<S> match_)
+	{
+		++counts_[((Match<S>) match_).getKeywordId()];
+	}
+
+	/**
+	 * Creates an {@link Iterator} that finds keywords in a specified text source using the options of, and counting
+	 * transitions in, a specified session. See {@link #matchIterator(ITextSource)} for further discussion.
+	 *
+	 * @param session_
+	 *            specifies the session performing the matching operation.
+	 * @param textSource_
+	 *            specifies the (open) input text source.
+	 *
+	 * @return Returns a new {@link Iterator}.
+	 *
+	 * @throws IllegalStateException
+	 *             if this instance has not been properly initialized of if the specified text source is not open.
+	 */
+	Iterator<IMatch<S>> matchIterator(final MatchSession<S> session_, final ITextSource<S> textSource_)
+	{
+		assert session_ != null;
+		assert session_.getMachine() == this;
+
+		Verify.notNull(textSource_, PARM_textSource);
+		Verify.condition(textSource_.isOpen(), MSG_NOT_OPEN);
+
+		return new MatchIterator(session_, textSource_);
+	}
+
+	/**
+	 * @return Returns the depth of a state (i.e., the length of its goto path).
+	 */
+	int getStateDepth(final int state_)
+	{
+		return stateDepths[state_];
+	}
+
+	/**
+	 * @return Returns the IDs of the keywords recognized in a state (including unverified long keywords and the
+	 *         anchors of pattern keywords), in the order defined by {@link #compareKeywords(int, int)}, or
+	 *         {@code null} if there are none.
+	 */
+	int[] getStateOutputs(final int state_)
+	{
+		return stateOutputs[state_];
+	}
+
+	/**
+	 * @return Returns the filter of the symbols on which the machine leaves the start state. See {@link #rootFilter}.
+	 */
+	Predicate<S> getRootFilter()
+	{
+		return rootFilter;
+	}
+
+	/**
+	 * Compares two keywords in the order in which keywords recognized at the same position are reported.
+	 *
+	 * @return Returns a negative integer, zero, or a positive integer as the first keyword is reported before, with,
+	 *         or after the second.
+	 */
+	int compareKeywords(final int keywordId1_, final int keywordId2_)
+	{
+		return keywordComparator.compare(keywordsById.get(keywordId1_), keywordsById.get(keywordId2_));
+	}
+
+	/**
+	 * @return Returns the greatest number of required symbols of any long keyword, or zero if there are none.
+	 */
+	int getMaxLongKeywordSize()
+	{
+		return maxLongKeywordSize;
+	}
+
+	/**
+	 * @return Returns the greatest number of required symbols of any pattern keyword, or zero if there are none.
+	 */
+	int getMaxPatternKeywordSize()
+	{
+		return maxPatternKeywordSize;
+	}
+
+	/**
+	 * @return Returns the keyword with the specified ID.
+	 */
+	IKeyword<S> getKeyword(final int keywordId_)
+	{
+		return keywordsById.get(keywordId_);
+	}
+
+	/**
+	 * @return Returns the number of required symbols of a keyword.
+	 */
+	int getKeywordRequiredSize(final int keywordId_)
+	{
+		return keywordRequiredSizes[keywordId_];
+	}
+
+	/**
+	 * @return Returns the long keyword with the specified ID, or {@code null} if it is not a long keyword.
+	 */
+	LongKeyword<S> getLongKeyword(final int keywordId_)
+	{
+		return longKeywords[keywordId_];
+	}
+
+	/**
+	 * @return Returns the pattern keyword with the specified ID, or {@code null} if it is not a pattern keyword.
+	 */
+	PatternKeyword<S> getPatternKeyword(final int keywordId_)
+	{
+		return patternKeywords[keywordId_];
+	}
+
+	/**
+	 * @return Returns the word start bit of a keyword. See {@link #keywordWordStartBits}.
+	 */
+	long getWordStartBit(final int keywordId_)
+	{
+		return keywordWordStartBits[keywordId_];
+	}
+
+	/**
+	 * @return Returns the sensitivity mask of a keyword, or {@code null} if it has none.
+	 */
+	SensitivityMask getSensitivityMask(final int keywordId_)
+	{
+		return sensitivityMasks[keywordId_];
+	}
+
+	/**
+	 * @return Returns {@code true} if any keyword has a non-zero word start bit, so the scanner must record word
+	 *         breaks; {@code false} otherwise.
+	 */
+	boolean hasWordStartBits()
+	{
+		return bWordStartBits;
+	}
+
+	/**
+	 * @return Returns {@code true} if any {@link SensitivityMask} constrains symbol case, so the scanner must record
+	 *         the case of the symbols it reads; {@code false} otherwise.
+	 */
+	boolean hasCaseMasks()
+	{
+		return bCaseMasks;
+	}
+
+	/**
+	 * @return Returns {@code true} if any {@link SensitivityMask} constrains punctuation, so the scanner must record
+	 *         the punctuation of the symbols it reads; {@code false} otherwise.
+	 */
+	boolean hasPunctuationMasks()
+	{
+		return bPunctuationMasks;
+	}
+
+	/**
+	 * Determines if a whole word could begin at the specified start position.
+	 *
+	 * @param textSource_
+	 *            the text source
+	 * @param start_
+	 *            the start position
+	 *
+	 * @return Returns {@code true} if a whole word could begin at the start position; {@code false} otherwise.
+	 */
+	boolean acceptWordBreak(final ITextSource<S> textSource_, final long start_)
+	{
+		assert textSource_ != null;
+		assert start_ >= 0;
+
+		final ITailBuffer<S> buffer = textSource_.getTailBuffer();
+
+		long i = start_;
+		S previousSymbol = null;
+		while (previousSymbol == null && i > buffer.start())
+		{
+			previousSymbol = buffer.symbolAt(--i);
+		}
+
+		return isWordBreak(previousSymbol);
+	}
+
+	/**
+	 * Finds the earliest position at which any keyword matched after the current text source position could start,
+	 * given the depth of the current machine state. Every such keyword is a suffix of the goto path to a future state,
+	 * and that path cannot start before the goto path to the current state. If any keyword has optional prefix
+	 * symbols, the position is further extended backward over any preceding whitespace and punctuation symbols.
+	 *
+	 * @param depth_
+	 *            specifies the depth of the current machine state.
+	 * @param textSource_
+	 *            specifies the text source being matched.
+	 *
+	 * @return Returns the earliest possible starting position.
+	 */
+	long findEarliestStart(final int depth_, final ITextSource<S> textSource_)
+	{
+		assert textSource_ != null;
+
+		long start = textSource_.getPosition();
+
+		final ITailBuffer<S> buffer = textSource_.getTailBuffer();
+		for (int i = 0; i < depth_ && start > buffer.start(); i++)
+		{
+			while (buffer.symbolAt(--start) == null && start > buffer.start())
+			{
+				// skip "extra" symbol
+			}
+		}
+
+		if (maxPrefixSize > 0)
+		{
+			final ITailBuffer<S> rawBuffer = textSource_.getRawTailBuffer();
+			while (start > rawBuffer.start())
+			{
+				final S a = rawBuffer.symbolAt(start - 1);
+				if (!classifier.isWhitespace(a) && !classifier.isPunctuation(a))
+				{
+					break;
+				}
+				--start;
+			}
+		}
+
+		return start;
+	}
+
+	/**
+	 * Finds the transition cache of a session, creating it if transition caching is enabled and the session has no
+	 * cache usable with the current transition function and size. See {@link #setTransitionCacheSize(int)}.
+	 *
+	 * @param session_
+	 *            specifies the session.
+	 *
+	 * @return Returns the transition cache, or {@code null} if transition caching is disabled.
+	 */
+	TransitionCache<S> getTransitionCache(final MatchSession<S> session_)
+	{
+		if (transitionCacheSize == 0)
+		{
+			return null;
+		}
+
+		final Object function = nextMoveFunction != null ? nextMoveFunction : gotoFunction;
+		TransitionCache<S> transitionCache = session_.getTransitionCache();
+		if (transitionCache == null || !transitionCache.isFor(function, transitionCacheSize))
+		{
+			transitionCache = new TransitionCache<>(function, transitionCacheSize);
+			session_.setTransitionCache(transitionCache);
+		}
+		return transitionCache;
+	}
+
+	/**
+	 * Gets the index of the keyword trie, constructing it the first time it is required. The goto function must be
+	 * complete (i.e., all subtrees expanded). A {@link FrozenMachine} constructs its index when it is created, so that
+	 * matching does not modify it.
+	 *
+	 * @return Returns the index of the keyword trie.
+	 */
+	TrieIndex<S> getTrieIndex()
+	{
+		if (trieIndex == null)
+		{
+			// The states reachable by deleting keyword symbols at the start of an alignment are looked up by symbol;
+			// see ApproximateMatchIterator.
+			trieIndex = new TrieIndex<>(numStates, stateDepths, new IntFunction<IEdgeMap<S>>()
+			{
+				@Override
+				public IEdgeMap<S> apply(final int state_)
+				{
+					return getTrieEdgeMap(state_);
+				}
+			}, MAX_EDIT_DISTANCE + 1);
+		}
+		return trieIndex;
+	}
+
+	/**
+	 * Determines if a symbol is classified as a word-break character. If word-break extensions are disabled, every
+	 * symbol is considered to be a word-break character. Otherwise, the result is determined by {@link #classifier}.
+	 *
+	 * @param a_
+	 *            the symbol to classify; use {@code null} to specify start-of-file or end-of-file.
+	 *
+	 * @return Return {@code true} if the specified symbol is a word break symbol; {@code false} otherwise.
+	 */
+	boolean isWordBreak(final S a_)
+	{
+		return !isWordBreakExtensionEnabled || classifier.isWordBreak(a_);
+	}
+
+	/**
+	 * Determines the next move of the matching machine.
+	 *
+	 * <p>
+	 * If {@link #nextMoveFunction} is available, that function is used to directly determine the next move. Otherwise,
+	 * the {@link #gotoFunction} and {@link #failureFunction} are used to compute the next move.
 	 * </p>
 	 *
-	 * @param textSource_
-	 *            specifies the input text source in against which matching is performed. The caller is responsible for
-	 *            opening and closing the text source.
-	 * @param listener_
-	 *            specifes the listener to notify of matches.
+	 * @param state_
+	 *            specifies the current state of the machine.
+	 * @param a_
+	 *            specifies the input symbol driving the move.
 	 *
-	 * @return Returns the number of keywords matched.
+	 * @return Returns the state to which the machine should move.
+	 */
+	int move(final int state_, final S a_)
+	{
+		if (nextMoveFunction != null)
+		{
+			return nextMoveFunction.eval(state_, a_);
+		}
+
+		int state = state_;
+		int s = evalGoto(state, a_);
+
+		while (s == IGotoFunction.NO_STATE)
+		{
+			state = failureFunction.eval(state);
+			s = evalGoto(state, a_);
+		}
+
+		return s;
+	}
+
+	/**
+	 * Verifies the long keywords among the keywords recognized at the current position of a text source. Long keywords
+	 * of the same length share a single hash of the preceding symbols, and only keywords with a matching hash are
+	 * compared symbol by symbol.
 	 *
-	 * @throws IllegalStateException
-	 *             if this instance has not been properly initialized of if the specified text source is not open.
+	 * @param keywordIds_
+	 *            specifies the IDs of the recognized keywords.
+	 * @param textSource_
+	 *            specifies the text source.
 	 *
-	 * @throws IOException
-	 *             if an error occurs reading the text source.
+	 * @return Returns the IDs of the recognized keywords, less any long keywords not verified (in the same order), or
+	 *         {@code null} if there are none.
 	 */
-	public int match(final ITextSource<S> textSource_, final IMatchListener<S> listener_) throws IOException
+	int[] verifyLongKeywords(final int[] keywordIds_, final ITextSource<S> textSource_)
 	{
-		Verify.notNull(listener_, PARM_listener);
+		assert keywordIds_ != null;
+		assert textSource_ != null;
 
-		int matchCounter = 0;
-		boolean bListening = listener_.notifyBeginMatching(this);
-		if (bListening)
+		int[] result = keywordIds_;
+		int n = 0;
+
+		int hashedSize = 0;
+		long hash = 0;
+		for (int i = 0; i < keywordIds_.length; i++)
 		{
-			final Iterator<IMatch<S>> iterator = matchIterator(textSource_);
-			while (bListening && iterator.hasNext())
+			final int keywordId = keywordIds_[i];
+			final LongKeyword<S> longKeyword = longKeywords[keywordId];
+
+			boolean bVerified = true;
+			if (longKeyword != null)
+			{
+				if (longKeyword.size() != hashedSize)
+				{
+					hashedSize = longKeyword.size();
+					hash = LongKeyword.hashTail(textSource_, hashedSize, classifier);
+				}
+				bVerified = hash == longKeyword.getHash() && longKeyword.matches(textSource_);
+			}
+
+			if (bVerified)
 			{
-				bListening = listener_.notifyMatch(iterator.next());
-				++matchCounter;
+				result[n++] = keywordId;
+			}
+			else if (result == keywordIds_)
+			{
+				// Copy rather than modify the shared state outputs.
+				result = Arrays.copyOf(keywordIds_, keywordIds_.length);
 			}
-			listener_.notifyEndMatching(this);
 		}
 
-		return matchCounter;
+		if (result == keywordIds_)
+		{
+			return keywordIds_;
+		}
+		return n == 0 ? null : Arrays.copyOf(result, n);
 	}
 
 	/**
-	 * Creates an {@link Iterator} that uses this pattern matching machine to find keywords in a specified text source.
-	 * This method implements (an enhanced version of) <b>Algorithm 1</b> described in <a href="#paper">Aho-Corasick
-	 * 1975</a>.
-	 *
-	 * <p>
-	 * This machine instance must be have already been initialized such that it has a "next move" function OR it has
-	 * both "goto" and "error" functions. Note that, for performance reasons, it is generally preferable to use a
-	 * "next move" function.
-	 * </p>
-	 *
-	 * <p>
-	 * Matching proceeds sequentially through the input text source beginning with position zero and proceeding to
-	 * end-of-file. Matches are returned by the returned iterator's {@code next()} method in the order in which they are
-	 * discovered based on the <i>ending</i> position of the match. Thus, returned ending positions will increase
-	 * monotonically, but returned starting positions may not necessarily increase monotonically. (E.g., A shorter
-	 * keyword contained within a longer keyword may be returned before the longer keyword, even thought the longer
-	 * keyword <i>started</i> before the shorter keyword.)
-	 * </p>
-	 *
-	 * <p>
-	 * When multiple keywords share the same ending position, they are returned in order of descending keyword length
-	 * (and thus, increasing starting position). By default, all such keywords are returned, but this behavior can be
-	 * changed using {@link #setNotifyLongestMatch(boolean)}.
-	 * </p>
-	 *
-	 * <p>
-	 * Matching proceeds until end-of-file reached.
-	 * </p>
+	 * Finds the raw symbols from a text source for the range {@code [start_, end_)}.
 	 *
 	 * @param textSource_
-	 *            specifies the input text source in against which matching is performed. The caller is responsible for
-	 *            opening and closing the text source.
-	 *
+	 *            specifies the text file containing desired symbols.
+	 * @param start_
+	 *            specifies the starting position (closed) of the range.
+	 * @param end_
+	 *            specifies the ending position (open) of the range.
 	 *
-	 * @return Returns an new {@link Iterator} that uses this pattern matching machine to find keywords in a specified
-	 *         text source.
+	 * @return Returns an array of symbols, or {@code null} if the specified range is empty.
 	 *
-	 * @throws IllegalStateException
-	 *             if this instance has not been properly initialized of if the specified text source is not open.
+	 * @throws IndexOutOfBoundsException
+	 *             if the specified range is outside the buffered range of the text source.
 	 */
-	public Iterator<IMatch<S>> matchIterator(final ITextSource<S> textSource_)
+	S[] findRawSymbols(final ITextSource<S> textSource_, final long start_, final long end_)
 	{
-		Verify.notNull(textSource_, PARM_textSource);
-		Verify.condition(textSource_.isOpen(), "textSource_ must be open");
+		assert textSource_ != null;
+		assert start_ >= 0;
+		assert end_ >= start_;
 
-		return new MatchIterator(textSource_);
-	}
+		final ITailBuffer<S> rawBuffer = textSource_.getRawTailBuffer();
+		assert rawBuffer != null;
 
-	/**
-	 * Resets the machine to its initial state. This allows a machine instance to be rebuilt for use with a different
-	 * set of keywords.
-	 */
-	public void reset()
-	{
-		_reset();
+		if (start_ < rawBuffer.start() || rawBuffer.end() < end_)
+		{
+			final String msg = String.format(MSG_RANGE_OUTSIDE_BUFFER,
+					start_, end_, rawBuffer.start(), rawBuffer.end());
+			throw new IndexOutOfBoundsException(msg);
+		}
+
+		final int length = (int) (end_ - start_);
+		if (length == 0)
+		{
+			return null;
+		}
+
+		final S exemplar = rawBuffer.symbolAt(start_);
+		@SuppressWarnings("unchecked")
+		final S[] symbols = (S[]) Array.newInstance(exemplar.getClass(), length);
+
+		for (int i = 0; i < length; i++)
+		{
+			symbols[i] = rawBuffer.symbolAt(start_ + i);
+		}
+
+		return symbols;
 	}
 
 	// =========================================================================
@@ -806,42 +2322,34 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	 */
 	private class MatchIterator implements Iterator<IMatch<S>>
 	{
+		private final MatchSession<S> session;
 		private final ITextSource<S> textSource;
-		private final Deque<IMatch<S>> matches;
+		private final Deque<Match<S>> matches;
+		private final Deque<Match<S>> candidates;
+		private final boolean bLeftmost;
+		private final Scanner<S> scanner;
 
-		private int state;
+		private long committedEnd;
 
 		// =========================================================================
 		// Constructors
 		// =========================================================================
-		public MatchIterator(final ITextSource<S> textSource_)
+		public MatchIterator(final MatchSession<S> session_, final ITextSource<S> textSource_)
 		{
+			assert session_ != null;
 			assert textSource_ != null;
 			assert textSource_.isOpen();
 
+			this.session = session_;
 			this.textSource = textSource_;
 			this.matches = new ArrayDeque<>();
+			this.bLeftmost = session_.getMatchSemantics().isLeftmost();
+			this.candidates = bLeftmost ? new ArrayDeque<Match<S>>() : matches;
 
-			state = IGotoFunction.START_STATE;
-
-			if (nextMoveFunction == null)
-			{
-				if (gotoFunction == null)
-				{
-					throw new IllegalStateException(MSG_GOTO_NOT_CONSTRUCTED);
-				}
-
-				if (failureFunction == null)
-				{
-					throw new IllegalStateException(MSG_FAILURE_NOT_CONSTRUCTED);
-				}
+			verifyMatchable();
 
-				gotoFunction.clearCalls();
-			}
-			else
-			{
-				nextMoveFunction.clearCalls();
-			}
+			this.scanner = createScanner(session_, textSource_);
+			committedEnd = 0;
 		}
 
 		// =========================================================================
@@ -886,44 +2394,81 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 
 		private void findNext()
 		{
-			while (matches.isEmpty() && !textSource.isEof())
+			while (matches.isEmpty() && advance())
 			{
-				S a = read();
+				final int[] outputs = scanner.outputs();
+				if (outputs != null)
+				{
+					assert outputs.length > 0;
+
+					if (isWordBreak(textSource.peek()))
+					{
+						try
+						{
+							collectMatches(session, outputs, textSource, candidates);
+						}
+						catch (final IOException e)
+						{
+							throw new RuntimeException(e);
+						}
+					}
+				}
 
-				if (isCaseExtensionEnabled)
+				if (bLeftmost && !candidates.isEmpty())
 				{
-					a = classifier.toLowerCase(a);
+					commitCandidates(scanner.earliestStart());
 				}
+			}
+
+			if (bLeftmost && matches.isEmpty() && !candidates.isEmpty())
+			{
+				commitCandidates(Long.MAX_VALUE);
+			}
+		}
 
-				state = move(state, a);
-				if (state != IGotoFunction.START_STATE)
+		/**
+		 * Moves candidate matches that can no longer be superseded to the output queue, discarding candidates that
+		 * overlap them.
+		 *
+		 * @param earliestStart_
+		 *            specifies the earliest position at which a subsequently found candidate could start.
+		 */
+		private void commitCandidates(final long earliestStart_)
+		{
+			while (true)
+			{
+				Match<S> best = null;
+				final Iterator<Match<S>> iterator = candidates.iterator();
+				while (iterator.hasNext())
 				{
-					final IKeywords<S> keywords = outputFunction.output(state);
-					if (keywords != null)
+					final Match<S> candidate = iterator.next();
+					if (candidate.getStart() < committedEnd)
 					{
-						assert !keywords.isEmpty();
-
-						if (isWordBreak(textSource.peek()))
-						{
-							try
-							{
-								collectMatches(keywords, textSource, matches);
-							}
-							catch (final IOException e)
-							{
-								throw new RuntimeException(e);
-							}
-						}
+						iterator.remove();
+					}
+					else if (best == null || candidate.getStart() < best.getStart()
+							|| (candidate.getStart() == best.getStart() && isPreferred(session, candidate, best)))
+					{
+						best = candidate;
 					}
 				}
+
+				if (best == null || best.getStart() >= earliestStart_)
+				{
+					return;
+				}
+
+				candidates.remove(best);
+				matches.add(best);
+				committedEnd = best.getEnd();
 			}
 		}
 
-		private S read()
+		private boolean advance()
 		{
 			try
 			{
-				return textSource.read();
+				return scanner.advance();
 			}
 			catch (final IOException e)
 			{
@@ -933,141 +2478,91 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	}
 
 	// =========================================================================
-	// class: KeywordMetaData
+	// Internal methods
 	// =========================================================================
 	/**
-	 * {link KeywordMetaData} encapsulates meta data describing an {@link IKeyword} instance. Keyword meta data is
-	 * primarily useful when evaluating fuzzy matching heuristics.
-	 *
-	 * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+	 * Constructs the next move function. See {@link #buildNextMoveFunction()}.
 	 *
+	 * @return Returns the newly constructed {@link INextMoveFunction}.
 	 */
-	private class KeywordMetaData
+	private INextMoveFunction<S> _buildNextMoveFunction()
 	{
-		private static final String PARM_keyword = "keyword_";
-
-		// =========================================================================
-		// Properties
-		// =========================================================================
-		private final IKeyword<S> keyword;
-		private final List<S> requiredSymbols;
-		private final int prefixSize;
-		private final int suffixSize;
-
-		/**
-		 * @return Returns the {@link IKeyword} instance.
-		 */
-		public IKeyword<S> getKeyword()
-		{
-			return keyword;
-		}
-
-		/**
-		 * @return Returns the symbols required to match this keyword.
-		 */
-		public List<S> getRequiredSymbols()
+		if (nextMoveFunction != null)
 		{
-			return requiredSymbols;
+			throw new IllegalStateException(MSG_NEXT_MOVE_ALREADY_CONSTRUCTED);
 		}
 
-		/**
-		 * Gets the number of optionally matched whitespace/punctuation prefix symbols.
-		 *
-		 * @return Returns the number of optional prefix symbols.
-		 */
-		public int getPrefixSize()
+		if (failureFunction == null)
 		{
-			return prefixSize;
+			throw new IllegalStateException(MSG_FAILURE_NOT_CONSTRUCTED);
 		}
 
-		/**
-		 * Gets the number of optionally matched whitespace/punctuation suffix symbols.
-		 *
-		 * @return Returns the number of optional suffix symbols
-		 */
-		public int getSuffixSize()
+		if (gotoFunction == null)
 		{
-			return suffixSize;
+			throw new IllegalStateException(MSG_GOTO_NOT_CONSTRUCTED);
 		}
 
-		// =========================================================================
-		// Constructors
-		// =========================================================================
-		public KeywordMetaData(final IKeyword<S> keyword_)
-		{
-			super();
+		expandAllSubtrees();
 
-			Verify.notNull(keyword_, PARM_keyword);
-			this.keyword = keyword_;
+		nextMoveFunction = factory.createNextMoveFunction();
 
-			requiredSymbols = new ArrayList<>(keyword_.length());
+		// The next move function is constructed directly in terms of the new state numbers, if any.
+		final List<StateProfile.Node<S>> profileNodes = stateProfile == null ? null : stateProfile.findNodes(gotoFunction, numStates);
+		final StateNumbering numbering = StateNumbering.create(gotoFunction, numStates, stateOrder, profileNodes);
 
-			int first = -1;
-			int last = -1;
+		final Queue<Integer> queue = new ArrayDeque<>(); // new LinkedList<>();
+		final Collection<S> symbols = gotoFunction.symbols();
 
-			boolean bSpacePending = false;
-			final int length = keyword_.length();
-			for (int i = 0; i < length; ++i)
+		for (final S a : symbols)
+		{
+			final int s = gotoFunction.eval(IGotoFunction.START_STATE, a);
+			nextMoveFunction.put(IGotoFunction.START_STATE, a, numbering.number(s));
+			if (s != IGotoFunction.START_STATE)
 			{
-				S a = keyword_.symbolAt(i);
-
-				if (isPunctuationExtensionEnabled && classifier.isPunctuation(a))
-				{
-					a = classifier.getSpace();
-
-					// Although getSpace() may return null, it should never do so here
-					// because isPunctuationExtensionEnabled implies getSpace() returns
-					// a non-null symbol.
-					assert a != null;
-				}
+				queue.add(s);
+			}
+		}
 
-				if (isCaseExtensionEnabled)
-				{
-					a = classifier.toLowerCase(a);
-				}
+		while (!queue.isEmpty())
+		{
+			final int r = queue.remove();
 
-				if (space != null && classifier.isWhitespace(a))
+			for (final S a : symbols)
+			{
+				final int s = gotoFunction.eval(r, a);
+				final int next;
+				if (s == IGotoFunction.NO_STATE)
 				{
-					bSpacePending = true;
+					next = nextMoveFunction.eval(numbering.number(failureFunction.eval(r)), a);
 				}
 				else
 				{
-					if (first == -1)
-					{
-						first = i;
-					}
-					else if (bSpacePending)
-					{
-						requiredSymbols.add(space);
-					}
-					bSpacePending = false;
-
-					requiredSymbols.add(a);
-
-					last = i;
+					queue.add(s);
+					next = numbering.number(s);
 				}
+				nextMoveFunction.put(numbering.number(r), a, next);
 			}
+		}
 
-			prefixSize = first;
-			suffixSize = length - last - 1;
+		if (!numbering.isIdentity())
+		{
+			renumberStates(numbering);
 		}
 
-		/*
-		 * (non-Javadoc)
-		 *
-		 * @see java.lang.Object#toString()
-		 */
-		@Override
-		public String toString()
+		nextMoveFunction.optimize();
+		if (profileNodes != null)
 		{
-			return String.format("KeywordMetaData [keyword=%s, requiredSymbols=%s, prefixSize=%s, suffixSize=%s]", keyword, requiredSymbols, prefixSize,
-					suffixSize);
+			orderEdges(profileNodes, numbering);
 		}
+		nextMoveFunction = factory.compileNextMoveFunction(nextMoveFunction, numStates);
+
+		gotoFunction = null;
+		failureFunction = null;
+		trieIndex = null;
+
+		return nextMoveFunction;
 	}
 
-	// =========================================================================
-	// Internal methods
-	// =========================================================================
 	private void _reset()
 	{
 		this.numStates = 0;
@@ -1075,9 +2570,72 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 		this.gotoFunction = null;
 		this.failureFunction = null;
 		this.outputFunction = null;
+		this.stateDepths = new int[INITIAL_STATE_CAPACITY];
+		this.trieIndex = null;
+		this.maxPrefixSize = 0;
+		this.keywordIds = new IdentityHashMap<>();
+		this.keywordsById = new ArrayList<>();
+		this.stateOutputs = null;
+		this.rootFilter = null;
+		this.keywordRequiredSizes = new int[INITIAL_KEYWORD_CAPACITY];
+		this.keywordPrefixSizes = new int[INITIAL_KEYWORD_CAPACITY];
+		this.keywordSuffixSizes = new int[INITIAL_KEYWORD_CAPACITY];
+		this.keywordWordStartBits = new long[INITIAL_KEYWORD_CAPACITY];
+		this.bWordStartBits = false;
+		this.blockShifts = null;
+		this.bitParallelSymbols = null;
+		this.bitParallelSize = 0;
+		this.bitParallel = null;
+		this.longKeywords = createLongKeywords(INITIAL_KEYWORD_CAPACITY);
+		this.maxLongKeywordSize = 0;
+		this.patternKeywords = createPatternKeywords(INITIAL_KEYWORD_CAPACITY);
+		this.maxPatternKeywordSize = 0;
+		this.sensitivityMasks = new SensitivityMask[INITIAL_KEYWORD_CAPACITY];
+		this.bCaseMasks = false;
+		this.bPunctuationMasks = false;
+		this.lazySubtrees = new LazySubtrees<>(0);
+		this.lazyDepth = 0;
+		this.longKeywordThreshold = 0;
+		this.matchEngine = MatchEngine.AHO_CORASICK;
+		this.stateOrder = StateOrder.INSERTION;
+		this.stateProfile = null;
+		this.transitionCacheSize = 0;
+		this.matchSemantics = MatchSemantics.OVERLAPPING;
 		this.bNotifyLongestMatch = false;
 		this.bNotifyMostPreciseMatch = false;
 		this.bNotifyRawSymbols = false;
+		this.bSensitivityMasksEnabled = true;
+		this.compiled = null;
+	}
+
+	/**
+	 * Filters a keyword occurrence recognized at the current text source position, computing the keyword's start and
+	 * end positions only if required by an enabled extension.
+	 *
+	 * @param keywordId_
+	 *            the ID of the keyword to filter
+	 * @param textSource_
+	 *            the text source in which the keyword was matched
+	 * @param matchPosition_
+	 *            specifies the text source position where the match was recognized.
+	 *
+	 * @return Returns {@code true} if the keyword is accepted; {@code false} otherwise.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading additional input symbols
+	 */
+	private boolean accept(final int keywordId_, final ITextSource<S> textSource_, final long matchPosition_) throws IOException
+	{
+		if (!isWordBreakExtensionEnabled && !isCaseExtensionEnabled && !isPunctuationExtensionEnabled)
+		{
+			return true;
+		}
+
+		final IKeyword<S> keyword = keywordsById.get(keywordId_);
+		final long start = findStart(keyword, keywordId_, textSource_, matchPosition_);
+		final long end = findEnd(keyword, keywordId_, textSource_, matchPosition_);
+
+		return accept(keyword, textSource_, start, end);
 	}
 
 	/**
@@ -1143,6 +2701,13 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 					return false;
 				}
 
+				if (KeywordMetaData.classAt(keyword_, iKeywordPostion) != null)
+				{
+					// Symbol classes are case-sensitive by definition.
+					++iKeywordPostion;
+					continue;
+				}
+
 				final S keywordSymbol = keyword_.symbolAt(iKeywordPostion++);
 				if (!matchedSymbol.equals(keywordSymbol))
 				{
@@ -1159,15 +2724,15 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 		return true;
 	}
 
-	private boolean acceptLength(final IMatch<S> match_, final long lengthThreshold_)
+	private static <S extends Comparable<S>> boolean acceptLength(final MatchSession<S> session_, final IMatch<S> match_, final long lengthThreshold_)
 	{
-		return !bNotifyLongestMatch
+		return !session_.isNotifyLongestMatch()
 				|| (match_.getEnd() - match_.getStart()) >= lengthThreshold_;
 	}
 
-	private boolean acceptPrecision(final IMatch<S> match_, final double precisionThreshold_)
+	private static <S extends Comparable<S>> boolean acceptPrecision(final MatchSession<S> session_, final IMatch<S> match_, final double precisionThreshold_)
 	{
-		return !bNotifyMostPreciseMatch
+		return !session_.isNotifyMostPreciseMatch()
 				|| match_.getPrecision() >= precisionThreshold_ - PRECISION_DELTA;
 	}
 
@@ -1208,9 +2773,10 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 					return false;
 				}
 
+				final boolean bLiteral = KeywordMetaData.classAt(keyword_, iKeywordPostion) == null;
 				final S keywordSymbol = keyword_.symbolAt(iKeywordPostion++);
 
-				if (classifier.isWhitespace(keywordSymbol))
+				if (bLiteral && classifier.isWhitespace(keywordSymbol))
 				{
 					// Must match one or more whitespace symbols in buffer.
 					final int n = skipWhite(rawBuffer, iMatchedPosition);
@@ -1223,7 +2789,7 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 					iMatchedPosition += n;
 					pOptionalWhitespace = false;
 				}
-				else if (classifier.isPunctuation(keywordSymbol))
+				else if (bLiteral && classifier.isPunctuation(keywordSymbol))
 				{
 					// Must match zero or more whitespace symbols, followed by an exact punctuation symbol,
 					// followed by zero or more whitespace symbols.
@@ -1257,40 +2823,15 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 		return true;
 	}
 
-	/**
-	 * Determines if a whole word could begin at the specified start position.
-	 *
-	 * @param textSource_
-	 *            the text source
-	 * @param start_
-	 *            the start position
-	 *
-	 * @return Returns {@code true} if a whole word could begin at the start position; {@code false} otherwise.
-	 */
-	private boolean acceptWordBreak(final ITextSource<S> textSource_, final long start_)
-	{
-		assert textSource_ != null;
-		assert start_ >= 0;
-
-		final ITailBuffer<S> buffer = textSource_.getTailBuffer();
-
-		long i = start_;
-		S previousSymbol = null;
-		while (previousSymbol == null && i > buffer.start())
-		{
-			previousSymbol = buffer.symbolAt(--i);
-		}
-
-		return isWordBreak(previousSymbol);
-	}
-
 	/**
 	 * Adds match notification (i.e., {@link IMatch} instances) to the specified queue. When multiple keywords are
-	 * specified, notifications are added in order defined by {@link #keywordComparator}. By definition, all keywords
-	 * have the same ending position.
+	 * specified, notifications are added in the order specified, which is the order defined by
+	 * {@link #keywordComparator} (see {@link #stateOutputs}). By definition, all keywords have the same ending position.
 	 *
-	 * @param keywords_
-	 *            specifies the keywords to report.
+	 * @param session_
+	 *            specifies the session whose options determine which matches are reported.
+	 * @param keywordIds_
+	 *            specifies the IDs of the keywords to report.
 	 * @param textSource_
 	 *            specifies the text source being matched, positioned at the point where the match recognition occurred.
 	 * @param matches_
@@ -1299,36 +2840,27 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	 * @throws IOException
 	 *             if an error occurs reading additional input symbols
 	 */
-	private void collectMatches(final IKeywords<S> keywords_, final ITextSource<S> textSource_, final Deque<IMatch<S>> matches_) throws IOException
+	private void collectMatches(final MatchSession<S> session_, final int[] keywordIds_, final ITextSource<S> textSource_, final Deque<Match<S>> matches_)
+			throws IOException
 	{
-		assert keywords_ != null;
+		assert session_ != null;
+		assert keywordIds_ != null;
 		assert textSource_ != null;
 		assert matches_ != null;
 
 		final long matchPosition = textSource_.getPosition();
 
-		final Collection<IKeyword<S>> orderedKeywords;
-		if (keywords_.size() > 1)
-		{
-			orderedKeywords = new TreeSet<>(keywordComparator);
-			orderedKeywords.addAll(keywords_);
-		}
-		else
-		{
-			orderedKeywords = keywords_;
-		}
-
 		// Perform preliminary filtering (i.e., all filtering that depends only on a match
 		// itself and not the a relationship between match candidates) and record longest
 		// match length for subsequent filtering.
-		final List<Match<S>> candidateMatches = new ArrayList<>(orderedKeywords.size());
+		final List<Match<S>> candidateMatches = new ArrayList<>(keywordIds_.length);
 		long lengthThreshold = 0;
-		for (final IKeyword<S> keyword : orderedKeywords)
+		for (final int keywordId : keywordIds_)
 		{
-			final KeywordMetaData metaData = new KeywordMetaData(keyword);
+			final IKeyword<S> keyword = keywordsById.get(keywordId);
 
-			final long start = findStart(metaData, textSource_, matchPosition);
-			final long end = findEnd(metaData, textSource_, matchPosition);
+			final long start = findStart(keyword, keywordId, textSource_, matchPosition);
+			final long end = findEnd(keyword, keywordId, textSource_, matchPosition);
 
 			if (accept(keyword, textSource_, start, end))
 			{
@@ -1338,7 +2870,7 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 					lengthThreshold = length;
 				}
 
-				final Match<S> match = new Match<>(this, keyword, start, end);
+				final Match<S> match = new Match<>(session_.getOwner(), keyword, keywordId, start, end);
 				final double precision = matchPrecisionFunction.eval(keyword, textSource_, start, end);
 				match.setPrecision(precision);
 
@@ -1353,7 +2885,7 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 		while (iterator.hasNext())
 		{
 			final IMatch<S> match = iterator.next();
-			if (acceptLength(match, lengthThreshold))
+			if (acceptLength(session_, match, lengthThreshold))
 			{
 				final double precision = match.getPrecision();
 				if (precision > precisionThreshold)
@@ -1363,30 +2895,440 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 			}
 			else
 			{
-				iterator.remove();
+				iterator.remove();
+			}
+		}
+
+		// Filter candidate matches precision and add accepted matches to the
+		// output queue.
+		for (final Match<S> match : candidateMatches)
+		{
+			if (acceptPrecision(session_, match, precisionThreshold))
+			{
+				if (session_.isNotifyRawSymbols())
+				{
+					final S[] rawSymols = findRawSymbols(textSource_, match.getStart(), match.getEnd());
+					match.setRawSymbols(rawSymols);
+				}
+
+				matches_.add(match);
+			}
+		}
+	}
+
+	/**
+	 * Computes {@link #bitParallel} from {@link #bitParallelSymbols}, which is then released.
+	 * The {@link MatchEngine#BIT_PARALLEL} engine is not possible if the keywords have more than {@link Long#SIZE}
+	 * required symbols in total or if any keyword has no required symbols.
+	 */
+	private void buildBitMasks()
+	{
+		final List<List<S>> symbols = bitParallelSymbols;
+		bitParallelSymbols = null;
+
+		if (symbols == null || symbols.isEmpty())
+		{
+			return;
+		}
+
+		final List<Integer> ids = new ArrayList<>(symbols.size());
+		for (int id = 0; id < symbols.size(); id++)
+		{
+			if (symbols.get(id).isEmpty())
+			{
+				return;
+			}
+			ids.add(id);
+		}
+
+		Collections.sort(ids, new Comparator<Integer>()
+		{
+			@Override
+			public int compare(final Integer id1_, final Integer id2_)
+			{
+				return keywordComparator.compare(keywordsById.get(id1_), keywordsById.get(id2_));
+			}
+		});
+
+		bitParallel = new BitParallelAutomaton<>(symbols, ids, factory);
+	}
+
+	/**
+	 * Computes {@link #blockShifts} from the goto function. The window is the (bounded) number of required symbols of
+	 * the shortest keyword.
+	 */
+	private void buildBlockShifts()
+	{
+		int minSize = Integer.MAX_VALUE;
+		final int numKeywords = keywordsById.size();
+		for (int id = 0; id < numKeywords; id++)
+		{
+			// Only the trailing symbols of a long keyword are in the goto function.
+			final int size = longKeywords[id] != null ? LONG_KEYWORD_TRIGGER_SIZE : keywordRequiredSizes[id];
+			minSize = Math.min(minSize, size);
+		}
+
+		// Pattern keywords are verified as the input is read symbol by symbol; see Scanner. The goto paths must be
+		// constructed to the full depth of a window.
+		final int window = Math.min(minSize, BlockShiftTable.MAX_WINDOW);
+		if (numKeywords == 0 || minSize < BlockShiftTable.MIN_WINDOW || maxPatternKeywordSize > 0
+				|| !lazySubtrees.isEmpty() && window > lazySubtrees.getDepth())
+		{
+			blockShifts = null;
+			return;
+		}
+
+		blockShifts = new BlockShiftTable<>(gotoFunction, window);
+	}
+
+	/**
+	 * Computes {@link #rootFilter} from the goto function of the start state.
+	 */
+	private void buildRootFilter()
+	{
+		final List<S> symbols = new ArrayList<>();
+		final IEdgeMap<S> edgeMap = gotoFunction.getEdgeMap(IGotoFunction.START_STATE);
+		if (edgeMap != null)
+		{
+			for (final IEdge<S> edge : edgeMap.getEdges())
+			{
+				if (edge.getSymbol() != null && edge.getState() != IGotoFunction.START_STATE)
+				{
+					symbols.add(edge.getSymbol());
+				}
+			}
+		}
+
+		buildRootFilter(symbols);
+	}
+
+	/**
+	 * Computes {@link #rootFilter} from the symbols that start a keyword.
+	 *
+	 * @param symbols_
+	 *            specifies the (normalized) first symbol of each keyword.
+	 */
+	private void buildRootFilter(final List<S> symbols_)
+	{
+		final Predicate<S> filter = factory.createSymbolFilter(symbols_);
+		if (isCaseExtensionEnabled)
+		{
+			// Keyword symbols are normalized to lower case, as are input symbols before each move.
+			rootFilter = new Predicate<S>()
+			{
+				@Override
+				public boolean test(final S a_)
+				{
+					return filter.test(classifier.toLowerCase(a_));
+				}
+			};
+		}
+		else
+		{
+			rootFilter = filter;
+		}
+	}
+
+	/**
+	 * Computes {@link #stateOutputs} from the (complete) output function.
+	 */
+	private void buildStateOutputs()
+	{
+		stateOutputs = new int[numStates][];
+		buildStateOutputs(IGotoFunction.START_STATE);
+	}
+
+	/**
+	 * Computes the entries of {@link #stateOutputs} from a specified state onward, growing the array as required.
+	 *
+	 * @param firstState_
+	 *            specifies the first state.
+	 */
+	private void buildStateOutputs(final int firstState_)
+	{
+		if (stateOutputs.length < numStates)
+		{
+			stateOutputs = Arrays.copyOf(stateOutputs, Math.max(numStates, 2 * stateOutputs.length));
+		}
+
+		final List<IKeyword<S>> sorted = new ArrayList<>();
+		for (int state = firstState_; state < numStates; state++)
+		{
+			stateOutputs[state] = null;
+
+			final IKeywords<S> keywords = outputFunction.output(state);
+			if (keywords != null && !keywords.isEmpty())
+			{
+				sorted.clear();
+				sorted.addAll(keywords);
+				Collections.sort(sorted, keywordComparator);
+
+				final int[] outputs = new int[sorted.size()];
+				for (int i = 0; i < outputs.length; i++)
+				{
+					outputs[i] = keywordIds.get(sorted.get(i));
+				}
+				stateOutputs[state] = outputs;
+			}
+		}
+	}
+
+	/**
+	 * Creates the {@link Scanner} implementing the current {@link MatchEngine}.
+	 *
+	 * @param session_
+	 *            specifies the session performing the matching operation.
+	 * @param textSource_
+	 *            specifies the (open) input text source.
+	 *
+	 * @return Returns a new {@link Scanner}.
+	 */
+	private Scanner<S> createScanner(final MatchSession<S> session_, final ITextSource<S> textSource_)
+	{
+		if (matchEngine == MatchEngine.BIT_PARALLEL && bitParallel != null)
+		{
+			return new BitParallelScanner<>(session_, textSource_, bitParallel);
+		}
+
+		if (matchEngine == MatchEngine.BLOCK_SKIP && blockShifts != null)
+		{
+			return new BlockSkipScanner<>(session_, textSource_, blockShifts);
+		}
+
+		return new AutomatonScanner<>(session_, textSource_);
+	}
+
+	/**
+	 * Creates an array of long keywords, indexed by keyword ID. See {@link #longKeywords}.
+	 *
+	 * @param capacity_
+	 *            specifies the length of the array.
+	 *
+	 * @return Returns the new array, each of whose entries is {@code null}.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private LongKeyword<S>[] createLongKeywords(final int capacity_)
+	{
+		return new LongKeyword[capacity_];
+	}
+
+	/**
+	 * Creates an array of pattern keywords, indexed by keyword ID. See {@link #patternKeywords}.
+	 *
+	 * @param capacity_
+	 *            specifies the length of the array.
+	 *
+	 * @return Returns the new array, each of whose entries is {@code null}.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private PatternKeyword<S>[] createPatternKeywords(final int capacity_)
+	{
+		return new PatternKeyword[capacity_];
+	}
+
+	private int createState()
+	{
+		return numStates++;
+	}
+
+	/**
+	 * @return Returns the edge map containing the trie (i.e., goto) edges of a state, among others. A trie edge leads
+	 *         to a state exactly one symbol deeper (see {@link #stateDepths}).
+	 */
+	private IEdgeMap<S> getTrieEdgeMap(final int state_)
+	{
+		return nextMoveFunction != null ? nextMoveFunction.getEdgeMap(state_) : gotoFunction.getEdgeMap(state_);
+	}
+
+
+	/**
+	 * Arranges the edges of each profiled state of the next move function in decreasing order of profiled traversals,
+	 * with edges traversed equally often (including never) in symbol order.
+	 *
+	 * @param profileNodes_
+	 *            specifies the profile node of each state (see {@link StateProfile#findNodes(IGotoFunction, int)}).
+	 * @param numbering_
+	 *            specifies the new state numbers.
+	 */
+	private void orderEdges(final List<StateProfile.Node<S>> profileNodes_, final StateNumbering numbering_)
+	{
+		for (int state = 0; state < numStates; state++)
+		{
+			final StateProfile.Node<S> node = profileNodes_.get(state);
+			final IEdgeMap<S> edgeMap = nextMoveFunction.getEdgeMap(numbering_.number(state));
+			if (node != null && edgeMap != null)
+			{
+				edgeMap.optimize(new Comparator<S>()
+				{
+					@Override
+					public int compare(final S a1_, final S a2_)
+					{
+						final int result = Long.compare(node.getTraversals(a2_), node.getTraversals(a1_));
+						return result != 0 ? result : a1_.compareTo(a2_);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Renumbers the output function and the other per-state structures (other than the goto, failure, and next move
+	 * functions).
+	 *
+	 * @param numbering_
+	 *            specifies the new state numbers.
+	 */
+	private void renumberStates(final StateNumbering numbering_)
+	{
+		final int[] depths = new int[stateDepths.length];
+		final int[][] outputs = new int[numStates][];
+		final IOutputFunction<S> output = factory.createOutputFunction();
+
+		for (int state = 0; state < numStates; state++)
+		{
+			final int number = numbering_.number(state);
+			depths[number] = stateDepths[state];
+			outputs[number] = stateOutputs[state];
+
+			final IKeywords<S> keywords = outputFunction.output(state);
+			if (keywords != null && !keywords.isEmpty())
+			{
+				output.put(number, keywords);
+			}
+		}
+
+		stateDepths = depths;
+		stateOutputs = outputs;
+		outputFunction = output;
+	}
+
+	/**
+	 * Determines if one candidate match is preferred over another candidate match with the same starting position.
+	 *
+	 * @param session_
+	 *            specifies the session whose match semantics apply.
+	 * @param match1_
+	 *            specifies the first candidate.
+	 * @param match2_
+	 *            specifies the second candidate.
+	 *
+	 * @return Returns {@code true} if {@code match1_} is preferred over {@code match2_}; {@code false} otherwise.
+	 */
+	private boolean isPreferred(final MatchSession<S> session_, final Match<S> match1_, final Match<S> match2_)
+	{
+		assert match1_.getStart() == match2_.getStart();
+
+		if (session_.getMatchSemantics() == MatchSemantics.LEFTMOST_LONGEST && match1_.getEnd() != match2_.getEnd())
+		{
+			return match1_.getEnd() > match2_.getEnd();
+		}
+
+		return match1_.getKeywordId() < match2_.getKeywordId();
+	}
+
+	/**
+	 * Assigns an ID to a newly entered keyword and records its meta data, so that matching need only read
+	 * precomputed sizes rather than reclassifying keyword symbols at every match.
+	 *
+	 * @param metaData_
+	 *            specifies the meta data of the keyword.
+	 */
+	private void registerKeyword(final KeywordMetaData<S> metaData_)
+	{
+		assert metaData_ != null;
+
+		final IKeyword<S> keyword = metaData_.getKeyword();
+		if (keywordIds.containsKey(keyword))
+		{
+			return;
+		}
+
+		final int id = keywordIds.size();
+		if (id >= keywordRequiredSizes.length)
+		{
+			final int capacity = 2 * keywordRequiredSizes.length;
+			keywordRequiredSizes = Arrays.copyOf(keywordRequiredSizes, capacity);
+			keywordPrefixSizes = Arrays.copyOf(keywordPrefixSizes, capacity);
+			keywordSuffixSizes = Arrays.copyOf(keywordSuffixSizes, capacity);
+			keywordWordStartBits = Arrays.copyOf(keywordWordStartBits, capacity);
+			longKeywords = Arrays.copyOf(longKeywords, capacity);
+			sensitivityMasks = Arrays.copyOf(sensitivityMasks, capacity);
+			patternKeywords = Arrays.copyOf(patternKeywords, capacity);
+		}
+
+		keywordIds.put(keyword, id);
+		keywordsById.add(keyword);
+		keywordRequiredSizes[id] = metaData_.getRequiredSymbols().size();
+		keywordPrefixSizes[id] = metaData_.getPrefixSize();
+		keywordSuffixSizes[id] = metaData_.getSuffixSize();
+
+		if (metaData_.getPrefixSize() > maxPrefixSize)
+		{
+			maxPrefixSize = metaData_.getPrefixSize();
+		}
+
+		List<S> symbols = metaData_.getRequiredSymbols();
+		if (isLongKeyword(metaData_))
+		{
+			longKeywords[id] = new LongKeyword<>(symbols, classifier);
+			maxLongKeywordSize = Math.max(maxLongKeywordSize, symbols.size());
+			symbols = symbols.subList(symbols.size() - LONG_KEYWORD_TRIGGER_SIZE, symbols.size());
+		}
+		else if (metaData_.isPattern())
+		{
+			patternKeywords[id] = new PatternKeyword<>(metaData_, classifier);
+			maxPatternKeywordSize = Math.max(maxPatternKeywordSize, symbols.size());
+
+			// Pattern keywords are verified as the input is read symbol by symbol; see Scanner.
+			bitParallelSymbols = null;
+		}
+		else if (bSensitivityMasksEnabled)
+		{
+			final SensitivityMask mask = SensitivityMask.create(metaData_, classifier);
+			if (mask != null)
+			{
+				sensitivityMasks[id] = mask;
+				bCaseMasks |= mask.isCaseConstrained();
+				bPunctuationMasks |= mask.isPunctuationConstrained();
 			}
 		}
 
-		// Filter candidate matches precision and add accepted matches to the
-		// output queue.
-		for (final Match<S> match : candidateMatches)
+		// All required symbols of an ordinary keyword without optional prefix symbols are read by the scanner, so the
+		// word break preceding them is recorded in the scanner's word break history.
+		final int size = metaData_.getRequiredSymbols().size();
+		if (isWordBreakExtensionEnabled && metaData_.getPrefixSize() == 0 && size < Long.SIZE && longKeywords[id] == null
+				&& patternKeywords[id] == null)
 		{
-			if (acceptPrecision(match, precisionThreshold))
-			{
-				if (bNotifyRawSymbols)
-				{
-					final S[] rawSymols = findRawSymbols(textSource_, match.getStart(), match.getEnd());
-					match.setRawSymbols(rawSymols);
-				}
+			keywordWordStartBits[id] = 1L << size;
+			bWordStartBits = true;
+		}
 
-				matches_.add(match);
+		if (bitParallelSymbols != null)
+		{
+			bitParallelSymbols.add(symbols);
+			bitParallelSize += symbols.size();
+			if (bitParallelSize > Long.SIZE)
+			{
+				bitParallelSymbols = null;
 			}
 		}
 	}
 
-	private int createState()
+	/**
+	 * Records the depth of a newly created state.
+	 *
+	 * @param state_
+	 *            specifies the state.
+	 * @param depth_
+	 *            specifies the number of symbols on the goto path to the state.
+	 */
+	private void setStateDepth(final int state_, final int depth_)
 	{
-		return numStates++;
+		if (state_ >= stateDepths.length)
+		{
+			stateDepths = Arrays.copyOf(stateDepths, Math.max(state_ + 1, 2 * stateDepths.length));
+		}
+		stateDepths[state_] = depth_;
 	}
 
 	/**
@@ -1407,14 +3349,104 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 
 		verifyNormalWhitespace(keyword_);
 
-		final KeywordMetaData metaData = new KeywordMetaData(keyword_);
-		final List<S> symbols = metaData.getRequiredSymbols();
+		final KeywordMetaData<S> metaData = new KeywordMetaData<>(keyword_, classifier);
+		final List<S> symbols = getEnteredSymbols(metaData);
 
-		int state = IGotoFunction.START_STATE;
+		registerKeyword(metaData);
+
+		final int depth = lazySubtrees.getDepth();
+		if (depth > 0 && symbols.size() > depth)
+		{
+			// The rest of the keyword is entered when the subtree is expanded; see setLazyDepth().
+			lazySubtrees.add(enter(symbols.subList(0, depth)), keyword_);
+			return;
+		}
+
+		outputFunction.put(enter(symbols), keyword_);
+	}
+
+	/**
+	 * Enters a sequence of symbols into the goto function from the start state, as for
+	 * {@link #enter(int, int, List)}.
+	 *
+	 * <p>
+	 * If the sequence is not less (in lexicographic order) than every sequence entered before it, no state on its goto
+	 * path beyond its longest common prefix with the greatest sequence entered so far can exist yet. The goto path is
+	 * then constructed directly, reusing the states along the common prefix and creating the rest, without searching
+	 * the goto function. Thus, when keywords are entered in sorted order (e.g., from a sorted keyword file), the goto
+	 * function is constructed in a single pass, in time linear in the total number of keyword symbols, and states are
+	 * numbered in depth-first order of the trie. Sequences out of order are entered by searching the goto function.
+	 * </p>
+	 *
+	 * @param symbols_
+	 *            specifies the symbols.
+	 *
+	 * @return Returns the state reached by the last symbol.
+	 */
+	private int enter(final List<S> symbols_)
+	{
+		final int size = symbols_.size();
+		final int n = Math.min(size, greatestPath.size());
+
+		int prefix = 0;
+		while (prefix < n && symbols_.get(prefix).equals(greatestPath.get(prefix)))
+		{
+			++prefix;
+		}
+
+		if (prefix == size)
+		{
+			// The sequence is a prefix of the greatest sequence.
+			return greatestPathStates[prefix];
+		}
+
+		if (prefix < greatestPath.size() && symbols_.get(prefix).compareTo(greatestPath.get(prefix)) < 0)
+		{
+			return enter(IGotoFunction.START_STATE, 0, symbols_);
+		}
+
+		if (size >= greatestPathStates.length)
+		{
+			greatestPathStates = Arrays.copyOf(greatestPathStates, Math.max(size + 1, 2 * greatestPathStates.length));
+		}
+
+		int state = greatestPathStates[prefix];
+		for (int depth = prefix + 1; depth <= size; depth++)
+		{
+			final int nextState = createState();
+			setStateDepth(nextState, depth);
+			gotoFunction.put(state, symbols_.get(depth - 1), nextState);
+			greatestPathStates[depth] = nextState;
+			state = nextState;
+		}
+
+		greatestPath = symbols_;
+		return state;
+	}
+
+	/**
+	 * Enters a sequence of symbols into the goto function, following existing transitions and creating new states as
+	 * required.
+	 *
+	 * @param state_
+	 *            specifies the state from which to enter the symbols.
+	 * @param depth_
+	 *            specifies the depth of the state.
+	 * @param symbols_
+	 *            specifies the symbols.
+	 *
+	 * @return Returns the state reached by the last symbol.
+	 */
+	private int enter(final int state_, final int depth_, final List<S> symbols_)
+	{
+		int state = state_;
+		int depth = depth_;
 		boolean bCheckSymbol = true;
 
-		for (final S a : symbols)
+		for (final S a : symbols_)
 		{
+			++depth;
+
 			if (bCheckSymbol)
 			{
 				final int nextState = gotoFunction.eval(state, a);
@@ -1428,57 +3460,171 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 			}
 
 			final int nextState = createState();
+			setStateDepth(nextState, depth);
 			gotoFunction.put(state, a, nextState);
 			state = nextState;
 		}
 
-		outputFunction.put(state, keyword_);
+		return state;
 	}
 
 	/**
-	 * Finds the raw symbols from a text source for the range {@code [start_, end_)}.
-	 *
-	 * @param textSource_
-	 *            specifies the text file containing desired symbols.
-	 * @param start_
-	 *            specifies the starting position (closed) of the range.
-	 * @param end_
-	 *            specifies the ending position (open) of the range.
+	 * Expands the subtree below a specified state, if it has not yet been constructed: the keywords listed with the
+	 * state are entered into the goto function, and the failure and output functions of the new states are computed
+	 * (as in {@link #buildFailureFunction()}). See {@link #setLazyDepth(int)}.
 	 *
-	 * @return Returns an array of symbols, or {@code null} if the specified range is empty.
+	 * <p>
+	 * The failure transitions of the new states may pass through other unexpanded subtrees, namely those whose root
+	 * spells a proper suffix of a new keyword. Those subtrees are expanded first, and the failure transitions of all
+	 * new states are then computed in a single breadth-first pass, so that no failure transition is evaluated before
+	 * it has been assigned.
+	 * </p>
 	 *
-	 * @throws IndexOutOfBoundsException
-	 *             if the specified range is outside the buffered range of the text source.
+	 * @param root_
+	 *            specifies the root state of the subtree.
 	 */
-	private S[] findRawSymbols(final ITextSource<S> textSource_, final long start_, final long end_)
+	private void expandSubtree(final int root_)
 	{
-		assert textSource_ != null;
-		assert start_ >= 0;
-		assert end_ >= start_;
+		if (!lazySubtrees.isRootDepth(stateDepths[root_]))
+		{
+			return;
+		}
 
-		final ITailBuffer<S> rawBuffer = textSource_.getRawTailBuffer();
-		assert rawBuffer != null;
+		final int depth = lazySubtrees.getDepth();
+		final int firstState = numStates;
+		final Queue<Integer> queue = new ArrayDeque<>();
+		final Deque<Integer> roots = new ArrayDeque<>();
+		roots.push(root_);
 
-		if (start_ < rawBuffer.start() || rawBuffer.end() < end_)
+		while (!roots.isEmpty())
 		{
-			final String msg = String.format(MSG_RANGE_OUTSIDE_BUFFER,
-					start_, end_, rawBuffer.start(), rawBuffer.end());
-			throw new IndexOutOfBoundsException(msg);
+			final int root = roots.pop();
+			final List<IKeyword<S>> keywords = lazySubtrees.remove(root);
+			if (keywords == null)
+			{
+				continue;
+			}
+
+			queue.add(root);
+			for (final IKeyword<S> keyword : keywords)
+			{
+				final List<S> symbols = getEnteredSymbols(new KeywordMetaData<>(keyword, classifier));
+				outputFunction.put(enter(root, depth, symbols.subList(depth, symbols.size())), keyword);
+
+				if (failureFunction != null)
+				{
+					// Every subtree root spelled by a proper suffix of the keyword may be reached by a failure
+					// transition.
+					for (int i = 1; i + depth <= symbols.size(); i++)
+					{
+						final int state = findState(symbols.subList(i, i + depth));
+						if (state != IGotoFunction.NO_STATE)
+						{
+							roots.push(state);
+						}
+					}
+				}
+			}
 		}
 
-		final int length = (int) (end_ - start_);
-		if (length == 0)
+		if (failureFunction == null)
 		{
-			return null;
+			// The failure function of the new states is computed when the failure function is constructed.
+			return;
 		}
 
-		final S exemplar = rawBuffer.symbolAt(start_);
-		@SuppressWarnings("unchecked")
-		final S[] symbols = (S[]) Array.newInstance(exemplar.getClass(), length);
+		// All roots have the same depth, so the new states are visited in order of increasing depth.
+		while (!queue.isEmpty())
+		{
+			final int r = queue.remove();
+			final IEdgeMap<S> edgeMap = gotoFunction.getEdgeMap(r);
+			if (edgeMap != null)
+			{
+				for (final IEdge<S> edge : edgeMap.getEdges())
+				{
+					final S a = edge.getSymbol();
+					final int s = edge.getState();
+					queue.add(s);
 
-		for (int i = 0; i < length; i++)
+					int state = failureFunction.eval(r);
+					while (gotoFunction.eval(state, a) == IGotoFunction.NO_STATE)
+					{
+						state = failureFunction.eval(state);
+					}
+
+					failureFunction.put(s, gotoFunction.eval(state, a));
+					outputFunction.put(s, outputFunction.output(failureFunction.eval(s)));
+				}
+			}
+		}
+
+		buildStateOutputs(firstState);
+	}
+
+	/**
+	 * Follows the goto function from the start state over a sequence of symbols.
+	 *
+	 * @param symbols_
+	 *            specifies the symbols.
+	 *
+	 * @return Returns the state reached, or {@link IGotoFunction#NO_STATE} if there is none.
+	 */
+	private int findState(final List<S> symbols_)
+	{
+		int state = IGotoFunction.START_STATE;
+		for (final S a : symbols_)
 		{
-			symbols[i] = rawBuffer.symbolAt(start_ + i);
+			state = gotoFunction.eval(state, a);
+			if (state == IGotoFunction.NO_STATE)
+			{
+				break;
+			}
+		}
+		return state;
+	}
+
+	/**
+	 * Evaluates the goto function, first expanding the subtree below the specified state if it has not yet been
+	 * constructed. See {@link #setLazyDepth(int)}.
+	 *
+	 * @param state_
+	 *            specifies the state.
+	 * @param a_
+	 *            specifies the symbol.
+	 *
+	 * @return Returns the next state, or {@link IGotoFunction#NO_STATE} if there is none.
+	 */
+	private int evalGoto(final int state_, final S a_)
+	{
+		if (lazySubtrees.isRootDepth(stateDepths[state_]))
+		{
+			expandSubtree(state_);
+		}
+		return gotoFunction.eval(state_, a_);
+	}
+
+	/**
+	 * Returns the symbols of a keyword that are entered into the goto function.
+	 *
+	 * @param metaData_
+	 *            specifies the keyword meta data.
+	 *
+	 * @return Returns the symbols.
+	 */
+	private List<S> getEnteredSymbols(final KeywordMetaData<S> metaData_)
+	{
+		final List<S> symbols = metaData_.getRequiredSymbols();
+
+		if (isLongKeyword(metaData_))
+		{
+			// Only the trailing symbols of a long keyword are entered; see setLongKeywordThreshold().
+			return symbols.subList(symbols.size() - LONG_KEYWORD_TRIGGER_SIZE, symbols.size());
+		}
+
+		if (metaData_.isPattern())
+		{
+			// Only the anchor of a pattern keyword is entered; see PatternKeyword.
+			return symbols.subList(metaData_.getAnchorStart(), metaData_.getAnchorEnd());
 		}
 
 		return symbols;
@@ -1487,8 +3633,10 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	/**
 	 * Finds the start position of the specified keyword.
 	 *
-	 * @param metaData_
-	 *            specifies the meta data for the keyword for which the start position is requested.
+	 * @param keyword_
+	 *            specifies the keyword for which the start position is requested.
+	 * @param keywordId_
+	 *            specifies the ID of the keyword.
 	 * @param textSource_
 	 *            specifies the text source in which the keyword was just matched.
 	 * @param matchPosition_
@@ -1499,37 +3647,22 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	 * @throws IndexOutOfBoundsException
 	 *             if start of the the keyword is before the start buffered range of the text source.
 	 */
-	private long findStart(final KeywordMetaData metaData_, final ITextSource<S> textSource_, final long matchPosition_)
+	private long findStart(final IKeyword<S> keyword_, final int keywordId_, final ITextSource<S> textSource_, final long matchPosition_)
 	{
-		assert metaData_ != null;
+		assert keyword_ != null;
 		assert textSource_ != null;
 
-		final List<S> symbols = metaData_.getRequiredSymbols();
-		final int length = symbols.size();
-
-		// A zero-length keyword would start at the end current text source position.
-		long start = matchPosition_;
-
-		// Now walk backward in the effective symbols until we have found the right number of
-		// non-null symbols.
-		final ITailBuffer<S> buffer = textSource_.getTailBuffer();
-		for (int i = 0; i < length; i++)
-		{
-			while (buffer.symbolAt(--start) == null)
-			{
-				// skip "extra" symbol
-			}
-		}
+		// The required symbols are the effective symbols preceding the match position.
+		long start = textSource_.getPositionBefore(matchPosition_, keywordRequiredSizes[keywordId_]);
 
 		// Now walk even further backward, if possible, to match any optional prefix characters.
 		final ITailBuffer<S> rawBuffer = textSource_.getRawTailBuffer();
-		final IKeyword<S> keyword = metaData_.getKeyword();
-		int toMatch = metaData_.getPrefixSize();
+		int toMatch = keywordPrefixSizes[keywordId_];
 		while (toMatch > 0 && start > rawBuffer.start())
 		{
 			// Get the next optional prefix character to match, working right to left
 			// within the prefix symbols.
-			final S a = keyword.symbolAt(--toMatch);
+			final S a = keyword_.symbolAt(--toMatch);
 
 			// If the optional symbol is whitespace, expand to include leading whitespace, if any.
 			if (classifier.isWhitespace(a))
@@ -1553,8 +3686,10 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	/**
 	 * Finds the end position of the specified keyword.
 	 *
-	 * @param metaData_
-	 *            specifies the meta data for the keyword for which the end position is requested.
+	 * @param keyword_
+	 *            specifies the keyword for which the end position is requested.
+	 * @param keywordId_
+	 *            specifies the ID of the keyword.
 	 * @param textSource_
 	 *            specifies the text source in which the keyword was just matched.
 	 * @param matchPosition_
@@ -1568,9 +3703,10 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	 * @throws IndexOutOfBoundsException
 	 *             if start of the the keyword is before the start buffered range of the text source.
 	 */
-	private long findEnd(final KeywordMetaData metaData_, final ITextSource<S> textSource_, final long matchPosition_) throws IOException
+	private long findEnd(final IKeyword<S> keyword_, final int keywordId_, final ITextSource<S> textSource_, final long matchPosition_)
+			throws IOException
 	{
-		assert metaData_ != null;
+		assert keyword_ != null;
 		assert textSource_ != null;
 
 		long end = matchPosition_;
@@ -1578,11 +3714,10 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 		// Attempt to walk further forward, if possible, to match any optional suffix characters.
 		if (space != null)
 		{
-			int toMatch = metaData_.getSuffixSize();
+			int toMatch = keywordSuffixSizes[keywordId_];
 			if (toMatch > 0)
 			{
-				final IKeyword<S> keyword = metaData_.getKeyword();
-				final int length = keyword.length();
+				final int length = keyword_.length();
 				final ITailBuffer<S> rawBuffer = textSource_.getRawTailBuffer();
 				final long savedPosition = textSource_.getPosition();
 
@@ -1597,7 +3732,7 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 
 					// Get the next optional suffix character to match, working left to right
 					// within the suffix symbols.
-					final S a = keyword.symbolAt(length - toMatch--);
+					final S a = keyword_.symbolAt(length - toMatch--);
 
 					// If the optional symbol is whitespace, expand to include trailing whitespace, if any.
 					if (classifier.isWhitespace(a))
@@ -1665,51 +3800,16 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 	}
 
 	/**
-	 * Determines if a symbol is classified as a word-break character. If word-break extensions are disabled, every
-	 * symbol is considered to be a word-break character. Otherwise, the result is determined by {@link #classifier}.
-	 *
-	 * @param a_
-	 *            the symbol to classify; use {@code null} to specify start-of-file or end-of-file.
-	 *
-	 * @return Return {@code true} if the specified symbol is a word break symbol; {@code false} otherwise.
-	 */
-	private boolean isWordBreak(final S a_)
-	{
-		return !isWordBreakExtensionEnabled || classifier.isWordBreak(a_);
-	}
-
-	/**
-	 * Determines the next move of the matching machine.
-	 *
-	 * <p>
-	 * If {@link #nextMoveFunction} is available, that function is used to directly determine the next move. Otherwise,
-	 * the {@link #gotoFunction} and {@link #failureFunction} are used to compute the next move.
-	 * </p>
+	 * Determines if a keyword is matched as a long keyword. See {@link #setLongKeywordThreshold(int)}.
 	 *
-	 * @param state_
-	 *            specifies the current state of the machine.
-	 * @param a_
-	 *            specifies the input symbol driving the move.
+	 * @param metaData_
+	 *            specifies the meta data of the keyword.
 	 *
-	 * @return Returns the state to which the machine should move.
+	 * @return Returns {@code true} if the keyword is a long keyword; {@code false} otherwise.
 	 */
-	private int move(final int state_, final S a_)
+	private boolean isLongKeyword(final KeywordMetaData<S> metaData_)
 	{
-		if (nextMoveFunction != null)
-		{
-			return nextMoveFunction.eval(state_, a_);
-		}
-
-		int state = state_;
-		int s = gotoFunction.eval(state, a_);
-
-		while (s == IGotoFunction.NO_STATE)
-		{
-			state = failureFunction.eval(state);
-			s = gotoFunction.eval(state, a_);
-		}
-
-		return s;
+		return longKeywordThreshold > 0 && metaData_.getRequiredSymbols().size() > longKeywordThreshold && !metaData_.isPattern();
 	}
 
 	private IllegalArgumentException nonNormalWhitespaceException(final String format_, final IKeyword<S> keyword_)
@@ -1747,7 +3847,7 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 			{
 				final S a = keyword_.symbolAt(i);
 
-				if (classifier.isWhitespace(a))
+				if (KeywordMetaData.classAt(keyword_, i) == null && classifier.isWhitespace(a))
 				{
 					if (i == 0)
 					{
@@ -1774,6 +3874,52 @@ public class AhoCorasickMachine<S extends Comparable<S>>
 		}
 	}
 
+	/**
+	 * Verifies that this machine has not been built (i.e., compiled) since it was constructed or reset.
+	 *
+	 * @throws IllegalStateException
+	 *             if this machine has been built or is a compiled machine.
+	 */
+	private void verifyNotBuilt()
+	{
+		verifyNotCompiled();
+		Verify.condition(compiled == null, MSG_ALREADY_BUILT);
+	}
+
+	/**
+	 * Verifies that this is not a compiled machine, which cannot be modified.
+	 *
+	 * @throws IllegalStateException
+	 *             if this is a compiled machine.
+	 */
+	private void verifyNotCompiled()
+	{
+		Verify.condition(compiled != this, MSG_COMPILED);
+	}
+
+	/**
+	 * Verifies that this machine has been initialized for matching: it must have a next move function, or both goto
+	 * and failure functions.
+	 *
+	 * @throws IllegalStateException
+	 *             if this instance has not been properly initialized.
+	 */
+	private void verifyMatchable()
+	{
+		if (nextMoveFunction == null)
+		{
+			if (gotoFunction == null)
+			{
+				throw new IllegalStateException(MSG_GOTO_NOT_CONSTRUCTED);
+			}
+
+			if (failureFunction == null)
+			{
+				throw new IllegalStateException(MSG_FAILURE_NOT_CONSTRUCTED);
+			}
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
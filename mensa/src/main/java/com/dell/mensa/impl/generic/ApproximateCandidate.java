@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+/**
+ * {@link ApproximateCandidate} is an approximate keyword occurrence found by an approximate search (see
+ * {@link MatchSession#matchApproximate(com.dell.mensa.ITextSource, com.dell.mensa.IMatchListener, int)}) that has not
+ * yet been reported. Candidates are reported in order of their end, then start, positions.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+final class ApproximateCandidate implements Comparable<ApproximateCandidate>
+{
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final int keywordId;
+	private long start;
+	private long end;
+	private int distance;
+
+	/**
+	 * @return Returns the ID of the keyword.
+	 */
+	int getKeywordId()
+	{
+		return keywordId;
+	}
+
+	/**
+	 * @return Returns the position of the first symbol of the occurrence.
+	 */
+	long getStart()
+	{
+		return start;
+	}
+
+	/**
+	 * @return Returns the position following the last symbol of the occurrence.
+	 */
+	long getEnd()
+	{
+		return end;
+	}
+
+	/**
+	 * @return Returns the edit distance of the occurrence.
+	 */
+	int getDistance()
+	{
+		return distance;
+	}
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	ApproximateCandidate(final int keywordId_, final long start_, final long end_, final int distance_)
+	{
+		this.keywordId = keywordId_;
+		this.start = start_;
+		this.end = end_;
+		this.distance = distance_;
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * Replaces this occurrence with an overlapping occurrence of the same keyword with a smaller edit distance.
+	 *
+	 * @param start_
+	 *            specifies the position of the first symbol of the occurrence.
+	 * @param end_
+	 *            specifies the position following the last symbol of the occurrence.
+	 * @param distance_
+	 *            specifies the edit distance of the occurrence.
+	 */
+	void improve(final long start_, final long end_, final int distance_)
+	{
+		assert distance_ < distance;
+
+		this.start = start_;
+		this.end = end_;
+		this.distance = distance_;
+	}
+
+	// =========================================================================
+	// Object methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Comparable#compareTo(java.lang.Object)
+	 */
+	@Override
+	public int compareTo(final ApproximateCandidate other_)
+	{
+		if (end != other_.end)
+		{
+			return end < other_.end ? -1 : 1;
+		}
+		if (start != other_.start)
+		{
+			return start < other_.start ? -1 : 1;
+		}
+		return Integer.compare(keywordId, other_.keywordId);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("ApproximateCandidate [keywordId=%s, start=%s, end=%s, distance=%s]", keywordId, start, end, distance);
+	}
+}
@@ -0,0 +1,396 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import com.dell.mensa.IGotoFunction;
+import com.dell.mensa.IKeyword;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.IMatchListener;
+import com.dell.mensa.IMatchPrecisionFunction;
+import com.dell.mensa.ISymbolClassifier;
+import com.dell.mensa.ITextSource;
+
+/**
+ * {@link ApproximateMatchIterator} implements {@link AhoCorasickMachine#matchApproximate(ITextSource, IMatchListener, int)}.
+ * Alignments follow the goto edges of the keyword trie, as recorded by a {@link TrieIndex}.
+ *
+ * <p>
+ * The alignments beginning at the most recent position at which a word could begin form a <i>band</i> that is not
+ * recorded state by state. After {@code k} input symbols without an exact match, the band reaches every state of
+ * depth {@code d} with distance {@code max(k, d)}, up to the maximum distance, since it may delete the first
+ * {@code d} keyword symbols and substitute or insert the input symbols. These alignments never yield an occurrence
+ * themselves, and a newer band supersedes an older one, so only the alignments that leave the band through an exact
+ * match are recorded, found by looking up the input symbol among the shallow states of the index. Recorded
+ * alignments that the band supersedes are dropped.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+final class ApproximateMatchIterator<S extends Comparable<S>> implements Iterator<IMatch<S>>
+{
+	private final AhoCorasickMachine<S> machine;
+	private final MatchSession<S> session;
+	private final ITextSource<S> textSource;
+	private final int maxDistance;
+	private final Deque<IMatch<S>> matches;
+	private final Map<Integer, ApproximateCandidate> pending;
+	private final List<ApproximateCandidate> committed;
+
+	private final TrieIndex<S> trie;
+	private final ISymbolClassifier<S> classifier;
+	private final boolean isCaseExtensionEnabled;
+	private ActiveStates current;
+	private ActiveStates next;
+
+	/**
+	 * The starting position of the band, and the number of input symbols it has consumed. The band is empty once
+	 * it has consumed more than {@link #maxDistance} symbols.
+	 */
+	private long bandStart;
+	private int bandSize;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * @param session_
+	 *            specifies the session performing the matching operation.
+	 * @param textSource_
+	 *            specifies the (open) input text source.
+	 * @param maxDistance_
+	 *            specifies the maximum edit distance of an occurrence.
+	 * @param trie_
+	 *            specifies the index of the machine's keyword trie.
+	 */
+	ApproximateMatchIterator(final MatchSession<S> session_, final ITextSource<S> textSource_, final int maxDistance_, final TrieIndex<S> trie_)
+	{
+		assert session_ != null;
+		assert textSource_ != null;
+		assert textSource_.isOpen();
+		assert trie_ != null;
+
+		this.machine = session_.getMachine();
+		this.session = session_;
+		this.textSource = textSource_;
+		this.maxDistance = maxDistance_;
+		this.matches = new ArrayDeque<>();
+		this.pending = new HashMap<>();
+		this.committed = new ArrayList<>();
+
+		this.trie = trie_;
+		this.classifier = machine.getClassifier();
+		this.isCaseExtensionEnabled = classifier.isCaseExtensionEnabled();
+		this.current = new ActiveStates(machine.getNumStates());
+		this.next = new ActiveStates(machine.getNumStates());
+		this.bandStart = 0;
+		this.bandSize = maxDistance + 1;
+	}
+
+	// =========================================================================
+	// Iterator methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Iterator#hasNext()
+	 */
+	@Override
+	public boolean hasNext()
+	{
+		findNext();
+		return !matches.isEmpty();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.Iterator#next()
+	 */
+	@Override
+	public IMatch<S> next()
+	{
+		findNext();
+		return matches.remove(); // This throws NoSuchElementException if matches.isEmpty().
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.Iterator#remove()
+	 */
+	@Override
+	public void remove()
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	// =========================================================================
+	// Internal methods
+	// =========================================================================
+	private void findNext()
+	{
+		try
+		{
+			while (matches.isEmpty() && !textSource.isEof())
+			{
+				step();
+			}
+		}
+		catch (final IOException e)
+		{
+			throw new RuntimeException(e);
+		}
+
+		if (matches.isEmpty() && !pending.isEmpty())
+		{
+			commitCandidates(Long.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * Consumes one input symbol, advancing every active alignment and collecting the keyword occurrences that end
+	 * at the new position.
+	 */
+	private void step() throws IOException
+	{
+		final long start = textSource.getPosition();
+
+		// Every position at which a whole word could begin begins a new band, which supersedes the previous one.
+		if (machine.acceptWordBreak(textSource, start))
+		{
+			bandStart = start;
+			bandSize = 0;
+		}
+
+		final S a = textSource.read();
+		final S c = isCaseExtensionEnabled ? classifier.toLowerCase(a) : a;
+		session.countTransition();
+
+		final int k = bandSize;
+		if (bandSize <= maxDistance)
+		{
+			++bandSize;
+		}
+
+		next.clear();
+		for (int i = 0; i < current.size(); ++i)
+		{
+			final int state = current.state(i);
+			final int distance = current.distance(i);
+			final long alignmentStart = current.start(i);
+
+			for (int j = trie.firstChild(state); j < trie.endChild(state); ++j)
+			{
+				if (trie.symbol(j).equals(c))
+				{
+					offer(next, trie.child(j), distance, alignmentStart);
+				}
+				else if (distance < maxDistance)
+				{
+					// Substitution
+					offer(next, trie.child(j), distance + 1, alignmentStart);
+				}
+			}
+
+			if (distance < maxDistance)
+			{
+				// Insertion (i.e., an extra input symbol)
+				offer(next, state, distance + 1, alignmentStart);
+			}
+		}
+
+		// Exact matches leaving the band
+		final int[] shallowStates = k <= maxDistance ? trie.shallowStates(c) : null;
+		if (shallowStates != null)
+		{
+			for (final int child : shallowStates)
+			{
+				final int depth = trie.depth(child) - 1;
+				if (depth > maxDistance)
+				{
+					break;
+				}
+				offer(next, child, Math.max(k, depth), bandStart);
+			}
+		}
+
+		final ActiveStates swap = current;
+		current = next;
+		next = swap;
+
+		collectCandidates();
+
+		long earliestStart = bandSize <= maxDistance ? Math.min(bandStart, textSource.getPosition()) : textSource.getPosition();
+		for (int i = 0; i < current.size(); ++i)
+		{
+			earliestStart = Math.min(earliestStart, current.start(i));
+		}
+		commitCandidates(earliestStart);
+	}
+
+	/**
+	 * Adds an alignment to a set of active states, together with every alignment reachable from it by deleting
+	 * keyword symbols (i.e., without consuming input), unless the band supersedes it.
+	 */
+	private void offer(final ActiveStates states_, final int state_, final int distance_, final long start_)
+	{
+		if (isSuperseded(state_, distance_, start_) || !states_.offer(state_, distance_, start_) || distance_ >= maxDistance)
+		{
+			return;
+		}
+
+		for (int j = trie.firstChild(state_); j < trie.endChild(state_); ++j)
+		{
+			offer(states_, trie.child(j), distance_ + 1, start_);
+		}
+	}
+
+	/**
+	 * Determines if the band reaches a state with no greater distance and no earlier starting position than a
+	 * specified alignment.
+	 */
+	private boolean isSuperseded(final int state_, final int distance_, final long start_)
+	{
+		return bandSize <= maxDistance && start_ <= bandStart && Math.max(bandSize, trie.depth(state_)) <= distance_;
+	}
+
+	/**
+	 * Records the keyword occurrences that end at the current position, keeping only the best of overlapping
+	 * occurrences of the same keyword.
+	 */
+	private void collectCandidates()
+	{
+		final long end = textSource.getPosition();
+		final boolean bWordBreakAtEnd = machine.isWordBreak(textSource.peek());
+
+		for (int i = 0; i < current.size(); ++i)
+		{
+			final int state = current.state(i);
+			final int[] keywordIds = machine.getStateOutputs(state);
+			if (state == IGotoFunction.START_STATE || keywordIds == null || !bWordBreakAtEnd)
+			{
+				continue;
+			}
+
+			final int distance = current.distance(i);
+			final long start = current.start(i);
+			for (final int keywordId : keywordIds)
+			{
+				// Suffix outputs, and the trailing symbols of long keywords, are not complete trie paths.
+				final int size = machine.getKeywordRequiredSize(keywordId);
+				if (size != machine.getStateDepth(state) || distance >= size || machine.getLongKeyword(keywordId) != null)
+				{
+					continue;
+				}
+
+				final ApproximateCandidate candidate = pending.get(keywordId);
+				if (candidate != null && start < candidate.getEnd())
+				{
+					if (distance < candidate.getDistance())
+					{
+						candidate.improve(start, end, distance);
+					}
+				}
+				else
+				{
+					if (candidate != null)
+					{
+						committed.add(candidate);
+					}
+					pending.put(keywordId, new ApproximateCandidate(keywordId, start, end, distance));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves candidates that can no longer be superseded by an overlapping occurrence to the output queue.
+	 *
+	 * @param earliestStart_
+	 *            specifies the earliest position at which a subsequently found occurrence could start.
+	 */
+	private void commitCandidates(final long earliestStart_)
+	{
+		// Candidates ending before every remaining pending candidate can be reported in order.
+		long reportableEnd = Long.MAX_VALUE;
+		final Iterator<ApproximateCandidate> iterator = pending.values().iterator();
+		while (iterator.hasNext())
+		{
+			final ApproximateCandidate candidate = iterator.next();
+			if (candidate.getEnd() <= earliestStart_)
+			{
+				committed.add(candidate);
+				iterator.remove();
+			}
+			else
+			{
+				reportableEnd = Math.min(reportableEnd, candidate.getEnd());
+			}
+		}
+
+		if (committed.isEmpty())
+		{
+			return;
+		}
+
+		Collections.sort(committed);
+		int nReported = 0;
+		for (final ApproximateCandidate candidate : committed)
+		{
+			if (candidate.getEnd() >= reportableEnd)
+			{
+				break;
+			}
+			++nReported;
+
+			final IKeyword<S> keyword = machine.getKeyword(candidate.getKeywordId());
+			final int size = machine.getKeywordRequiredSize(candidate.getKeywordId());
+
+			final Match<S> match = new Match<>(session.getOwner(), keyword, candidate.getKeywordId(), candidate.getStart(), candidate.getEnd());
+			match.setPrecision(IMatchPrecisionFunction.MAX_PRECISION * (size - candidate.getDistance()) / size);
+
+			if (session.isNotifyRawSymbols() && candidate.getStart() >= textSource.getRawTailBuffer().start())
+			{
+				match.setRawSymbols(machine.findRawSymbols(textSource, candidate.getStart(), candidate.getEnd()));
+			}
+
+			matches.add(match);
+		}
+		committed.subList(0, nReported).clear();
+	}
+
+	// =========================================================================
+	// Object methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("ApproximateMatchIterator [maxDistance=%s, current=%s, pending=%s]", maxDistance, current, pending.size());
+	}
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+import com.dell.mensa.IGotoFunction;
+import com.dell.mensa.ITextSource;
+
+/**
+ * {@link AutomatonScanner} implements {@link MatchEngine#AHO_CORASICK}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+final class AutomatonScanner<S extends Comparable<S>> extends Scanner<S>
+{
+	private final Predicate<S> rootFilter;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	AutomatonScanner(final MatchSession<S> session_, final ITextSource<S> textSource_)
+	{
+		super(session_, textSource_);
+
+		this.rootFilter = machine.getRootFilter();
+	}
+
+	// =========================================================================
+	// Scanner methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.impl.generic.Scanner#advance()
+	 */
+	@Override
+	public boolean advance() throws IOException
+	{
+		if (state == IGotoFunction.START_STATE && pendingPatterns.isEmpty())
+		{
+			// Symbols on which the machine stays in the start state need no further processing.
+			skipped(textSource.skip(rootFilter));
+		}
+
+		if (textSource.isEof())
+		{
+			return false;
+		}
+
+		state = move(state, read());
+		session.countTransition();
+		return true;
+	}
+}
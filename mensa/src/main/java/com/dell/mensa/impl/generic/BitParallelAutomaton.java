@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import com.dell.mensa.IFactory;
+
+/**
+ * {@link BitParallelAutomaton} holds the tables of the {@link MatchEngine#BIT_PARALLEL} engine, which simulates the
+ * automaton using the Shift-And algorithm (i.e., the Shift-Or algorithm with the sense of each bit reversed). The
+ * required symbols of all keywords are laid out consecutively in a single {@code long}, keyword by keyword, so a
+ * single {@code long} tracks every keyword prefix that ends at the current position: after each input symbol, the
+ * active prefixes are extended by shifting them one bit, the first symbol of every keyword is activated, and prefixes
+ * that the symbol does not extend are cleared using the mask of the symbol. A keyword is recognized when the bit of
+ * its last symbol is set.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+final class BitParallelAutomaton<S>
+{
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	/**
+	 * The bit mask of each (normalized) keyword symbol: bit {@code i} of the mask of a symbol is set if the symbol
+	 * occurs at the corresponding keyword position, and the mask of every other symbol is zero.
+	 */
+	private final ToLongFunction<S> masks;
+
+	/**
+	 * The bits of the first symbol of each keyword.
+	 */
+	private final long startMask;
+
+	/**
+	 * The bits of the last symbol of each keyword.
+	 */
+	private final long finalMask;
+
+	/**
+	 * The number of keyword symbols up to and including the symbol of each bit, indexed by bit.
+	 */
+	private final int[] depths;
+
+	/**
+	 * The ID of the keyword of each bit, indexed by bit.
+	 */
+	private final int[] keywordIds;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Computes the tables for the specified keywords.
+	 *
+	 * @param symbols_
+	 *            specifies the required symbols of each keyword, indexed by keyword ID. Every keyword has at least
+	 *            one required symbol, and there are at most {@link Long#SIZE} required symbols in total.
+	 * @param ids_
+	 *            specifies the keyword IDs in the order in which the keywords are laid out, which is the order in which
+	 *            keywords recognized at the same position are reported.
+	 * @param factory_
+	 *            specifies the factory that creates the symbol masks (see {@link IFactory#createSymbolMasks(Map)}).
+	 */
+	BitParallelAutomaton(final List<List<S>> symbols_, final List<Integer> ids_, final IFactory<S> factory_)
+	{
+		assert symbols_ != null;
+		assert ids_ != null;
+		assert factory_ != null;
+
+		final Map<S, Long> masks = new HashMap<>();
+		long start = 0;
+		long end = 0;
+		this.depths = new int[Long.SIZE];
+		this.keywordIds = new int[Long.SIZE];
+
+		int bit = 0;
+		for (final int id : ids_)
+		{
+			final List<S> keywordSymbols = symbols_.get(id);
+			assert !keywordSymbols.isEmpty();
+
+			for (int i = 0; i < keywordSymbols.size(); i++, bit++)
+			{
+				final S a = keywordSymbols.get(i);
+				final Long mask = masks.get(a);
+				masks.put(a, Long.valueOf((mask == null ? 0 : mask.longValue()) | (1L << bit)));
+
+				depths[bit] = i + 1;
+				keywordIds[bit] = id;
+			}
+
+			start |= 1L << (bit - keywordSymbols.size());
+			end |= 1L << (bit - 1);
+		}
+
+		this.startMask = start;
+		this.finalMask = end;
+		this.masks = factory_.createSymbolMasks(masks);
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * Advances the active keyword prefixes over an input symbol.
+	 *
+	 * @param bits_
+	 *            specifies the active keyword prefixes, one bit per prefix.
+	 * @param a_
+	 *            specifies the (normalized) input symbol.
+	 *
+	 * @return Returns the keyword prefixes active after the symbol.
+	 */
+	long step(final long bits_, final S a_)
+	{
+		return ((bits_ << 1) | startMask) & masks.applyAsLong(a_);
+	}
+
+	/**
+	 * Returns the keywords recognized by the active keyword prefixes.
+	 *
+	 * @param bits_
+	 *            specifies the active keyword prefixes.
+	 *
+	 * @return Returns the IDs of the keywords recognized, in the order in which the keywords are laid out, or
+	 *         {@code null} if there are none.
+	 */
+	int[] recognized(final long bits_)
+	{
+		long finalBits = bits_ & finalMask;
+		if (finalBits == 0)
+		{
+			return null;
+		}
+
+		final int[] outputs = new int[Long.bitCount(finalBits)];
+		for (int i = 0; i < outputs.length; i++)
+		{
+			outputs[i] = keywordIds[Long.numberOfTrailingZeros(finalBits)];
+			finalBits &= finalBits - 1;
+		}
+		return outputs;
+	}
+
+	/**
+	 * Returns the length of the longest active keyword prefix, which is the depth of the corresponding automaton
+	 * state.
+	 *
+	 * @param bits_
+	 *            specifies the active keyword prefixes.
+	 *
+	 * @return Returns the depth.
+	 */
+	int depth(final long bits_)
+	{
+		int depth = 0;
+		for (long b = bits_; b != 0; b &= b - 1)
+		{
+			depth = Math.max(depth, depths[Long.numberOfTrailingZeros(b)]);
+		}
+		return depth;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("BitParallelAutomaton [startMask=%x, finalMask=%x]", startMask, finalMask);
+	}
+}
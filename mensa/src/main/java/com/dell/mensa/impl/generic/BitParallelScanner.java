@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+import com.dell.mensa.ITextSource;
+
+/**
+ * {@link BitParallelScanner} implements {@link MatchEngine#BIT_PARALLEL}. Rather than tracking a single automaton
+ * state, a single {@code long} tracks every keyword prefix that ends at the current position; see
+ * {@link BitParallelAutomaton}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+final class BitParallelScanner<S extends Comparable<S>> extends Scanner<S>
+{
+	private final BitParallelAutomaton<S> automaton;
+	private final Predicate<S> rootFilter;
+	private long bits;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * @param session_
+	 *            specifies the session performing the matching operation.
+	 * @param textSource_
+	 *            specifies the (open) input text source.
+	 * @param automaton_
+	 *            specifies the bit-parallel tables of the machine.
+	 */
+	BitParallelScanner(final MatchSession<S> session_, final ITextSource<S> textSource_, final BitParallelAutomaton<S> automaton_)
+	{
+		super(session_, textSource_);
+
+		assert automaton_ != null;
+
+		this.automaton = automaton_;
+		this.rootFilter = machine.getRootFilter();
+		this.bits = 0;
+	}
+
+	// =========================================================================
+	// Scanner methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.impl.generic.Scanner#advance()
+	 */
+	@Override
+	public boolean advance() throws IOException
+	{
+		if (bits == 0)
+		{
+			// Symbols that do not start a keyword need no further processing.
+			skipped(textSource.skip(rootFilter));
+		}
+
+		if (textSource.isEof())
+		{
+			return false;
+		}
+
+		bits = automaton.step(bits, read());
+		session.countTransition();
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.impl.generic.Scanner#recognized()
+	 */
+	@Override
+	protected int[] recognized()
+	{
+		// Keywords are laid out in the order defined by AhoCorasickMachine.compareKeywords().
+		return automaton.recognized(bits);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.impl.generic.Scanner#depth()
+	 */
+	@Override
+	protected int depth()
+	{
+		// The longest active prefix corresponds to the goto path of the automaton state.
+		return automaton.depth(bits);
+	}
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.util.Arrays;
+import com.dell.mensa.IEdge;
+import com.dell.mensa.IEdgeMap;
+import com.dell.mensa.IGotoFunction;
+
+/**
+ * {@link BlockShiftTable} holds the shifts used by the {@link MatchEngine#BLOCK_SKIP} engine. Input is examined a
+ * window of {@link #getWindow()} symbols at a time, and the hash of the last {@link #BLOCK_SIZE} (normalized) symbols
+ * of a window selects the distance the window may be shifted without passing the start of any keyword. A shift of
+ * zero marks a window that may begin a keyword.
+ *
+ * <p>
+ * Since every keyword has at least {@link #getWindow()} symbols in the goto function, the goto paths of depth up to the
+ * window are exactly the prefixes of the first symbols of the keywords. For each block ending at depth {@code d} along
+ * such a path, a window ending with that block may be shifted at most {@code window - d} symbols.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+final class BlockShiftTable<S>
+{
+	/**
+	 * The number of symbols hashed to select a shift.
+	 */
+	static final int BLOCK_SIZE = 2;
+
+	/**
+	 * The shortest and longest window. Below the minimum, shifts are too short to pay for hashing; the maximum keeps
+	 * the symbols of a window well within the text source tail buffer.
+	 */
+	static final int MIN_WINDOW = 4;
+	static final int MAX_WINDOW = 64;
+
+	private static final int TABLE_BITS = 16;
+	private static final int TABLE_MASK = (1 << TABLE_BITS) - 1;
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final int window;
+	private final byte[] shifts;
+
+	/**
+	 * @return Returns the number of symbols in each window.
+	 */
+	int getWindow()
+	{
+		return window;
+	}
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Computes the shifts from a goto function.
+	 *
+	 * @param gotoFunction_
+	 *            specifies the goto function, which must be constructed at least to the depth of the window.
+	 * @param window_
+	 *            specifies the number of symbols in each window, which is at most the number of symbols entered into
+	 *            the goto function for any keyword.
+	 */
+	BlockShiftTable(final IGotoFunction<S> gotoFunction_, final int window_)
+	{
+		assert gotoFunction_ != null;
+		assert window_ >= MIN_WINDOW && window_ <= MAX_WINDOW;
+
+		this.window = window_;
+		this.shifts = new byte[TABLE_MASK + 1];
+		Arrays.fill(shifts, (byte) (window_ - BLOCK_SIZE + 1));
+
+		enter(gotoFunction_, IGotoFunction.START_STATE, 0, null);
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * Looks up the shift of a window.
+	 *
+	 * @param a1_
+	 *            specifies the next to last symbol of the window.
+	 * @param a2_
+	 *            specifies the last symbol of the window.
+	 *
+	 * @return Returns the number of symbols the window may be shifted, or zero if a keyword may start at the start of
+	 *         the window.
+	 */
+	int shift(final S a1_, final S a2_)
+	{
+		return shifts[hash(a1_, a2_)];
+	}
+
+	// =========================================================================
+	// Internal methods
+	// =========================================================================
+	/**
+	 * Records the shifts of the blocks ending along the goto paths below a specified state.
+	 *
+	 * @param gotoFunction_
+	 *            specifies the goto function.
+	 * @param state_
+	 *            specifies the state.
+	 * @param depth_
+	 *            specifies the depth of the state.
+	 * @param a_
+	 *            specifies the last symbol on the goto path to the state, or {@code null} for the start state.
+	 */
+	private void enter(final IGotoFunction<S> gotoFunction_, final int state_, final int depth_, final S a_)
+	{
+		final IEdgeMap<S> edgeMap = gotoFunction_.getEdgeMap(state_);
+		if (edgeMap == null)
+		{
+			return;
+		}
+
+		final int depth = depth_ + 1;
+		for (final IEdge<S> edge : edgeMap.getEdges())
+		{
+			final S a = edge.getSymbol();
+			if (a == null || edge.getState() == IGotoFunction.START_STATE)
+			{
+				continue;
+			}
+
+			if (depth >= BLOCK_SIZE)
+			{
+				final int i = hash(a_, a);
+				shifts[i] = (byte) Math.min(shifts[i], window - depth);
+			}
+
+			if (depth < window)
+			{
+				enter(gotoFunction_, edge.getState(), depth, a);
+			}
+		}
+	}
+
+	/**
+	 * Computes the hash of a block of (normalized) symbols.
+	 *
+	 * @param a1_
+	 *            specifies the first symbol of the block.
+	 * @param a2_
+	 *            specifies the second symbol of the block.
+	 *
+	 * @return Returns the hash, which is a valid index of {@link #shifts}.
+	 */
+	private static <S> int hash(final S a1_, final S a2_)
+	{
+		final int h = 31 * a1_.hashCode() + a2_.hashCode();
+		return (h ^ (h >>> TABLE_BITS)) & TABLE_MASK;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("BlockShiftTable [window=%s]", window);
+	}
+}
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.io.IOException;
+import com.dell.mensa.IGotoFunction;
+import com.dell.mensa.ITailBuffer;
+import com.dell.mensa.ITextSource;
+
+/**
+ * {@link BlockSkipScanner} implements {@link MatchEngine#BLOCK_SKIP}.
+ *
+ * <p>
+ * While <i>skipping</i>, input symbols are consumed but not processed by the automaton. Whenever a full window of
+ * {@link BlockShiftTable#getWindow()} symbols has been consumed, its last two symbols select a shift from
+ * the {@link BlockShiftTable} of the machine. A non-zero shift means that no keyword starts within that many symbols
+ * of the start of the window, so that many further symbols are consumed before the next window is examined. All but
+ * the last two of them are passed over by {@link ITextSource#skip(long)}, without being returned to the scanner.
+ * </p>
+ *
+ * <p>
+ * A shift of zero means a keyword may start at the start of the window. The text source is then repositioned to the
+ * start of the window and the scanner switches to <i>verifying</i>, running the automaton from its start state.
+ * Since no keyword starts in the input skipped before the window, the automaton recognizes exactly the keywords it
+ * would have recognized by processing every symbol. Verifying continues until the goto path to the current state is
+ * shorter than a window and starts after the start of the window being verified, whereupon the scanner resumes
+ * skipping with the window that starts where that goto path starts.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+final class BlockSkipScanner<S extends Comparable<S>> extends Scanner<S>
+{
+	private final BlockShiftTable<S> shifts;
+	private final int window;
+
+	private S previousSymbol;
+	private S lastSymbol;
+
+	/**
+	 * The number of symbols to read before the next window is examined.
+	 */
+	private int toRead;
+	private boolean bVerifying;
+
+	/**
+	 * The number of symbols processed by the automaton since verifying began.
+	 */
+	private int nVerified;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * @param session_
+	 *            specifies the session performing the matching operation.
+	 * @param textSource_
+	 *            specifies the (open) input text source.
+	 * @param shifts_
+	 *            specifies the block shift table of the machine.
+	 */
+	BlockSkipScanner(final MatchSession<S> session_, final ITextSource<S> textSource_, final BlockShiftTable<S> shifts_)
+	{
+		super(session_, textSource_);
+
+		assert shifts_ != null;
+
+		this.shifts = shifts_;
+		this.window = shifts.getWindow();
+		this.toRead = window;
+		this.bVerifying = false;
+	}
+
+	// =========================================================================
+	// Scanner methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.impl.generic.Scanner#advance()
+	 */
+	@Override
+	public boolean advance() throws IOException
+	{
+		if (!bVerifying && !skip())
+		{
+			return false;
+		}
+
+		if (textSource.isEof())
+		{
+			return false;
+		}
+
+		state = move(state, readSymbol());
+		session.countTransition();
+		++nVerified;
+
+		// Stop verifying once the goto path to the current state is shorter than a window and starts after the
+		// window being verified.
+		final int depth = machine.getStateDepth(state);
+		if (depth < window && depth < nVerified)
+		{
+			bVerifying = false;
+			toRead = window - depth;
+		}
+
+		return true;
+	}
+
+	// =========================================================================
+	// Internal methods
+	// =========================================================================
+	/**
+	 * Reads input symbols until a window that may begin a keyword is found, then repositions the text source to
+	 * the start of that window and begins verifying.
+	 *
+	 * @return Returns {@code true} if verifying has begun; {@code false} if end-of-file was reached first.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading the text source.
+	 */
+	private boolean skip() throws IOException
+	{
+		while (true)
+		{
+			if (toRead > BlockShiftTable.BLOCK_SIZE)
+			{
+				final int toSkip = toRead - BlockShiftTable.BLOCK_SIZE;
+				if (textSource.skip(toSkip) < toSkip)
+				{
+					return false;
+				}
+				toRead = BlockShiftTable.BLOCK_SIZE;
+			}
+
+			for (; toRead > 0; --toRead)
+			{
+				if (textSource.isEof())
+				{
+					return false;
+				}
+				readSymbol();
+			}
+
+			toRead = shifts.shift(previousSymbol, lastSymbol);
+			if (toRead == 0)
+			{
+				textSource.setPosition(windowStart());
+				repositioned();
+				state = IGotoFunction.START_STATE;
+				bVerifying = true;
+				nVerified = 0;
+				return true;
+			}
+		}
+	}
+
+	private S readSymbol() throws IOException
+	{
+		previousSymbol = lastSymbol;
+		lastSymbol = read();
+		return lastSymbol;
+	}
+
+	/**
+	 * Finds the start of the window just consumed, limited to the tail buffer. A window spanning more raw symbols
+	 * than the tail buffer holds (e.g., one containing a very long run of whitespace) cannot be fully verified,
+	 * just as a keyword spanning that many raw symbols cannot be reported by {@link MatchEngine#AHO_CORASICK}.
+	 *
+	 * @return Returns the first available position at or after the start of the window.
+	 */
+	private long windowStart()
+	{
+		final ITailBuffer<S> buffer = textSource.getTailBuffer();
+
+		long start = textSource.getPosition();
+		for (int i = 0; i < window && start > buffer.start();)
+		{
+			if (buffer.symbolAt(--start) != null)
+			{
+				++i;
+			}
+		}
+
+		while (buffer.symbolAt(start) == null)
+		{
+			++start;
+		}
+		return start;
+	}
+}
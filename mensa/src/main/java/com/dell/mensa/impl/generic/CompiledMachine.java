@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import com.dell.mensa.IKeywords;
+
+/**
+ * {@link CompiledMachine} is an initialized {@link AhoCorasickMachine} that cannot be modified, as returned by
+ * {@link AhoCorasickMachine#build(IKeywords)}. It shares the automaton of the machine that built it, and its settings
+ * and default options are those of that machine when it was built. Its setters,
+ * {@link AhoCorasickMachine#build(IKeywords)}, and {@link AhoCorasickMachine#reset()} throw
+ * {@link IllegalStateException}.
+ *
+ * <p>
+ * A compiled machine is either a thread-safe {@link FrozenMachine} or a single-threaded {@link LazyMachine}; every
+ * {@link MatchSession} matches using one of them.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+public abstract class CompiledMachine<S extends Comparable<S>> extends AhoCorasickMachine<S>
+{
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a compiled copy of the specified machine.
+	 *
+	 * @param machine_
+	 *            specifies the (initialized) machine to copy.
+	 */
+	CompiledMachine(final AhoCorasickMachine<S> machine_)
+	{
+		super(machine_);
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * Returns a thread-safe equivalent of this machine.
+	 *
+	 * @return Returns a {@link FrozenMachine} that reports the same matches as this machine.
+	 */
+	public abstract FrozenMachine<S> freeze();
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.impl.generic.AhoCorasickMachine#compiled()
+	 */
+	@Override
+	CompiledMachine<S> compiled()
+	{
+		return this;
+	}
+}
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import com.dell.mensa.IMatchListener;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link ConcurrentMatcher} runs a single {@link FrozenMachine} against many text sources concurrently, with each text source scanned by its own task.
+ *
+ * <p>
+ * This class is intended for applications that hold a large number of concurrently open, mostly idle, I/O-bound text
+ * sources (e.g., slowly arriving network streams or pipes). Each submitted text source is opened, matched, and closed
+ * by a task running on the associated {@link ExecutorService}, so that a blocking read simply parks the task rather
+ * than requiring a hand-written non-blocking state machine around the match iterator.
+ * </p>
+ *
+ * <p>
+ * By default, tasks are run by {@link #newPerTaskExecutor()}, which starts a <i>virtual thread</i> per task when the
+ * Java runtime supports them (Java 21 and later), and falls back to a cached pool of platform threads otherwise. With
+ * virtual threads, tens of thousands of concurrently open text sources may be scanned at modest cost.
+ * </p>
+ *
+ * <p>
+ * All tasks share the same machine, which matching never modifies. (A single-threaded {@link LazyMachine} must first be
+ * frozen; see {@link LazyMachine#freeze()}.) Each {@link IMatchListener} is notified on the thread scanning the
+ * corresponding text source.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+public class ConcurrentMatcher<S extends Comparable<S>>
+{
+	private static final String PARM_executor = "executor_";
+	private static final String PARM_listener = "listener_";
+	private static final String PARM_machine = "machine_";
+	private static final String PARM_textSource = "textSource_";
+
+	private static final String MSG_ALREADY_OPEN = "textSource_ must not be open";
+
+	/**
+	 * Name of the Java 21 factory method used to create a virtual thread per task executor.
+	 */
+	private static final String VIRTUAL_THREAD_EXECUTOR_METHOD = "newVirtualThreadPerTaskExecutor";
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final FrozenMachine<S> machine;
+	private final ExecutorService executor;
+
+	/**
+	 * @return Returns the machine shared by all matching tasks.
+	 */
+	public FrozenMachine<S> getMachine()
+	{
+		return machine;
+	}
+
+	/**
+	 * @return Returns the {@link ExecutorService} used to run matching tasks.
+	 */
+	public ExecutorService getExecutor()
+	{
+		return executor;
+	}
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a new instance that runs matching tasks using an executor obtained from {@link #newPerTaskExecutor()}.
+	 *
+	 * @param machine_
+	 *            specifies the machine shared by all matching tasks.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified machine is {@code null}.
+	 */
+	public ConcurrentMatcher(final FrozenMachine<S> machine_)
+	{
+		this(machine_, newPerTaskExecutor());
+	}
+
+	/**
+	 * Constructs a new instance that runs matching tasks using the specified executor.
+	 *
+	 * @param machine_
+	 *            specifies the machine shared by all matching tasks.
+	 * @param executor_
+	 *            specifies the executor used to run matching tasks. Since a matching task blocks whenever its text
+	 *            source blocks, the executor should not limit the number of concurrently running tasks to fewer than
+	 *            the number of concurrently open text sources.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified machine or executor is {@code null}.
+	 */
+	public ConcurrentMatcher(final FrozenMachine<S> machine_, final ExecutorService executor_)
+	{
+		Verify.notNull(machine_, PARM_machine);
+		Verify.notNull(executor_, PARM_executor);
+
+		this.machine = machine_;
+		this.executor = executor_;
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * Creates an {@link ExecutorService} that runs each task on its own thread. When supported by the Java runtime, the
+	 * returned executor uses virtual threads; otherwise, it uses a cached pool of platform threads.
+	 *
+	 * @return Returns a new {@link ExecutorService}.
+	 *
+	 * @see #isVirtualThreadSupported()
+	 */
+	public static ExecutorService newPerTaskExecutor()
+	{
+		final Method method = getVirtualThreadExecutorMethod();
+		if (method != null)
+		{
+			try
+			{
+				return (ExecutorService) method.invoke(null);
+			}
+			catch (final IllegalAccessException | InvocationTargetException e)
+			{
+				// Fall back to platform threads.
+			}
+		}
+
+		return Executors.newCachedThreadPool();
+	}
+
+	/**
+	 * Determines if the Java runtime supports virtual threads.
+	 *
+	 * @return Returns {@code true} if {@link #newPerTaskExecutor()} creates executors that use virtual threads;
+	 *         {@code false} otherwise.
+	 */
+	public static boolean isVirtualThreadSupported()
+	{
+		return getVirtualThreadExecutorMethod() != null;
+	}
+
+	/**
+	 * Shuts down the associated executor. Previously submitted tasks are executed, but no new tasks will be accepted.
+	 *
+	 * @see ExecutorService#shutdown()
+	 */
+	public void shutdown()
+	{
+		executor.shutdown();
+	}
+
+	/**
+	 * Submits a text source for matching. The returned task opens the text source, runs the machine against it using
+	 * {@link AhoCorasickMachine#match(ITextSource, IMatchListener)}, and closes the text source, even if matching
+	 * fails.
+	 *
+	 * @param textSource_
+	 *            specifies the (not yet open) text source to match. The text source is opened on the thread running
+	 *            the task, since opening a text source may block until input is available.
+	 * @param listener_
+	 *            specifies the listener to notify of matches found in the text source.
+	 *
+	 * @return Returns a {@link Future} yielding the number of keywords matched.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified text source or listener is {@code null}.
+	 *
+	 * @throws IllegalStateException
+	 *             if the specified text source is already open.
+	 */
+	public Future<Integer> submit(final ITextSource<S> textSource_, final IMatchListener<S> listener_)
+	{
+		Verify.notNull(textSource_, PARM_textSource);
+		Verify.notNull(listener_, PARM_listener);
+		Verify.condition(!textSource_.isOpen(), MSG_ALREADY_OPEN);
+
+		return executor.submit(new Callable<Integer>()
+		{
+			@Override
+			public Integer call() throws Exception
+			{
+				textSource_.open();
+				try
+				{
+					return machine.match(textSource_, listener_);
+				}
+				finally
+				{
+					textSource_.close();
+				}
+			}
+		});
+	}
+
+	// =========================================================================
+	// Internal methods
+	// =========================================================================
+	private static Method getVirtualThreadExecutorMethod()
+	{
+		try
+		{
+			return Executors.class.getMethod(VIRTUAL_THREAD_EXECUTOR_METHOD);
+		}
+		catch (final NoSuchMethodException e)
+		{
+			return null;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("ConcurrentMatcher [machine=%s, executor=%s]", machine, executor);
+	}
+}
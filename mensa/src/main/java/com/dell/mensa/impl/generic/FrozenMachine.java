@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+/**
+ * {@link FrozenMachine} is a thread-safe {@link CompiledMachine}: matching never modifies it, so a single instance can
+ * be used concurrently by any number of threads, each with its own {@link MatchSession}. Every data structure used by
+ * matching, including the index used by approximate matching, is constructed when the machine is created.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+public final class FrozenMachine<S extends Comparable<S>> extends CompiledMachine<S>
+{
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a frozen copy of the specified machine, which must have no unexpanded subtrees.
+	 *
+	 * @param machine_
+	 *            specifies the (initialized) machine to copy.
+	 */
+	FrozenMachine(final AhoCorasickMachine<S> machine_)
+	{
+		this(machine_, false);
+	}
+
+	/**
+	 * Constructs a frozen copy of the specified machine, which must have no unexpanded subtrees.
+	 *
+	 * @param machine_
+	 *            specifies the (initialized) machine to copy.
+	 * @param bNextMoveFunction_
+	 *            specifies whether to construct the next move function of the copy, if the machine has none.
+	 */
+	FrozenMachine(final AhoCorasickMachine<S> machine_, final boolean bNextMoveFunction_)
+	{
+		super(machine_);
+		assert !machine_.hasUnexpandedSubtrees();
+
+		if (bNextMoveFunction_)
+		{
+			completeNextMoveFunction();
+		}
+		getTrieIndex();
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * @return Returns this machine, which is already thread-safe.
+	 */
+	@Override
+	public FrozenMachine<S> freeze()
+	{
+		return this;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.impl.generic.AhoCorasickMachine#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("FrozenMachine [classifier=%s]", getClassifier());
+	}
+}
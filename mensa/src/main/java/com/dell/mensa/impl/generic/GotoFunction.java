@@ -20,6 +20,14 @@ import com.dell.mensa.IStateMap;
 import com.dell.mensa.util.Verify;
 
 /**
+ * {@link GotoFunction} is a generic {@link IGotoFunction} implementation backed by an {@link IStateMap}.
+ *
+ * <p>
+ * This implementation does not maintain a call count (see {@link #getCalls()}), since doing so would cause every
+ * transition to write to state shared by all threads matching with the same machine. Use
+ * {@link MatchSession#getTransitions()} to count transitions made while matching.
+ * </p>
+ *
  * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
  *
  * @param <S>
@@ -31,8 +39,6 @@ public class GotoFunction<S> implements IGotoFunction<S>
 	private final IFactory<S> factory;
 	private final IStateMap<S> map;
 
-	private int calls;
-
 	// =========================================================================
 	// Constructors
 	// =========================================================================
@@ -50,13 +56,12 @@ public class GotoFunction<S> implements IGotoFunction<S>
 	@Override
 	public void clearCalls()
 	{
-		calls = 0;
+		// Calls are not counted.
 	}
 
 	@Override
 	public int eval(final int state_, final S a_)
 	{
-		++calls;
 		final IEdgeMap<S> edgeMap = getEdgeMap(state_);
 		if (edgeMap == null)
 		{
@@ -70,7 +75,7 @@ public class GotoFunction<S> implements IGotoFunction<S>
 	@Override
 	public int getCalls()
 	{
-		return calls;
+		return -1;
 	}
 
 	@Override
@@ -0,0 +1,290 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import com.dell.mensa.IKeyword;
+import com.dell.mensa.IPatternKeyword;
+import com.dell.mensa.ISymbolClassifier;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link KeywordMetaData} encapsulates meta data describing an {@link IKeyword} instance. Keyword meta data is
+ * primarily useful when evaluating fuzzy matching heuristics. Meta data is computed once, when a keyword is entered
+ * into the machine, and the sizes needed during matching are recorded by keyword ID (see
+ * {@link AhoCorasickMachine#registerKeyword(KeywordMetaData)}).
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+final class KeywordMetaData<S>
+{
+	private static final String PARM_classifier = "classifier_";
+	private static final String PARM_keyword = "keyword_";
+
+	private static final String MSG_PATTERN_WITHOUT_LITERALS = "pattern keyword contains no literal symbols: %s";
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final IKeyword<S> keyword;
+	private final List<S> requiredSymbols;
+	private final List<Predicate<S>> requiredClasses;
+	private final int prefixSize;
+	private final int suffixSize;
+	private int anchorStart;
+	private int anchorEnd;
+
+	/**
+	 * @return Returns the {@link IKeyword} instance.
+	 */
+	public IKeyword<S> getKeyword()
+	{
+		return keyword;
+	}
+
+	/**
+	 * @return Returns the symbols required to match this keyword.
+	 */
+	public List<S> getRequiredSymbols()
+	{
+		return requiredSymbols;
+	}
+
+	/**
+	 * @return Returns the symbol classes of the required symbols (see {@link IPatternKeyword#classAt(int)}), or
+	 *         {@code null} if this is not a pattern keyword.
+	 */
+	public List<Predicate<S>> getRequiredClasses()
+	{
+		return requiredClasses;
+	}
+
+	/**
+	 * @return Returns {@code true} if the keyword has at least one symbol class position; {@code false}
+	 *         otherwise.
+	 */
+	public boolean isPattern()
+	{
+		return requiredClasses != null;
+	}
+
+	/**
+	 * Gets the position, within the required symbols, of the first symbol of the longest run of literal symbols of
+	 * a pattern keyword. Only this <i>anchor</i> is entered into the goto function.
+	 *
+	 * @return Returns the (inclusive) start of the anchor.
+	 */
+	public int getAnchorStart()
+	{
+		return anchorStart;
+	}
+
+	/**
+	 * @return Returns the (exclusive) end of the anchor. See {@link #getAnchorStart()}.
+	 */
+	public int getAnchorEnd()
+	{
+		return anchorEnd;
+	}
+
+	/**
+	 * Gets the number of optionally matched whitespace/punctuation prefix symbols.
+	 *
+	 * @return Returns the number of optional prefix symbols.
+	 */
+	public int getPrefixSize()
+	{
+		return prefixSize;
+	}
+
+	/**
+	 * Gets the number of optionally matched whitespace/punctuation suffix symbols.
+	 *
+	 * @return Returns the number of optional suffix symbols
+	 */
+	public int getSuffixSize()
+	{
+		return suffixSize;
+	}
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Computes the meta data of a keyword, normalized as required by a symbol classifier_.
+	 *
+	 * @param keyword_
+	 *            specifies the keyword.
+	 * @param classifier_
+	 *            specifies the symbol classifier of the machine.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified keyword or classifier is {@code null}, or if the keyword is a pattern keyword
+	 *             without literal symbols.
+	 */
+	public KeywordMetaData(final IKeyword<S> keyword_, final ISymbolClassifier<S> classifier_)
+	{
+		super();
+
+		Verify.notNull(keyword_, PARM_keyword);
+		Verify.notNull(classifier_, PARM_classifier);
+		this.keyword = keyword_;
+
+		final S space = classifier_.getSpace();
+		final boolean isCaseExtensionEnabled = classifier_.isCaseExtensionEnabled();
+		final boolean isPunctuationExtensionEnabled = classifier_.isPunctuationExtensionEnabled() && space != null;
+
+		requiredSymbols = new ArrayList<>(keyword_.length());
+		final List<Predicate<S>> classes = new ArrayList<>(keyword_.length());
+		boolean bPattern = false;
+
+		int first = -1;
+		int last = -1;
+
+		boolean bSpacePending = false;
+		final int length = keyword_.length();
+		for (int i = 0; i < length; ++i)
+		{
+			S a = keyword_.symbolAt(i);
+
+			// A symbol class is matched as is; see IPatternKeyword.
+			final Predicate<S> symbolClass = classAt(keyword_, i);
+			if (symbolClass != null)
+			{
+				if (first == -1)
+				{
+					first = i;
+				}
+				else if (bSpacePending)
+				{
+					requiredSymbols.add(space);
+					classes.add(null);
+				}
+				bSpacePending = false;
+
+				requiredSymbols.add(a);
+				classes.add(symbolClass);
+				bPattern = true;
+
+				last = i;
+				continue;
+			}
+
+			if (isPunctuationExtensionEnabled && classifier_.isPunctuation(a))
+			{
+				a = classifier_.getSpace();
+
+				// Although getSpace() may return null, it should never do so here
+				// because isPunctuationExtensionEnabled implies getSpace() returns
+				// a non-null symbol.
+				assert a != null;
+			}
+
+			if (isCaseExtensionEnabled)
+			{
+				a = classifier_.toLowerCase(a);
+			}
+
+			if (space != null && classifier_.isWhitespace(a))
+			{
+				bSpacePending = true;
+			}
+			else
+			{
+				if (first == -1)
+				{
+					first = i;
+				}
+				else if (bSpacePending)
+				{
+					requiredSymbols.add(space);
+					classes.add(null);
+				}
+				bSpacePending = false;
+
+				requiredSymbols.add(a);
+				classes.add(null);
+
+				last = i;
+			}
+		}
+
+		prefixSize = first;
+		suffixSize = length - last - 1;
+
+		requiredClasses = bPattern ? classes : null;
+		if (bPattern)
+		{
+			// The anchor is the longest run of literal symbols.
+			int runStart = 0;
+			for (int i = 0; i <= classes.size(); ++i)
+			{
+				if (i == classes.size() || classes.get(i) != null)
+				{
+					if (i - runStart > anchorEnd - anchorStart)
+					{
+						anchorStart = runStart;
+						anchorEnd = i;
+					}
+					runStart = i + 1;
+				}
+			}
+
+			if (anchorEnd == anchorStart)
+			{
+				final String msg = String.format(MSG_PATTERN_WITHOUT_LITERALS, keyword_);
+				throw new IllegalArgumentException(msg);
+			}
+		}
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * Gets the symbol class at a specified position of a keyword.
+	 *
+	 * @param keyword_
+	 *            specifies the keyword.
+	 * @param index_
+	 *            specifies the position.
+	 *
+	 * @return Returns the symbol class (see {@link IPatternKeyword#classAt(int)}), or {@code null} if the position
+	 *         holds a literal symbol.
+	 */
+	static <S> Predicate<S> classAt(final IKeyword<S> keyword_, final int index_)
+	{
+		return keyword_ instanceof IPatternKeyword ? ((IPatternKeyword<S>) keyword_).classAt(index_) : null;
+	}
+
+	// =========================================================================
+	// Object methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("KeywordMetaData [keyword=%s, requiredSymbols=%s, prefixSize=%s, suffixSize=%s, anchorStart=%s, anchorEnd=%s]", keyword,
+				requiredSymbols, prefixSize, suffixSize, anchorStart, anchorEnd);
+	}
+}
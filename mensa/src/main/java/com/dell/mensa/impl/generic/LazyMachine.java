@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import com.dell.mensa.IKeywords;
+
+/**
+ * {@link LazyMachine} is a single-threaded {@link CompiledMachine}, built with subtrees that remain to be expanded (see
+ * {@link AhoCorasickMachine#setLazyDepth(int)}). Each subtree is expanded the first time a matching operation enters
+ * it, so matching modifies the machine: it must not be used for concurrent matching operations, whether through
+ * separate sessions or otherwise. Call {@link #freeze()} to obtain an equivalent machine that may be shared between
+ * threads.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+public final class LazyMachine<S extends Comparable<S>> extends CompiledMachine<S>
+{
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a lazy copy of the specified machine.
+	 *
+	 * @param machine_
+	 *            specifies the (initialized) machine to copy.
+	 */
+	LazyMachine(final AhoCorasickMachine<S> machine_)
+	{
+		super(machine_);
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * Expands every subtree of this machine that has not yet been expanded, and returns a frozen copy with a next move
+	 * function, as {@link AhoCorasickMachine#build(IKeywords)} would have constructed without a lazy depth. This
+	 * machine remains usable (by a single thread).
+	 *
+	 * @return Returns a new {@link FrozenMachine}.
+	 */
+	@Override
+	public FrozenMachine<S> freeze()
+	{
+		expandAllSubtrees();
+		return new FrozenMachine<>(this, true);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.dell.mensa.impl.generic.AhoCorasickMachine#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("LazyMachine [classifier=%s]", getClassifier());
+	}
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.dell.mensa.IKeyword;
+
+/**
+ * {@link LazySubtrees} holds the subtrees of a goto function that have not yet been constructed (see
+ * {@link AhoCorasickMachine#setLazyDepth(int)}). Every keyword longer than the lazy depth is entered only up to that
+ * depth, and the keywords below each such state, the root of a subtree, are recorded here until the subtree is
+ * expanded.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+final class LazySubtrees<S>
+{
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final int depth;
+	private final Map<Integer, List<IKeyword<S>>> roots;
+
+	/**
+	 * @return Returns the depth of the roots of the subtrees, or zero if all keywords are entered eagerly.
+	 */
+	int getDepth()
+	{
+		return depth;
+	}
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * @param depth_
+	 *            specifies the depth of the roots of the subtrees, or zero if all keywords are entered eagerly.
+	 */
+	LazySubtrees(final int depth_)
+	{
+		assert depth_ >= 0;
+
+		this.depth = depth_;
+		this.roots = new HashMap<>();
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * @return Returns {@code true} if every subtree has been expanded; {@code false} otherwise.
+	 */
+	boolean isEmpty()
+	{
+		return roots.isEmpty();
+	}
+
+	/**
+	 * Determines if a state of a specified depth may be the root of an unexpanded subtree.
+	 *
+	 * @param depth_
+	 *            specifies the depth of the state.
+	 *
+	 * @return Returns {@code true} if the state may be the root of an unexpanded subtree; {@code false} otherwise.
+	 */
+	boolean isRootDepth(final int depth_)
+	{
+		return depth_ == depth && !roots.isEmpty();
+	}
+
+	/**
+	 * Records a keyword whose remaining symbols are to be entered below a subtree root.
+	 *
+	 * @param root_
+	 *            specifies the root state of the subtree.
+	 * @param keyword_
+	 *            specifies the keyword.
+	 */
+	void add(final int root_, final IKeyword<S> keyword_)
+	{
+		List<IKeyword<S>> keywords = roots.get(root_);
+		if (keywords == null)
+		{
+			keywords = new ArrayList<>();
+			roots.put(root_, keywords);
+		}
+		keywords.add(keyword_);
+	}
+
+	/**
+	 * @return Returns the root state of some unexpanded subtree. There must be at least one.
+	 */
+	int anyRoot()
+	{
+		return roots.keySet().iterator().next();
+	}
+
+	/**
+	 * Removes a subtree, which is about to be expanded.
+	 *
+	 * @param root_
+	 *            specifies the root state of the subtree.
+	 *
+	 * @return Returns the keywords to be entered below the root, or {@code null} if the state is not the root of an
+	 *         unexpanded subtree.
+	 */
+	List<IKeyword<S>> remove(final int root_)
+	{
+		return roots.remove(root_);
+	}
+
+	// =========================================================================
+	// Object methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("LazySubtrees [depth=%s, roots=%s]", depth, roots.size());
+	}
+}
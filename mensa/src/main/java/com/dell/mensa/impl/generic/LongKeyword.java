@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.util.List;
+import com.dell.mensa.ISymbolClassifier;
+import com.dell.mensa.ITailBuffer;
+import com.dell.mensa.ITextSource;
+
+/**
+ * {@link LongKeyword} holds what is needed to verify a long keyword (see
+ * {@link AhoCorasickMachine#setLongKeywordThreshold(int)}) against the tail buffer of a text source. Only the trailing
+ * symbols of a long keyword are entered into the goto function; when they are recognized, the hash of the preceding
+ * symbols (see {@link #hashTail(ITextSource, int, ISymbolClassifier)}) is compared first, and the symbols themselves
+ * only if the hashes agree.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+final class LongKeyword<S>
+{
+	private static final int HASH_BASE = 31;
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final List<S> requiredSymbols;
+	private final ISymbolClassifier<S> classifier;
+	private final long hash;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * @param requiredSymbols_
+	 *            specifies the (normalized) required symbols of the keyword.
+	 * @param classifier_
+	 *            specifies the symbol classifier of the machine, which determines how input symbols are normalized.
+	 */
+	LongKeyword(final List<S> requiredSymbols_, final ISymbolClassifier<S> classifier_)
+	{
+		assert requiredSymbols_ != null;
+		assert classifier_ != null;
+
+		this.requiredSymbols = requiredSymbols_;
+		this.classifier = classifier_;
+
+		long h = 0;
+		long multiplier = 1;
+		for (int i = requiredSymbols_.size() - 1; i >= 0; i--)
+		{
+			h += multiplier * requiredSymbols_.get(i).hashCode();
+			multiplier *= HASH_BASE;
+		}
+		this.hash = h;
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * @return Returns the number of required symbols.
+	 */
+	int size()
+	{
+		return requiredSymbols.size();
+	}
+
+	/**
+	 * @return Returns the hash of the required symbols. See {@link #hashTail(ITextSource, int, ISymbolClassifier)}.
+	 */
+	long getHash()
+	{
+		return hash;
+	}
+
+	/**
+	 * Determines if the required symbols are the (normalized) effective symbols preceding the current position of a
+	 * text source.
+	 *
+	 * @param textSource_
+	 *            specifies the text source.
+	 *
+	 * @return Returns {@code true} if the symbols match; {@code false} otherwise.
+	 */
+	boolean matches(final ITextSource<S> textSource_)
+	{
+		final ITailBuffer<S> buffer = textSource_.getTailBuffer();
+		final boolean isCaseExtensionEnabled = classifier.isCaseExtensionEnabled();
+
+		long position = textSource_.getPosition();
+		for (int i = requiredSymbols.size() - 1; i >= 0; i--)
+		{
+			S a = null;
+			while (a == null && position > buffer.start())
+			{
+				a = buffer.symbolAt(--position);
+			}
+
+			if (a == null || !requiredSymbols.get(i).equals(isCaseExtensionEnabled ? classifier.toLowerCase(a) : a))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the hash of the (normalized) effective symbols preceding the current position of a text source, in the
+	 * same manner as {@link #getHash()}.
+	 *
+	 * @param textSource_
+	 *            specifies the text source.
+	 * @param size_
+	 *            specifies the number of symbols to hash.
+	 * @param classifier_
+	 *            specifies the symbol classifier of the machine, which determines how input symbols are normalized.
+	 *
+	 * @return Returns the hash, which is meaningless if fewer symbols are available in the tail buffer.
+	 */
+	static <S> long hashTail(final ITextSource<S> textSource_, final int size_, final ISymbolClassifier<S> classifier_)
+	{
+		final ITailBuffer<S> buffer = textSource_.getTailBuffer();
+		final boolean isCaseExtensionEnabled = classifier_.isCaseExtensionEnabled();
+
+		long hash = 0;
+		long multiplier = 1;
+		long position = textSource_.getPosition();
+		for (int i = 0; i < size_ && position > buffer.start(); i++)
+		{
+			S a = null;
+			while (a == null && position > buffer.start())
+			{
+				a = buffer.symbolAt(--position);
+			}
+
+			if (a != null)
+			{
+				hash += multiplier * (isCaseExtensionEnabled ? classifier_.toLowerCase(a) : a).hashCode();
+				multiplier *= HASH_BASE;
+			}
+		}
+		return hash;
+	}
+
+	// =========================================================================
+	// Object methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("LongKeyword [requiredSymbols=%s, hash=%s]", requiredSymbols, hash);
+	}
+}
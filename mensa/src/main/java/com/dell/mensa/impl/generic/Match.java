@@ -31,11 +31,17 @@ public class Match<S extends Comparable<S>> implements IMatch<S>
 {
 	private static final String PARM_precision = "precision_";
 
+	/**
+	 * The keyword ID of a match not found by an {@link AhoCorasickMachine}.
+	 */
+	static final int NO_KEYWORD_ID = -1;
+
 	// =========================================================================
 	// Properties
 	// =========================================================================
 	private AhoCorasickMachine<S> machine;
 	private IKeyword<S> keyword;
+	private final int keywordId;
 	private long start;
 	private long end;
 	private double precision;
@@ -59,6 +65,15 @@ public class Match<S extends Comparable<S>> implements IMatch<S>
 		return keyword;
 	}
 
+	/**
+	 * @return Returns the ID assigned to the matched keyword by the machine that performed the match, or
+	 *         {@link #NO_KEYWORD_ID} if unknown.
+	 */
+	int getKeywordId()
+	{
+		return keywordId;
+	}
+
 	/**
 	 * @return Returns the machine that performed the match.
 	 */
@@ -174,10 +189,32 @@ public class Match<S extends Comparable<S>> implements IMatch<S>
 	 *            the end position
 	 */
 	public Match(final AhoCorasickMachine<S> machine_, final IKeyword<S> keyword_, final long start_, final long end_)
+	{
+		this(machine_, keyword_, NO_KEYWORD_ID, start_, end_);
+	}
+
+	/**
+	 * Constructs a new instance with the specified properties, recording the ID the machine assigned to the keyword so
+	 * that matching need not look it up. By default, the precision is set {@link IMatchPrecisionFunction#MAX_PRECISION},
+	 * but may be changed using {@link #setPrecision(double)}.
+	 *
+	 * @param machine_
+	 *            the machine
+	 * @param keyword_
+	 *            the keyword
+	 * @param keywordId_
+	 *            the ID of the keyword within the machine
+	 * @param start_
+	 *            the start position
+	 * @param end_
+	 *            the end position
+	 */
+	Match(final AhoCorasickMachine<S> machine_, final IKeyword<S> keyword_, final int keywordId_, final long start_, final long end_)
 	{
 		super();
 		this.machine = machine_;
 		this.keyword = keyword_;
+		this.keywordId = keywordId_;
 		this.start = start_;
 		this.end = end_;
 		this.precision = IMatchPrecisionFunction.MAX_PRECISION;
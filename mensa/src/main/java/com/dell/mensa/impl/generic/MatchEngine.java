@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+/**
+ * {@link MatchEngine} defines how an {@link AhoCorasickMachine} scans a text source. Every engine reports exactly the
+ * same matches; engines differ only in how much of the input is processed by the automaton.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @see AhoCorasickMachine#setMatchEngine(MatchEngine)
+ */
+public enum MatchEngine
+{
+	/**
+	 * Every input symbol drives a transition of the automaton, except for runs of symbols on which the automaton stays
+	 * in its start state. This is the classic Aho-Corasick behavior.
+	 */
+	AHO_CORASICK,
+
+	/**
+	 * Input symbols are examined a window at a time, in the manner of the Wu-Manber algorithm: the last two symbols of
+	 * each window are hashed to look up how far the window can be shifted without passing the start of any keyword.
+	 * Only windows that may begin a keyword are verified by running the automaton. Since a window never exceeds the
+	 * length of the shortest keyword, this engine pays off for dictionaries whose keywords are all fairly long (e.g.,
+	 * eight symbols or more). Symbols passed over by a shift are consumed by {@link com.dell.mensa.ITextSource#skip(long)},
+	 * so the saving also depends on how cheaply the text source skips. If any keyword is shorter than four (effective)
+	 * symbols, this engine behaves like {@link #AHO_CORASICK}.
+	 */
+	BLOCK_SKIP,
+
+	/**
+	 * Input symbols are processed by a bit-parallel simulation of the automaton (the Shift-And variant of the
+	 * Shift-Or algorithm), which tracks every partially matched keyword in a single {@code long}, so each symbol costs
+	 * one mask lookup and a few word operations regardless of the number of keywords. This engine suits small
+	 * dictionaries (e.g., a few dozen short keywords). If the keywords have more than 64 (effective) symbols in total,
+	 * this engine behaves like {@link #AHO_CORASICK}. A machine built while this engine is selected does not construct
+	 * its automaton until it is first required.
+	 */
+	BIT_PARALLEL;
+}
@@ -0,0 +1,369 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.IMatchSubscriber;
+import com.dell.mensa.IMatchSubscription;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link MatchPublisher} publishes the matches found in a single text source to a single {@link IMatchSubscriber},
+ * honoring the subscriber's demand.
+ *
+ * <p>
+ * Unlike {@link com.dell.mensa.IMatchListener}, which receives every match as fast as the machine finds them, a
+ * subscriber controls the pace of matching: the text source is scanned only far enough to satisfy outstanding demand,
+ * scanning pauses when demand is exhausted, and it resumes when more matches are requested. Thus, memory use is
+ * bounded regardless of how slowly the subscriber consumes matches. Matching may also be cancelled at any point within
+ * the text source.
+ * </p>
+ *
+ * <p>
+ * The publisher owns the text source life cycle: the (not yet open) text source is opened when matches are first
+ * requested and closed upon completion, failure, or cancellation. Scanning is performed on whichever thread calls
+ * {@link IMatchSubscription#request(long)}, but never by more than one thread at a time, and calls to the subscriber
+ * are never made concurrently.
+ * </p>
+ *
+ * <p>
+ * If the subscriber throws from {@link IMatchSubscriber#onNext(IMatch)}, the subscription is cancelled, the text
+ * source is closed, and the exception is passed to {@link IMatchSubscriber#onError(Throwable)}.
+ * </p>
+ *
+ * <p>
+ * The subscriber protocol mirrors {@code java.util.concurrent.Flow}. On Java 9 or later, {@code FlowMatchPublisher}
+ * adapts this class to a {@code Flow.Publisher<IMatch<S>>}.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+public class MatchPublisher<S extends Comparable<S>>
+{
+	private static final String PARM_machine = "machine_";
+	private static final String PARM_session = "session_";
+	private static final String PARM_subscriber = "subscriber_";
+	private static final String PARM_textSource = "textSource_";
+
+	private static final String MSG_ALREADY_OPEN = "textSource_ must not be open";
+	private static final String MSG_ALREADY_SUBSCRIBED = "publisher supports only a single subscriber";
+	private static final String MSG_NON_POSITIVE_REQUEST = "requested number of matches must be positive: %d";
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final MatchSession<S> session;
+	private final ITextSource<S> textSource;
+	private final AtomicBoolean bSubscribed;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a new instance that publishes matches found by a new session of the specified machine.
+	 *
+	 * @param machine_
+	 *            specifies the initialized machine used to find matches.
+	 * @param textSource_
+	 *            specifies the (not yet open) text source to match.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified machine or text source is {@code null}.
+	 *
+	 * @throws IllegalStateException
+	 *             if the specified text source is already open.
+	 */
+	public MatchPublisher(final AhoCorasickMachine<S> machine_, final ITextSource<S> textSource_)
+	{
+		this(createSession(machine_), textSource_);
+	}
+
+	/**
+	 * Constructs a new instance that publishes matches found using the specified session.
+	 *
+	 * @param session_
+	 *            specifies the session used to find matches.
+	 * @param textSource_
+	 *            specifies the (not yet open) text source to match.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified session or text source is {@code null}.
+	 *
+	 * @throws IllegalStateException
+	 *             if the specified text source is already open.
+	 */
+	public MatchPublisher(final MatchSession<S> session_, final ITextSource<S> textSource_)
+	{
+		Verify.notNull(session_, PARM_session);
+		Verify.notNull(textSource_, PARM_textSource);
+		Verify.condition(!textSource_.isOpen(), MSG_ALREADY_OPEN);
+
+		this.session = session_;
+		this.textSource = textSource_;
+		this.bSubscribed = new AtomicBoolean();
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * Subscribes to the matches found in the text source. Since a text source can only be scanned once, only a single
+	 * subscription is supported; subsequent subscribers are notified of an {@link IllegalStateException} via
+	 * {@link IMatchSubscriber#onError(Throwable)}.
+	 *
+	 * @param subscriber_
+	 *            specifies the subscriber.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified subscriber is {@code null}.
+	 */
+	public void subscribe(final IMatchSubscriber<S> subscriber_)
+	{
+		Verify.notNull(subscriber_, PARM_subscriber);
+
+		if (bSubscribed.compareAndSet(false, true))
+		{
+			subscriber_.onSubscribe(new Subscription(subscriber_));
+		}
+		else
+		{
+			subscriber_.onSubscribe(new IMatchSubscription()
+			{
+				@Override
+				public void cancel()
+				{
+					// nothing to cancel
+				}
+
+				@Override
+				public void request(final long n_)
+				{
+					// nothing to deliver
+				}
+			});
+			subscriber_.onError(new IllegalStateException(MSG_ALREADY_SUBSCRIBED));
+		}
+	}
+
+	// =========================================================================
+	// class: Subscription
+	// =========================================================================
+	/**
+	 * {@link Subscription} tracks demand and drives scanning for a single subscriber. The {@link #wip} counter ensures
+	 * that only one thread at a time scans the text source and notifies the subscriber; a thread that requests matches
+	 * while another thread is scanning merely records the additional demand for the scanning thread to satisfy.
+	 */
+	private class Subscription implements IMatchSubscription
+	{
+		private final IMatchSubscriber<S> subscriber;
+		private final AtomicLong requested;
+		private final AtomicInteger wip;
+
+		private volatile boolean bCancelled;
+		private volatile Throwable pendingError;
+
+		// The following are accessed only while scanning (i.e., by a single thread at a time).
+		private Iterator<IMatch<S>> iterator;
+		private boolean bDone;
+
+		public Subscription(final IMatchSubscriber<S> subscriber_)
+		{
+			assert subscriber_ != null;
+
+			this.subscriber = subscriber_;
+			this.requested = new AtomicLong();
+			this.wip = new AtomicInteger();
+		}
+
+		@Override
+		public void cancel()
+		{
+			bCancelled = true;
+			drain();
+		}
+
+		@Override
+		public void request(final long n_)
+		{
+			if (n_ <= 0)
+			{
+				pendingError = new IllegalArgumentException(String.format(MSG_NON_POSITIVE_REQUEST, n_));
+			}
+			else
+			{
+				addRequested(n_);
+			}
+			drain();
+		}
+
+		private void addRequested(final long n_)
+		{
+			for (;;)
+			{
+				final long r = requested.get();
+				final long sum = r + n_;
+				if (requested.compareAndSet(r, sum < 0 ? Long.MAX_VALUE : sum))
+				{
+					return;
+				}
+			}
+		}
+
+		private void drain()
+		{
+			if (wip.getAndIncrement() != 0)
+			{
+				// Another thread is scanning; it will observe our changes.
+				return;
+			}
+
+			int missed = 1;
+			try
+			{
+				do
+				{
+					drainImpl();
+					missed = wip.addAndGet(-missed);
+				}
+				while (missed != 0);
+			}
+			catch (final RuntimeException | Error e)
+			{
+				// The subscriber threw from onError() or onComplete(). Nothing more will be delivered, but later calls
+				// must not find the subscription still draining.
+				wip.set(0);
+				throw e;
+			}
+		}
+
+		private void drainImpl()
+		{
+			while (!bDone)
+			{
+				final Throwable error = pendingError;
+				if (error != null)
+				{
+					finish();
+					subscriber.onError(error);
+					return;
+				}
+
+				if (bCancelled)
+				{
+					finish();
+					return;
+				}
+
+				if (requested.get() == 0)
+				{
+					return;
+				}
+
+				final IMatch<S> match;
+				try
+				{
+					if (iterator == null)
+					{
+						textSource.open();
+						iterator = session.matchIterator(textSource);
+					}
+
+					if (!iterator.hasNext())
+					{
+						finish();
+						subscriber.onComplete();
+						return;
+					}
+
+					match = iterator.next();
+				}
+				catch (final IOException | RuntimeException e)
+				{
+					finish();
+					subscriber.onError(e);
+					return;
+				}
+
+				produced();
+				try
+				{
+					subscriber.onNext(match);
+				}
+				catch (final RuntimeException e)
+				{
+					bCancelled = true;
+					finish();
+					subscriber.onError(e);
+					return;
+				}
+			}
+		}
+
+		private void finish()
+		{
+			bDone = true;
+			iterator = null;
+
+			try
+			{
+				textSource.close();
+			}
+			catch (final IOException e)
+			{
+				// Ignore errors closing the text source: there is nothing more to read.
+			}
+		}
+
+		private void produced()
+		{
+			for (;;)
+			{
+				final long r = requested.get();
+				if (r == Long.MAX_VALUE || requested.compareAndSet(r, r - 1))
+				{
+					return;
+				}
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("MatchPublisher [session=%s, textSource=%s]", session, textSource);
+	}
+
+	// =========================================================================
+	// Internal methods
+	// =========================================================================
+	private static <S extends Comparable<S>> MatchSession<S> createSession(final AhoCorasickMachine<S> machine_)
+	{
+		Verify.notNull(machine_, PARM_machine);
+		return machine_.createSession();
+	}
+}
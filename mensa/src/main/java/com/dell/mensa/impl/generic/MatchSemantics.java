@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import com.dell.mensa.IMatch;
+
+/**
+ * {@link MatchSemantics} defines which keyword matches are reported by an {@link AhoCorasickMachine}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @see MatchSession#setMatchSemantics(MatchSemantics)
+ */
+public enum MatchSemantics
+{
+	/**
+	 * All matches are reported, including overlapping matches, in order of ending position. This is the classic
+	 * Aho-Corasick behavior.
+	 */
+	OVERLAPPING,
+
+	/**
+	 * Non-overlapping matches are reported, in order of starting position. Scanning left to right, the match with the
+	 * leftmost starting position is chosen; among matches with the same starting position, the longest (i.e., the one
+	 * with the greatest {@link IMatch#getEnd()}) is chosen. Matches overlapping a chosen match are discarded.
+	 */
+	LEFTMOST_LONGEST,
+
+	/**
+	 * Non-overlapping matches are reported, in order of starting position. Scanning left to right, the match with the
+	 * leftmost starting position is chosen; among matches with the same starting position, the one whose keyword was
+	 * first in the keywords used to build the machine is chosen. Matches overlapping a chosen match are discarded.
+	 */
+	LEFTMOST_FIRST;
+
+	/**
+	 * @return Returns {@code true} if these semantics report only non-overlapping matches; {@code false} otherwise.
+	 */
+	public boolean isLeftmost()
+	{
+		return this != OVERLAPPING;
+	}
+}
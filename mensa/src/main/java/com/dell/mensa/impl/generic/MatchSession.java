@@ -0,0 +1,479 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import com.dell.mensa.IKeyword;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.IMatchListener;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link MatchSession} holds the per-scan state used when matching with a {@link CompiledMachine}: matching options
+ * (e.g., {@link #setNotifyLongestMatch(boolean)}) and a transition counter.
+ *
+ * <p>
+ * Sessions are created by {@link AhoCorasickMachine#createSession()} and are lightweight. A {@link FrozenMachine} is
+ * never modified by matching, so any number of sessions may use the same frozen machine concurrently, each with its own
+ * options. (A {@link LazyMachine} is single-threaded, and so are all of its sessions.) A session itself is <i>not</i>
+ * thread-safe; it is intended to be used by a single thread (although it may be used for any number of consecutive
+ * matching operations).
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+public class MatchSession<S extends Comparable<S>>
+{
+	private static final String PARM_listener = "listener_";
+	private static final String PARM_machine = "machine_";
+	private static final String PARM_matchSemantics = "matchSemantics_";
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final CompiledMachine<S> machine;
+
+	/**
+	 * The machine that created this session, which is reported to listeners and by matches. This is either
+	 * {@link #machine} or the machine that built it.
+	 */
+	private final AhoCorasickMachine<S> owner;
+
+	private MatchSemantics matchSemantics;
+	private boolean bNotifyLongestMatch;
+	private boolean bNotifyMostPreciseMatch;
+	private boolean bNotifyRawSymbols;
+
+	private long transitions;
+
+	/**
+	 * The transition cache used by matching operations, if enabled. See
+	 * {@link AhoCorasickMachine#setTransitionCacheSize(int)}.
+	 */
+	private TransitionCache<S> transitionCache;
+
+	/**
+	 * @return Returns the machine used by this session.
+	 */
+	public CompiledMachine<S> getMachine()
+	{
+		return machine;
+	}
+
+	/**
+	 * Determines which keyword matches are reported. See {@link #setMatchSemantics(MatchSemantics)} for further
+	 * discussion.
+	 *
+	 * @return Returns the match semantics.
+	 */
+	public MatchSemantics getMatchSemantics()
+	{
+		return matchSemantics;
+	}
+
+	/**
+	 * Returns the number of state transitions made by matching operations performed using this session since it was
+	 * created or since the most recent call to {@link #clearTransitions()}.
+	 *
+	 * @return Returns the number of state transitions.
+	 */
+	public long getTransitions()
+	{
+		return transitions;
+	}
+
+	/**
+	 * Determines how multiple keyword matches the same ending position are reported. See
+	 * {@link #setNotifyLongestMatch(boolean)} for further discussion.
+	 *
+	 * @return Returns {@code true} if only the longest keyword at an ending position will be reported. Returns
+	 *         {@code false} if all keywords at an ending position will be reported.
+	 */
+	public boolean isNotifyLongestMatch()
+	{
+		return bNotifyLongestMatch;
+	}
+
+	/**
+	 * Determines how multiple keyword matches the same ending position are reported. See
+	 * {@link #setNotifyMostPreciseMatch(boolean)} for further discussion.
+	 *
+	 * @return Returns {@code true} if only the most precise keywords at an ending position will be reported. Returns
+	 *         {@code false} if all keywords at an ending position will be reported.
+	 */
+	public boolean isNotifyMostPreciseMatch()
+	{
+		return bNotifyMostPreciseMatch;
+	}
+
+	/**
+	 * Determines if raw symbols are included in match notifications. See {@link #setNotifyRawSymbols(boolean)} for
+	 * further discussion.
+	 *
+	 * @return Returns {@code true} if raw symbols are reported in match notifications; {@code false} otherwise.
+	 */
+	public boolean isNotifyRawSymbols()
+	{
+		return bNotifyRawSymbols;
+	}
+
+	/**
+	 * Determines which keyword matches are reported. See {@link AhoCorasickMachine#setMatchSemantics(MatchSemantics)}
+	 * for further discussion.
+	 *
+	 * @param matchSemantics_
+	 *            specifies the match semantics.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified match semantics is {@code null}.
+	 */
+	public void setMatchSemantics(final MatchSemantics matchSemantics_)
+	{
+		Verify.notNull(matchSemantics_, PARM_matchSemantics);
+		this.matchSemantics = matchSemantics_;
+	}
+
+	/**
+	 * Determines whether or not match length filtering is performed when reporting matches. See
+	 * {@link AhoCorasickMachine#setNotifyLongestMatch(boolean)} for further discussion.
+	 *
+	 * @param bEnable_
+	 *            specify {@code true} to enable match length filtering, or {@code false} to disable match length
+	 *            filtering.
+	 */
+	public void setNotifyLongestMatch(final boolean bEnable_)
+	{
+		this.bNotifyLongestMatch = bEnable_;
+	}
+
+	/**
+	 * Determines whether or not precision filtering is performed when reporting matches. See
+	 * {@link AhoCorasickMachine#setNotifyMostPreciseMatch(boolean)} for further discussion.
+	 *
+	 * @param bEnable_
+	 *            specify {@code true} to enable precision filtering, or {@code false} to disable precision filtering.
+	 */
+	public void setNotifyMostPreciseMatch(final boolean bEnable_)
+	{
+		this.bNotifyMostPreciseMatch = bEnable_;
+	}
+
+	/**
+	 * Controls whether or not raw symbols are included in match notifications. See
+	 * {@link AhoCorasickMachine#setNotifyRawSymbols(boolean)} for further discussion.
+	 *
+	 * @param bEnable_
+	 *            specify {@code true} to include raw symbols in match details, or {@code false} to omit raw symbols
+	 *            from match details.
+	 */
+	public void setNotifyRawSymbols(final boolean bEnable_)
+	{
+		this.bNotifyRawSymbols = bEnable_;
+	}
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a new session for the specified machine. The session's options are initialized from the machine's
+	 * default options.
+	 *
+	 * @param machine_
+	 *            specifies the machine used by this session.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified machine is {@code null}.
+	 */
+	public MatchSession(final CompiledMachine<S> machine_)
+	{
+		this(machine_, machine_);
+	}
+
+	/**
+	 * Constructs a new session for the specified machine on behalf of the specified owner. The session's options are
+	 * initialized from the owner's default options.
+	 *
+	 * @param machine_
+	 *            specifies the machine used by this session.
+	 * @param owner_
+	 *            specifies the machine reported to listeners and by matches.
+	 */
+	MatchSession(final CompiledMachine<S> machine_, final AhoCorasickMachine<S> owner_)
+	{
+		Verify.notNull(machine_, PARM_machine);
+		assert owner_ != null;
+
+		this.machine = machine_;
+		this.owner = owner_;
+		this.matchSemantics = owner_.getMatchSemantics();
+		this.bNotifyLongestMatch = owner_.isNotifyLongestMatch();
+		this.bNotifyMostPreciseMatch = owner_.isNotifyMostPreciseMatch();
+		this.bNotifyRawSymbols = owner_.isNotifyRawSymbols();
+		this.transitions = 0;
+		this.transitionCache = null;
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * Determines if any keyword occurs in a specified text source, stopping at the first accepted match. See
+	 * {@link AhoCorasickMachine#contains(ITextSource)} for further discussion.
+	 *
+	 * @param textSource_
+	 *            specifies the input text source in against which matching is performed. The caller is responsible for
+	 *            opening and closing the text source.
+	 *
+	 * @return Returns {@code true} if at least one keyword occurs in the text source; {@code false} otherwise.
+	 *
+	 * @throws IllegalStateException
+	 *             if the machine has not been properly initialized of if the specified text source is not open.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading the text source.
+	 */
+	public boolean contains(final ITextSource<S> textSource_) throws IOException
+	{
+		return machine.countAccepted(this, textSource_, null, 1) > 0;
+	}
+
+	/**
+	 * Counts the occurrences of each keyword in a specified text source using the options of this session. See
+	 * {@link AhoCorasickMachine#count(ITextSource)} for further discussion.
+	 *
+	 * @param textSource_
+	 *            specifies the input text source in against which matching is performed. The caller is responsible for
+	 *            opening and closing the text source.
+	 *
+	 * @return Returns a map from each matched keyword to its number of occurrences. Keywords that do not occur are not
+	 *         included.
+	 *
+	 * @throws IllegalStateException
+	 *             if the machine has not been properly initialized of if the specified text source is not open.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading the text source.
+	 */
+	public Map<IKeyword<S>, Integer> count(final ITextSource<S> textSource_) throws IOException
+	{
+		final int[] counts = machine.createKeywordCounts();
+		if (bNotifyLongestMatch || bNotifyMostPreciseMatch || matchSemantics.isLeftmost())
+		{
+			// Filtering depends on match positions, lengths and precisions, so full matches are required.
+			final Iterator<IMatch<S>> iterator = matchIterator(textSource_);
+			while (iterator.hasNext())
+			{
+				machine.increment(counts, iterator.next());
+			}
+		}
+		else
+		{
+			machine.countAccepted(this, textSource_, counts, Long.MAX_VALUE);
+		}
+
+		return machine.getKeywordCounts(counts);
+	}
+
+	/**
+	 * Creates a new session for the same machine, and with the same options, as this session. The new session's
+	 * transition counter starts at zero.
+	 *
+	 * @return Returns a new {@link MatchSession}.
+	 */
+	public MatchSession<S> copy()
+	{
+		final MatchSession<S> session = new MatchSession<>(machine, owner);
+		session.matchSemantics = matchSemantics;
+		session.bNotifyLongestMatch = bNotifyLongestMatch;
+		session.bNotifyMostPreciseMatch = bNotifyMostPreciseMatch;
+		session.bNotifyRawSymbols = bNotifyRawSymbols;
+		return session;
+	}
+
+	/**
+	 * Resets the transition counter.
+	 *
+	 * @see #getTransitions()
+	 */
+	public void clearTransitions()
+	{
+		transitions = 0;
+	}
+
+	/**
+	 * Runs the machine to find keywords in a specified text source using the options of this session. See
+	 * {@link AhoCorasickMachine#match(ITextSource, IMatchListener)} for further discussion.
+	 *
+	 * @param textSource_
+	 *            specifies the input text source in against which matching is performed. The caller is responsible for
+	 *            opening and closing the text source.
+	 * @param listener_
+	 *            specifes the listener to notify of matches.
+	 *
+	 * @return Returns the number of keywords matched.
+	 *
+	 * @throws IllegalStateException
+	 *             if the machine has not been properly initialized of if the specified text source is not open.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading the text source.
+	 */
+	public int match(final ITextSource<S> textSource_, final IMatchListener<S> listener_) throws IOException
+	{
+		Verify.notNull(listener_, PARM_listener);
+
+		int matchCounter = 0;
+		boolean bListening = listener_.notifyBeginMatching(owner);
+		if (bListening)
+		{
+			final Iterator<IMatch<S>> iterator = matchIterator(textSource_);
+			while (bListening && iterator.hasNext())
+			{
+				bListening = listener_.notifyMatch(iterator.next());
+				++matchCounter;
+			}
+			listener_.notifyEndMatching(owner);
+		}
+
+		return matchCounter;
+	}
+
+	/**
+	 * Runs the machine to find approximate keyword occurrences in a specified text source using the options of this
+	 * session. See {@link AhoCorasickMachine#matchApproximate(ITextSource, IMatchListener, int)} for further
+	 * discussion.
+	 *
+	 * @param textSource_
+	 *            specifies the input text source in against which matching is performed. The caller is responsible for
+	 *            opening and closing the text source.
+	 * @param listener_
+	 *            specifes the listener to notify of matches.
+	 * @param maxDistance_
+	 *            specifies the maximum edit distance, which must be in the range [1,
+	 *            {@value AhoCorasickMachine#MAX_EDIT_DISTANCE}].
+	 *
+	 * @return Returns the number of keywords matched.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the maximum distance is out of range.
+	 *
+	 * @throws IllegalStateException
+	 *             if the machine has not been properly initialized of if the specified text source is not open.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading the text source.
+	 */
+	public int matchApproximate(final ITextSource<S> textSource_, final IMatchListener<S> listener_, final int maxDistance_) throws IOException
+	{
+		Verify.notNull(listener_, PARM_listener);
+
+		int matchCounter = 0;
+		boolean bListening = listener_.notifyBeginMatching(owner);
+		if (bListening)
+		{
+			final Iterator<IMatch<S>> iterator = machine.approximateMatchIterator(this, textSource_, maxDistance_);
+			while (bListening && iterator.hasNext())
+			{
+				bListening = listener_.notifyMatch(iterator.next());
+				++matchCounter;
+			}
+			listener_.notifyEndMatching(owner);
+		}
+
+		return matchCounter;
+	}
+
+	/**
+	 * Creates an {@link Iterator} that uses the machine to find keywords in a specified text source using the options
+	 * of this session. See {@link AhoCorasickMachine#matchIterator(ITextSource)} for further discussion.
+	 *
+	 * @param textSource_
+	 *            specifies the input text source in against which matching is performed. The caller is responsible for
+	 *            opening and closing the text source.
+	 *
+	 * @return Returns an new {@link Iterator} that uses the machine to find keywords in a specified text source.
+	 *
+	 * @throws IllegalStateException
+	 *             if the machine has not been properly initialized of if the specified text source is not open.
+	 */
+	public Iterator<IMatch<S>> matchIterator(final ITextSource<S> textSource_)
+	{
+		return machine.matchIterator(this, textSource_);
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * Counts a single state transition.
+	 */
+	void countTransition()
+	{
+		++transitions;
+	}
+
+	/**
+	 * Counts a number of state transitions.
+	 *
+	 * @param n_
+	 *            specifies the number of transitions.
+	 */
+	void countTransitions(final long n_)
+	{
+		transitions += n_;
+	}
+
+	/**
+	 * @return Returns the machine that created this session, which is reported to listeners and by matches.
+	 */
+	AhoCorasickMachine<S> getOwner()
+	{
+		return owner;
+	}
+
+	/**
+	 * @return Returns the transition cache, or {@code null} if there is none.
+	 */
+	TransitionCache<S> getTransitionCache()
+	{
+		return transitionCache;
+	}
+
+	/**
+	 * @param transitionCache_
+	 *            specifies the transition cache, or {@code null} for none.
+	 */
+	void setTransitionCache(final TransitionCache<S> transitionCache_)
+	{
+		this.transitionCache = transitionCache_;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("MatchSession [machine=%s, matchSemantics=%s, bNotifyLongestMatch=%s, bNotifyMostPreciseMatch=%s, bNotifyRawSymbols=%s, transitions=%s]",
+				machine, matchSemantics, bNotifyLongestMatch, bNotifyMostPreciseMatch, bNotifyRawSymbols, transitions);
+	}
+}
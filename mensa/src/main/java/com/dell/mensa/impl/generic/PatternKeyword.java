@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.util.List;
+import java.util.function.Predicate;
+import com.dell.mensa.IPatternKeyword;
+import com.dell.mensa.ISymbolClassifier;
+import com.dell.mensa.ITailBuffer;
+import com.dell.mensa.ITextSource;
+
+/**
+ * {@link PatternKeyword} holds what is needed to verify a pattern keyword (see {@link IPatternKeyword}). Only the
+ * longest run of literal symbols of a pattern keyword, its <i>anchor</i>, is entered into the goto function, so a
+ * pattern keyword never multiplies into its concrete variants. When the anchor is recognized, the keyword is verified
+ * against the (normalized) effective symbols once its trailing symbols have been read.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+final class PatternKeyword<S>
+{
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final List<S> requiredSymbols;
+	private final List<Predicate<S>> requiredClasses;
+	private final int trailingSize;
+	private final ISymbolClassifier<S> classifier;
+
+	/**
+	 * @return Returns the number of required symbols following the anchor.
+	 */
+	int getTrailingSize()
+	{
+		return trailingSize;
+	}
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * @param metaData_
+	 *            specifies the meta data of the pattern keyword, whose anchor has been chosen.
+	 * @param classifier_
+	 *            specifies the symbol classifier of the machine, which determines how input symbols are normalized.
+	 */
+	PatternKeyword(final KeywordMetaData<S> metaData_, final ISymbolClassifier<S> classifier_)
+	{
+		assert metaData_ != null;
+		assert metaData_.isPattern();
+		assert classifier_ != null;
+
+		this.requiredSymbols = metaData_.getRequiredSymbols();
+		this.requiredClasses = metaData_.getRequiredClasses();
+		this.trailingSize = requiredSymbols.size() - metaData_.getAnchorEnd();
+		this.classifier = classifier_;
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * Determines if the required symbols and symbol classes match the effective symbols preceding the current position
+	 * of a text source. Literal symbols are compared after case normalization; symbol classes are tested against the
+	 * effective symbols as is.
+	 *
+	 * @param textSource_
+	 *            specifies the text source.
+	 *
+	 * @return Returns {@code true} if the symbols match; {@code false} otherwise.
+	 */
+	boolean matches(final ITextSource<S> textSource_)
+	{
+		final ITailBuffer<S> buffer = textSource_.getTailBuffer();
+		final boolean isCaseExtensionEnabled = classifier.isCaseExtensionEnabled();
+
+		long position = textSource_.getPosition();
+		for (int i = requiredSymbols.size() - 1; i >= 0; i--)
+		{
+			S a = null;
+			while (a == null && position > buffer.start())
+			{
+				a = buffer.symbolAt(--position);
+			}
+
+			if (a == null)
+			{
+				return false;
+			}
+
+			final Predicate<S> symbolClass = requiredClasses.get(i);
+			if (symbolClass == null ? !requiredSymbols.get(i).equals(isCaseExtensionEnabled ? classifier.toLowerCase(a) : a) : !symbolClass.test(a))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// =========================================================================
+	// Object methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("PatternKeyword [requiredSymbols=%s, trailingSize=%s]", requiredSymbols, trailingSize);
+	}
+}
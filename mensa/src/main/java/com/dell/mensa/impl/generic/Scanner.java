@@ -0,0 +1,498 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import com.dell.mensa.IGotoFunction;
+import com.dell.mensa.ISymbolClassifier;
+import com.dell.mensa.ITailBuffer;
+import com.dell.mensa.ITextSource;
+
+/**
+ * {@link Scanner} drives the automaton of an {@link AhoCorasickMachine} through a text source on behalf of a single
+ * matching operation. Each call to {@link #advance()} consumes input up to the next position that needs attention,
+ * where {@link #outputs()} gives the keywords recognized. Subclasses implement the {@link MatchEngine} options; this
+ * class verifies the keywords they recognize.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+abstract class Scanner<S extends Comparable<S>>
+{
+	private static final int INITIAL_VERIFIED_CAPACITY = 16;
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	protected final AhoCorasickMachine<S> machine;
+	protected final MatchSession<S> session;
+	protected final ITextSource<S> textSource;
+	protected int state;
+
+	/**
+	 * The number of input symbols read.
+	 */
+	protected long symbolCount;
+
+	/**
+	 * The pattern keywords whose anchors have been recognized but whose trailing symbols have not all been read,
+	 * each as a pair of keyword ID and the {@link #symbolCount} at which the keyword can be verified.
+	 */
+	protected final List<long[]> pendingPatterns;
+
+	/**
+	 * The case of the most recently read symbols, one bit per symbol (most recent in the lowest bit), set if the
+	 * symbol is changed by case normalization. Maintained only if {@link AhoCorasickMachine#hasCaseMasks()}.
+	 */
+	protected long caseHistory;
+
+	/**
+	 * The punctuation of the most recently read symbols, one bit per symbol (most recent in the lowest bit), set if
+	 * the symbol is or stands for a run of raw symbols containing punctuation. Maintained only if
+	 * {@link AhoCorasickMachine#hasPunctuationMasks()}.
+	 */
+	protected long punctuationHistory;
+
+	/**
+	 * The word breaks of the most recently read symbols, one bit per symbol (most recent in the lowest bit), set if
+	 * the symbol is a word break. Symbols skipped (i.e., not read) are recorded as a single bit, that of the last
+	 * symbol skipped. Maintained only if {@link AhoCorasickMachine#hasWordStartBits()}.
+	 */
+	protected long wordBreakHistory;
+
+	/**
+	 * The session's transition cache, or {@code null} if transition caching is disabled.
+	 */
+	private final TransitionCache<S> transitionCache;
+
+	private final ISymbolClassifier<S> classifier;
+	private final boolean isCaseExtensionEnabled;
+	private final boolean bWordStartBits;
+	private final boolean bCaseMasks;
+	private final boolean bPunctuationMasks;
+
+	/**
+	 * Scratch space for the keyword IDs collected by {@link #verifyPatternKeywords(int[])}, reused at every
+	 * position.
+	 */
+	private int[] verified;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	protected Scanner(final MatchSession<S> session_, final ITextSource<S> textSource_)
+	{
+		assert session_ != null;
+		assert textSource_ != null;
+
+		this.machine = session_.getMachine();
+		this.session = session_;
+		this.textSource = textSource_;
+		this.state = IGotoFunction.START_STATE;
+		this.symbolCount = 0;
+		this.pendingPatterns = new ArrayList<>();
+		this.caseHistory = 0;
+		this.punctuationHistory = 0;
+		this.wordBreakHistory = machine.isWordBreak(null) ? 1 : 0;
+		this.transitionCache = machine.getTransitionCache(session_);
+		this.verified = new int[INITIAL_VERIFIED_CAPACITY];
+		this.classifier = machine.getClassifier();
+		this.isCaseExtensionEnabled = classifier.isCaseExtensionEnabled();
+		this.bWordStartBits = machine.hasWordStartBits();
+		this.bCaseMasks = machine.hasCaseMasks();
+		this.bPunctuationMasks = machine.hasPunctuationMasks();
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * Consumes input up to and including the next symbol processed by the automaton.
+	 *
+	 * @return Returns {@code true} if a symbol was processed; {@code false} if end-of-file was reached first.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading the text source.
+	 */
+	public abstract boolean advance() throws IOException;
+
+	/**
+	 * @return Returns the IDs of the keywords recognized at the current text source position, or {@code null} if
+	 *         there are none. See {@link AhoCorasickMachine#getStateOutputs(int)}.
+	 */
+	public final int[] outputs()
+	{
+		int[] keywordIds = recognized();
+		if (keywordIds != null && machine.getMaxLongKeywordSize() > 0)
+		{
+			keywordIds = machine.verifyLongKeywords(keywordIds, textSource);
+		}
+		if (machine.getMaxPatternKeywordSize() > 0)
+		{
+			keywordIds = verifyPatternKeywords(keywordIds);
+		}
+		if (keywordIds != null && (bWordStartBits || bCaseMasks || bPunctuationMasks))
+		{
+			keywordIds = verifyHistory(keywordIds);
+		}
+		return keywordIds;
+	}
+
+	/**
+	 * @return Returns the earliest position at which a keyword recognized after the current text source position
+	 *         could start. See {@link AhoCorasickMachine#findEarliestStart(int, ITextSource)}.
+	 */
+	public final long earliestStart()
+	{
+		// A long or pattern keyword may be in progress without the automaton having seen any of its symbols.
+		final int maxVerifiedSize = Math.max(machine.getMaxLongKeywordSize(), machine.getMaxPatternKeywordSize());
+		return machine.findEarliestStart(Math.max(depth(), maxVerifiedSize - 1), textSource);
+	}
+
+	// =========================================================================
+	// Internal methods
+	// =========================================================================
+	/**
+	 * @return Returns the depth of the current machine state.
+	 */
+	protected int depth()
+	{
+		return machine.getStateDepth(state);
+	}
+
+	/**
+	 * @return Returns the IDs of the keywords (including unverified long keywords) recognized at the current text
+	 *         source position, or {@code null} if there are none.
+	 */
+	protected int[] recognized()
+	{
+		return state == IGotoFunction.START_STATE ? null : machine.getStateOutputs(state);
+	}
+
+	/**
+	 * Determines the next move of the matching machine, consulting the transition cache, if any. See
+	 * {@link AhoCorasickMachine#move(int, Comparable)}.
+	 *
+	 * @param state_
+	 *            specifies the current state of the machine.
+	 * @param a_
+	 *            specifies the input symbol driving the move.
+	 *
+	 * @return Returns the state to which the machine should move.
+	 */
+	protected int move(final int state_, final S a_)
+	{
+		if (transitionCache == null)
+		{
+			return machine.move(state_, a_);
+		}
+
+		int next = transitionCache.get(state_, a_);
+		if (next == IGotoFunction.NO_STATE)
+		{
+			next = machine.move(state_, a_);
+			transitionCache.put(state_, a_, next);
+		}
+		return next;
+	}
+
+	/**
+	 * Reads the next input symbol, normalized as required to drive the automaton.
+	 *
+	 * @return Returns the normalized symbol.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading the text source.
+	 */
+	protected S read() throws IOException
+	{
+		final long position = textSource.getPosition();
+		final S a = textSource.read();
+		++symbolCount;
+
+		final S b = isCaseExtensionEnabled ? classifier.toLowerCase(a) : a;
+		if (bCaseMasks)
+		{
+			caseHistory = (caseHistory << 1) | (a.equals(b) ? 0 : 1);
+		}
+		if (bPunctuationMasks)
+		{
+			punctuationHistory = (punctuationHistory << 1) | (isPunctuation(b, position) ? 1 : 0);
+		}
+		if (bWordStartBits)
+		{
+			wordBreakHistory = (wordBreakHistory << 1) | (machine.isWordBreak(a) ? 1 : 0);
+		}
+		return b;
+	}
+
+	/**
+	 * Accounts for input symbols skipped (i.e., consumed without being read).
+	 *
+	 * @param n_
+	 *            specifies the number of symbols skipped.
+	 */
+	protected void skipped(final long n_)
+	{
+		symbolCount += n_;
+		session.countTransitions(n_);
+
+		if (n_ > 0)
+		{
+			repositioned();
+		}
+	}
+
+	/**
+	 * Records the word break preceding the current text source position, after the text source has been advanced
+	 * or repositioned other than by {@link #read()}.
+	 */
+	protected void repositioned()
+	{
+		if (bWordStartBits)
+		{
+			wordBreakHistory = (wordBreakHistory << 1) | (machine.acceptWordBreak(textSource, textSource.getPosition()) ? 1 : 0);
+		}
+	}
+
+	/**
+	 * Determines if an effective symbol just read is, or stands for a run of raw symbols containing, punctuation.
+	 *
+	 * @param a_
+	 *            specifies the effective symbol.
+	 * @param position_
+	 *            specifies the position at which the symbol was read.
+	 *
+	 * @return Returns {@code true} if the symbol is punctuation; {@code false} otherwise.
+	 */
+	private boolean isPunctuation(final S a_, final long position_)
+	{
+		if (classifier.isPunctuation(a_))
+		{
+			return true;
+		}
+
+		if (classifier.isWhitespace(a_))
+		{
+			final ITailBuffer<S> rawBuffer = textSource.getRawTailBuffer();
+			final long end = textSource.getPosition();
+			for (long i = Math.max(position_, rawBuffer.start()); i < end; i++)
+			{
+				if (classifier.isPunctuation(rawBuffer.symbolAt(i)))
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the recognized keywords that are not preceded by a word break, according to their word start bits
+	 * (see {@link AhoCorasickMachine#getWordStartBit(int)}), and the recognized case-sensitive and
+	 * punctuation-sensitive keywords whose {@link SensitivityMask} rejects the symbols most recently read, so that
+	 * most false candidates are rejected without walking back through the tail buffers.
+	 *
+	 * @param keywordIds_
+	 *            specifies the IDs of the recognized keywords.
+	 *
+	 * @return Returns the IDs of the keywords not rejected, in their original order, or {@code null} if there are
+	 *         none.
+	 */
+	private int[] verifyHistory(final int[] keywordIds_)
+	{
+		int[] result = keywordIds_;
+		int n = 0;
+		for (int i = 0; i < keywordIds_.length; i++)
+		{
+			final long wordStartBit = machine.getWordStartBit(keywordIds_[i]);
+			final SensitivityMask mask = machine.getSensitivityMask(keywordIds_[i]);
+			if ((wordStartBit != 0 && (wordBreakHistory & wordStartBit) == 0) || (mask != null && !mask.accepts(caseHistory, punctuationHistory)))
+			{
+				if (result == keywordIds_)
+				{
+					result = Arrays.copyOf(keywordIds_, keywordIds_.length);
+				}
+				continue;
+			}
+			result[n++] = keywordIds_[i];
+		}
+
+		if (n == 0)
+		{
+			return null;
+		}
+		return n == keywordIds_.length ? keywordIds_ : Arrays.copyOf(result, n);
+	}
+
+	/**
+	 * Replaces the recognized anchors of pattern keywords with the pattern keywords that are verified at the current
+	 * text source position. A pattern keyword whose anchor is recognized is verified once all of its trailing
+	 * symbols have been read.
+	 *
+	 * @param keywordIds_
+	 *            specifies the IDs of the recognized keywords, or {@code null} if there are none.
+	 *
+	 * @return Returns the IDs of the recognized keywords, less any pattern keywords not (yet) verified, plus any
+	 *         pattern keywords verified, in the order defined by {@link AhoCorasickMachine#compareKeywords(int, int)}, or
+	 *         {@code null} if there are none.
+	 */
+	private int[] verifyPatternKeywords(final int[] keywordIds_)
+	{
+		if (pendingPatterns.isEmpty() && !containsAnchor(keywordIds_))
+		{
+			return keywordIds_;
+		}
+
+		boolean bChanged = false;
+		int n = 0;
+		if (keywordIds_ != null)
+		{
+			for (final int keywordId : keywordIds_)
+			{
+				final PatternKeyword<S> patternKeyword = machine.getPatternKeyword(keywordId);
+				if (patternKeyword == null)
+				{
+					n = addVerified(n, keywordId);
+					continue;
+				}
+
+				bChanged = true;
+				if (patternKeyword.getTrailingSize() > 0)
+				{
+					pendingPatterns.add(new long[] { keywordId, symbolCount + patternKeyword.getTrailingSize() });
+				}
+				else if (patternKeyword.matches(textSource))
+				{
+					n = addVerified(n, keywordId);
+				}
+			}
+		}
+
+		final Iterator<long[]> iterator = pendingPatterns.iterator();
+		while (iterator.hasNext())
+		{
+			final long[] pending = iterator.next();
+			if (pending[1] > symbolCount)
+			{
+				continue;
+			}
+
+			iterator.remove();
+			bChanged = true;
+
+			final int keywordId = (int) pending[0];
+			if (pending[1] == symbolCount && machine.getPatternKeyword(keywordId).matches(textSource) && !isVerified(n, keywordId))
+			{
+				n = addVerified(n, keywordId);
+			}
+		}
+
+		if (!bChanged)
+		{
+			return keywordIds_;
+		}
+
+		if (n == 0)
+		{
+			return null;
+		}
+
+		// Insertion sort: there are rarely more than a few keywords.
+		for (int i = 1; i < n; i++)
+		{
+			final int keywordId = verified[i];
+
+			int j = i;
+			while (j > 0 && machine.compareKeywords(verified[j - 1], keywordId) > 0)
+			{
+				verified[j] = verified[j - 1];
+				--j;
+			}
+			verified[j] = keywordId;
+		}
+
+		return Arrays.copyOf(verified, n);
+	}
+
+	/**
+	 * Appends a keyword ID to {@link #verified}, growing it as required.
+	 *
+	 * @return Returns the new number of verified keywords.
+	 */
+	private int addVerified(final int n_, final int keywordId_)
+	{
+		if (n_ == verified.length)
+		{
+			verified = Arrays.copyOf(verified, 2 * n_);
+		}
+		verified[n_] = keywordId_;
+		return n_ + 1;
+	}
+
+	/**
+	 * @return Returns {@code true} if any of the specified keywords is the anchor of a pattern keyword;
+	 *         {@code false} otherwise.
+	 */
+	private boolean containsAnchor(final int[] keywordIds_)
+	{
+		if (keywordIds_ != null)
+		{
+			for (final int keywordId : keywordIds_)
+			{
+				if (machine.getPatternKeyword(keywordId) != null)
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return Returns {@code true} if the first {@code n_} entries of {@link #verified} include the specified
+	 *         keyword ID; {@code false} otherwise.
+	 */
+	private boolean isVerified(final int n_, final int keywordId_)
+	{
+		for (int i = 0; i < n_; i++)
+		{
+			if (verified[i] == keywordId_)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// =========================================================================
+	// Object methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%s [state=%s, symbolCount=%s]", getClass().getSimpleName(), state, symbolCount);
+	}
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import com.dell.mensa.IKeyword;
+import com.dell.mensa.ISymbolClassifier;
+import com.dell.mensa.ITextSource;
+
+/**
+ * {@link SensitivityMask} lets the scanner reject occurrences of a case-sensitive or punctuation-sensitive keyword as
+ * it recognizes them. Such keywords share the case-normalized, punctuation-normalized goto paths of all other keywords,
+ * so most of their occurrences in mixed text are false candidates. Each required symbol of the keyword is assigned one
+ * bit, aligned with the symbol history kept by the scanner (most recent symbol in the lowest bit), recording whether
+ * the symbol must be changed by case normalization and whether it must be (or stand for a run containing)
+ * punctuation. An occurrence is rejected if the history contradicts the mask; the remaining occurrences are still
+ * verified in full by {@link AhoCorasickMachine#acceptCase(IKeyword, ITextSource, long, long)} and
+ * {@link AhoCorasickMachine#acceptPunctuation(IKeyword, ITextSource, long, long)}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+final class SensitivityMask
+{
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final long caseMask;
+	private final long caseBits;
+	private final long punctuationBits;
+
+	/**
+	 * @return Returns {@code true} if the mask constrains the case of any symbol, so the scanner must record the case
+	 *         of the symbols it reads; {@code false} otherwise.
+	 */
+	boolean isCaseConstrained()
+	{
+		return caseMask != 0;
+	}
+
+	/**
+	 * @return Returns {@code true} if the mask constrains the punctuation of any symbol, so the scanner must record
+	 *         the punctuation of the symbols it reads; {@code false} otherwise.
+	 */
+	boolean isPunctuationConstrained()
+	{
+		return punctuationBits != 0;
+	}
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	private SensitivityMask(final long caseMask_, final long caseBits_, final long punctuationBits_)
+	{
+		this.caseMask = caseMask_;
+		this.caseBits = caseBits_;
+		this.punctuationBits = punctuationBits_;
+	}
+
+	/**
+	 * Creates the mask of a keyword, if it has one. Masks are created only for case-sensitive or
+	 * punctuation-sensitive keywords of at most {@link Long#SIZE} required symbols whose interior symbols map one to
+	 * one onto their required symbols (i.e., no whitespace is collapsed).
+	 *
+	 * @param metaData_
+	 *            specifies the keyword meta data.
+	 * @param classifier_
+	 *            specifies the symbol classifier of the machine.
+	 *
+	 * @return Returns the new mask, or {@code null} if the keyword has none.
+	 */
+	static <S> SensitivityMask create(final KeywordMetaData<S> metaData_, final ISymbolClassifier<S> classifier_)
+	{
+		final IKeyword<S> keyword = metaData_.getKeyword();
+		final int size = metaData_.getRequiredSymbols().size();
+
+		final boolean isCaseExtensionEnabled = classifier_.isCaseExtensionEnabled();
+		final boolean isPunctuationExtensionEnabled = classifier_.isPunctuationExtensionEnabled() && classifier_.getSpace() != null;
+
+		final boolean bCase = isCaseExtensionEnabled && keyword.isCaseSensitive();
+		final boolean bPunctuation = isPunctuationExtensionEnabled && keyword.isPunctuationSensitive();
+		if (!(bCase || bPunctuation) || size > Long.SIZE || keyword.length() - metaData_.getPrefixSize() - metaData_.getSuffixSize() != size)
+		{
+			return null;
+		}
+
+		long caseMask = 0;
+		long caseBits = 0;
+		long punctuationBits = 0;
+		for (int i = 0; i < size; i++)
+		{
+			final S a = keyword.symbolAt(metaData_.getPrefixSize() + i);
+			final long bit = 1L << (size - 1 - i);
+			final boolean bPunctuationSymbol = isPunctuationExtensionEnabled && classifier_.isPunctuation(a);
+
+			if (bCase && !bPunctuationSymbol)
+			{
+				caseMask |= bit;
+				if (!a.equals(classifier_.toLowerCase(a)))
+				{
+					caseBits |= bit;
+				}
+			}
+
+			if (bPunctuation && bPunctuationSymbol)
+			{
+				punctuationBits |= bit;
+			}
+		}
+
+		return caseMask == 0 && punctuationBits == 0 ? null : new SensitivityMask(caseMask, caseBits, punctuationBits);
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * Determines if the symbols most recently read may be an occurrence of the keyword.
+	 *
+	 * @param caseHistory_
+	 *            specifies the case history of the scanner: one bit per symbol read, set if the symbol is changed by
+	 *            case normalization.
+	 * @param punctuationHistory_
+	 *            specifies the punctuation history of the scanner: one bit per symbol read, set if the symbol is or
+	 *            stands for a run of raw symbols containing punctuation.
+	 *
+	 * @return Returns {@code false} if the symbols cannot be an occurrence of the keyword; {@code true} otherwise.
+	 */
+	boolean accepts(final long caseHistory_, final long punctuationHistory_)
+	{
+		return ((caseHistory_ ^ caseBits) & caseMask) == 0 && (punctuationBits & ~punctuationHistory_) == 0;
+	}
+
+	// =========================================================================
+	// Object methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("SensitivityMask [caseMask=%x, caseBits=%x, punctuationBits=%x]", caseMask, caseBits, punctuationBits);
+	}
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import com.dell.mensa.IEdge;
+import com.dell.mensa.IEdgeMap;
+import com.dell.mensa.IGotoFunction;
+
+/**
+ * {@link StateNumbering} maps the states of an {@link AhoCorasickMachine} to the numbers defined by a
+ * {@link StateOrder}. The machine's next move function is constructed directly in terms of the new numbers, and its
+ * other per-state structures are then renumbered to match.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+final class StateNumbering
+{
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	/**
+	 * The new number of each state, indexed by its current number, or {@code null} if states keep their current
+	 * numbers.
+	 */
+	private final int[] numbers;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	private StateNumbering(final int[] numbers_)
+	{
+		this.numbers = numbers_;
+	}
+
+	/**
+	 * Computes the state numbers defined by a state order.
+	 *
+	 * @param gotoFunction_
+	 *            specifies the (complete) goto function, whose edges define the breadth-first order.
+	 * @param numStates_
+	 *            specifies the number of states.
+	 * @param order_
+	 *            specifies the state order.
+	 * @param profileNodes_
+	 *            specifies the profile node of each state, indexed by state, or {@code null} if there is no state
+	 *            profile. The node of a state that was never profiled is {@code null}.
+	 *
+	 * @return Returns the new numbering.
+	 */
+	static <S> StateNumbering create(final IGotoFunction<S> gotoFunction_, final int numStates_, final StateOrder order_,
+			final List<StateProfile.Node<S>> profileNodes_)
+	{
+		if (order_ == StateOrder.INSERTION)
+		{
+			return new StateNumbering(null);
+		}
+
+		// Breadth-first order
+		final List<Integer> order = new ArrayList<>(numStates_);
+		order.add(IGotoFunction.START_STATE);
+
+		for (int i = 0; i < order.size(); i++)
+		{
+			final IEdgeMap<S> edgeMap = gotoFunction_.getEdgeMap(order.get(i));
+			if (edgeMap != null)
+			{
+				for (final IEdge<S> edge : edgeMap.getEdges())
+				{
+					if (edge.getSymbol() != null)
+					{
+						order.add(edge.getState());
+					}
+				}
+			}
+		}
+
+		if (order_ == StateOrder.PROFILED && profileNodes_ != null)
+		{
+			// The start state keeps its number. The sort is stable, so states with equal visits remain breadth-first.
+			Collections.sort(order.subList(1, order.size()), new Comparator<Integer>()
+			{
+				@Override
+				public int compare(final Integer state1_, final Integer state2_)
+				{
+					return Long.compare(getVisits(profileNodes_, state2_), getVisits(profileNodes_, state1_));
+				}
+			});
+		}
+
+		assert order.size() == numStates_;
+
+		final int[] numbers = new int[numStates_];
+		for (int i = 0; i < numStates_; i++)
+		{
+			numbers[order.get(i)] = i;
+		}
+		return new StateNumbering(numbers);
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * @return Returns {@code true} if states keep their current numbers; {@code false} otherwise.
+	 */
+	boolean isIdentity()
+	{
+		return numbers == null;
+	}
+
+	/**
+	 * Maps a state to its new number.
+	 *
+	 * @param state_
+	 *            specifies the state.
+	 *
+	 * @return Returns the new state number.
+	 */
+	int number(final int state_)
+	{
+		return numbers == null ? state_ : numbers[state_];
+	}
+
+	// =========================================================================
+	// Internal methods
+	// =========================================================================
+	private static <S> long getVisits(final List<StateProfile.Node<S>> profileNodes_, final int state_)
+	{
+		final StateProfile.Node<S> node = profileNodes_.get(state_);
+		return node == null ? 0 : node.getVisits();
+	}
+
+	// =========================================================================
+	// Object methods
+	// =========================================================================
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("StateNumbering [numbers=%s]", numbers == null ? "identity" : Arrays.toString(numbers));
+	}
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+/**
+ * {@link StateOrder} defines how the states of an {@link AhoCorasickMachine} are numbered when its next move function
+ * is constructed. State numbers index the per-state structures consulted on every transition, so the order determines
+ * which states share cache lines. Every order reports exactly the same matches. A machine without a next move function
+ * is never renumbered.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @see AhoCorasickMachine#setStateOrder(StateOrder)
+ */
+public enum StateOrder
+{
+	/**
+	 * States keep the numbers assigned as keywords are entered into the goto function, which follow the iteration
+	 * order of the keywords. This is the numbering of the goto and failure functions.
+	 */
+	INSERTION,
+
+	/**
+	 * States are renumbered in breadth-first order of the goto function, so the start state is followed by all states
+	 * of depth one, then all states of depth two, and so on, and the successors of each state are numbered
+	 * consecutively. The shallow states, where a scan spends most of its time, are thus packed together.
+	 */
+	BREADTH_FIRST,
+
+	/**
+	 * States are renumbered in decreasing order of the visits recorded by the machine's state profile (see
+	 * {@link AhoCorasickMachine#setStateProfile(StateProfile)}), so the states a scan actually spends its time in are
+	 * packed together. States with the same number of visits (including all states, if there is no profile) are
+	 * numbered in breadth-first order.
+	 */
+	PROFILED;
+}
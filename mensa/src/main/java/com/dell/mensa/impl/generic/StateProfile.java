@@ -0,0 +1,467 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.IntFunction;
+import com.dell.mensa.IEdge;
+import com.dell.mensa.IEdgeMap;
+import com.dell.mensa.IGotoFunction;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link StateProfile} records how often the states and edges of an {@link AhoCorasickMachine} are used while scanning
+ * a sample of text (see {@link AhoCorasickMachine#profile(com.dell.mensa.ITextSource, StateProfile)}), so that a
+ * machine later built for similar text can lay out its hot states and edges first (see
+ * {@link AhoCorasickMachine#setStateProfile(StateProfile)}).
+ *
+ * <p>
+ * States are identified by their goto paths (i.e., the keyword prefixes they represent) rather than by their numbers,
+ * so a profile remains applicable when the machine is rebuilt with a changed set of keywords: states and edges that no
+ * longer exist are ignored, and new ones are treated as never used. A profile can be persisted using
+ * {@link #write(OutputStream)} and {@link #read(InputStream)}, provided the symbols are {@link java.io.Serializable}.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ */
+public class StateProfile<S>
+{
+	private static final String PARM_inputStream = "inputStream_";
+	private static final String PARM_outputStream = "outputStream_";
+	private static final String PARM_path = "path_";
+
+	private static final int FORMAT_VERSION = 1;
+	private static final String MSG_FORMAT_VERSION = "unsupported state profile format version: %d";
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final Node<S> root;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a new, empty profile.
+	 */
+	public StateProfile()
+	{
+		this.root = new Node<>();
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * Returns the number of times the state with a specified goto path was entered.
+	 *
+	 * @param path_
+	 *            specifies the goto path (i.e., the keyword prefix) of the state, which is empty for the start state.
+	 *
+	 * @return Returns the number of visits, which is zero if the state was never visited.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified path is {@code null}.
+	 */
+	public long getVisits(final List<S> path_)
+	{
+		final Node<S> node = find(path_);
+		return node == null ? 0 : node.visits;
+	}
+
+	/**
+	 * Returns the number of times the edge labeled with a specified symbol was traversed from the state with a
+	 * specified goto path.
+	 *
+	 * @param path_
+	 *            specifies the goto path (i.e., the keyword prefix) of the state, which is empty for the start state.
+	 * @param a_
+	 *            specifies the symbol.
+	 *
+	 * @return Returns the number of traversals, which is zero if the edge was never traversed.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified path is {@code null}.
+	 */
+	public long getTraversals(final List<S> path_, final S a_)
+	{
+		final Node<S> node = find(path_);
+		return node == null ? 0 : node.getTraversals(a_);
+	}
+
+	/**
+	 * Determines if this profile has recorded no visits.
+	 *
+	 * @return Returns {@code true} if this profile is empty; {@code false} otherwise.
+	 */
+	public boolean isEmpty()
+	{
+		return root.isEmpty();
+	}
+
+	/**
+	 * Reads a profile previously written by {@link #write(OutputStream)}.
+	 *
+	 * @param <S>
+	 *            the data type of the symbols
+	 * @param inputStream_
+	 *            specifies the stream from which the profile is read. The caller is responsible for closing the stream.
+	 *
+	 * @return Returns a new {@link StateProfile}.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified stream is {@code null}.
+	 *
+	 * @throws IOException
+	 *             if an error occurs reading the stream or the stream does not contain a profile.
+	 */
+	public static <S> StateProfile<S> read(final InputStream inputStream_) throws IOException
+	{
+		Verify.notNull(inputStream_, PARM_inputStream);
+
+		final ObjectInputStream in = new ObjectInputStream(inputStream_);
+		final int version = in.readInt();
+		if (version != FORMAT_VERSION)
+		{
+			throw new IOException(String.format(MSG_FORMAT_VERSION, version));
+		}
+
+		final StateProfile<S> profile = new StateProfile<>();
+		try
+		{
+			profile.root.read(in);
+		}
+		catch (final ClassNotFoundException e)
+		{
+			throw new IOException(e);
+		}
+
+		return profile;
+	}
+
+	/**
+	 * Writes this profile to a specified stream.
+	 *
+	 * @param outputStream_
+	 *            specifies the stream to which the profile is written. The caller is responsible for closing the
+	 *            stream.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified stream is {@code null}.
+	 *
+	 * @throws IOException
+	 *             if an error occurs writing the stream, including if a symbol is not serializable.
+	 */
+	public void write(final OutputStream outputStream_) throws IOException
+	{
+		Verify.notNull(outputStream_, PARM_outputStream);
+
+		final ObjectOutputStream out = new ObjectOutputStream(outputStream_);
+		out.writeInt(FORMAT_VERSION);
+		root.write(out);
+		out.flush();
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * Finds the node of each state of a machine from its goto function. See
+	 * {@link AhoCorasickMachine#setStateProfile(StateProfile)}.
+	 *
+	 * @param gotoFunction_
+	 *            specifies the (complete) goto function of the machine.
+	 * @param numStates_
+	 *            specifies the number of states of the machine.
+	 *
+	 * @return Returns the node of each state, indexed by state. The node of a state that was never profiled is
+	 *         {@code null}.
+	 */
+	List<Node<S>> findNodes(final IGotoFunction<S> gotoFunction_, final int numStates_)
+	{
+		final List<Node<S>> nodes = new ArrayList<>(Collections.nCopies(numStates_, (Node<S>) null));
+		nodes.set(IGotoFunction.START_STATE, root);
+
+		final Queue<Integer> queue = new ArrayDeque<>();
+		queue.add(IGotoFunction.START_STATE);
+
+		while (!queue.isEmpty())
+		{
+			final int state = queue.remove();
+			final IEdgeMap<S> edgeMap = gotoFunction_.getEdgeMap(state);
+			if (edgeMap != null)
+			{
+				for (final IEdge<S> edge : edgeMap.getEdges())
+				{
+					final Node<S> node = edge.getSymbol() == null ? null : nodes.get(state).find(edge.getSymbol());
+					if (node != null)
+					{
+						nodes.set(edge.getState(), node);
+						queue.add(edge.getState());
+					}
+				}
+			}
+		}
+
+		return nodes;
+	}
+
+	/**
+	 * Adds the counts recorded while scanning text with a machine (see
+	 * {@link AhoCorasickMachine#profile(com.dell.mensa.ITextSource, StateProfile)}). Each state is identified by its
+	 * goto path, which is recovered from the machine's transitions.
+	 *
+	 * @param numStates_
+	 *            specifies the number of states of the machine.
+	 * @param depths_
+	 *            specifies the depth of each state, indexed by state.
+	 * @param edgeMaps_
+	 *            specifies the edge map of each state, which contains the trie (i.e., goto) edges of the state, among
+	 *            others. A trie edge leads to a state exactly one symbol deeper.
+	 * @param visits_
+	 *            specifies the number of visits to each state, indexed by state.
+	 * @param traversals_
+	 *            specifies the number of traversals of the edges of each state by symbol, indexed by state.
+	 */
+	void add(final int numStates_, final int[] depths_, final IntFunction<IEdgeMap<S>> edgeMaps_, final long[] visits_,
+			final List<Map<S, long[]>> traversals_)
+	{
+		final int[] parents = new int[numStates_];
+		final List<S> labels = new ArrayList<>(Collections.nCopies(numStates_, (S) null));
+
+		final Queue<Integer> queue = new ArrayDeque<>();
+		queue.add(IGotoFunction.START_STATE);
+
+		while (!queue.isEmpty())
+		{
+			final int state = queue.remove();
+			final IEdgeMap<S> edgeMap = edgeMaps_.apply(state);
+			if (edgeMap != null)
+			{
+				for (final IEdge<S> edge : edgeMap.getEdges())
+				{
+					final int child = edge.getState();
+					if (edge.getSymbol() != null && depths_[child] == depths_[state] + 1)
+					{
+						parents[child] = state;
+						labels.set(child, edge.getSymbol());
+						queue.add(child);
+					}
+				}
+			}
+		}
+
+		final List<Node<S>> nodes = new ArrayList<>(Collections.nCopies(numStates_, (Node<S>) null));
+		nodes.set(IGotoFunction.START_STATE, root);
+
+		for (int state = 0; state < numStates_; state++)
+		{
+			final Map<S, long[]> edges = traversals_.get(state);
+			if (visits_[state] == 0 && edges == null)
+			{
+				continue;
+			}
+
+			final Node<S> node = findNode(nodes, parents, labels, state);
+			node.visit(visits_[state]);
+			if (edges != null)
+			{
+				for (final Map.Entry<S, long[]> entry : edges.entrySet())
+				{
+					node.traverse(entry.getKey(), entry.getValue()[0]);
+				}
+			}
+		}
+	}
+
+	// =========================================================================
+	// Internal methods
+	// =========================================================================
+	private Node<S> find(final List<S> path_)
+	{
+		Verify.notNull(path_, PARM_path);
+
+		Node<S> node = root;
+		for (final S a : path_)
+		{
+			node = node.find(a);
+			if (node == null)
+			{
+				break;
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Finds, creating if necessary, the node of a state. See {@link #add(int, int[], IntFunction, long[], List)}.
+	 *
+	 * @return Returns the node.
+	 */
+	private static <S> Node<S> findNode(final List<Node<S>> nodes_, final int[] parents_, final List<S> labels_, final int state_)
+	{
+		Node<S> node = nodes_.get(state_);
+		if (node == null)
+		{
+			node = findNode(nodes_, parents_, labels_, parents_[state_]).child(labels_.get(state_));
+			nodes_.set(state_, node);
+		}
+		return node;
+	}
+
+	// =========================================================================
+	// class: Node
+	// =========================================================================
+	/**
+	 * {@link Node} holds the counts of a single state. The nodes of a profile form a trie mirroring the goto function.
+	 *
+	 * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+	 *
+	 * @param <S>
+	 *            the data type of the symbols
+	 */
+	static final class Node<S>
+	{
+		private long visits;
+		private final Map<S, Long> traversals;
+		private final Map<S, Node<S>> children;
+
+		// =========================================================================
+		// Constructors
+		// =========================================================================
+		Node()
+		{
+			this.visits = 0;
+			this.traversals = new HashMap<>();
+			this.children = new HashMap<>();
+		}
+
+		// =========================================================================
+		// Package methods
+		// =========================================================================
+		/**
+		 * @return Returns the node of the child state reached by a specified symbol, creating it if necessary.
+		 */
+		Node<S> child(final S a_)
+		{
+			Node<S> child = children.get(a_);
+			if (child == null)
+			{
+				child = new Node<>();
+				children.put(a_, child);
+			}
+			return child;
+		}
+
+		/**
+		 * @return Returns the node of the child state reached by a specified symbol, or {@code null} if there is none.
+		 */
+		Node<S> find(final S a_)
+		{
+			return children.get(a_);
+		}
+
+		long getTraversals(final S a_)
+		{
+			final Long n = traversals.get(a_);
+			return n == null ? 0 : n.longValue();
+		}
+
+		long getVisits()
+		{
+			return visits;
+		}
+
+		void traverse(final S a_, final long n_)
+		{
+			traversals.put(a_, getTraversals(a_) + n_);
+		}
+
+		void visit(final long n_)
+		{
+			visits += n_;
+		}
+
+		// =========================================================================
+		// Internal methods
+		// =========================================================================
+		private boolean isEmpty()
+		{
+			return visits == 0 && traversals.isEmpty() && children.isEmpty();
+		}
+
+		@SuppressWarnings("unchecked")
+		private void read(final ObjectInputStream in_) throws IOException, ClassNotFoundException
+		{
+			visits = in_.readLong();
+
+			final int nTraversals = in_.readInt();
+			for (int i = 0; i < nTraversals; i++)
+			{
+				final S a = (S) in_.readObject();
+				traversals.put(a, in_.readLong());
+			}
+
+			final int nChildren = in_.readInt();
+			for (int i = 0; i < nChildren; i++)
+			{
+				final S a = (S) in_.readObject();
+				child(a).read(in_);
+			}
+		}
+
+		private void write(final ObjectOutputStream out_) throws IOException
+		{
+			out_.writeLong(visits);
+
+			out_.writeInt(traversals.size());
+			for (final Map.Entry<S, Long> entry : traversals.entrySet())
+			{
+				out_.writeObject(entry.getKey());
+				out_.writeLong(entry.getValue());
+			}
+
+			out_.writeInt(children.size());
+			for (final Map.Entry<S, Node<S>> entry : children.entrySet())
+			{
+				out_.writeObject(entry.getKey());
+				entry.getValue().write(out_);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("StateProfile [visits=%d]", root.visits);
+	}
+}
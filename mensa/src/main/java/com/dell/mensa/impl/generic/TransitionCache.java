@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import com.dell.mensa.IGotoFunction;
+
+/**
+ * {@link TransitionCache} is a fixed-size, direct-mapped cache of recent transitions {@code (state, symbol) -> next
+ * state} of an {@link AhoCorasickMachine} (see {@link AhoCorasickMachine#setTransitionCacheSize(int)}). Each
+ * transition can be held in exactly one entry, selected by a hash of the state and symbol, and replaces whatever
+ * transition the entry held before.
+ *
+ * <p>
+ * A cache belongs to a single {@link MatchSession} and, like the session, is not thread-safe. It remembers the
+ * transition function it was filled from, so that it is discarded if the machine is rebuilt.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ */
+final class TransitionCache<S>
+{
+	private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final Object function;
+	private final int mask;
+	private final int[] states;
+	private final Object[] symbols;
+	private final int[] nextStates;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * @param function_
+	 *            specifies the transition function from which the cache is filled (i.e., the machine's next move
+	 *            function or, if there is none, its goto function).
+	 * @param size_
+	 *            specifies the number of entries, which must be a power of two.
+	 */
+	TransitionCache(final Object function_, final int size_)
+	{
+		assert function_ != null;
+		assert Integer.bitCount(size_) == 1;
+
+		this.function = function_;
+		this.mask = size_ - 1;
+		this.states = new int[size_];
+		this.symbols = new Object[size_];
+		this.nextStates = new int[size_];
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * Looks up a transition.
+	 *
+	 * @param state_
+	 *            specifies the current state.
+	 * @param a_
+	 *            specifies the (non-{@code null}) input symbol.
+	 *
+	 * @return Returns the next state, or {@link IGotoFunction#NO_STATE} if the transition is not cached.
+	 */
+	int get(final int state_, final S a_)
+	{
+		final int i = index(state_, a_);
+		return states[i] == state_ && a_.equals(symbols[i]) ? nextStates[i] : IGotoFunction.NO_STATE;
+	}
+
+	/**
+	 * Determines if this cache can be used for a specified transition function and size.
+	 *
+	 * @param function_
+	 *            specifies the transition function.
+	 * @param size_
+	 *            specifies the number of entries.
+	 *
+	 * @return Returns {@code true} if this cache was created for the same function and size; {@code false} otherwise.
+	 */
+	boolean isFor(final Object function_, final int size_)
+	{
+		return function == function_ && states.length == size_;
+	}
+
+	/**
+	 * Caches a transition, replacing any transition cached in the same entry.
+	 *
+	 * @param state_
+	 *            specifies the current state.
+	 * @param a_
+	 *            specifies the (non-{@code null}) input symbol.
+	 * @param nextState_
+	 *            specifies the next state.
+	 */
+	void put(final int state_, final S a_, final int nextState_)
+	{
+		final int i = index(state_, a_);
+		states[i] = state_;
+		symbols[i] = a_;
+		nextStates[i] = nextState_;
+	}
+
+	// =========================================================================
+	// Internal methods
+	// =========================================================================
+	private int index(final int state_, final S a_)
+	{
+		final int hash = (state_ * HASH_MULTIPLIER) ^ a_.hashCode();
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("TransitionCache [size=%d]", states.length);
+	}
+}
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import com.dell.mensa.IEdge;
+import com.dell.mensa.IEdgeMap;
+
+/**
+ * {@link TrieIndex} is a compact, read-only index of the keyword trie (i.e., the goto edges) of an
+ * {@link AhoCorasickMachine}, used by approximate matching (see
+ * {@link AhoCorasickMachine#matchApproximate(com.dell.mensa.ITextSource, com.dell.mensa.IMatchListener, int)}). The children of all states are
+ * stored consecutively in primitive arrays, state by state, so enumerating the children of a state costs no edge map
+ * lookups and skips the failure transitions of the next move function. The shallow states are additionally indexed by
+ * the symbol labeling their goto edge.
+ *
+ * <p>
+ * An index is immutable once constructed and may be shared by concurrent matching operations.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ */
+final class TrieIndex<S>
+{
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final int[] depths;
+	private final int[] firstChildren;
+	private final int[] children;
+	private final Object[] symbols;
+	private final Map<S, int[]> shallowStates;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * @param numStates_
+	 *            specifies the number of states of the machine.
+	 * @param depths_
+	 *            specifies the depth of each state, indexed by state.
+	 * @param edgeMaps_
+	 *            specifies the edge map containing the goto edges of each state, among others. A goto edge is
+	 *            recognized as one leading to a state exactly one symbol deeper.
+	 * @param maxShallowDepth_
+	 *            specifies the depth of the deepest states to index by symbol.
+	 */
+	TrieIndex(final int numStates_, final int[] depths_, final IntFunction<IEdgeMap<S>> edgeMaps_, final int maxShallowDepth_)
+	{
+		assert numStates_ > 0;
+		assert depths_.length >= numStates_;
+
+		this.depths = Arrays.copyOf(depths_, numStates_);
+		this.firstChildren = new int[numStates_ + 1];
+
+		final List<IEdge<S>> edges = new ArrayList<>();
+		for (int state = 0; state < numStates_; state++)
+		{
+			firstChildren[state] = edges.size();
+
+			final IEdgeMap<S> edgeMap = edgeMaps_.apply(state);
+			if (edgeMap != null)
+			{
+				for (final IEdge<S> edge : edgeMap.getEdges())
+				{
+					if (edge.getSymbol() != null && depths[edge.getState()] == depths[state] + 1)
+					{
+						edges.add(edge);
+					}
+				}
+			}
+		}
+		firstChildren[numStates_] = edges.size();
+
+		this.children = new int[edges.size()];
+		this.symbols = new Object[edges.size()];
+		for (int i = 0; i < children.length; i++)
+		{
+			children[i] = edges.get(i).getState();
+			symbols[i] = edges.get(i).getSymbol();
+		}
+
+		this.shallowStates = indexShallowStates(edges, maxShallowDepth_);
+	}
+
+	// =========================================================================
+	// Package methods
+	// =========================================================================
+	/**
+	 * @return Returns the index of the first child of a state; see {@link #child(int)}.
+	 */
+	int firstChild(final int state_)
+	{
+		return firstChildren[state_];
+	}
+
+	/**
+	 * @return Returns the index following the last child of a state; see {@link #child(int)}.
+	 */
+	int endChild(final int state_)
+	{
+		return firstChildren[state_ + 1];
+	}
+
+	/**
+	 * @return Returns the child state at an index in the range [{@link #firstChild(int)}, {@link #endChild(int)}).
+	 */
+	int child(final int i_)
+	{
+		return children[i_];
+	}
+
+	/**
+	 * @return Returns the symbol labeling the goto edge to the child state at an index.
+	 */
+	@SuppressWarnings("unchecked")
+	S symbol(final int i_)
+	{
+		return (S) symbols[i_];
+	}
+
+	/**
+	 * @return Returns the depth of a state.
+	 */
+	int depth(final int state_)
+	{
+		return depths[state_];
+	}
+
+	/**
+	 * Finds the shallow states whose goto edge is labeled by a specified symbol.
+	 *
+	 * @param a_
+	 *            specifies the symbol.
+	 *
+	 * @return Returns the states, no deeper than the maximum shallow depth, in order of increasing depth, or
+	 *         {@code null} if there are none.
+	 */
+	int[] shallowStates(final S a_)
+	{
+		return shallowStates.get(a_);
+	}
+
+	// =========================================================================
+	// Internal methods
+	// =========================================================================
+	private Map<S, int[]> indexShallowStates(final List<IEdge<S>> edges_, final int maxDepth_)
+	{
+		final Map<S, List<Integer>> lists = new HashMap<>();
+		for (final IEdge<S> edge : edges_)
+		{
+			if (depths[edge.getState()] <= maxDepth_)
+			{
+				List<Integer> list = lists.get(edge.getSymbol());
+				if (list == null)
+				{
+					list = new ArrayList<>();
+					lists.put(edge.getSymbol(), list);
+				}
+				list.add(edge.getState());
+			}
+		}
+
+		final Map<S, int[]> result = new HashMap<>();
+		for (final Map.Entry<S, List<Integer>> entry : lists.entrySet())
+		{
+			final List<Integer> list = entry.getValue();
+			final int[] states = new int[list.size()];
+
+			int n = 0;
+			for (int depth = 1; depth <= maxDepth_; depth++)
+			{
+				for (final int state : list)
+				{
+					if (depths[state] == depth)
+					{
+						states[n++] = state;
+					}
+				}
+			}
+			result.put(entry.getKey(), states);
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("TrieIndex [numStates=%s, numEdges=%s]", depths.length, children.length);
+	}
+}
@@ -42,6 +42,7 @@ import com.dell.mensa.ITextSource;
 import com.dell.mensa.impl.character.CharacterFactory;
 import com.dell.mensa.impl.character.CharacterFileTextSource;
 import com.dell.mensa.impl.character.CharacterKeyword;
+import com.dell.mensa.impl.character.CharacterKeywordArena;
 import com.dell.mensa.impl.character.CharacterSymbolClassifier;
 import com.dell.mensa.impl.generic.AbstractKeyword;
 import com.dell.mensa.impl.generic.AhoCorasickMachine;
@@ -656,21 +657,15 @@ public class Benchmark
 
 	private IKeywords<Character> createKeywordSet()
 	{
-		final IKeywords<Character> set = factory.createKeywords();
+		final CharacterKeywordArena set = new CharacterKeywordArena();
+		final int flags = caseSensitive ? AbstractKeyword.CASE_SENSITIVE : 0;
 		for (final String keyword : this.keywords)
 		{
-			set.add(createKeyword(keyword, caseSensitive));
+			set.add(keyword, null, flags);
 		}
 		return set;
 	}
 
-	private static IKeyword<Character> createKeyword(final String keyword_, final boolean bCaseSensitive_)
-	{
-		return bCaseSensitive_
-				? new CharacterKeyword(keyword_, null, AbstractKeyword.CASE_SENSITIVE)
-				: new CharacterKeyword(keyword_);
-	}
-
 	/**
 	 * @param dataDir
 	 * @throws FileNotFoundException
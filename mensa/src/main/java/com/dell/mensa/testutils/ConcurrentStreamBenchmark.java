@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.testutils;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.IMatchListener;
+import com.dell.mensa.impl.character.CharacterFactory;
+import com.dell.mensa.impl.character.CharacterInputStreamTextSource;
+import com.dell.mensa.impl.character.CharacterKeyword;
+import com.dell.mensa.impl.character.CharacterSymbolClassifier;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.ConcurrentMatcher;
+import com.dell.mensa.impl.generic.FrozenMachine;
+import com.dell.mensa.util.LoremIpsum;
+
+/**
+ * {@link ConcurrentStreamBenchmark} is a command-line utility program that measures throughput and memory usage when a
+ * single machine is used to scan a large number of concurrently open, slowly arriving streams using a
+ * {@link ConcurrentMatcher}.
+ *
+ * <p>
+ * Each stream is a local pipe that is fed one chunk of text at a time, in round-robin fashion across all streams, with
+ * a short delay between rounds. Thus, at any moment most streams are open but idle, blocking their matching task.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code ConcurrentStreamBenchmark [numStreams [numRounds [roundDelayMsec]]]}. By default, 10,000 streams are
+ * scanned. Run on a Java 21 (or later) runtime so that each stream is scanned on its own virtual thread.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ */
+public class ConcurrentStreamBenchmark
+{
+	private static final int DEFAULT_NUM_STREAMS = 10000;
+	private static final int DEFAULT_NUM_ROUNDS = 20;
+	private static final int DEFAULT_ROUND_DELAY_MSEC = 10;
+	private static final int PIPE_SIZE = 4096;
+
+	private final int numStreams;
+	private final int numRounds;
+	private final int roundDelayMsec;
+	private final Charset charset;
+	private final LoremIpsum words;
+	private final AhoCorasickMachine<Character> machine;
+
+	private final AtomicLong totalMatched;
+
+	// =========================================================================
+	// class: MatchCounter
+	// =========================================================================
+	/**
+	 * A listener that counts matches without retaining them, so that memory measurements reflect only the per-stream
+	 * matching overhead.
+	 */
+	private class MatchCounter implements IMatchListener<Character>
+	{
+		@Override
+		public boolean notifyBeginMatching(final AhoCorasickMachine<Character> machine_)
+		{
+			return true;
+		}
+
+		@Override
+		public void notifyEndMatching(final AhoCorasickMachine<Character> machine_)
+		{
+			// nothing to do
+		}
+
+		@Override
+		public boolean notifyMatch(final IMatch<Character> match_)
+		{
+			totalMatched.incrementAndGet();
+			return true;
+		}
+	}
+
+	/**
+	 * @param args_
+	 *            optional number of streams, number of rounds, and delay between rounds (in milliseconds).
+	 *
+	 * @throws IOException
+	 *             if an error occurs loading the Lorem Ipsum text.
+	 */
+	public ConcurrentStreamBenchmark(final String... args_) throws IOException
+	{
+		numStreams = args_.length > 0 ? Integer.parseInt(args_[0]) : DEFAULT_NUM_STREAMS;
+		numRounds = args_.length > 1 ? Integer.parseInt(args_[1]) : DEFAULT_NUM_ROUNDS;
+		roundDelayMsec = args_.length > 2 ? Integer.parseInt(args_[2]) : DEFAULT_ROUND_DELAY_MSEC;
+
+		charset = Charset.forName("UTF8");
+		words = new LoremIpsum();
+		machine = new AhoCorasickMachine<>(new CharacterFactory(), new CharacterSymbolClassifier());
+		totalMatched = new AtomicLong();
+	}
+
+	/**
+	 * Main entry point.
+	 *
+	 * @param args_
+	 *            optional number of streams, number of rounds, and delay between rounds (in milliseconds).
+	 *
+	 * @throws Exception
+	 *             if any error occurs
+	 */
+	public static void main(final String... args_) throws Exception
+	{
+		new ConcurrentStreamBenchmark(args_).run();
+	}
+
+	private void run() throws IOException, InterruptedException, ExecutionException
+	{
+		println("ConcurrentStreamBenchmark v0.01");
+		println(String.format("streams: %d, rounds: %d, round delay: %d mSec, virtual threads: %b",
+				numStreams, numRounds, roundDelayMsec, ConcurrentMatcher.isVirtualThreadSupported()));
+
+		final ConcurrentMatcher<Character> matcher = new ConcurrentMatcher<>(buildMachine());
+		final List<PipedOutputStream> outputs = new ArrayList<>(numStreams);
+		final List<Future<Integer>> futures = new ArrayList<>(numStreams);
+
+		final long h0 = HeapUtils.heapSnapshot();
+		final long t0 = now();
+
+		for (int i = 0; i < numStreams; i++)
+		{
+			final PipedOutputStream output = new PipedOutputStream();
+			final PipedInputStream input = new PipedInputStream(output, PIPE_SIZE);
+			outputs.add(output);
+			futures.add(matcher.submit(new CharacterInputStreamTextSource(input, charset), new MatchCounter()));
+		}
+
+		long totalBytes = 0;
+		long h1 = h0;
+		for (int iRound = 0; iRound < numRounds; iRound++)
+		{
+			for (int i = 0; i < numStreams; i++)
+			{
+				final byte[] chunk = getChunk(i + iRound);
+				outputs.get(i).write(chunk);
+				outputs.get(i).flush();
+				totalBytes += chunk.length;
+			}
+
+			if (iRound == 0)
+			{
+				// All streams are now open and partially consumed.
+				h1 = HeapUtils.heapSnapshot();
+			}
+
+			Thread.sleep(roundDelayMsec);
+		}
+
+		for (final PipedOutputStream output : outputs)
+		{
+			output.close();
+		}
+
+		long reported = 0;
+		for (final Future<Integer> future : futures)
+		{
+			reported += future.get().intValue();
+		}
+
+		final long t1 = now();
+		matcher.shutdown();
+
+		final double sec = (t1 - t0) / 1000.0;
+		final String msg = String.format(
+				"Summary: %d streams, %7.3f MB processed in %5.2f seconds; rate: %s; keywords matched: %d (reported: %d); heap used: %d (%d per stream)",
+				numStreams,
+				totalBytes / (1024.0 * 1024.0),
+				sec,
+				rate(totalBytes, sec),
+				totalMatched.get(),
+				reported,
+				h1 - h0,
+				(h1 - h0) / numStreams);
+		println(msg);
+		println("Done.");
+	}
+
+	private FrozenMachine<Character> buildMachine()
+	{
+		final IKeywords<Character> keywords = new CharacterFactory().createKeywords();
+		for (int i = 0; i < words.getNumWords(); i++)
+		{
+			final String word = words.getWord(i).replaceAll("[^\\p{L}]", "").toLowerCase(Locale.ENGLISH);
+			if (word.length() > 3)
+			{
+				keywords.add(new CharacterKeyword(word));
+			}
+		}
+
+		final long t0 = now();
+		final FrozenMachine<Character> frozen = machine.build(keywords).freeze();
+		final long t1 = now();
+
+		println(String.format("Keywords: %d, States: %d, build time: %d mSec", keywords.size(), frozen.getNumStates(), t1 - t0));
+		return frozen;
+	}
+
+	private byte[] getChunk(final int i_)
+	{
+		return (words.getSentence(i_ % words.getNumSentences()) + "\n").getBytes(charset);
+	}
+
+	private static String rate(final long bytes_, final double sec_)
+	{
+		if (sec_ == 0)
+		{
+			return bytes_ == 0 ? "-" : "screaming!";
+		}
+
+		return String.format("%7.3f Mb/sec", bytes_ / (1024.0 * 1024.0 * sec_));
+	}
+
+	private static long now()
+	{
+		return System.currentTimeMillis();
+	}
+
+	private static void println(final String msg_)
+	{
+		System.out.println(msg_);
+	}
+}
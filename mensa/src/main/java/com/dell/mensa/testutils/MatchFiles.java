@@ -36,6 +36,8 @@ import com.dell.mensa.ITextSource;
 import com.dell.mensa.impl.character.CharacterFactory;
 import com.dell.mensa.impl.character.CharacterFileTextSource;
 import com.dell.mensa.impl.character.CharacterKeyword;
+import com.dell.mensa.impl.character.CharacterKeywordArena;
+import com.dell.mensa.impl.character.CharacterKeywordLoader;
 import com.dell.mensa.impl.character.CharacterSymbolClassifier;
 import com.dell.mensa.impl.generic.AbstractKeyword;
 import com.dell.mensa.impl.generic.AhoCorasickMachine;
@@ -445,34 +447,17 @@ public class MatchFiles
 	 */
 	private IKeywords<Character> loadKeywords(final File dataDir_) throws IOException
 	{
-		final IKeywords<Character> keywords = factory.createKeywords();
+		final CharacterKeywordArena keywords = new CharacterKeywordArena();
 
-		final File kwFile = new File(dataDir_, "keywords.txt");
-		try (final Reader fileReader = new FileReader(kwFile);
-				final BufferedReader reader = new BufferedReader(fileReader))
-		{
-
-			String keyword;
-			while ((keyword = reader.readLine()) != null)
-			{
-				keywords.add(createKeyword(keyword, caseSensitive));
-				if (keywords.size() == maxKeywords)
-				{
-					break;
-				}
-			}
-		}
+		// The keyword file is written using the default character set; see Benchmark.writeKeywords().
+		final CharacterKeywordLoader loader = new CharacterKeywordLoader(Charset.defaultCharset());
+		loader.setDefaultFlags(caseSensitive ? AbstractKeyword.CASE_SENSITIVE : 0);
+		loader.setMaxKeywords(maxKeywords);
+		loader.load(new File(dataDir_, "keywords.txt"), keywords);
 
 		return keywords;
 	}
 
-	private static IKeyword<Character> createKeyword(final String keyword_, final boolean bCaseSensitive_)
-	{
-		return bCaseSensitive_
-				? new CharacterKeyword(keyword_, null, AbstractKeyword.CASE_SENSITIVE)
-				: new CharacterKeyword(keyword_);
-	}
-
 	/**
 	 * @param msg_
 	 */
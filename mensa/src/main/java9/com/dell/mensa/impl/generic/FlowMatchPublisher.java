@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.generic;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.IMatchSubscriber;
+import com.dell.mensa.IMatchSubscription;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.util.Verify;
+
+/**
+ * {@link FlowMatchPublisher} adapts a {@link MatchPublisher} to {@link Flow.Publisher}, so that the matches found in a
+ * text source can be consumed by any {@link Flow.Subscriber}. Every call is delegated to the underlying
+ * {@link MatchPublisher}, so its demand, threading, and single-subscriber semantics apply unchanged.
+ *
+ * <p>
+ * This class requires Java 9 or later. It is packaged in the {@code META-INF/versions/9} section of the (multi-release)
+ * library jar, and is not available on Java 8.
+ * </p>
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ * @param <S>
+ *            the data type of the symbols
+ *
+ */
+public class FlowMatchPublisher<S extends Comparable<S>> implements Flow.Publisher<IMatch<S>>
+{
+	private static final String PARM_publisher = "publisher_";
+	private static final String PARM_subscriber = "subscriber_";
+
+	// =========================================================================
+	// Properties
+	// =========================================================================
+	private final MatchPublisher<S> publisher;
+
+	// =========================================================================
+	// Constructors
+	// =========================================================================
+	/**
+	 * Constructs a new instance that publishes matches found by a new session of the specified machine.
+	 *
+	 * @param machine_
+	 *            specifies the initialized machine used to find matches.
+	 * @param textSource_
+	 *            specifies the (not yet open) text source to match.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified machine or text source is {@code null}.
+	 *
+	 * @throws IllegalStateException
+	 *             if the specified text source is already open.
+	 */
+	public FlowMatchPublisher(final AhoCorasickMachine<S> machine_, final ITextSource<S> textSource_)
+	{
+		this(new MatchPublisher<>(machine_, textSource_));
+	}
+
+	/**
+	 * Constructs a new instance that publishes matches found using the specified session.
+	 *
+	 * @param session_
+	 *            specifies the session used to find matches.
+	 * @param textSource_
+	 *            specifies the (not yet open) text source to match.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified session or text source is {@code null}.
+	 *
+	 * @throws IllegalStateException
+	 *             if the specified text source is already open.
+	 */
+	public FlowMatchPublisher(final MatchSession<S> session_, final ITextSource<S> textSource_)
+	{
+		this(new MatchPublisher<>(session_, textSource_));
+	}
+
+	/**
+	 * Constructs a new instance that delegates to the specified publisher.
+	 *
+	 * @param publisher_
+	 *            specifies the publisher, to which nothing has yet subscribed.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the specified publisher is {@code null}.
+	 */
+	public FlowMatchPublisher(final MatchPublisher<S> publisher_)
+	{
+		Verify.notNull(publisher_, PARM_publisher);
+
+		this.publisher = publisher_;
+	}
+
+	// =========================================================================
+	// Public methods
+	// =========================================================================
+	/**
+	 * Subscribes to the matches found in the text source (see {@link MatchPublisher#subscribe(IMatchSubscriber)}).
+	 *
+	 * @param subscriber_
+	 *            specifies the subscriber.
+	 *
+	 * @throws NullPointerException
+	 *             if the specified subscriber is {@code null}, as required by {@link Flow.Publisher}.
+	 */
+	@Override
+	public void subscribe(final Flow.Subscriber<? super IMatch<S>> subscriber_)
+	{
+		Objects.requireNonNull(subscriber_, PARM_subscriber);
+
+		publisher.subscribe(new IMatchSubscriber<S>()
+		{
+			@Override
+			public void onComplete()
+			{
+				subscriber_.onComplete();
+			}
+
+			@Override
+			public void onError(final Throwable throwable_)
+			{
+				subscriber_.onError(throwable_);
+			}
+
+			@Override
+			public void onNext(final IMatch<S> match_)
+			{
+				subscriber_.onNext(match_);
+			}
+
+			@Override
+			public void onSubscribe(final IMatchSubscription subscription_)
+			{
+				subscriber_.onSubscribe(new Flow.Subscription()
+				{
+					@Override
+					public void cancel()
+					{
+						subscription_.cancel();
+					}
+
+					@Override
+					public void request(final long n_)
+					{
+						subscription_.request(n_);
+					}
+				});
+			}
+		});
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("FlowMatchPublisher [publisher=%s]", publisher);
+	}
+}
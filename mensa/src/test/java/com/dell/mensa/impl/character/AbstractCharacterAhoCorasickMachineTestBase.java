@@ -17,12 +17,18 @@ import java.util.ArrayList;
 import java.util.List;
 import com.dell.mensa.IKeyword;
 import com.dell.mensa.IKeywords;
+import com.dell.mensa.IMatch;
 import com.dell.mensa.ITailBuffer;
 import com.dell.mensa.ITextSource;
 import com.dell.mensa.impl.generic.AbstractAhoCorasickMachineTest;
 import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.CompiledMachine;
 import com.dell.mensa.impl.generic.Keywords;
 import com.dell.mensa.impl.generic.Match;
+import com.dell.mensa.impl.generic.MatchCollector;
+import com.dell.mensa.impl.generic.MatchEngine;
+import com.dell.mensa.impl.generic.MatchSession;
+import com.dell.mensa.impl.generic.OrderedKeywords;
 
 /**
  * {@link AbstractCharacterAhoCorasickMachineTestBase} extends {@link AbstractAhoCorasickMachineTest} for testing
@@ -129,4 +135,124 @@ public abstract class AbstractCharacterAhoCorasickMachineTestBase extends Abstra
 
 		return symbols;
 	}
+
+	/**
+	 * Creates keywords, in the specified order, with default options.
+	 *
+	 * @param words_
+	 *            the symbols of each keyword
+	 * @return Returns the new keywords.
+	 */
+	protected static IKeywords<Character> createKeywords(final String... words_)
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		for (final String word : words_)
+		{
+			keywords.add(new CharacterKeyword(word));
+		}
+		return keywords;
+	}
+
+	/**
+	 * Builds a {@link CharacterAhoCorasickMachine} with default settings.
+	 *
+	 * @param keywords_
+	 *            the keywords to match
+	 * @return Returns the compiled machine.
+	 */
+	protected static CompiledMachine<Character> createMachine(final IKeywords<Character> keywords_)
+	{
+		return createMachine(keywords_, 0, MatchEngine.AHO_CORASICK);
+	}
+
+	/**
+	 * Builds a {@link CharacterAhoCorasickMachine} with the specified lazy depth and match engine.
+	 *
+	 * @param keywords_
+	 *            the keywords to match
+	 * @param lazyDepth_
+	 *            the lazy depth (see {@link AhoCorasickMachine#setLazyDepth(int)})
+	 * @param engine_
+	 *            the match engine
+	 * @return Returns the compiled machine.
+	 */
+	protected static CompiledMachine<Character> createMachine(final IKeywords<Character> keywords_, final int lazyDepth_, final MatchEngine engine_)
+	{
+		final AhoCorasickMachine<Character> machine = new CharacterAhoCorasickMachine();
+		machine.setLazyDepth(lazyDepth_);
+		machine.setMatchEngine(engine_);
+		return machine.build(keywords_);
+	}
+
+	/**
+	 * Describes the matches found (see {@link #describe(List)}).
+	 *
+	 * @param session_
+	 *            the session to match with
+	 * @param text_
+	 *            the input text
+	 * @return Returns a description of each match.
+	 * @throws IOException
+	 *             if there is an error accessing the text source
+	 */
+	protected static List<String> match(final MatchSession<Character> session_, final String text_) throws IOException
+	{
+		return match(session_, text_, 0);
+	}
+
+	/**
+	 * Describes the matches found exactly or, if the specified edit distance is positive, approximately (see
+	 * {@link #describe(List)}).
+	 *
+	 * @param session_
+	 *            the session to match with
+	 * @param text_
+	 *            the input text
+	 * @param maxDistance_
+	 *            the maximum edit distance
+	 * @return Returns a description of each match.
+	 * @throws IOException
+	 *             if there is an error accessing the text source
+	 */
+	protected static List<String> match(final MatchSession<Character> session_, final String text_, final int maxDistance_) throws IOException
+	{
+		final MatchCollector<Character> collector = new MatchCollector<>();
+		final ITextSource<Character> textSource = new CharacterStringTextSource(text_);
+		textSource.open();
+		try
+		{
+			if (maxDistance_ == 0)
+			{
+				session_.match(textSource, collector);
+			}
+			else
+			{
+				session_.matchApproximate(textSource, collector, maxDistance_);
+			}
+		}
+		finally
+		{
+			textSource.close();
+		}
+
+		return describe(collector.getMatches());
+	}
+
+	/**
+	 * Describes matches by keyword, position, and precision, omitting the machine (see {@link IMatch#getMachine()})
+	 * so that matches found by different machines can be compared.
+	 *
+	 * @param matches_
+	 *            the matches to describe
+	 * @return Returns a description of each match.
+	 */
+	protected static List<String> describe(final List<? extends IMatch<Character>> matches_)
+	{
+		final List<String> result = new ArrayList<>();
+		for (final IMatch<Character> match : matches_)
+		{
+			result.add(String.format("%s [%d, %d) %f", match.getKeyword(), match.getStart(), match.getEnd(), match.getPrecision()));
+		}
+		return result;
+	}
 }
@@ -15,6 +15,7 @@ package com.dell.mensa.impl.character;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Predicate;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -592,6 +593,61 @@ public abstract class AbstractCharacterTextSourceTest
 		textSource.getPosition();
 	}
 
+	/**
+	 * Test method for {@link com.dell.mensa.impl.generic.AbstractTextSource#getPositionBefore(long, int)}.
+	 *
+	 * @throws IOException
+	 *             if thrown by the code being tested
+	 */
+	@Test
+	public void testGetPositionBefore() throws IOException
+	{
+		textSource.open();
+
+		final ITailBuffer<Character> buffer = textSource.getTailBuffer();
+		while (!textSource.isEof())
+		{
+			// Effective symbols are counted back from the current position.
+			final long end = textSource.getPosition();
+			int count = 0;
+			for (long i = end - 1; i >= buffer.start(); i--)
+			{
+				if (buffer.symbolAt(i) != null)
+				{
+					Assert.assertEquals(i, textSource.getPositionBefore(end, ++count));
+				}
+			}
+			Assert.assertEquals(end, textSource.getPositionBefore(end, 0));
+
+			textSource.read();
+		}
+
+		// Positions other than the current position, including those of "extra" symbols, count back the same way.
+		for (long position = buffer.start() + 1; position <= buffer.end(); position++)
+		{
+			long expected = position - 1;
+			while (buffer.symbolAt(expected) == null)
+			{
+				--expected;
+			}
+			Assert.assertEquals(expected, textSource.getPositionBefore(position, 1));
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetPositionBefore_Underflow() throws IOException
+	{
+		textSource.open();
+		textSource.read();
+		textSource.getPositionBefore(textSource.getPosition(), 2);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testGetPositionBefore_NotOpen()
+	{
+		textSource.getPositionBefore(0, 0);
+	}
+
 	/**
 	 * Test method for {@link com.dell.mensa.impl.generic.AbstractTextSource#getTailBuffer()}.
 	 */
@@ -1010,6 +1066,88 @@ public abstract class AbstractCharacterTextSourceTest
 		}
 	}
 
+	@Test
+	public void testSkip() throws IOException
+	{
+		final Predicate<Character> stop = new Predicate<Character>()
+		{
+			@Override
+			public boolean test(final Character a_)
+			{
+				return a_.charValue() == 'x' || a_.charValue() == 'H';
+			}
+		};
+
+		final ITextSource<Character> expected = createTextSource(actualText);
+		expected.open();
+		textSource.open();
+		try
+		{
+			while (!textSource.isEof())
+			{
+				// Skipping must be equivalent to reading the skipped symbols.
+				long n = textSource.skip(stop);
+				while (n-- > 0)
+				{
+					expected.read();
+				}
+				Assert.assertEquals(expected.getPosition(), textSource.getPosition());
+				Assert.assertEquals(expected.peek(), textSource.peek());
+				Assert.assertEquals(expected.getTailBuffer().end(), textSource.getTailBuffer().end());
+				Assert.assertEquals(expected.getRawTailBuffer().end(), textSource.getRawTailBuffer().end());
+
+				if (!textSource.isEof())
+				{
+					Assert.assertTrue(stop.test(textSource.peek()));
+					Assert.assertEquals(expected.read(), textSource.read());
+				}
+			}
+			Assert.assertTrue(expected.isEof());
+		}
+		finally
+		{
+			expected.close();
+		}
+	}
+
+	@Test
+	public void testSkip_Count() throws IOException
+	{
+		final ITextSource<Character> expected = createTextSource(actualText);
+		expected.open();
+		textSource.open();
+		try
+		{
+			for (int count = 0; !textSource.isEof(); count = (count + 1) % 5)
+			{
+				// Skipping must be equivalent to reading the skipped symbols, including symbols being re-read.
+				if (count == 4 && textSource.getPosition() > 0)
+				{
+					final long position = textSource.getPositionBefore(textSource.getPosition(), 1);
+					textSource.setPosition(position);
+					expected.setPosition(position);
+				}
+
+				final long n = textSource.skip(count);
+				for (long i = 0; i < n; i++)
+				{
+					expected.read();
+				}
+				Assert.assertTrue(n == count || textSource.isEof());
+				Assert.assertEquals(expected.getPosition(), textSource.getPosition());
+				Assert.assertEquals(expected.peek(), textSource.peek());
+				Assert.assertEquals(expected.getTailBuffer().end(), textSource.getTailBuffer().end());
+				Assert.assertEquals(expected.getRawTailBuffer().end(), textSource.getRawTailBuffer().end());
+			}
+			Assert.assertTrue(expected.isEof());
+			Assert.assertEquals(0, textSource.skip(1));
+		}
+		finally
+		{
+			expected.close();
+		}
+	}
+
 	// =========================================================================
 	// Internal methods
 	// =========================================================================
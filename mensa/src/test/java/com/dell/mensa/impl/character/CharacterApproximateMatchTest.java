@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.IKeyword;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.MatchCollector;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * Tests {@link AhoCorasickMachine#matchApproximate(ITextSource, com.dell.mensa.IMatchListener, int)}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterApproximateMatchTest
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_TRIALS = 100;
+	private static final int TEXT_LENGTH = 200;
+	private static final String ALPHABET = "abcd";
+	private static final String[] KEYWORDS = { "abcd", "bcab", "cabca", "abcabcab", "dddd", "acbdacbd", "bcda", "dabc" };
+
+	private static final String[] WORDS = { "paint", "red paint", "compliance" };
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test(expected = IllegalArgumentException.class)
+	public void testMatchApproximate_DistanceTooSmall() throws IOException
+	{
+		match(build(true, WORDS), "paint", 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMatchApproximate_DistanceTooLarge() throws IOException
+	{
+		match(build(true, WORDS), "paint", AhoCorasickMachine.MAX_EDIT_DISTANCE + 1);
+	}
+
+	@Test
+	public void testMatchApproximate_Exact() throws IOException
+	{
+		final AhoCorasickMachine<Character> machine = build(true, WORDS);
+		Assert.assertEquals(asList("red paint [0, 9) 1.0", "paint [4, 9) 1.0"), match(machine, "Red PAINT", 1));
+	}
+
+	@Test
+	public void testMatchApproximate_Edits() throws IOException
+	{
+		final AhoCorasickMachine<Character> machine = build(true, WORDS);
+
+		// Substitution, deletion, and insertion
+		Assert.assertEquals(asList("paint [4, 9) 0.8"), match(machine, "the pbint", 1));
+		Assert.assertEquals(asList("paint [4, 8) 0.8"), match(machine, "the pint", 1));
+		Assert.assertEquals(asList("paint [4, 10) 0.8"), match(machine, "the paiint", 1));
+		Assert.assertEquals(asList("compliance [0, 9) 0.9"), match(machine, "complance officer", 1));
+
+		// Two edits
+		Assert.assertEquals(asList(), match(machine, "the pnt", 1));
+		Assert.assertEquals(asList("paint [4, 7) 0.6"), match(machine, "the pnt", 2));
+		Assert.assertEquals(asList("compliance [0, 10) 0.8", "compliance [20, 30) 1.0"), match(machine, "complaince officer, compliance", 2));
+	}
+
+	@Test
+	public void testMatchApproximate_WordBreaks() throws IOException
+	{
+		final AhoCorasickMachine<Character> machine = build(true, WORDS);
+		Assert.assertEquals(asList(), match(machine, "repaint", 1));
+		Assert.assertEquals(asList("paint [0, 7) 0.6", "red paint [0, 7) 0.8"), match(machine, "repaint", 2));
+		Assert.assertEquals(asList("paint [0, 6) 0.8"), match(machine, "paints", 1));
+	}
+
+	@Test
+	public void testMatchApproximate_Random() throws IOException
+	{
+		final AhoCorasickMachine<Character> machine = build(false, KEYWORDS);
+		final Random random = new Random(0);
+
+		for (int trial = 0; trial < NUM_TRIALS; trial++)
+		{
+			final StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < TEXT_LENGTH; i++)
+			{
+				sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+			}
+			final String text = sb.toString();
+
+			for (int maxDistance = 1; maxDistance <= AhoCorasickMachine.MAX_EDIT_DISTANCE; maxDistance++)
+			{
+				final Set<String> expected = new HashSet<>();
+				for (final String keyword : KEYWORDS)
+				{
+					if (minDistance(keyword, text) <= maxDistance)
+					{
+						expected.add(keyword);
+					}
+				}
+
+				final Set<String> actual = new HashSet<>();
+				long previousEnd = 0;
+				for (final IMatch<Character> match : matches(machine, text, maxDistance))
+				{
+					final String keyword = text(match.getKeyword());
+					final String span = text.substring((int) match.getStart(), (int) match.getEnd());
+					final int distance = (int) Math.round(keyword.length() * (1.0 - match.getPrecision()));
+
+					Assert.assertTrue(match.getEnd() >= previousEnd);
+					Assert.assertTrue(distance <= maxDistance);
+					Assert.assertEquals(distance, distance(keyword, span));
+
+					actual.add(keyword);
+					previousEnd = match.getEnd();
+				}
+
+				Assert.assertEquals(expected, actual);
+			}
+		}
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static AhoCorasickMachine<Character> build(final boolean bExtensionsEnabled_, final String[] keywords_)
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		for (final String keyword : keywords_)
+		{
+			keywords.add(new CharacterKeyword(keyword));
+		}
+
+		final AhoCorasickMachine<Character> machine = new CharacterAhoCorasickMachine(bExtensionsEnabled_);
+		machine.build(keywords);
+		return machine;
+	}
+
+	private static List<IMatch<Character>> matches(final AhoCorasickMachine<Character> machine_, final String text_, final int maxDistance_)
+			throws IOException
+	{
+		final MatchCollector<Character> collector = new MatchCollector<>();
+		final ITextSource<Character> textSource = new CharacterStringTextSource(text_);
+		textSource.open();
+		try
+		{
+			machine_.matchApproximate(textSource, collector, maxDistance_);
+		}
+		finally
+		{
+			textSource.close();
+		}
+		return collector.getMatches();
+	}
+
+	private static List<String> match(final AhoCorasickMachine<Character> machine_, final String text_, final int maxDistance_) throws IOException
+	{
+		final List<String> result = new ArrayList<>();
+		for (final IMatch<Character> match : matches(machine_, text_, maxDistance_))
+		{
+			result.add(String.format("%s [%d, %d) %.1f", text(match.getKeyword()), match.getStart(), match.getEnd(), match.getPrecision()));
+		}
+		return result;
+	}
+
+	private static String text(final IKeyword<Character> keyword_)
+	{
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < keyword_.length(); i++)
+		{
+			sb.append(keyword_.symbolAt(i));
+		}
+		return sb.toString();
+	}
+
+	private static List<String> asList(final String... strings_)
+	{
+		final List<String> result = new ArrayList<>();
+		for (final String s : strings_)
+		{
+			result.add(s);
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the Levenshtein distance between two strings.
+	 */
+	private static int distance(final String s_, final String t_)
+	{
+		int[] previous = new int[t_.length() + 1];
+		int[] current = new int[t_.length() + 1];
+		for (int j = 0; j <= t_.length(); j++)
+		{
+			previous[j] = j;
+		}
+
+		for (int i = 1; i <= s_.length(); i++)
+		{
+			current[0] = i;
+			for (int j = 1; j <= t_.length(); j++)
+			{
+				final int cost = s_.charAt(i - 1) == t_.charAt(j - 1) ? 0 : 1;
+				current[j] = Math.min(Math.min(current[j - 1], previous[j]) + 1, previous[j - 1] + cost);
+			}
+
+			final int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+
+		return previous[t_.length()];
+	}
+
+	/**
+	 * Computes the smallest Levenshtein distance between a keyword and any non-empty substring of a text (i.e.,
+	 * Sellers' algorithm), not counting alignments in which no keyword symbol is matched.
+	 */
+	private static int minDistance(final String keyword_, final String text_)
+	{
+		int result = Integer.MAX_VALUE;
+		for (int start = 0; start < text_.length(); start++)
+		{
+			for (int end = start + 1; end <= Math.min(text_.length(), start + keyword_.length() + AhoCorasickMachine.MAX_EDIT_DISTANCE); end++)
+			{
+				final int d = distance(keyword_, text_.substring(start, end));
+				if (d < keyword_.length())
+				{
+					result = Math.min(result, d);
+				}
+			}
+		}
+		return result;
+	}
+}
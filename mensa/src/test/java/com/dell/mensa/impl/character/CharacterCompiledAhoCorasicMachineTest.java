@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import com.dell.mensa.IKeyword;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.INextMoveFunction;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.Keywords;
+import com.dell.mensa.impl.generic.Match;
+import com.dell.mensa.impl.generic.MatchSemantics;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * Tests matching by machines whose next move functions are compiled by a {@link CharacterCompilingFactory}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterCompiledAhoCorasicMachineTest extends AbstractCharacterAhoCorasickMachineTestBase
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final String FIGURE1_TEXT = "she ushers in his sheet for hers";
+	private static final String[] KEYWORDS = { "he", "she", "his", "hers", "red", "red paint", "U.S.A.", "Ann Arbor", "été" };
+	private static final String ALPHABET = "adehinoprstuARS .,é\n";
+	private static final int TEXT_LENGTH = 4000;
+
+	private final CharacterKeyword he = new CharacterKeyword("he");
+	private final CharacterKeyword she = new CharacterKeyword("she");
+	private final CharacterKeyword his = new CharacterKeyword("his");
+	private final CharacterKeyword hers = new CharacterKeyword("hers");
+
+	private IKeywords<Character> figure1Keywords;
+
+	private AhoCorasickMachine<Character> machine;
+	private AhoCorasickMachine<Character> machineEx;
+
+	@Before
+	public void setUp()
+	{
+		final CharacterCompilingFactory factory = new CharacterCompilingFactory();
+		machine = new AhoCorasickMachine<>(factory);
+		machineEx = new CharacterAhoCorasickMachine(factory, new CharacterSymbolClassifier());
+
+		figure1Keywords = new OrderedKeywords<>();
+		figure1Keywords.add(he);
+		figure1Keywords.add(she);
+		figure1Keywords.add(his);
+		figure1Keywords.add(hers);
+	}
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testBuild_Paper_Figure1()
+	{
+		machine.build(figure1Keywords);
+
+		final INextMoveFunction<Character> nextMoveFunction = machine.getNextMoveFunction();
+		Assert.assertTrue(nextMoveFunction instanceof CharacterCompiledNextMoveFunction);
+		Assert.assertEquals(10, machine.getNumStates());
+
+		// The transitions of Figure 3 of the paper, from the states along "ushers".
+		Assert.assertEquals(0, nextMoveFunction.eval(0, 'u'));
+		Assert.assertEquals(3, nextMoveFunction.eval(0, 's'));
+		Assert.assertEquals(4, nextMoveFunction.eval(3, 'h'));
+		Assert.assertEquals(5, nextMoveFunction.eval(4, 'e'));
+		Assert.assertEquals(8, nextMoveFunction.eval(5, 'r'));
+		Assert.assertEquals(9, nextMoveFunction.eval(8, 's'));
+		Assert.assertEquals(0, nextMoveFunction.eval(9, ' '));
+	}
+
+	@Test
+	public void testMatch_Paper_Figure1() throws IOException
+	{
+		machine.build(figure1Keywords);
+
+		final List<Match<Character>> expectedMatches = new ArrayList<>();
+		add(expectedMatches, new Match<>(machine, she, 0, 3));
+		add(expectedMatches, new Match<>(machine, he, 1, 3));
+		add(expectedMatches, new Match<>(machine, she, 5, 8));
+		add(expectedMatches, new Match<>(machine, he, 6, 8));
+		add(expectedMatches, new Match<>(machine, hers, 6, 10));
+		add(expectedMatches, new Match<>(machine, his, 14, 17));
+		add(expectedMatches, new Match<>(machine, she, 18, 21));
+		add(expectedMatches, new Match<>(machine, he, 19, 21));
+		add(expectedMatches, new Match<>(machine, he, 28, 30));
+		add(expectedMatches, new Match<>(machine, hers, 28, 32));
+
+		verifyMatch(machine, new CharacterStringTextSource(FIGURE1_TEXT), expectedMatches);
+	}
+
+	@Test
+	public void testMatchEx_Paper_Figure1() throws IOException
+	{
+		machineEx.build(figure1Keywords);
+		Assert.assertTrue(machineEx.getNextMoveFunction() instanceof CharacterCompiledNextMoveFunction);
+
+		// Only whole words match, regardless of case.
+		for (final String text : new String[] { FIGURE1_TEXT, FIGURE1_TEXT.toUpperCase(Locale.ENGLISH) })
+		{
+			final List<Match<Character>> expectedMatches = new ArrayList<>();
+			add(expectedMatches, new Match<>(machineEx, she, 0, 3));
+			add(expectedMatches, new Match<>(machineEx, his, 14, 17));
+			add(expectedMatches, new Match<>(machineEx, hers, 28, 32));
+
+			verifyMatch(machineEx, new CharacterStringTextSource(text), expectedMatches);
+		}
+	}
+
+	@Test
+	public void testMatch_Basic() throws IOException
+	{
+		verifySingleMatch(machineEx, "Hello World", 0, "\t", "HELLO,\n  WORLD", "\n \n ");
+		Assert.assertTrue(machineEx.getNextMoveFunction() instanceof CharacterCompiledNextMoveFunction);
+	}
+
+	@Test
+	public void testMatch_NotifyLongestMatch() throws IOException
+	{
+		final IKeywords<Character> keywords = new Keywords<>();
+		final IKeyword<Character> red = new CharacterKeyword("red");
+		final IKeyword<Character> paint = new CharacterKeyword("paint");
+		final IKeyword<Character> redPaint = new CharacterKeyword("red paint");
+		keywords.add(red);
+		keywords.add(paint);
+		keywords.add(redPaint);
+		machine.build(keywords);
+
+		final ITextSource<Character> textSource = new CharacterStringTextSource("They used red paint.");
+
+		final List<Match<Character>> expectedMatches = new ArrayList<>();
+		add(expectedMatches, new Match<>(machine, red, 10, 13));
+		add(expectedMatches, new Match<>(machine, redPaint, 10, 19));
+
+		machine.setNotifyLongestMatch(true);
+		verifyMatch(machine, textSource, expectedMatches);
+	}
+
+	@Test
+	public void testMatch_SameAsInterpreted() throws IOException
+	{
+		final IKeywords<Character> keywords = new Keywords<>();
+		for (final String keyword : KEYWORDS)
+		{
+			keywords.add(new CharacterKeyword(keyword));
+		}
+
+		final AhoCorasickMachine<Character> expectedMachine = new CharacterAhoCorasickMachine(new CharacterFactory(),
+				new CharacterSymbolClassifier());
+		expectedMachine.build(keywords);
+		machineEx.build(keywords);
+		Assert.assertTrue(machineEx.getNextMoveFunction() instanceof CharacterCompiledNextMoveFunction);
+
+		final String text = createText(new Random(0));
+		for (final MatchSemantics semantics : MatchSemantics.values())
+		{
+			expectedMachine.setMatchSemantics(semantics);
+			machineEx.setMatchSemantics(semantics);
+
+			final List<String> expected = format(expectedMachine, text);
+			Assert.assertFalse(expected.isEmpty());
+			Assert.assertEquals(semantics.toString(), expected, format(machineEx, text));
+		}
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static String createText(final Random random_)
+	{
+		final StringBuilder sb = new StringBuilder(TEXT_LENGTH);
+		while (sb.length() < TEXT_LENGTH)
+		{
+			if (random_.nextInt(8) == 0)
+			{
+				sb.append(KEYWORDS[random_.nextInt(KEYWORDS.length)]);
+			}
+			else
+			{
+				sb.append(ALPHABET.charAt(random_.nextInt(ALPHABET.length())));
+			}
+		}
+		return sb.toString();
+	}
+
+	private static List<String> format(final AhoCorasickMachine<Character> machine_, final String text_) throws IOException
+	{
+		final List<IMatch<Character>> matches = new ArrayList<>();
+
+		final ITextSource<Character> textSource = new CharacterStringTextSource(text_);
+		textSource.open();
+		try
+		{
+			final Iterator<IMatch<Character>> iterator = machine_.matchIterator(textSource);
+			while (iterator.hasNext())
+			{
+				matches.add(iterator.next());
+			}
+		}
+		finally
+		{
+			textSource.close();
+		}
+		return describe(matches);
+	}
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.ConcurrentMatcher;
+import com.dell.mensa.impl.generic.FrozenMachine;
+import com.dell.mensa.impl.generic.MatchCollector;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterConcurrentMatcherTest
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_STREAMS = 100;
+	private static final int NUM_CHUNKS = 5;
+	private static final String CHUNK = "ushers and his hers; ";
+
+	private final Charset charset = Charset.forName("UTF8");
+
+	private FrozenMachine<Character> machine;
+	private ConcurrentMatcher<Character> matcher;
+
+	@Before
+	public void setUp()
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		keywords.add(new CharacterKeyword("he"));
+		keywords.add(new CharacterKeyword("she"));
+		keywords.add(new CharacterKeyword("his"));
+		keywords.add(new CharacterKeyword("hers"));
+
+		machine = new AhoCorasickMachine<>(new CharacterFactory()).build(keywords).freeze();
+
+		matcher = new ConcurrentMatcher<>(machine);
+	}
+
+	@After
+	public void tearDown()
+	{
+		matcher.shutdown();
+	}
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_NullMachine()
+	{
+		new ConcurrentMatcher<Character>(null);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSubmit_AlreadyOpen() throws IOException
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(CHUNK);
+		textSource.open();
+		try
+		{
+			matcher.submit(textSource, new MatchCollector<Character>());
+		}
+		finally
+		{
+			textSource.close();
+		}
+	}
+
+	@Test
+	public void testSubmit_Pipes() throws IOException, InterruptedException, ExecutionException
+	{
+		final MatchCollector<Character> expected = new MatchCollector<>();
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < NUM_CHUNKS; i++)
+		{
+			text.append(CHUNK);
+		}
+		final ITextSource<Character> expectedSource = new CharacterStringTextSource(text.toString());
+		expectedSource.open();
+		machine.match(expectedSource, expected);
+		expectedSource.close();
+
+		final List<PipedOutputStream> outputs = new ArrayList<>(NUM_STREAMS);
+		final List<MatchCollector<Character>> collectors = new ArrayList<>(NUM_STREAMS);
+		final List<Future<Integer>> futures = new ArrayList<>(NUM_STREAMS);
+		for (int i = 0; i < NUM_STREAMS; i++)
+		{
+			final PipedOutputStream output = new PipedOutputStream();
+			final PipedInputStream input = new PipedInputStream(output);
+			final MatchCollector<Character> collector = new MatchCollector<>();
+
+			outputs.add(output);
+			collectors.add(collector);
+			futures.add(matcher.submit(new CharacterInputStreamTextSource(input, charset), collector));
+		}
+
+		// Feed all streams a chunk at a time, so every stream is open and partially read at once.
+		final byte[] chunk = CHUNK.getBytes(charset);
+		for (int iChunk = 0; iChunk < NUM_CHUNKS; iChunk++)
+		{
+			for (final PipedOutputStream output : outputs)
+			{
+				output.write(chunk);
+				output.flush();
+			}
+		}
+
+		for (final PipedOutputStream output : outputs)
+		{
+			output.close();
+		}
+
+		for (int i = 0; i < NUM_STREAMS; i++)
+		{
+			Assert.assertEquals(expected.getMatches().size(), futures.get(i).get().intValue());
+			Assert.assertEquals(expected.getMatches(), collectors.get(i).getMatches());
+		}
+	}
+}
@@ -15,7 +15,9 @@ package com.dell.mensa.impl.character;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 import org.junit.Assert;
 import org.junit.Before;
@@ -242,6 +244,51 @@ public class CharacterEdgeMapTest
 		}
 	}
 
+	/**
+	 * Test method for {@link com.dell.mensa.IEdgeMap#optimize(Comparator)}.
+	 */
+	@Test
+	public void testOptimize_Order()
+	{
+		for (int i = 0; i < NUM_MOCK_EDGES; i++)
+		{
+			final IEdge<Character> edge = mockEdge(i);
+			edgeMap.put(edge.getSymbol(), edge.getState());
+		}
+
+		// Order the symbols in reverse.
+		edgeMap.optimize(new Comparator<Character>()
+		{
+			@Override
+			public int compare(final Character a1_, final Character a2_)
+			{
+				return a2_.compareTo(a1_);
+			}
+		});
+
+		// Verify we can still retrieve each edge.
+		Assert.assertEquals(NUM_MOCK_EDGES, edgeMap.size());
+		for (int i = 0; i < NUM_MOCK_EDGES; i++)
+		{
+			final Character symbol = mockSymbol(i);
+			Assert.assertEquals(mockState(symbol), edgeMap.get(symbol));
+		}
+
+		// A compact edge map keeps its edges in the specified order, followed by the default edge.
+		if (edgeMap instanceof CharacterCompactEdgeMap)
+		{
+			final Iterator<IEdge<Character>> iterator = edgeMap.getEdges().iterator();
+			for (int i = NUM_MOCK_EDGES - 1; i >= 0; i--)
+			{
+				Assert.assertEquals(mockEdge(i), iterator.next());
+			}
+		}
+
+		// Adding an edge after ordering is supported.
+		edgeMap.put(Character.valueOf((char) 200), 1);
+		Assert.assertEquals(1, edgeMap.get(Character.valueOf((char) 200)));
+	}
+
 	/**
 	 * Test method for {@link com.dell.mensa.impl.generic.EdgeMap#put(java.lang.Object, int)}.
 	 */
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.CompiledMachine;
+import com.dell.mensa.impl.generic.FrozenMachine;
+import com.dell.mensa.impl.generic.MatchEngine;
+import com.dell.mensa.impl.generic.MatchSemantics;
+import com.dell.mensa.impl.generic.MatchSession;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * Tests {@link CompiledMachine} and {@link FrozenMachine}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterFrozenMachineTest
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final String[] WORDS = { "he", "she", "his", "hers" };
+
+	private IKeywords<Character> keywords;
+	private AhoCorasickMachine<Character> machine;
+	private CompiledMachine<Character> compiled;
+
+	@Before
+	public void setUp()
+	{
+		keywords = new OrderedKeywords<>();
+		for (final String word : WORDS)
+		{
+			keywords.add(new CharacterKeyword(word));
+		}
+
+		machine = new CharacterAhoCorasickMachine();
+		machine.setMatchSemantics(MatchSemantics.LEFTMOST_LONGEST);
+		compiled = machine.build(keywords);
+	}
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testBuild()
+	{
+		Assert.assertTrue(compiled instanceof FrozenMachine);
+		Assert.assertSame(compiled, compiled.freeze());
+		Assert.assertEquals(machine.getNumStates(), compiled.getNumStates());
+		Assert.assertEquals(MatchSemantics.LEFTMOST_LONGEST, compiled.getMatchSemantics());
+		Assert.assertSame(compiled, machine.createSession().getMachine());
+		Assert.assertSame(compiled, new MatchSession<>(compiled).getMachine());
+	}
+
+	@Test
+	public void testReset()
+	{
+		final int numStates = compiled.getNumStates();
+
+		// Resetting the machine that built a compiled machine leaves the compiled machine intact.
+		machine.reset();
+		machine.setLazyDepth(1);
+		Assert.assertTrue(machine.build(keywords) instanceof CompiledMachine);
+		Assert.assertEquals(numStates, compiled.getNumStates());
+		Assert.assertNotNull(compiled.getNextMoveFunction());
+	}
+
+	@Test
+	public void testSetDefaults_Built()
+	{
+		// Session defaults may still be changed on the machine that built a compiled machine.
+		machine.setMatchSemantics(MatchSemantics.OVERLAPPING);
+		Assert.assertEquals(MatchSemantics.OVERLAPPING, machine.createSession().getMatchSemantics());
+		Assert.assertEquals(MatchSemantics.LEFTMOST_LONGEST, compiled.createSession().getMatchSemantics());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBuild_Built()
+	{
+		machine.build(keywords);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSetLazyDepth_Built()
+	{
+		machine.setLazyDepth(1);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSetLongKeywordThreshold_Built()
+	{
+		machine.setLongKeywordThreshold(32);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBuild_Compiled()
+	{
+		compiled.build(keywords);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testReset_Compiled()
+	{
+		compiled.reset();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSetMatchEngine_Compiled()
+	{
+		compiled.setMatchEngine(MatchEngine.BLOCK_SKIP);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSetLazyDepth_Compiled()
+	{
+		compiled.setLazyDepth(1);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSetMatchSemantics_Compiled()
+	{
+		compiled.setMatchSemantics(MatchSemantics.OVERLAPPING);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSetNotifyRawSymbols_Compiled()
+	{
+		compiled.setNotifyRawSymbols(true);
+	}
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.IKeyword;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.impl.generic.Keywords;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * Tests {@link CharacterKeywordArena}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterKeywordArenaTest extends AbstractCharacterAhoCorasickMachineTestBase
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_KEYWORDS = 5000;
+
+	private static final String[] WORDS = { "he", "she", "his", "hers", "red paint", "U.S. Army", "it's red", "hat", "hatter" };
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testAdd()
+	{
+		final CharacterKeywordArena arena = new CharacterKeywordArena();
+		Assert.assertTrue(arena.isEmpty());
+
+		Assert.assertTrue(arena.add("he", null, 0));
+		Assert.assertTrue(arena.add(new CharacterKeyword("she")));
+		Assert.assertTrue(arena.add("xhisx".toCharArray(), 1, 3, null, 0));
+
+		// Keywords differing only in flags or user data are distinct.
+		Assert.assertTrue(arena.add("he", null, CharacterKeyword.CASE_SENSITIVE));
+		Assert.assertTrue(arena.add("he", "data", 0));
+
+		// Duplicates are not added, however they are given.
+		Assert.assertFalse(arena.add(new CharacterKeyword("he")));
+		Assert.assertFalse(arena.add("she".toCharArray(), 0, 3, null, 0));
+		Assert.assertFalse(arena.add("he", "data", 0));
+		Assert.assertFalse(arena.add(arena.get(0)));
+
+		Assert.assertEquals(5, arena.size());
+		Assert.assertEquals(12, arena.getNumSymbols());
+		Assert.assertEquals("he", toString(arena.get(0)));
+		Assert.assertEquals("his", toString(arena.get(2)));
+		Assert.assertEquals("data", arena.get(4).getUserData());
+		Assert.assertTrue(arena.get(3).isCaseSensitive());
+		Assert.assertFalse(arena.get(3).isPunctuationSensitive());
+
+		arena.clear();
+		Assert.assertTrue(arena.isEmpty());
+		Assert.assertFalse(arena.contains(new CharacterKeyword("he")));
+		Assert.assertTrue(arena.add("he", null, 0));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testAdd_Empty()
+	{
+		new CharacterKeywordArena().add("abc".toCharArray(), 1, 0, null, 0);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testAdd_OutOfBounds()
+	{
+		new CharacterKeywordArena().add("abc".toCharArray(), 2, 2, null, 0);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAdd_UnknownFlags()
+	{
+		new CharacterKeywordArena().add("abc", null, 0x80);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGet_OutOfBounds()
+	{
+		final CharacterKeywordArena arena = new CharacterKeywordArena();
+		arena.add("abc", null, 0);
+		arena.get(1);
+	}
+
+	@Test
+	public void testEquals()
+	{
+		final IKeywords<Character> keywords = new Keywords<>();
+		final CharacterKeywordArena arena = new CharacterKeywordArena(1, 1);
+
+		final Random random = new Random(1);
+		for (int i = 0; i < NUM_KEYWORDS; i++)
+		{
+			final String word = createWord(random);
+			final Object userData = random.nextInt(10) == 0 ? Integer.valueOf(random.nextInt(3)) : null;
+			final int flags = random.nextInt(4);
+
+			Assert.assertEquals(keywords.add(new CharacterKeyword(word, userData, flags)), arena.add(word, userData, flags));
+		}
+
+		// Views are equal to, and hash like, the equivalent character keywords.
+		Assert.assertEquals(keywords.size(), arena.size());
+		Assert.assertEquals(keywords, arena);
+		Assert.assertEquals(arena, keywords);
+		Assert.assertEquals(keywords.hashCode(), arena.hashCode());
+
+		for (final IKeyword<Character> keyword : arena)
+		{
+			Assert.assertTrue(keywords.contains(keyword));
+			Assert.assertTrue(arena.contains(keyword));
+		}
+
+		Assert.assertFalse(arena.contains(new CharacterKeyword("not a generated word")));
+		Assert.assertFalse(arena.contains("he"));
+
+		final int numSymbols = arena.getNumSymbols();
+		arena.trimToSize();
+		Assert.assertEquals(numSymbols, arena.getNumSymbols());
+		Assert.assertEquals(keywords, arena);
+	}
+
+	@Test
+	public void testIterator()
+	{
+		final CharacterKeywordArena arena = new CharacterKeywordArena();
+		for (final String word : WORDS)
+		{
+			arena.add(word, null, 0);
+		}
+
+		// Keywords are iterated in insertion order.
+		final Iterator<IKeyword<Character>> iterator = arena.iterator();
+		for (final String word : WORDS)
+		{
+			Assert.assertTrue(iterator.hasNext());
+			Assert.assertEquals(new CharacterKeyword(word), iterator.next());
+		}
+		Assert.assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testMatch() throws IOException
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		final CharacterKeywordArena arena = new CharacterKeywordArena();
+		for (final String word : WORDS)
+		{
+			keywords.add(new CharacterKeyword(word));
+			arena.add(word, null, 0);
+		}
+
+		final String text = "ushers said his hatter sold the U.S. Army red paint, and it's red";
+		Assert.assertEquals(match(keywords, text), match(arena, text));
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static String createWord(final Random random_)
+	{
+		final StringBuilder sb = new StringBuilder();
+		final int length = 1 + random_.nextInt(5);
+		for (int i = 0; i < length; i++)
+		{
+			sb.append((char) ('a' + random_.nextInt(6)));
+		}
+		return sb.toString();
+	}
+
+	private static List<String> match(final IKeywords<Character> keywords_, final String text_) throws IOException
+	{
+		return match(createMachine(keywords_).createSession(), text_);
+	}
+
+	private static String toString(final IKeyword<Character> keyword_)
+	{
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < keyword_.length(); i++)
+		{
+			sb.append(keyword_.symbolAt(i));
+		}
+		return sb.toString();
+	}
+}
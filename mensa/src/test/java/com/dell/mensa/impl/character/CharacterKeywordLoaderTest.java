@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.impl.generic.AbstractKeyword;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * Tests {@link CharacterKeywordLoader}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterKeywordLoaderTest
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_KEYWORDS = 2000;
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		file = File.createTempFile("junit.keywords.", ".txt");
+	}
+
+	@After
+	public void tearDown()
+	{
+		file.delete();
+	}
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testLoad()
+	{
+		final CharacterKeywordLoader loader = new CharacterKeywordLoader();
+		Assert.assertEquals(StandardCharsets.UTF_8, loader.getCharset());
+		Assert.assertEquals(0, loader.getDefaultFlags());
+		Assert.assertEquals(0, loader.getMaxKeywords());
+	}
+
+	@Test
+	public void testLoad_Columns() throws IOException
+	{
+		final String text = "he\n"
+				+ "she\t1\n"
+				+ "his\t\tdata\r\n"
+				+ "\n"
+				+ "hers\t3\tmore data\n"
+				+ "he\n"
+				+ "U.S. Army\t2";
+
+		final IKeywords<Character> expected = new OrderedKeywords<>();
+		expected.add(new CharacterKeyword("he"));
+		expected.add(new CharacterKeyword("she", null, AbstractKeyword.CASE_SENSITIVE));
+		expected.add(new CharacterKeyword("his", "data", 0));
+		expected.add(new CharacterKeyword("hers", "more data", AbstractKeyword.CASE_SENSITIVE | AbstractKeyword.PUNCTUATION_SENSITIVE));
+		expected.add(new CharacterKeyword("U.S. Army", null, AbstractKeyword.PUNCTUATION_SENSITIVE));
+
+		final CharacterKeywordArena arena = new CharacterKeywordArena();
+		Assert.assertEquals(5, new CharacterKeywordLoader().load(createInputStream(text, StandardCharsets.UTF_8), arena));
+		Assert.assertEquals(expected, arena);
+	}
+
+	@Test
+	public void testLoad_DefaultFlags() throws IOException
+	{
+		final CharacterKeywordLoader loader = new CharacterKeywordLoader();
+		loader.setDefaultFlags(AbstractKeyword.CASE_SENSITIVE);
+
+		final CharacterKeywordArena arena = new CharacterKeywordArena();
+		loader.load(createInputStream("he\nshe\t2\n", StandardCharsets.UTF_8), arena);
+
+		Assert.assertTrue(arena.get(0).isCaseSensitive());
+		Assert.assertFalse(arena.get(1).isCaseSensitive());
+		Assert.assertTrue(arena.get(1).isPunctuationSensitive());
+	}
+
+	@Test
+	public void testLoad_MaxKeywords() throws IOException
+	{
+		final CharacterKeywordLoader loader = new CharacterKeywordLoader();
+		loader.setMaxKeywords(2);
+
+		// Duplicates do not count towards the maximum.
+		final CharacterKeywordArena arena = new CharacterKeywordArena();
+		Assert.assertEquals(2, loader.load(createInputStream("he\nhe\nshe\nhis\n", StandardCharsets.UTF_8), arena));
+		Assert.assertEquals(2, arena.size());
+		Assert.assertTrue(arena.contains(new CharacterKeyword("she")));
+	}
+
+	@Test
+	public void testLoad_File() throws IOException
+	{
+		// Small buffers split lines, and multi-byte characters, across reads; a long line forces the buffer to grow.
+		final Charset charset = StandardCharsets.UTF_8;
+		final IKeywords<Character> expected = new OrderedKeywords<>();
+		final StringBuilder sb = new StringBuilder();
+
+		final Random random = new Random(1);
+		for (int i = 0; i < NUM_KEYWORDS; i++)
+		{
+			final String word = createWord(random, i == NUM_KEYWORDS / 2 ? 100 : 1 + random.nextInt(12));
+			expected.add(new CharacterKeyword(word));
+			sb.append(word).append(random.nextBoolean() ? "\n" : "\r\n");
+		}
+
+		try (final FileOutputStream fos = new FileOutputStream(file))
+		{
+			fos.write(sb.toString().getBytes(charset));
+		}
+
+		for (final int bufferSize : new int[] { 1, 16, 64, 1 << 16 })
+		{
+			final CharacterKeywordArena arena = new CharacterKeywordArena();
+			Assert.assertEquals(expected.size(), new CharacterKeywordLoader(charset, bufferSize).load(file, arena));
+			Assert.assertEquals(expected, arena);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoad_EmptyKeyword() throws IOException
+	{
+		new CharacterKeywordLoader().load(createInputStream("he\n\t1\n", StandardCharsets.UTF_8), new CharacterKeywordArena());
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoad_InvalidFlags() throws IOException
+	{
+		new CharacterKeywordLoader().load(createInputStream("he\t4\n", StandardCharsets.UTF_8), new CharacterKeywordArena());
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoad_NonNumericFlags() throws IOException
+	{
+		new CharacterKeywordLoader().load(createInputStream("he\tx\n", StandardCharsets.UTF_8), new CharacterKeywordArena());
+	}
+
+	@Test
+	public void testLoad_MalformedInput()
+	{
+		final byte[] bytes = { 'h', 'e', '\n', 's', 'h', 'e', '\n', 'h', (byte) 0xC3, 's', '\n' };
+		for (final int bufferSize : new int[] { 1, 4, 1 << 16 })
+		{
+			try
+			{
+				new CharacterKeywordLoader(StandardCharsets.UTF_8, bufferSize).load(new ByteArrayInputStream(bytes), new CharacterKeywordArena());
+				Assert.fail("IOException expected");
+			}
+			catch (final IOException e)
+			{
+				Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("line 3:"));
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoad_OutsideCharset() throws IOException
+	{
+		final byte[] bytes = { 'h', 'e', '\n', (byte) 0xFF, '\n' };
+		new CharacterKeywordLoader(StandardCharsets.US_ASCII).load(new ByteArrayInputStream(bytes), new CharacterKeywordArena());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSetDefaultFlags_Unknown()
+	{
+		new CharacterKeywordLoader().setDefaultFlags(0x80);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetMaxKeywords_Negative()
+	{
+		new CharacterKeywordLoader().setMaxKeywords(-1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testLoad_NullArena() throws IOException
+	{
+		new CharacterKeywordLoader().load(createInputStream("he", StandardCharsets.UTF_8), null);
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static InputStream createInputStream(final String text_, final Charset charset_)
+	{
+		return new ByteArrayInputStream(text_.getBytes(charset_));
+	}
+
+	private static String createWord(final Random random_, final int length_)
+	{
+		final String alphabet = "abcéü中文 ";
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < length_; i++)
+		{
+			sb.append(alphabet.charAt(random_.nextInt(alphabet.length())));
+		}
+		return sb.toString().trim().isEmpty() ? "x" + sb : sb.toString();
+	}
+}
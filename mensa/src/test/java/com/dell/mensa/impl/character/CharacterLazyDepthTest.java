@@ -0,0 +1,405 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.CompiledMachine;
+import com.dell.mensa.impl.generic.ConcurrentMatcher;
+import com.dell.mensa.impl.generic.FrozenMachine;
+import com.dell.mensa.impl.generic.LazyMachine;
+import com.dell.mensa.impl.generic.MatchCollector;
+import com.dell.mensa.impl.generic.MatchEngine;
+import com.dell.mensa.impl.generic.MatchSemantics;
+import com.dell.mensa.impl.generic.MatchSession;
+
+/**
+ * Tests {@link AhoCorasickMachine#setLazyDepth(int)}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterLazyDepthTest extends AbstractCharacterAhoCorasickMachineTestBase
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_TRIALS = 50;
+	private static final int NUM_DICTIONARIES = 500;
+	private static final int NUM_THREADS = 8;
+
+	private static final String[] PAPER_WORDS = { "he", "she", "his", "hers" };
+	private static final String[] WORDS = { "he", "she", "his", "hers", "red paint", "paint it", "U.S. Army", "hat trick", "it's red", "the hat",
+			"hatter" };
+	private static final String DICTIONARY_ALPHABET = "abc";
+	private static final String[] TEXT_WORDS = { "he", "she", "his", "hers", "ushers", "red", "paint", "it", "it's", ".", ",", " ", "  ", "U.S.",
+			"Army", "hat", "trick", "RED", "the", "hatter" };
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testDefault()
+	{
+		final AhoCorasickMachine<Character> machine = new AhoCorasickMachine<>(new CharacterFactory());
+		Assert.assertEquals(0, machine.getLazyDepth());
+
+		machine.setLazyDepth(3);
+		Assert.assertEquals(3, machine.getLazyDepth());
+
+		machine.reset();
+		Assert.assertEquals(0, machine.getLazyDepth());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetLazyDepth_Negative()
+	{
+		new AhoCorasickMachine<>(new CharacterFactory()).setLazyDepth(-1);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testExpandSubtrees_NotBuilt()
+	{
+		new AhoCorasickMachine<>(new CharacterFactory()).expandSubtrees();
+	}
+
+	@Test
+	public void testBuild_Paper() throws IOException
+	{
+		final CompiledMachine<Character> machine = createMachine(PAPER_WORDS, 2);
+		Assert.assertTrue(machine instanceof LazyMachine);
+
+		// Only the states of depth up to two are constructed: h, s, he, hi, sh.
+		Assert.assertEquals(6, machine.getNumStates());
+		Assert.assertNull(machine.getNextMoveFunction());
+
+		// Scanning "ushers" expands the subtrees below sh and he (via the failure transition from she), but not hi.
+		Assert.assertEquals(match(createMachine(PAPER_WORDS, 0).createSession(), "ushers"), match(machine.createSession(), "ushers"));
+		Assert.assertEquals(9, machine.getNumStates());
+
+		final FrozenMachine<Character> frozen = machine.freeze();
+		Assert.assertEquals(10, machine.getNumStates());
+		Assert.assertEquals(10, frozen.getNumStates());
+		Assert.assertNull(machine.getNextMoveFunction());
+		Assert.assertNotNull(frozen.getNextMoveFunction());
+		Assert.assertEquals(match(createMachine(PAPER_WORDS, 0).createSession(), "ushers his"), match(frozen.createSession(), "ushers his"));
+		Assert.assertEquals(match(createMachine(PAPER_WORDS, 0).createSession(), "ushers his"), match(machine.createSession(), "ushers his"));
+	}
+
+	@Test
+	public void testBuild_Shallow()
+	{
+		// No keyword continues below the lazy depth, so the machine is built completely.
+		final CompiledMachine<Character> machine = createMachine(PAPER_WORDS, 4);
+		Assert.assertTrue(machine instanceof FrozenMachine);
+		Assert.assertSame(machine, machine.freeze());
+		Assert.assertEquals(10, machine.getNumStates());
+		Assert.assertNotNull(machine.getNextMoveFunction());
+	}
+
+	@Test
+	public void testBuild_Builder() throws IOException
+	{
+		final AhoCorasickMachine<Character> builder = new CharacterAhoCorasickMachine();
+		builder.setLazyDepth(2);
+		final CompiledMachine<Character> machine = builder.build(createKeywords(PAPER_WORDS));
+
+		// The builder matches using the lazy machine, so both see the subtrees it expands.
+		Assert.assertEquals(6, builder.getNumStates());
+		Assert.assertEquals(match(createMachine(PAPER_WORDS, 0).createSession(), "ushers"), match(builder.createSession(), "ushers"));
+		Assert.assertEquals(9, machine.getNumStates());
+		Assert.assertEquals(9, builder.getNumStates());
+	}
+
+	@Test
+	public void testHasUnexpandedSubtrees() throws IOException
+	{
+		Assert.assertFalse(createMachine(PAPER_WORDS, 0).hasUnexpandedSubtrees());
+		Assert.assertFalse(createMachine(PAPER_WORDS, 4).hasUnexpandedSubtrees());
+
+		final CompiledMachine<Character> machine = createMachine(PAPER_WORDS, 2);
+		Assert.assertTrue(machine.hasUnexpandedSubtrees());
+		Assert.assertFalse(machine.freeze().hasUnexpandedSubtrees());
+		Assert.assertFalse(machine.hasUnexpandedSubtrees());
+
+		// The automaton of a machine built for the bit-parallel engine is also constructed lazily.
+		final AhoCorasickMachine<Character> builder = new CharacterAhoCorasickMachine();
+		builder.setMatchEngine(MatchEngine.BIT_PARALLEL);
+		builder.setLazyDepth(2);
+		final CompiledMachine<Character> bitParallel = builder.build(createKeywords(PAPER_WORDS));
+		Assert.assertTrue(bitParallel instanceof LazyMachine);
+		Assert.assertEquals(match(createMachine(PAPER_WORDS, 0).createSession(), "ushers"), match(bitParallel.createSession(), "ushers"));
+		Assert.assertEquals(match(createMachine(PAPER_WORDS, 0).createSession(), "ushers", 1), match(bitParallel.createSession(), "ushers", 1));
+		Assert.assertFalse(bitParallel.hasUnexpandedSubtrees());
+		Assert.assertEquals(10, bitParallel.getNumStates());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testExpandSubtrees_Compiled()
+	{
+		createMachine(PAPER_WORDS, 2).expandSubtrees();
+	}
+
+	@Test
+	public void testConcurrentMatcher() throws IOException, InterruptedException, ExecutionException
+	{
+		final CompiledMachine<Character> expected = createMachine(WORDS, 0);
+		final FrozenMachine<Character> actual = createMachine(WORDS, 2).freeze();
+
+		final Random random = new Random(1);
+		final List<String> texts = new ArrayList<>();
+		final List<MatchCollector<Character>> collectors = new ArrayList<>();
+		final List<Future<Integer>> futures = new ArrayList<>();
+
+		final ConcurrentMatcher<Character> matcher = new ConcurrentMatcher<>(actual, Executors.newFixedThreadPool(NUM_THREADS));
+		try
+		{
+			for (int i = 0; i < NUM_TRIALS; i++)
+			{
+				final String text = createText(random);
+				final MatchCollector<Character> collector = new MatchCollector<>();
+				texts.add(text);
+				collectors.add(collector);
+				futures.add(matcher.submit(new CharacterStringTextSource(text), collector));
+			}
+
+			for (int i = 0; i < NUM_TRIALS; i++)
+			{
+				futures.get(i).get();
+				Assert.assertEquals(texts.get(i), match(expected.createSession(), texts.get(i)), describe(collectors.get(i).getMatches()));
+			}
+		}
+		finally
+		{
+			matcher.shutdown();
+		}
+	}
+
+	@Test
+	public void testMatch_Threads() throws InterruptedException, ExecutionException
+	{
+		final CompiledMachine<Character> expected = createMachine(WORDS, 0);
+		final FrozenMachine<Character> actual = createMachine(WORDS, 1).freeze();
+		final int numStates = actual.getNumStates();
+
+		// Once frozen, the machine is shared by threads matching with their own sessions, exactly and approximately.
+		final ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+		try
+		{
+			final List<Future<Void>> futures = new ArrayList<>();
+			for (int t = 0; t < NUM_THREADS; t++)
+			{
+				final Random random = new Random(t);
+				futures.add(executor.submit(new Callable<Void>()
+				{
+					@Override
+					public Void call() throws IOException
+					{
+						for (int i = 0; i < NUM_TRIALS; i++)
+						{
+							final String text = createText(random);
+							Assert.assertEquals(text, match(expected.createSession(), text), match(actual.createSession(), text));
+							Assert.assertEquals(text, match(expected.createSession(), text, 1), match(actual.createSession(), text, 1));
+						}
+						return null;
+					}
+				}));
+			}
+
+			for (final Future<Void> future : futures)
+			{
+				future.get();
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		Assert.assertFalse(actual.hasUnexpandedSubtrees());
+		Assert.assertEquals(numStates, actual.getNumStates());
+	}
+
+	@Test
+	public void testSpliterator_Lazy()
+	{
+		final StringBuilder sb = new StringBuilder();
+		final Random random = new Random(1);
+		for (int i = 0; i < NUM_TRIALS * 10; i++)
+		{
+			sb.append(createText(random)).append('\n');
+		}
+		final String text = sb.toString();
+
+		final CompiledMachine<Character> expected = createMachine(WORDS, 0);
+		final CompiledMachine<Character> actual = createMachine(WORDS, 2);
+
+		// The text of a lazy machine is not split, so a parallel stream scans it on one thread.
+		Assert.assertNull(new CharacterMatchSpliterator(actual.createSession(), text).trySplit());
+		Assert.assertNotNull(new CharacterMatchSpliterator(expected.createSession(), text).trySplit());
+
+		final List<String> expectedMatches = describe(CharacterMatchSpliterator.stream(expected, text, true).collect(Collectors.<IMatch<Character>> toList()));
+		Assert.assertFalse(expectedMatches.isEmpty());
+		Assert.assertEquals(expectedMatches, describe(CharacterMatchSpliterator.stream(actual, text, true).collect(Collectors.<IMatch<Character>> toList())));
+
+		final FrozenMachine<Character> frozen = actual.freeze();
+		final Spliterator<IMatch<Character>> spliterator = new CharacterMatchSpliterator(frozen.createSession(), text);
+		Assert.assertNotNull(spliterator.trySplit());
+		Assert.assertEquals(expectedMatches, describe(CharacterMatchSpliterator.stream(frozen, text, true).collect(Collectors.<IMatch<Character>> toList())));
+	}
+
+	@Test
+	public void testMatch_Random() throws IOException
+	{
+		final Random random = new Random(1);
+		for (final int lazyDepth : new int[] { 1, 2, 3, 5 })
+		{
+			for (final MatchEngine engine : MatchEngine.values())
+			{
+				final CompiledMachine<Character> expected = createMachine(WORDS, 0, engine);
+
+				// Every scan starts with a freshly built machine, so each expands the subtrees it needs.
+				for (int i = 0; i < NUM_TRIALS; i++)
+				{
+					final String text = createText(random);
+
+					for (final MatchSemantics semantics : MatchSemantics.values())
+					{
+						final CompiledMachine<Character> actual = createMachine(WORDS, lazyDepth, engine);
+
+						final MatchSession<Character> expectedSession = expected.createSession();
+						expectedSession.setMatchSemantics(semantics);
+
+						final MatchSession<Character> actualSession = actual.createSession();
+						actualSession.setMatchSemantics(semantics);
+
+						Assert.assertEquals(text, match(expectedSession, text, 0), match(actualSession, text, 0));
+					}
+
+					final CompiledMachine<Character> actual = createMachine(WORDS, lazyDepth);
+					Assert.assertEquals(text, match(expected.createSession(), text, 1), match(actual.createSession(), text, 1));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMatch_NestedExpansion() throws IOException
+	{
+		// Expanding the subtree below "b" computes failure transitions through the subtree below "a", whose expansion
+		// in turn computes failure transitions into the subtree below "b".
+		final String[] words = { "abc", "babcb" };
+		final String text = "aac";
+
+		final List<String> expected = match(createPlainMachine(words, 0).createSession(), text);
+		Assert.assertEquals(expected, match(createPlainMachine(words, 1).createSession(), text));
+		Assert.assertEquals(match(createPlainMachine(words, 0).createSession(), "babcbabc", 1),
+				match(createPlainMachine(words, 1).createSession(), "babcbabc", 1));
+	}
+
+	@Test
+	public void testMatch_RandomDictionaries() throws IOException
+	{
+		final Random random = new Random(1);
+		for (int i = 0; i < NUM_DICTIONARIES; i++)
+		{
+			final String[] words = createWords(random);
+			final String text = createWord(random, 40);
+			final CompiledMachine<Character> expected = createPlainMachine(words, 0);
+
+			for (final int lazyDepth : new int[] { 1, 2, 3 })
+			{
+				final String message = String.format("%s %s depth %d", Arrays.toString(words), text, lazyDepth);
+				Assert.assertEquals(message, match(expected.createSession(), text), match(createPlainMachine(words, lazyDepth).createSession(), text));
+				Assert.assertEquals(message, match(expected.createSession(), text, 1),
+						match(createPlainMachine(words, lazyDepth).createSession(), text, 1));
+
+				// The fully expanded machine has the same transitions as the eagerly built one.
+				final FrozenMachine<Character> actual = createPlainMachine(words, lazyDepth).freeze();
+				Assert.assertEquals(message, expected.getNumStates(), actual.getNumStates());
+				Assert.assertEquals(message, match(expected.createSession(), text), match(actual.createSession(), text));
+			}
+		}
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static CompiledMachine<Character> createMachine(final String[] words_, final int lazyDepth_)
+	{
+		return createMachine(words_, lazyDepth_, MatchEngine.AHO_CORASICK);
+	}
+
+	private static CompiledMachine<Character> createMachine(final String[] words_, final int lazyDepth_, final MatchEngine engine_)
+	{
+		return createMachine(createKeywords(words_), lazyDepth_, engine_);
+	}
+
+	/**
+	 * Creates a machine without a symbol classifier, so keywords match anywhere, even within words.
+	 */
+	private static CompiledMachine<Character> createPlainMachine(final String[] words_, final int lazyDepth_)
+	{
+		final AhoCorasickMachine<Character> machine = new AhoCorasickMachine<>(new CharacterFactory());
+		machine.setLazyDepth(lazyDepth_);
+		return machine.build(createKeywords(words_));
+	}
+
+	private static String[] createWords(final Random random_)
+	{
+		final String[] words = new String[1 + random_.nextInt(8)];
+		for (int i = 0; i < words.length; i++)
+		{
+			words[i] = createWord(random_, 1 + random_.nextInt(6));
+		}
+		return words;
+	}
+
+	private static String createWord(final Random random_, final int length_)
+	{
+		final StringBuilder sb = new StringBuilder(length_);
+		for (int i = 0; i < length_; i++)
+		{
+			sb.append(DICTIONARY_ALPHABET.charAt(random_.nextInt(DICTIONARY_ALPHABET.length())));
+		}
+		return sb.toString();
+	}
+
+	private static String createText(final Random random_)
+	{
+		final StringBuilder sb = new StringBuilder();
+		for (int j = 0; j < 20; j++)
+		{
+			sb.append(TEXT_WORDS[random_.nextInt(TEXT_WORDS.length)]);
+			if (random_.nextBoolean())
+			{
+				sb.append(' ');
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.impl.generic.AbstractKeyword;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.MatchEngine;
+import com.dell.mensa.impl.generic.MatchSemantics;
+import com.dell.mensa.impl.generic.MatchSession;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * Tests {@link AhoCorasickMachine#setLongKeywordThreshold(int)}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterLongKeywordTest extends AbstractCharacterAhoCorasickMachineTestBase
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_TRIALS = 100;
+	private static final int THRESHOLD = 40;
+
+	private static final String CLAUSE = "This message and any attachments are confidential and intended solely for the addressee.";
+	private static final String CLAUSE_VARIANT = "This e-mail and any attachments are confidential and intended solely for the addressee.";
+	private static final String SIGNATURE = "Sent from my phone, please excuse any typos and brevity of this message.";
+	private static final String[] WORDS = { "confidential", "the addressee", "message", "any attachments" };
+
+	private static final String[] TEXT_WORDS = { CLAUSE, CLAUSE.toUpperCase(), CLAUSE.replace(", ", " , "), CLAUSE_VARIANT, SIGNATURE,
+			SIGNATURE.replace(",", ""), "confidential", "message", "the", "addressee", ".", "  ", "\n\n", "any", "attachments" };
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testDefault()
+	{
+		final AhoCorasickMachine<Character> machine = new AhoCorasickMachine<>(new CharacterFactory());
+		Assert.assertEquals(0, machine.getLongKeywordThreshold());
+
+		machine.setLongKeywordThreshold(THRESHOLD);
+		Assert.assertEquals(THRESHOLD, machine.getLongKeywordThreshold());
+
+		machine.reset();
+		Assert.assertEquals(0, machine.getLongKeywordThreshold());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetLongKeywordThreshold_TooSmall()
+	{
+		new AhoCorasickMachine<>(new CharacterFactory()).setLongKeywordThreshold(15);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetLongKeywordThreshold_Negative()
+	{
+		new AhoCorasickMachine<>(new CharacterFactory()).setLongKeywordThreshold(-1);
+	}
+
+	@Test
+	public void testNumStates()
+	{
+		final AhoCorasickMachine<Character> expected = new CharacterAhoCorasickMachine();
+		expected.build(createKeywords());
+
+		final AhoCorasickMachine<Character> actual = new CharacterAhoCorasickMachine();
+		actual.setLongKeywordThreshold(THRESHOLD);
+		actual.build(createKeywords());
+
+		Assert.assertTrue(actual.getNumStates() < expected.getNumStates() / 2);
+	}
+
+	@Test
+	public void testRandom() throws IOException
+	{
+		final AhoCorasickMachine<Character> expected = new CharacterAhoCorasickMachine();
+		expected.build(createKeywords());
+
+		final List<AhoCorasickMachine<Character>> actual = createMachines();
+
+		final Random random = new Random(1);
+		for (int i = 0; i < NUM_TRIALS; i++)
+		{
+			final StringBuilder sb = new StringBuilder();
+			for (int j = 0; j < 20; j++)
+			{
+				sb.append(TEXT_WORDS[random.nextInt(TEXT_WORDS.length)]);
+				if (random.nextBoolean())
+				{
+					sb.append(' ');
+				}
+			}
+			verify(expected, actual, sb.toString());
+		}
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static IKeywords<Character> createKeywords()
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		keywords.add(new CharacterKeyword(CLAUSE));
+		keywords.add(new CharacterKeyword(CLAUSE.toUpperCase(), AbstractKeyword.CASE_SENSITIVE));
+		keywords.add(new CharacterKeyword(CLAUSE_VARIANT));
+		keywords.add(new CharacterKeyword(SIGNATURE, AbstractKeyword.PUNCTUATION_SENSITIVE));
+		for (final String word : WORDS)
+		{
+			keywords.add(new CharacterKeyword(word));
+		}
+		return keywords;
+	}
+
+	/**
+	 * Builds a machine with long keywords for each match engine.
+	 */
+	private static List<AhoCorasickMachine<Character>> createMachines()
+	{
+		final List<AhoCorasickMachine<Character>> machines = new ArrayList<>();
+		for (final MatchEngine engine : MatchEngine.values())
+		{
+			final AhoCorasickMachine<Character> machine = new CharacterAhoCorasickMachine();
+			machine.setLongKeywordThreshold(THRESHOLD);
+			machine.setMatchEngine(engine);
+			machine.build(createKeywords());
+			machines.add(machine);
+		}
+		return machines;
+	}
+
+	/**
+	 * Verifies that a machine with long keywords reports the same matches as one without, for every match engine and
+	 * every match semantics.
+	 */
+	private static void verify(final AhoCorasickMachine<Character> expected_, final List<AhoCorasickMachine<Character>> actual_,
+			final String text_) throws IOException
+	{
+		for (final AhoCorasickMachine<Character> machine : actual_)
+		{
+			for (final MatchSemantics semantics : MatchSemantics.values())
+			{
+				final MatchSession<Character> expected = expected_.createSession();
+				expected.setMatchSemantics(semantics);
+
+				final MatchSession<Character> actual = machine.createSession();
+				actual.setMatchSemantics(semantics);
+
+				final List<String> expectedMatches = match(expected, text_);
+				Assert.assertFalse(expectedMatches.isEmpty());
+				Assert.assertEquals(text_, expectedMatches, match(actual, text_));
+			}
+		}
+	}
+}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import com.dell.mensa.IKeyword;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.impl.generic.AbstractKeyword;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.MatchCollector;
+import com.dell.mensa.impl.generic.MatchSemantics;
+import com.dell.mensa.impl.generic.MatchSession;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * Tests {@link AhoCorasickMachine#contains(ITextSource)} and {@link AhoCorasickMachine#count(ITextSource)}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterMatchCountTest
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final String[] TEXTS = {
+			"",
+			"nothing to see",
+			"ushers and his hers",
+			"She said he had his; USHERS.",
+			"Red paint, red. Paint, and redpaint (red-paint).",
+			"The U.S. Army and the US army.",
+	};
+
+	private AhoCorasickMachine<Character> machine;
+	private AhoCorasickMachine<Character> machineEx;
+
+	@Before
+	public void setUp()
+	{
+		machine = new AhoCorasickMachine<>(new CharacterFactory());
+		machine.build(createKeywords());
+
+		machineEx = new CharacterAhoCorasickMachine();
+		machineEx.build(createKeywords());
+	}
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testContains() throws IOException
+	{
+		for (final String text : TEXTS)
+		{
+			Assert.assertEquals(text, !match(machine, text).isEmpty(), contains(machine, text));
+			Assert.assertEquals(text, !match(machineEx, text).isEmpty(), contains(machineEx, text));
+		}
+	}
+
+	@Test
+	public void testContains_ShortCircuit() throws IOException
+	{
+		final String text = "he" + new String(new char[1000]).replace('\0', 'x');
+
+		final MatchSession<Character> session = machine.createSession();
+		final ITextSource<Character> textSource = new CharacterStringTextSource(text);
+		textSource.open();
+		Assert.assertTrue(session.contains(textSource));
+		Assert.assertFalse(textSource.isEof());
+		textSource.close();
+
+		Assert.assertEquals(2, session.getTransitions());
+	}
+
+	@Test
+	public void testCount() throws IOException
+	{
+		for (final String text : TEXTS)
+		{
+			Assert.assertEquals(text, countMatches(match(machine, text)), count(machine.createSession(), text));
+			Assert.assertEquals(text, countMatches(match(machineEx, text)), count(machineEx.createSession(), text));
+		}
+	}
+
+	@Test
+	public void testCount_Filtered() throws IOException
+	{
+		machine.setNotifyLongestMatch(true);
+		machineEx.setNotifyMostPreciseMatch(true);
+
+		for (final String text : TEXTS)
+		{
+			Assert.assertEquals(text, countMatches(match(machine, text)), count(machine.createSession(), text));
+			Assert.assertEquals(text, countMatches(match(machineEx, text)), count(machineEx.createSession(), text));
+		}
+	}
+
+	@Test
+	public void testCount_Leftmost() throws IOException
+	{
+		for (final MatchSemantics semantics : new MatchSemantics[] { MatchSemantics.LEFTMOST_FIRST, MatchSemantics.LEFTMOST_LONGEST })
+		{
+			machine.setMatchSemantics(semantics);
+			machineEx.setMatchSemantics(semantics);
+
+			for (final String text : TEXTS)
+			{
+				Assert.assertEquals(text, countMatches(match(machine, text)), count(machine.createSession(), text));
+				Assert.assertEquals(text, countMatches(match(machineEx, text)), count(machineEx.createSession(), text));
+			}
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testContains_NotOpen() throws IOException
+	{
+		machine.contains(new CharacterStringTextSource(TEXTS[1]));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCount_NotBuilt() throws IOException
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(TEXTS[1]);
+		textSource.open();
+		try
+		{
+			new AhoCorasickMachine<>(new CharacterFactory()).count(textSource);
+		}
+		finally
+		{
+			textSource.close();
+		}
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static IKeywords<Character> createKeywords()
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		keywords.add(new CharacterKeyword("he"));
+		keywords.add(new CharacterKeyword("she"));
+		keywords.add(new CharacterKeyword("his"));
+		keywords.add(new CharacterKeyword("hers"));
+		keywords.add(new CharacterKeyword("red paint"));
+		keywords.add(new CharacterKeyword("paint"));
+		keywords.add(new CharacterKeyword("red-paint", null, AbstractKeyword.PUNCTUATION_SENSITIVE));
+		keywords.add(new CharacterKeyword("U.S.", null, AbstractKeyword.CASE_SENSITIVE | AbstractKeyword.PUNCTUATION_SENSITIVE));
+		keywords.add(new CharacterKeyword("US", null, AbstractKeyword.CASE_SENSITIVE));
+		keywords.add(new CharacterKeyword("army"));
+		return keywords;
+	}
+
+	private static List<IMatch<Character>> match(final AhoCorasickMachine<Character> machine_, final String text_) throws IOException
+	{
+		final MatchCollector<Character> collector = new MatchCollector<>();
+		final ITextSource<Character> textSource = new CharacterStringTextSource(text_);
+		textSource.open();
+		machine_.match(textSource, collector);
+		textSource.close();
+		return collector.getMatches();
+	}
+
+	private static boolean contains(final AhoCorasickMachine<Character> machine_, final String text_) throws IOException
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(text_);
+		textSource.open();
+		final boolean result = machine_.contains(textSource);
+		textSource.close();
+		return result;
+	}
+
+	private static Map<IKeyword<Character>, Integer> count(final MatchSession<Character> session_, final String text_) throws IOException
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(text_);
+		textSource.open();
+		final Map<IKeyword<Character>, Integer> result = session_.count(textSource);
+		textSource.close();
+		return result;
+	}
+
+	private static Map<IKeyword<Character>, Integer> countMatches(final List<IMatch<Character>> matches_)
+	{
+		final Map<IKeyword<Character>, Integer> result = new HashMap<>();
+		for (final IMatch<Character> match : matches_)
+		{
+			final Integer count = result.get(match.getKeyword());
+			result.put(match.getKeyword(), count == null ? 1 : count + 1);
+		}
+		return result;
+	}
+}
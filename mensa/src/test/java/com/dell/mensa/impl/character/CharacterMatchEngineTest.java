@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.IKeyword;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.impl.generic.AbstractKeyword;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.MatchEngine;
+import com.dell.mensa.impl.generic.MatchSemantics;
+import com.dell.mensa.impl.generic.MatchSession;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * Tests {@link MatchEngine}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterMatchEngineTest extends AbstractCharacterAhoCorasickMachineTestBase
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_TRIALS = 100;
+	private static final int TEXT_LENGTH = 400;
+	private static final String ALPHABET = "abcd";
+	private static final String[] KEYWORDS = { "abcd", "bcab", "cabca", "abcabcab", "dddd", "acbdacbd", "bcda", "dabc" };
+
+	private static final String[] WORDS = { "red paint", "paint it", "U.S. Army", ".net framework", "Red Hat", "hat trick", "it's red" };
+	private static final String[] SHORT_WORDS = { "red", "paint", "it", "U.S.", ".net", "red paint", "hat" };
+	private static final String[] TEXT_WORDS = { "red", "paint", "it", "it's", ".", ",", " ", "  ", "\n\n", ".net", "framework", "U.S.", "Army", "the",
+			"-", "Red", "RED", "Hat", "hat", "trick" };
+
+	private static final String LONG_TEXT = "The quick brown fox jumps over the lazy dog while the compliance officer reads the handbook.";
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testDefault()
+	{
+		final AhoCorasickMachine<Character> machine = new AhoCorasickMachine<>(new CharacterFactory());
+		Assert.assertEquals(MatchEngine.AHO_CORASICK, machine.getMatchEngine());
+
+		machine.setMatchEngine(MatchEngine.BLOCK_SKIP);
+		Assert.assertEquals(MatchEngine.BLOCK_SKIP, machine.getMatchEngine());
+
+		machine.reset();
+		Assert.assertEquals(MatchEngine.AHO_CORASICK, machine.getMatchEngine());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetMatchEngine_Null()
+	{
+		new AhoCorasickMachine<>(new CharacterFactory()).setMatchEngine(null);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSetMatchEngine_Built()
+	{
+		final AhoCorasickMachine<Character> machine = new CharacterAhoCorasickMachine();
+		machine.build(createKeywords(SHORT_WORDS));
+		machine.setMatchEngine(MatchEngine.BLOCK_SKIP);
+	}
+
+	@Test
+	public void testBlockSkip_Transitions() throws IOException
+	{
+		final IKeywords<Character> keywords = createKeywords(new String[] { "compliance officer", "insider trading", "handbook" });
+
+		final MatchSession<Character> expected = createMachine(keywords, 0, MatchEngine.AHO_CORASICK).createSession();
+		final List<String> expectedMatches = match(expected, LONG_TEXT);
+		Assert.assertEquals(2, expectedMatches.size());
+
+		final MatchSession<Character> actual = createMachine(keywords, 0, MatchEngine.BLOCK_SKIP).createSession();
+		Assert.assertEquals(expectedMatches, match(actual, LONG_TEXT));
+		Assert.assertTrue(actual.getTransitions() < expected.getTransitions());
+	}
+
+	@Test
+	public void testBlockSkip_ShortKeyword() throws IOException
+	{
+		final IKeywords<Character> keywords = createKeywords(new String[] { "compliance officer", "fox" });
+
+		final MatchSession<Character> expected = createMachine(keywords, 0, MatchEngine.AHO_CORASICK).createSession();
+		final List<String> expectedMatches = match(expected, LONG_TEXT);
+
+		// A keyword too short for block skipping leaves every symbol to the automaton.
+		final MatchSession<Character> actual = createMachine(keywords, 0, MatchEngine.BLOCK_SKIP).createSession();
+		Assert.assertEquals(expectedMatches, match(actual, LONG_TEXT));
+		Assert.assertEquals(expected.getTransitions(), actual.getTransitions());
+	}
+
+	@Test
+	public void testBlockSkip_Empty() throws IOException
+	{
+		final AhoCorasickMachine<Character> machine = createMachine(new OrderedKeywords<Character>(), 0, MatchEngine.BLOCK_SKIP);
+
+		Assert.assertTrue(match(machine.createSession(), LONG_TEXT).isEmpty());
+	}
+
+	@Test
+	public void testBlockSkip_Random() throws IOException
+	{
+		final IKeywords<Character> keywords = createKeywords(KEYWORDS);
+		final AhoCorasickMachine<Character> expected = createMachine(keywords, 0, MatchEngine.AHO_CORASICK);
+		final AhoCorasickMachine<Character> actual = createMachine(keywords, 0, MatchEngine.BLOCK_SKIP);
+
+		final Random random = new Random(1);
+		for (int i = 0; i < NUM_TRIALS; i++)
+		{
+			final StringBuilder sb = new StringBuilder();
+			for (int j = 0; j < TEXT_LENGTH; j++)
+			{
+				sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+			}
+			verify(expected, actual, sb.toString());
+		}
+	}
+
+	@Test
+	public void testBlockSkip_Random_Extensions() throws IOException
+	{
+		final IKeywords<Character> keywords = createKeywords(WORDS);
+		keywords.add(new CharacterKeyword("RED PAINT", AbstractKeyword.CASE_SENSITIVE));
+		keywords.add(new CharacterKeyword("U.S. Army", AbstractKeyword.PUNCTUATION_SENSITIVE));
+
+		verifyExtensions(keywords, MatchEngine.BLOCK_SKIP);
+	}
+
+	@Test
+	public void testBitParallel_Random() throws IOException
+	{
+		final IKeywords<Character> keywords = createKeywords(new String[] { "a", "ab", "abc", "bc", "bcab", "c", "cabca", "ca", "bb", "dddd", "abcabcab" });
+		final AhoCorasickMachine<Character> expected = createMachine(keywords, 0, MatchEngine.AHO_CORASICK);
+		final AhoCorasickMachine<Character> actual = createMachine(keywords, 0, MatchEngine.BIT_PARALLEL);
+
+		final Random random = new Random(1);
+		for (int i = 0; i < NUM_TRIALS; i++)
+		{
+			final StringBuilder sb = new StringBuilder();
+			for (int j = 0; j < TEXT_LENGTH; j++)
+			{
+				sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+			}
+			verify(expected, actual, sb.toString());
+		}
+	}
+
+	@Test
+	public void testBitParallel_Random_Extensions() throws IOException
+	{
+		final IKeywords<Character> keywords = createKeywords(SHORT_WORDS);
+		keywords.add(new CharacterKeyword("RED", AbstractKeyword.CASE_SENSITIVE));
+		keywords.add(new CharacterKeyword("U.S", AbstractKeyword.PUNCTUATION_SENSITIVE));
+
+		verifyExtensions(keywords, MatchEngine.BIT_PARALLEL);
+	}
+
+	@Test
+	public void testBitParallel_TooManySymbols() throws IOException
+	{
+		// More than 64 symbols in total leaves every symbol to the automaton.
+		final IKeywords<Character> keywords = createKeywords(WORDS);
+		keywords.add(new CharacterKeyword("RED PAINT", AbstractKeyword.CASE_SENSITIVE));
+
+		verifyExtensions(keywords, MatchEngine.BIT_PARALLEL);
+	}
+
+	@Test
+	public void testBitParallel_Automaton() throws IOException
+	{
+		final IKeywords<Character> keywords = createKeywords(SHORT_WORDS);
+		keywords.add(new CharacterKeyword("RED", AbstractKeyword.CASE_SENSITIVE));
+
+		final AhoCorasickMachine<Character> expected = createMachine(keywords, 0, MatchEngine.AHO_CORASICK);
+		final AhoCorasickMachine<Character> actual = createMachine(keywords, 0, MatchEngine.BIT_PARALLEL);
+
+		// The automaton is constructed along with the bit tables, since counting and approximate matching use it.
+		Assert.assertNotNull(actual.getNextMoveFunction());
+		Assert.assertEquals(expected.getNumStates(), actual.getNumStates());
+
+		final String text = "Red paint, RED hat. It's a red .net hat, paint it red!";
+		Assert.assertEquals(match(expected.createSession(), text), match(actual.createSession(), text));
+		Assert.assertEquals(count(expected.createSession(), text), count(actual.createSession(), text));
+	}
+
+	@Test
+	public void testBitParallel_Approximate() throws IOException
+	{
+		final IKeywords<Character> keywords = createKeywords(SHORT_WORDS);
+
+		final AhoCorasickMachine<Character> expected = createMachine(keywords);
+
+		// The automaton is built lazily, and must be complete for approximate matching.
+		final AhoCorasickMachine<Character> actual = createMachine(keywords, 1, MatchEngine.BIT_PARALLEL);
+
+		final String text = "Rad paimt, it's a red .nat hat";
+		Assert.assertEquals(match(expected.createSession(), text, 1), match(actual.createSession(), text, 1));
+		Assert.assertFalse(match(actual.createSession(), text, 1).isEmpty());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBitParallel_BuildTwice()
+	{
+		final AhoCorasickMachine<Character> machine = new CharacterAhoCorasickMachine();
+		machine.setMatchEngine(MatchEngine.BIT_PARALLEL);
+		machine.build(createKeywords(SHORT_WORDS));
+		machine.build(createKeywords(SHORT_WORDS));
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static Map<IKeyword<Character>, Integer> count(final MatchSession<Character> session_, final String text_) throws IOException
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(text_);
+		textSource.open();
+		try
+		{
+			return session_.count(textSource);
+		}
+		finally
+		{
+			textSource.close();
+		}
+	}
+
+	private static void verifyExtensions(final IKeywords<Character> keywords_, final MatchEngine engine_) throws IOException
+	{
+		final AhoCorasickMachine<Character> expected = createMachine(keywords_, 0, MatchEngine.AHO_CORASICK);
+		final AhoCorasickMachine<Character> actual = createMachine(keywords_, 0, engine_);
+
+		final Random random = new Random(1);
+		for (int i = 0; i < NUM_TRIALS; i++)
+		{
+			final StringBuilder sb = new StringBuilder();
+			for (int j = 0; j < TEXT_LENGTH / 4; j++)
+			{
+				sb.append(TEXT_WORDS[random.nextInt(TEXT_WORDS.length)]);
+				if (random.nextBoolean())
+				{
+					sb.append(' ');
+				}
+			}
+			verify(expected, actual, sb.toString());
+		}
+	}
+
+	/**
+	 * Verifies that a machine built for another engine reports the same matches as one built for
+	 * {@link MatchEngine#AHO_CORASICK}, under every match semantics, with and without length filtering.
+	 */
+	private static void verify(final AhoCorasickMachine<Character> expected_, final AhoCorasickMachine<Character> actual_, final String text_)
+			throws IOException
+	{
+		for (final MatchSemantics semantics : MatchSemantics.values())
+		{
+			for (final boolean bLongest : new boolean[] { false, true })
+			{
+				final MatchSession<Character> expected = expected_.createSession();
+				expected.setMatchSemantics(semantics);
+				expected.setNotifyLongestMatch(bLongest);
+
+				final MatchSession<Character> actual = actual_.createSession();
+				actual.setMatchSemantics(semantics);
+				actual.setNotifyLongestMatch(bLongest);
+
+				Assert.assertEquals(text_, match(expected, text_), match(actual, text_));
+				Assert.assertEquals(text_, count(expected, text_), count(actual, text_));
+			}
+		}
+	}
+}
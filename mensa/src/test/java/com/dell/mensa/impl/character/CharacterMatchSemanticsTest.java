@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.IKeyword;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.Match;
+import com.dell.mensa.impl.generic.MatchCollector;
+import com.dell.mensa.impl.generic.MatchSemantics;
+import com.dell.mensa.impl.generic.MatchSession;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * Tests {@link MatchSemantics}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterMatchSemanticsTest
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_TRIALS = 200;
+	private static final int TEXT_LENGTH = 200;
+	private static final String ALPHABET = "abc";
+	private static final String[] KEYWORDS = { "a", "ab", "abc", "bc", "bcab", "c", "cabca", "ca", "bb" };
+
+	private static final String[] WORDS = { "red", "paint", "red paint", "paint it", "it", ".net", "net", "U.S.", "the" };
+	private static final String[] TEXT_WORDS = { "red", "paint", "it", ".", ",", " ", "  ", ".net", "net", "U.S.", "the", "-" };
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testDefault()
+	{
+		final AhoCorasickMachine<Character> machine = new AhoCorasickMachine<>(new CharacterFactory());
+		machine.build(new OrderedKeywords<Character>());
+		Assert.assertEquals(MatchSemantics.OVERLAPPING, machine.getMatchSemantics());
+		Assert.assertEquals(MatchSemantics.OVERLAPPING, machine.createSession().getMatchSemantics());
+
+		machine.setMatchSemantics(MatchSemantics.LEFTMOST_FIRST);
+		final MatchSession<Character> session = machine.createSession();
+		Assert.assertEquals(MatchSemantics.LEFTMOST_FIRST, session.getMatchSemantics());
+		Assert.assertEquals(MatchSemantics.LEFTMOST_FIRST, session.copy().getMatchSemantics());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetMatchSemantics_Null()
+	{
+		new AhoCorasickMachine<>(new CharacterFactory()).build(new OrderedKeywords<Character>()).createSession().setMatchSemantics(null);
+	}
+
+	@Test
+	public void testSamwise() throws IOException
+	{
+		final IKeyword<Character> sam = new CharacterKeyword("Sam");
+		final IKeyword<Character> samwise = new CharacterKeyword("Samwise");
+
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		keywords.add(sam);
+		keywords.add(samwise);
+
+		final AhoCorasickMachine<Character> machine = new AhoCorasickMachine<>(new CharacterFactory());
+		machine.build(keywords);
+
+		final MatchSession<Character> session = machine.createSession();
+		session.setMatchSemantics(MatchSemantics.LEFTMOST_FIRST);
+		Assert.assertEquals(Collections.singletonList(new Match<>(machine, sam, 0, 3)), match(session, "Samwise"));
+
+		session.setMatchSemantics(MatchSemantics.LEFTMOST_LONGEST);
+		Assert.assertEquals(Collections.singletonList(new Match<>(machine, samwise, 0, 7)), match(session, "Samwise"));
+	}
+
+	@Test
+	public void testLaterMatchStartsEarlier() throws IOException
+	{
+		final IKeyword<Character> bcd = new CharacterKeyword("bcd");
+		final IKeyword<Character> abcde = new CharacterKeyword("abcde");
+		final IKeyword<Character> ef = new CharacterKeyword("ef");
+
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		keywords.add(bcd);
+		keywords.add(abcde);
+		keywords.add(ef);
+
+		final AhoCorasickMachine<Character> machine = new AhoCorasickMachine<>(new CharacterFactory());
+		machine.build(keywords);
+
+		// "bcd" is found first, but "abcde" starts earlier; "ef" overlaps "abcde".
+		final List<IMatch<Character>> expected = new ArrayList<>();
+		expected.add(new Match<>(machine, abcde, 0, 5));
+
+		final MatchSession<Character> session = machine.createSession();
+		session.setMatchSemantics(MatchSemantics.LEFTMOST_FIRST);
+		Assert.assertEquals(expected, match(session, "abcdef"));
+
+		expected.add(new Match<>(machine, ef, 5, 7));
+		Assert.assertEquals(expected, match(session, "abcdeef"));
+	}
+
+	@Test
+	public void testRandom() throws IOException
+	{
+		final IKeywords<Character> keywords = createKeywords(KEYWORDS);
+		final AhoCorasickMachine<Character> machine = new AhoCorasickMachine<>(new CharacterFactory());
+		machine.build(keywords);
+
+		final Random random = new Random(1);
+		for (int i = 0; i < NUM_TRIALS; i++)
+		{
+			final StringBuilder sb = new StringBuilder();
+			for (int j = 0; j < TEXT_LENGTH; j++)
+			{
+				sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+			}
+			verify(machine, keywords, sb.toString());
+		}
+	}
+
+	@Test
+	public void testRandom_Extensions() throws IOException
+	{
+		final IKeywords<Character> keywords = createKeywords(WORDS);
+		final AhoCorasickMachine<Character> machine = new CharacterAhoCorasickMachine();
+		machine.build(keywords);
+
+		final Random random = new Random(1);
+		for (int i = 0; i < NUM_TRIALS; i++)
+		{
+			final StringBuilder sb = new StringBuilder();
+			for (int j = 0; j < TEXT_LENGTH / 4; j++)
+			{
+				sb.append(TEXT_WORDS[random.nextInt(TEXT_WORDS.length)]);
+				if (random.nextBoolean())
+				{
+					sb.append(' ');
+				}
+			}
+			verify(machine, keywords, sb.toString());
+		}
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static IKeywords<Character> createKeywords(final String[] words_)
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		for (final String word : words_)
+		{
+			keywords.add(new CharacterKeyword(word));
+		}
+		return keywords;
+	}
+
+	private static List<IMatch<Character>> match(final MatchSession<Character> session_, final String text_) throws IOException
+	{
+		final MatchCollector<Character> collector = new MatchCollector<>();
+		final ITextSource<Character> textSource = new CharacterStringTextSource(text_);
+		textSource.open();
+		session_.match(textSource, collector);
+		textSource.close();
+		return collector.getMatches();
+	}
+
+	/**
+	 * Verifies that non-overlapping matches found by the machine are the same as those selected from all overlapping
+	 * matches by a greedy left-to-right pass.
+	 */
+	private static void verify(final AhoCorasickMachine<Character> machine_, final IKeywords<Character> keywords_, final String text_)
+			throws IOException
+	{
+		final List<IMatch<Character>> all = match(machine_.createSession(), text_);
+
+		for (final MatchSemantics semantics : new MatchSemantics[] { MatchSemantics.LEFTMOST_LONGEST, MatchSemantics.LEFTMOST_FIRST })
+		{
+			final MatchSession<Character> session = machine_.createSession();
+			session.setMatchSemantics(semantics);
+			Assert.assertEquals(text_, select(all, keywords_, semantics), match(session, text_));
+		}
+	}
+
+	private static List<IMatch<Character>> select(final List<IMatch<Character>> matches_, final IKeywords<Character> keywords_,
+			final MatchSemantics semantics_)
+	{
+		final List<IKeyword<Character>> order = new ArrayList<>();
+		for (final IKeyword<Character> keyword : keywords_)
+		{
+			order.add(keyword);
+		}
+
+		final List<IMatch<Character>> sorted = new ArrayList<>(matches_);
+		Collections.sort(sorted, new Comparator<IMatch<Character>>()
+		{
+			@Override
+			public int compare(final IMatch<Character> match1_, final IMatch<Character> match2_)
+			{
+				if (match1_.getStart() != match2_.getStart())
+				{
+					return Long.compare(match1_.getStart(), match2_.getStart());
+				}
+				if (semantics_ == MatchSemantics.LEFTMOST_LONGEST && match1_.getEnd() != match2_.getEnd())
+				{
+					return Long.compare(match2_.getEnd(), match1_.getEnd());
+				}
+				return order.indexOf(match1_.getKeyword()) - order.indexOf(match2_.getKeyword());
+			}
+		});
+
+		final List<IMatch<Character>> selected = new ArrayList<>();
+		long end = 0;
+		for (final IMatch<Character> match : sorted)
+		{
+			if (match.getStart() >= end)
+			{
+				selected.add(match);
+				end = match.getEnd();
+			}
+		}
+		return selected;
+	}
+}
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import com.dell.mensa.IKeyword;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.Match;
+import com.dell.mensa.impl.generic.MatchCollector;
+import com.dell.mensa.impl.generic.MatchSession;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterMatchSpliteratorTest
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_LINES = 2000;
+	private static final String[] LINES = {
+			"ushers and his hers",
+			"",
+			"she said he had his",
+			"nothing here",
+			"hershe",
+	};
+
+	private final IKeyword<Character> he = new CharacterKeyword("he");
+	private final IKeyword<Character> she = new CharacterKeyword("she");
+	private final IKeyword<Character> his = new CharacterKeyword("his");
+	private final IKeyword<Character> hers = new CharacterKeyword("hers");
+
+	private AhoCorasickMachine<Character> machine;
+	private String text;
+
+	@Before
+	public void setUp()
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		keywords.add(he);
+		keywords.add(she);
+		keywords.add(his);
+		keywords.add(hers);
+
+		machine = new AhoCorasickMachine<>(new CharacterFactory());
+		machine.build(keywords);
+
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < NUM_LINES; i++)
+		{
+			sb.append(LINES[i % LINES.length]).append('\n');
+		}
+		text = sb.toString();
+	}
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_NullText()
+	{
+		new CharacterMatchSpliterator(machine.createSession(), null);
+	}
+
+	@Test
+	public void testCharacteristics()
+	{
+		final Spliterator<IMatch<Character>> spliterator = new CharacterMatchSpliterator(machine.createSession(), text);
+		Assert.assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+		Assert.assertTrue(spliterator.hasCharacteristics(Spliterator.NONNULL));
+		Assert.assertEquals(text.length(), spliterator.estimateSize());
+	}
+
+	@Test
+	public void testSequential() throws IOException
+	{
+		final List<IMatch<Character>> actual = CharacterMatchSpliterator.stream(machine, text, false).collect(Collectors.toList());
+		Assert.assertEquals(matchLines(), actual);
+	}
+
+	@Test
+	public void testParallel() throws IOException
+	{
+		final List<IMatch<Character>> actual = CharacterMatchSpliterator.stream(machine, text, true).collect(Collectors.toList());
+		Assert.assertEquals(matchLines(), actual);
+	}
+
+	@Test
+	public void testTrySplit()
+	{
+		final Spliterator<IMatch<Character>> suffix = new CharacterMatchSpliterator(machine.createSession(), text);
+		final Spliterator<IMatch<Character>> prefix = suffix.trySplit();
+		Assert.assertNotNull(prefix);
+		Assert.assertEquals(text.length(), prefix.estimateSize() + suffix.estimateSize());
+
+		// Splits occur just after a record delimiter.
+		final int split = (int) prefix.estimateSize();
+		Assert.assertEquals('\n', text.charAt(split - 1));
+	}
+
+	@Test
+	public void testTrySplit_Small()
+	{
+		final Spliterator<IMatch<Character>> spliterator = new CharacterMatchSpliterator(machine.createSession(), LINES[0]);
+		Assert.assertNull(spliterator.trySplit());
+	}
+
+	@Test
+	public void testNoTrailingDelimiter()
+	{
+		final String s = "ushers\nhis";
+		final List<IMatch<Character>> actual = CharacterMatchSpliterator.stream(machine, s, false).collect(Collectors.toList());
+
+		final List<IMatch<Character>> expected = new ArrayList<>();
+		expected.add(new Match<>(machine, she, 1, 4));
+		expected.add(new Match<>(machine, he, 2, 4));
+		expected.add(new Match<>(machine, hers, 2, 6));
+		expected.add(new Match<>(machine, his, 7, 10));
+		Assert.assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testSessionOptions()
+	{
+		final MatchSession<Character> session = machine.createSession();
+		session.setNotifyLongestMatch(true);
+
+		final List<IMatch<Character>> actual = CharacterMatchSpliterator.stream(session, "ushers", true).collect(Collectors.toList());
+		Assert.assertEquals(2, actual.size());
+		Assert.assertSame(she, actual.get(0).getKeyword());
+		Assert.assertSame(hers, actual.get(1).getKeyword());
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	/**
+	 * Matches each line of {@link #text} separately, relocating the matches relative to the entire text.
+	 */
+	private List<IMatch<Character>> matchLines() throws IOException
+	{
+		final List<IMatch<Character>> matches = new ArrayList<>();
+		int offset = 0;
+		for (final String line : text.split("\n", -1))
+		{
+			final MatchCollector<Character> collector = new MatchCollector<>();
+			final ITextSource<Character> textSource = new CharacterStringTextSource(line);
+			textSource.open();
+			machine.match(textSource, collector);
+			textSource.close();
+
+			for (final IMatch<Character> match : collector.getMatches())
+			{
+				matches.add(new Match<>(machine, match.getKeyword(), offset + match.getStart(), offset + match.getEnd()));
+			}
+			offset += line.length() + 1;
+		}
+		return matches;
+	}
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.IEdgeMap;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.INextMoveFunction;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * Tests {@link CharacterNextMoveFunctionCompiler} and {@link CharacterCompiledNextMoveFunction}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterNextMoveFunctionCompilerTest
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_TRIALS = 10000;
+	private static final String ALPHABET = "abcdxyz ";
+	private static final String[] KEYWORDS = { "abcd", "bcab", "cabca", "abcabcab", "dddd", "acbdacbd", "bcda", "dabc", "été" };
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_NotPositive()
+	{
+		new CharacterNextMoveFunctionCompiler(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompile_Null()
+	{
+		new CharacterNextMoveFunctionCompiler().compile(null, 0);
+	}
+
+	@Test
+	public void testCompile_Equivalent()
+	{
+		final AhoCorasickMachine<Character> expected = build(new CharacterFactory());
+		final AhoCorasickMachine<Character> actual = build(new CharacterCompilingFactory());
+
+		final INextMoveFunction<Character> f = expected.getNextMoveFunction();
+		final INextMoveFunction<Character> g = actual.getNextMoveFunction();
+		Assert.assertFalse(f instanceof CharacterCompiledNextMoveFunction);
+		Assert.assertTrue(g instanceof CharacterCompiledNextMoveFunction);
+
+		final Random random = new Random(0);
+		final int numStates = expected.getNumStates();
+		for (int i = 0; i < NUM_TRIALS; i++)
+		{
+			final int state = random.nextInt(numStates);
+			final Character a = Character.valueOf(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+			Assert.assertEquals(f.eval(state, a), g.eval(state, a));
+		}
+
+		// Edges on non-ASCII symbols, and default transitions.
+		for (int state = 0; state < numStates; state++)
+		{
+			final IEdgeMap<Character> edgeMap = f.getEdgeMap(state);
+			for (final Character a : edgeMap.getSymbols())
+			{
+				Assert.assertEquals(f.eval(state, a), g.eval(state, a));
+			}
+			Assert.assertEquals(f.eval(state, Character.valueOf('é')), g.eval(state, Character.valueOf('é')));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testEval_UnknownState()
+	{
+		final AhoCorasickMachine<Character> machine = build(new CharacterCompilingFactory());
+		machine.getNextMoveFunction().eval(machine.getNumStates(), Character.valueOf('a'));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testPut_Immutable()
+	{
+		final AhoCorasickMachine<Character> machine = build(new CharacterCompilingFactory());
+		machine.getNextMoveFunction().put(0, Character.valueOf('a'), 1);
+	}
+
+	@Test
+	public void testCompile_TooManyStates()
+	{
+		final AhoCorasickMachine<Character> machine = build(new CharacterCompilingFactory(new CharacterNextMoveFunctionCompiler(1)));
+		Assert.assertFalse(machine.getNextMoveFunction() instanceof CharacterCompiledNextMoveFunction);
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static AhoCorasickMachine<Character> build(final CharacterFactory factory_)
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		for (final String keyword : KEYWORDS)
+		{
+			keywords.add(new CharacterKeyword(keyword));
+		}
+
+		final AhoCorasickMachine<Character> machine = new AhoCorasickMachine<>(factory_);
+		machine.build(keywords);
+		return machine;
+	}
+}
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.IKeyword;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.MatchCollector;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * Tests {@link CharacterPatternKeyword} and the matching of pattern keywords.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterPatternKeywordTest
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_TRIALS = 100;
+	private static final int TEXT_LENGTH = 200;
+	private static final String ALPHABET = "abcd";
+	private static final String[] PATTERNS = { "ab?", "?cd", "a[bc]d", "[^a]?ba", "d??d", "abc", "c[a-b]?c[cd]" };
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testConstructor()
+	{
+		final CharacterPatternKeyword keyword = new CharacterPatternKeyword("ID-[0-9]?\\?");
+		Assert.assertEquals(6, keyword.length());
+		Assert.assertEquals("ID-[0-9]?\\?", keyword.asString());
+
+		Assert.assertNull(keyword.classAt(0));
+		Assert.assertEquals(Character.valueOf('-'), keyword.symbolAt(2));
+		Assert.assertEquals(Character.valueOf(CharacterPatternKeyword.PLACEHOLDER), keyword.symbolAt(3));
+		Assert.assertTrue(keyword.classAt(3).test('7'));
+		Assert.assertFalse(keyword.classAt(3).test('x'));
+		Assert.assertTrue(keyword.classAt(4).test('x'));
+		Assert.assertNull(keyword.classAt(5));
+		Assert.assertEquals(Character.valueOf('?'), keyword.symbolAt(5));
+
+		final CharacterPatternKeyword negated = new CharacterPatternKeyword("[^a-c-]");
+		Assert.assertTrue(negated.classAt(0).test('d'));
+		Assert.assertFalse(negated.classAt(0).test('b'));
+		Assert.assertFalse(negated.classAt(0).test('-'));
+
+		Assert.assertEquals(keyword, new CharacterPatternKeyword("ID-[0-9]?\\?"));
+		Assert.assertEquals(keyword.hashCode(), new CharacterPatternKeyword("ID-[0-9]?\\?").hashCode());
+		Assert.assertNotEquals(keyword, new CharacterPatternKeyword("ID-[0-8]?\\?"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_UnterminatedClass()
+	{
+		new CharacterPatternKeyword("ID-[0-9");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_EmptyClass()
+	{
+		new CharacterPatternKeyword("ID-[]");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_TrailingEscape()
+	{
+		new CharacterPatternKeyword("ID-\\");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuild_NoLiterals()
+	{
+		build(true, new CharacterPatternKeyword("[0-9]??"));
+	}
+
+	@Test
+	public void testMatch() throws IOException
+	{
+		final AhoCorasickMachine<Character> machine = build(true, new CharacterPatternKeyword("ID-????"), new CharacterPatternKeyword(
+				"[0-9][0-9]-x"), new CharacterKeyword("id"));
+
+		Assert.assertEquals(asList("id [4, 6) id", "ID-???? [4, 11) id-AB12"), match(machine, "see id-AB12 now"));
+		Assert.assertEquals(asList("id [4, 6) id"), match(machine, "see id-AB1 now"));
+		Assert.assertEquals(asList(), match(machine, "see kid-AB12 now"));
+		Assert.assertEquals(asList("[0-9][0-9]-x [0, 4) 12-X", "[0-9][0-9]-x [8, 12) 34 x"), match(machine, "12-X or 34 x, 5-x"));
+	}
+
+	@Test
+	public void testMatch_ClassCase() throws IOException
+	{
+		final AhoCorasickMachine<Character> machine = build(true, new CharacterPatternKeyword("x[A-Z]"));
+		Assert.assertEquals(asList("x[A-Z] [0, 2) XA"), match(machine, "XA xa"));
+	}
+
+	@Test
+	public void testMatch_Random() throws IOException
+	{
+		final List<CharacterPatternKeyword> patterns = new ArrayList<>();
+		for (final String pattern : PATTERNS)
+		{
+			patterns.add(new CharacterPatternKeyword(pattern));
+		}
+
+		final AhoCorasickMachine<Character> machine = build(false, patterns.toArray(new CharacterPatternKeyword[patterns.size()]));
+		final Random random = new Random(0);
+
+		for (int trial = 0; trial < NUM_TRIALS; trial++)
+		{
+			final StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < TEXT_LENGTH; i++)
+			{
+				sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+			}
+			final String text = sb.toString();
+
+			final Set<String> expected = new HashSet<>();
+			for (final CharacterPatternKeyword pattern : patterns)
+			{
+				for (int end = pattern.length(); end <= text.length(); end++)
+				{
+					if (matches(pattern, text.substring(end - pattern.length(), end)))
+					{
+						expected.add(String.format("%s [%d, %d)", pattern.asString(), end - pattern.length(), end));
+					}
+				}
+			}
+
+			final Set<String> actual = new HashSet<>();
+			long previousEnd = 0;
+			for (final IMatch<Character> match : matches(machine, text))
+			{
+				Assert.assertTrue(match.getEnd() >= previousEnd);
+				actual.add(String.format("%s [%d, %d)", ((CharacterPatternKeyword) match.getKeyword()).asString(), match.getStart(), match.getEnd()));
+				previousEnd = match.getEnd();
+			}
+
+			Assert.assertEquals(expected, actual);
+		}
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	@SafeVarargs
+	private static AhoCorasickMachine<Character> build(final boolean bExtensionsEnabled_, final IKeyword<Character>... keywords_)
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		for (final IKeyword<Character> keyword : keywords_)
+		{
+			keywords.add(keyword);
+		}
+
+		final AhoCorasickMachine<Character> machine = new CharacterAhoCorasickMachine(bExtensionsEnabled_);
+		machine.build(keywords);
+		return machine;
+	}
+
+	private static List<IMatch<Character>> matches(final AhoCorasickMachine<Character> machine_, final String text_) throws IOException
+	{
+		final MatchCollector<Character> collector = new MatchCollector<>();
+		final ITextSource<Character> textSource = new CharacterStringTextSource(text_);
+		textSource.open();
+		try
+		{
+			machine_.match(textSource, collector);
+		}
+		finally
+		{
+			textSource.close();
+		}
+		return collector.getMatches();
+	}
+
+	private static List<String> match(final AhoCorasickMachine<Character> machine_, final String text_) throws IOException
+	{
+		final List<String> result = new ArrayList<>();
+		for (final IMatch<Character> match : matches(machine_, text_))
+		{
+			final IKeyword<Character> keyword = match.getKeyword();
+			final String name = keyword instanceof CharacterPatternKeyword ? ((CharacterPatternKeyword) keyword).asString() : text(keyword);
+			result.add(String.format("%s [%d, %d) %s", name, match.getStart(), match.getEnd(), text_.substring((int) match.getStart(), (int) match.getEnd())));
+		}
+		return result;
+	}
+
+	private static boolean matches(final CharacterPatternKeyword pattern_, final String text_)
+	{
+		for (int i = 0; i < pattern_.length(); i++)
+		{
+			final boolean bMatch = pattern_.classAt(i) != null ? pattern_.classAt(i).test(text_.charAt(i)) : pattern_.symbolAt(i).charValue() == text_.charAt(i);
+			if (!bMatch)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String text(final IKeyword<Character> keyword_)
+	{
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < keyword_.length(); i++)
+		{
+			sb.append(keyword_.symbolAt(i));
+		}
+		return sb.toString();
+	}
+
+	private static List<String> asList(final String... strings_)
+	{
+		final List<String> result = new ArrayList<>();
+		for (final String s : strings_)
+		{
+			result.add(s);
+		}
+		return result;
+	}
+}
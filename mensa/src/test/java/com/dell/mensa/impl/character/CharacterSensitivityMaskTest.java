@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.impl.generic.AbstractKeyword;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.MatchEngine;
+import com.dell.mensa.impl.generic.MatchSemantics;
+import com.dell.mensa.impl.generic.MatchSession;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * Tests {@link AhoCorasickMachine#setSensitivityMasksEnabled(boolean)}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterSensitivityMaskTest extends AbstractCharacterAhoCorasickMachineTestBase
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_TRIALS = 200;
+
+	private static final String[] CASE_SENSITIVE = { "IBM", "US", "It", "GmbH", "Dell" };
+	private static final String[] PUNCTUATION_SENSITIVE = { "U.S.", "e-mail", "AT&T", "C++ code", "ab - cd" };
+	private static final String[] INSENSITIVE = { "us", "mail", "code", "dell", "ibm" };
+
+	private static final String[] TEXT_WORDS = { "IBM", "ibm", "Ibm", "US", "us", "Us", "U.S.", "u.s.", "U S", "U.S", "It", "it", "IT", "GmbH", "gmbh",
+			"Dell", "DELL", "dell", "e-mail", "e mail", "E-Mail", "email", "AT&T", "at&t", "AT T", "C++ code", "C code", "ab - cd", "ab cd", "ab-cd", ",",
+			"  ", "\n\n" };
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testDefault()
+	{
+		final AhoCorasickMachine<Character> machine = new AhoCorasickMachine<>(new CharacterFactory());
+		Assert.assertTrue(machine.isSensitivityMasksEnabled());
+
+		machine.setSensitivityMasksEnabled(false);
+		Assert.assertFalse(machine.isSensitivityMasksEnabled());
+
+		machine.reset();
+		Assert.assertTrue(machine.isSensitivityMasksEnabled());
+	}
+
+	@Test
+	public void testMatch() throws IOException
+	{
+		final AhoCorasickMachine<Character> machine = new CharacterAhoCorasickMachine();
+		machine.build(createKeywords());
+
+		final List<String> matches = match(machine.createSession(), "ibm Ibm IBM, u.s. U S U.S. e mail e-mail");
+		Assert.assertEquals(1, count(matches, "\"IBM\""));
+		Assert.assertEquals(3, count(matches, "\"U.S.\""));
+		Assert.assertEquals(2, count(matches, "\"e-mail\""));
+	}
+
+	@Test
+	public void testPrecision() throws IOException
+	{
+		// When "a--" is not rejected by its mask, finding its end reads the trailing whitespace into the tail buffer;
+		// the precision of "-A", which ends at the same position, must not depend on it.
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		keywords.add(new CharacterKeyword("--cA", null, AbstractKeyword.PUNCTUATION_SENSITIVE));
+		keywords.add(new CharacterKeyword("-A"));
+		keywords.add(new CharacterKeyword("a--", null, AbstractKeyword.CASE_SENSITIVE | AbstractKeyword.PUNCTUATION_SENSITIVE));
+
+		final AhoCorasickMachine<Character> expected = new CharacterAhoCorasickMachine();
+		expected.setSensitivityMasksEnabled(false);
+		expected.build(keywords);
+
+		verify(expected, createMachines(keywords), "a A  - -a.ccA.cAAAA.ca-cA.A ..");
+	}
+
+	@Test
+	public void testRandom() throws IOException
+	{
+		final AhoCorasickMachine<Character> expected = new CharacterAhoCorasickMachine();
+		expected.setSensitivityMasksEnabled(false);
+		expected.build(createKeywords());
+
+		final List<AhoCorasickMachine<Character>> actual = createMachines(createKeywords());
+
+		final Random random = new Random(1);
+		for (int i = 0; i < NUM_TRIALS; i++)
+		{
+			final StringBuilder sb = new StringBuilder();
+			for (int j = 0; j < 20; j++)
+			{
+				sb.append(TEXT_WORDS[random.nextInt(TEXT_WORDS.length)]);
+				if (random.nextBoolean())
+				{
+					sb.append(' ');
+				}
+			}
+			verify(expected, actual, sb.toString());
+		}
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static IKeywords<Character> createKeywords()
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		for (final String word : CASE_SENSITIVE)
+		{
+			keywords.add(new CharacterKeyword(word, null, AbstractKeyword.CASE_SENSITIVE));
+		}
+		for (final String word : PUNCTUATION_SENSITIVE)
+		{
+			keywords.add(new CharacterKeyword(word, null, AbstractKeyword.CASE_SENSITIVE | AbstractKeyword.PUNCTUATION_SENSITIVE));
+			keywords.add(new CharacterKeyword(word, null, AbstractKeyword.PUNCTUATION_SENSITIVE));
+		}
+		for (final String word : INSENSITIVE)
+		{
+			keywords.add(new CharacterKeyword(word));
+		}
+		return keywords;
+	}
+
+	/**
+	 * Builds a machine with sensitivity masks for each match engine.
+	 */
+	private static List<AhoCorasickMachine<Character>> createMachines(final IKeywords<Character> keywords_)
+	{
+		final List<AhoCorasickMachine<Character>> machines = new ArrayList<>();
+		for (final MatchEngine engine : MatchEngine.values())
+		{
+			final AhoCorasickMachine<Character> machine = new CharacterAhoCorasickMachine();
+			machine.setMatchEngine(engine);
+			machine.build(keywords_);
+			machines.add(machine);
+		}
+		return machines;
+	}
+
+	private static int count(final List<String> matches_, final String keyword_)
+	{
+		int n = 0;
+		for (final String match : matches_)
+		{
+			if (match.contains(keyword_))
+			{
+				++n;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Verifies that a machine with sensitivity masks reports the same matches as one without, for every match engine
+	 * and every match semantics.
+	 */
+	private static void verify(final AhoCorasickMachine<Character> expected_, final List<AhoCorasickMachine<Character>> actual_,
+			final String text_) throws IOException
+	{
+		for (final AhoCorasickMachine<Character> machine : actual_)
+		{
+			for (final MatchSemantics semantics : MatchSemantics.values())
+			{
+				final MatchSession<Character> expected = expected_.createSession();
+				expected.setMatchSemantics(semantics);
+
+				final MatchSession<Character> actual = machine.createSession();
+				actual.setMatchSemantics(semantics);
+
+				Assert.assertEquals(text_, match(expected, text_), match(actual, text_));
+			}
+		}
+	}
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.IGotoFunction;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * Tests construction of the goto function from keywords entered in sorted order.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterSortedBuildTest extends AbstractCharacterAhoCorasickMachineTestBase
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_TRIALS = 50;
+
+	private static final String[] PAPER_WORDS = { "he", "hers", "his", "she" };
+	private static final String[] WORDS = { "he", "she", "his", "hers", "red paint", "paint it", "U.S. Army", "hat trick", "it's red", "the hat",
+			"hatter", "hat", "h", "paint" };
+	private static final String[] TEXT_WORDS = { "he", "she", "his", "hers", "ushers", "red", "paint", "it", "it's", ".", ",", " ", "U.S.", "Army",
+			"hat", "trick", "RED", "the", "hatter", "HATTER" };
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testBuild_Paper()
+	{
+		final AhoCorasickMachine<Character> machine = new CharacterAhoCorasickMachine();
+		final IGotoFunction<Character> g = machine.buildGotoFunction(createKeywords(Arrays.asList(PAPER_WORDS), 0));
+		Assert.assertEquals(10, machine.getNumStates());
+
+		// Sorted keywords number the states in depth-first order of the trie.
+		Assert.assertEquals(1, g.eval(0, 'h'));
+		Assert.assertEquals(2, g.eval(1, 'e'));
+		Assert.assertEquals(3, g.eval(2, 'r'));
+		Assert.assertEquals(4, g.eval(3, 's'));
+		Assert.assertEquals(5, g.eval(1, 'i'));
+		Assert.assertEquals(6, g.eval(5, 's'));
+		Assert.assertEquals(7, g.eval(0, 's'));
+		Assert.assertEquals(8, g.eval(7, 'h'));
+		Assert.assertEquals(9, g.eval(8, 'e'));
+	}
+
+	@Test
+	public void testBuild_Order() throws IOException
+	{
+		// Keywords are normalized before they are entered, so some sorted keywords (e.g., "U.S. Army") are still entered
+		// out of order, and so by searching the goto function.
+		final List<String> sorted = new ArrayList<>(Arrays.asList(WORDS));
+		Collections.sort(sorted);
+
+		final List<String> reversed = new ArrayList<>(sorted);
+		Collections.reverse(reversed);
+
+		final AhoCorasickMachine<Character> expected = createMachine(sorted, 0, 0);
+
+		final Random random = new Random(1);
+		for (int i = 0; i < NUM_TRIALS; i++)
+		{
+			final List<String> shuffled = new ArrayList<>(sorted);
+			Collections.shuffle(shuffled, random);
+
+			final String text = createText(random);
+			for (final List<String> words : Arrays.asList(sorted, reversed, shuffled))
+			{
+				for (final int flags : new int[] { 0, CharacterKeyword.CASE_SENSITIVE })
+				{
+					for (final int lazyDepth : new int[] { 0, 2 })
+					{
+						final AhoCorasickMachine<Character> actual = createMachine(words, flags, lazyDepth);
+						if (lazyDepth == 0)
+						{
+							Assert.assertEquals(createMachine(sorted, flags, 0).getNumStates(), actual.getNumStates());
+						}
+						final AhoCorasickMachine<Character> reference = flags == 0 ? expected : createMachine(sorted, flags, 0);
+						Assert.assertEquals(text, match(reference.createSession(), text), match(actual.createSession(), text));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testBuild_Mixed() throws IOException
+	{
+		// Sorted runs interrupted by out-of-order keywords.
+		final List<String> words = Arrays.asList("hat", "hatter", "he", "a", "hers", "his", "b", "she", "h", "the hat", "she");
+		final AhoCorasickMachine<Character> machine = createMachine(words, 0, 0);
+
+		final List<String> sorted = new ArrayList<>(words);
+		Collections.sort(sorted);
+		final AhoCorasickMachine<Character> expected = createMachine(sorted, 0, 0);
+		Assert.assertEquals(expected.getNumStates(), machine.getNumStates());
+
+		final String text = "a bushers hatter said his hat was the hat";
+		Assert.assertEquals(match(expected.createSession(), text), match(machine.createSession(), text));
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static IKeywords<Character> createKeywords(final List<String> words_, final int flags_)
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		for (final String word : words_)
+		{
+			keywords.add(new CharacterKeyword(word, null, flags_));
+		}
+		return keywords;
+	}
+
+	private static AhoCorasickMachine<Character> createMachine(final List<String> words_, final int flags_, final int lazyDepth_)
+	{
+		final AhoCorasickMachine<Character> machine = new CharacterAhoCorasickMachine();
+		machine.setLazyDepth(lazyDepth_);
+		machine.build(createKeywords(words_, flags_));
+		return machine;
+	}
+
+	private static String createText(final Random random_)
+	{
+		final StringBuilder sb = new StringBuilder();
+		for (int j = 0; j < 20; j++)
+		{
+			sb.append(TEXT_WORDS[random_.nextInt(TEXT_WORDS.length)]);
+			if (random_.nextBoolean())
+			{
+				sb.append(' ');
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.IEdgeMap;
+import com.dell.mensa.IGotoFunction;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.INextMoveFunction;
+import com.dell.mensa.impl.generic.AbstractKeyword;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.CompiledMachine;
+import com.dell.mensa.impl.generic.FrozenMachine;
+import com.dell.mensa.impl.generic.MatchSemantics;
+import com.dell.mensa.impl.generic.MatchSession;
+import com.dell.mensa.impl.generic.StateOrder;
+
+/**
+ * Tests {@link AhoCorasickMachine#setStateOrder(StateOrder)}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterStateOrderTest extends AbstractCharacterAhoCorasickMachineTestBase
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_TRIALS = 100;
+
+	private static final String[] WORDS = { "he", "she", "his", "hers", "red paint", "paint it", "U.S. Army", "hat trick", "it's red" };
+	private static final String[] TEXT_WORDS = { "he", "she", "his", "hers", "ushers", "red", "paint", "it", "it's", ".", ",", " ", "  ", "U.S.",
+			"Army", "hat", "trick", "RED" };
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testDefault()
+	{
+		final AhoCorasickMachine<Character> machine = new AhoCorasickMachine<>(new CharacterFactory());
+		Assert.assertEquals(StateOrder.INSERTION, machine.getStateOrder());
+
+		machine.setStateOrder(StateOrder.BREADTH_FIRST);
+		Assert.assertEquals(StateOrder.BREADTH_FIRST, machine.getStateOrder());
+
+		machine.reset();
+		Assert.assertEquals(StateOrder.INSERTION, machine.getStateOrder());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetStateOrder_Null()
+	{
+		new AhoCorasickMachine<>(new CharacterFactory()).setStateOrder(null);
+	}
+
+	@Test
+	public void testBreadthFirst_Paper_Figure1()
+	{
+		final AhoCorasickMachine<Character> machine = new AhoCorasickMachine<>(new CharacterFactory());
+		machine.setStateOrder(StateOrder.BREADTH_FIRST);
+		machine.build(createKeywords(new String[] { "he", "she", "his", "hers" }));
+
+		Assert.assertEquals(10, machine.getNumStates());
+
+		// Goto paths: h=1, s=2, he=3, hi=4, sh=5, her=6, his=7, she=8, hers=9 (siblings in any order).
+		final INextMoveFunction<Character> nextMoveFunction = machine.getNextMoveFunction();
+		final int h = nextMoveFunction.eval(0, 'h');
+		final int s = nextMoveFunction.eval(0, 's');
+		Assert.assertTrue(h >= 1 && h <= 2 && s >= 1 && s <= 2);
+
+		final int he = nextMoveFunction.eval(h, 'e');
+		final int hi = nextMoveFunction.eval(h, 'i');
+		final int sh = nextMoveFunction.eval(s, 'h');
+		Assert.assertTrue(Math.min(Math.min(he, hi), sh) == 3 && Math.max(Math.max(he, hi), sh) == 5);
+
+		final int her = nextMoveFunction.eval(he, 'r');
+		final int his = nextMoveFunction.eval(hi, 's');
+		final int she = nextMoveFunction.eval(sh, 'e');
+		Assert.assertTrue(Math.min(Math.min(her, his), she) == 6 && Math.max(Math.max(her, his), she) == 8);
+		Assert.assertEquals(9, nextMoveFunction.eval(her, 's'));
+
+		// Failure transitions and outputs follow the new numbers.
+		final IEdgeMap<Character> edgeMap = nextMoveFunction.getEdgeMap(she);
+		Assert.assertEquals(her, edgeMap.get('r'));
+		Assert.assertEquals(2, machine.getOutputFunction().output(she).size());
+		Assert.assertEquals(1, machine.getOutputFunction().output(he).size());
+		Assert.assertNull(machine.getOutputFunction().output(sh));
+	}
+
+	@Test
+	public void testBreadthFirst_GotoFunctionOnly() throws IOException
+	{
+		final IKeywords<Character> keywords = createKeywords(new String[] { "he", "she", "his", "hers" });
+
+		final AhoCorasickMachine<Character> expected = new AhoCorasickMachine<>(new CharacterFactory());
+		expected.buildGotoFunction(keywords);
+		expected.buildFailureFunction();
+
+		final AhoCorasickMachine<Character> actual = new AhoCorasickMachine<>(new CharacterFactory());
+		actual.setStateOrder(StateOrder.BREADTH_FIRST);
+		actual.buildGotoFunction(keywords);
+		actual.buildFailureFunction();
+
+		// Without a next move function, states keep their insertion numbers.
+		Assert.assertNull(actual.getNextMoveFunction());
+		final IGotoFunction<Character> gotoFunction = actual.getGotoFunction();
+		Assert.assertEquals(1, gotoFunction.eval(0, 'h'));
+		Assert.assertEquals(2, gotoFunction.eval(1, 'e'));
+		Assert.assertEquals(3, gotoFunction.eval(0, 's'));
+		Assert.assertEquals(9, gotoFunction.eval(8, 's'));
+		Assert.assertEquals(2, actual.getOutputFunction().output(5).size());
+
+		final String text = "she ushers in his sheet for hers";
+		Assert.assertEquals(match(expected.createSession(), text, 0), match(actual.createSession(), text, 0));
+	}
+
+	@Test
+	public void testBreadthFirst_Lazy() throws IOException
+	{
+		final IKeywords<Character> keywords = createKeywords(new String[] { "he", "she", "his", "hers" });
+		final String text = "she ushers in his sheet for hers";
+
+		final AhoCorasickMachine<Character> expected = new AhoCorasickMachine<>(new CharacterFactory());
+		expected.build(keywords);
+
+		final AhoCorasickMachine<Character> actual = new AhoCorasickMachine<>(new CharacterFactory());
+		actual.setStateOrder(StateOrder.BREADTH_FIRST);
+		actual.setLazyDepth(1);
+		final CompiledMachine<Character> lazy = actual.build(keywords);
+
+		// States are renumbered only once the next move function is constructed.
+		Assert.assertNull(lazy.getNextMoveFunction());
+		Assert.assertEquals(match(expected.createSession(), text, 0), match(lazy.createSession(), text, 0));
+
+		final FrozenMachine<Character> frozen = lazy.freeze();
+		final INextMoveFunction<Character> nextMoveFunction = frozen.getNextMoveFunction();
+		final int h = nextMoveFunction.eval(0, 'h');
+		final int s = nextMoveFunction.eval(0, 's');
+		Assert.assertTrue(h >= 1 && h <= 2 && s >= 1 && s <= 2);
+		Assert.assertEquals(9, nextMoveFunction.eval(nextMoveFunction.eval(nextMoveFunction.eval(h, 'e'), 'r'), 's'));
+		Assert.assertEquals(match(expected.createSession(), text, 0), match(frozen.createSession(), text, 0));
+	}
+
+	@Test
+	public void testBreadthFirst_Random() throws IOException
+	{
+		final IKeywords<Character> keywords = createKeywords(WORDS);
+		keywords.add(new CharacterKeyword("RED", null, AbstractKeyword.CASE_SENSITIVE));
+
+		final AhoCorasickMachine<Character> expected = new CharacterAhoCorasickMachine();
+		expected.build(keywords);
+
+		final AhoCorasickMachine<Character> actual = new CharacterAhoCorasickMachine();
+		actual.setStateOrder(StateOrder.BREADTH_FIRST);
+		actual.build(keywords);
+
+		final Random random = new Random(1);
+		for (int i = 0; i < NUM_TRIALS; i++)
+		{
+			final StringBuilder sb = new StringBuilder();
+			for (int j = 0; j < 20; j++)
+			{
+				sb.append(TEXT_WORDS[random.nextInt(TEXT_WORDS.length)]);
+				if (random.nextBoolean())
+				{
+					sb.append(' ');
+				}
+			}
+			final String text = sb.toString();
+
+			for (final MatchSemantics semantics : MatchSemantics.values())
+			{
+				final MatchSession<Character> expectedSession = expected.createSession();
+				expectedSession.setMatchSemantics(semantics);
+
+				final MatchSession<Character> actualSession = actual.createSession();
+				actualSession.setMatchSemantics(semantics);
+
+				Assert.assertEquals(text, match(expectedSession, text, 0), match(actualSession, text, 0));
+			}
+			Assert.assertEquals(text, match(expected.createSession(), text, 1), match(actual.createSession(), text, 1));
+		}
+	}
+}
@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.IEdge;
+import com.dell.mensa.INextMoveFunction;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.MatchSemantics;
+import com.dell.mensa.impl.generic.MatchSession;
+import com.dell.mensa.impl.generic.StateOrder;
+import com.dell.mensa.impl.generic.StateProfile;
+
+/**
+ * Tests {@link AhoCorasickMachine#profile(ITextSource, StateProfile)} and
+ * {@link AhoCorasickMachine#setStateProfile(StateProfile)}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterStateProfileTest extends AbstractCharacterAhoCorasickMachineTestBase
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_TRIALS = 100;
+
+	private static final String[] PAPER_WORDS = { "he", "she", "his", "hers" };
+	private static final String[] WORDS = { "he", "she", "his", "hers", "red paint", "paint it", "U.S. Army", "hat trick", "it's red" };
+	private static final String[] TEXT_WORDS = { "he", "she", "his", "hers", "ushers", "red", "paint", "it", "it's", ".", ",", " ", "  ", "U.S.",
+			"Army", "hat", "trick", "RED" };
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testDefault()
+	{
+		final AhoCorasickMachine<Character> machine = new AhoCorasickMachine<>(new CharacterFactory());
+		Assert.assertNull(machine.getStateProfile());
+
+		final StateProfile<Character> profile = new StateProfile<>();
+		machine.setStateProfile(profile);
+		Assert.assertSame(profile, machine.getStateProfile());
+
+		machine.reset();
+		Assert.assertNull(machine.getStateProfile());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testProfile_NullProfile() throws IOException
+	{
+		final AhoCorasickMachine<Character> machine = createMachine(PAPER_WORDS, null, StateOrder.INSERTION);
+		final ITextSource<Character> textSource = new CharacterStringTextSource("ushers");
+		textSource.open();
+		try
+		{
+			machine.profile(textSource, null);
+		}
+		finally
+		{
+			textSource.close();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testProfile_NotOpen() throws IOException
+	{
+		final AhoCorasickMachine<Character> machine = createMachine(PAPER_WORDS, null, StateOrder.INSERTION);
+		machine.profile(new CharacterStringTextSource("ushers"), new StateProfile<Character>());
+	}
+
+	@Test
+	public void testProfile() throws IOException
+	{
+		final AhoCorasickMachine<Character> machine = createMachine(PAPER_WORDS, null, StateOrder.INSERTION);
+		final StateProfile<Character> profile = new StateProfile<>();
+		Assert.assertTrue(profile.isEmpty());
+
+		// u: 0 -> 0, s: 0 -> s, h: s -> sh, e: sh -> she, r: she -> her, s: her -> hers
+		profile(machine, profile, "ushers");
+		Assert.assertFalse(profile.isEmpty());
+
+		Assert.assertEquals(1, profile.getVisits(path("")));
+		Assert.assertEquals(1, profile.getVisits(path("s")));
+		Assert.assertEquals(1, profile.getVisits(path("sh")));
+		Assert.assertEquals(1, profile.getVisits(path("she")));
+		Assert.assertEquals(1, profile.getVisits(path("her")));
+		Assert.assertEquals(1, profile.getVisits(path("hers")));
+		Assert.assertEquals(0, profile.getVisits(path("h")));
+		Assert.assertEquals(0, profile.getVisits(path("he")));
+		Assert.assertEquals(0, profile.getVisits(path("xyz")));
+
+		Assert.assertEquals(1, profile.getTraversals(path(""), 'u'));
+		Assert.assertEquals(1, profile.getTraversals(path(""), 's'));
+		Assert.assertEquals(1, profile.getTraversals(path("she"), 'r'));
+		Assert.assertEquals(1, profile.getTraversals(path("her"), 's'));
+		Assert.assertEquals(0, profile.getTraversals(path("she"), 's'));
+
+		// Counts accumulate.
+		profile(machine, profile, "ushers");
+		Assert.assertEquals(2, profile.getVisits(path("hers")));
+		Assert.assertEquals(2, profile.getTraversals(path(""), 'u'));
+	}
+
+	@Test
+	public void testWriteRead() throws IOException
+	{
+		final AhoCorasickMachine<Character> machine = createMachine(PAPER_WORDS, null, StateOrder.INSERTION);
+		final StateProfile<Character> profile = new StateProfile<>();
+		profile(machine, profile, "ushers his hers");
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		profile.write(out);
+
+		final StateProfile<Character> copy = StateProfile.read(new ByteArrayInputStream(out.toByteArray()));
+		for (final String path : new String[] { "", "h", "he", "her", "hers", "hi", "his", "s", "sh", "she" })
+		{
+			Assert.assertEquals(path, profile.getVisits(path(path)), copy.getVisits(path(path)));
+			for (final char a : "ehirsu ".toCharArray())
+			{
+				Assert.assertEquals(path, profile.getTraversals(path(path), a), copy.getTraversals(path(path), a));
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testRead_NotProfile() throws IOException
+	{
+		StateProfile.read(new ByteArrayInputStream(new byte[] { 1, 2, 3 }));
+	}
+
+	@Test
+	public void testProfiled_Layout() throws IOException
+	{
+		final StateProfile<Character> profile = new StateProfile<>();
+		profile(createMachine(PAPER_WORDS, null, StateOrder.INSERTION), profile, "his his his his hers");
+
+		final AhoCorasickMachine<Character> machine = createMachine(PAPER_WORDS, profile, StateOrder.PROFILED);
+		final INextMoveFunction<Character> nextMoveFunction = machine.getNextMoveFunction();
+
+		// The hottest states are numbered first: h is visited five times, then i, hi and his four times each.
+		final int h = nextMoveFunction.eval(0, 'h');
+		Assert.assertEquals(1, h);
+		final int hi = nextMoveFunction.eval(h, 'i');
+		final int his = nextMoveFunction.eval(hi, 's');
+		Assert.assertEquals(Arrays.asList(2, 3), sorted(hi, his));
+
+		// The most frequently traversed edges of a state are looked up first.
+		Assert.assertEquals(Character.valueOf('h'), first(nextMoveFunction, 0));
+		Assert.assertEquals(Character.valueOf('i'), first(nextMoveFunction, h));
+
+		// States never visited keep breadth-first order after the visited ones.
+		Assert.assertEquals(machine.getNumStates() - 1, nextMoveFunction.eval(nextMoveFunction.eval(nextMoveFunction.eval(0, 's'), 'h'), 'e'));
+	}
+
+	@Test
+	public void testProfiled_Random() throws IOException
+	{
+		final Random random = new Random(1);
+
+		// Profile a machine built for only some of the keywords, as if the keywords had since changed.
+		final StateProfile<Character> profile = new StateProfile<>();
+		final AhoCorasickMachine<Character> profiler = createMachine(Arrays.copyOf(WORDS, 5), null, StateOrder.INSERTION);
+		for (int i = 0; i < NUM_TRIALS; i++)
+		{
+			profile(profiler, profile, createText(random));
+		}
+
+		final AhoCorasickMachine<Character> expected = createMachine(WORDS, null, StateOrder.INSERTION);
+		final List<AhoCorasickMachine<Character>> actuals = new ArrayList<>();
+		actuals.add(createMachine(WORDS, profile, StateOrder.INSERTION));
+		actuals.add(createMachine(WORDS, profile, StateOrder.PROFILED));
+		actuals.add(createMachine(WORDS, null, StateOrder.PROFILED));
+
+		for (int i = 0; i < NUM_TRIALS; i++)
+		{
+			final String text = createText(random);
+			for (final AhoCorasickMachine<Character> actual : actuals)
+			{
+				for (final MatchSemantics semantics : MatchSemantics.values())
+				{
+					final MatchSession<Character> expectedSession = expected.createSession();
+					expectedSession.setMatchSemantics(semantics);
+
+					final MatchSession<Character> actualSession = actual.createSession();
+					actualSession.setMatchSemantics(semantics);
+
+					Assert.assertEquals(text, match(expectedSession, text, 0), match(actualSession, text, 0));
+				}
+				Assert.assertEquals(text, match(expected.createSession(), text, 1), match(actual.createSession(), text, 1));
+			}
+		}
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static AhoCorasickMachine<Character> createMachine(final String[] words_, final StateProfile<Character> profile_,
+			final StateOrder stateOrder_)
+	{
+		final AhoCorasickMachine<Character> machine = new CharacterAhoCorasickMachine();
+		machine.setStateProfile(profile_);
+		machine.setStateOrder(stateOrder_);
+		machine.build(createKeywords(words_));
+		return machine;
+	}
+
+	private static String createText(final Random random_)
+	{
+		final StringBuilder sb = new StringBuilder();
+		for (int j = 0; j < 20; j++)
+		{
+			sb.append(TEXT_WORDS[random_.nextInt(TEXT_WORDS.length)]);
+			if (random_.nextBoolean())
+			{
+				sb.append(' ');
+			}
+		}
+		return sb.toString();
+	}
+
+	private static Character first(final INextMoveFunction<Character> nextMoveFunction_, final int state_)
+	{
+		final IEdge<Character> edge = nextMoveFunction_.getEdgeMap(state_).getEdges().iterator().next();
+		return edge.getSymbol();
+	}
+
+	private static List<Character> path(final String path_)
+	{
+		final List<Character> path = new ArrayList<>();
+		for (final char a : path_.toCharArray())
+		{
+			path.add(a);
+		}
+		return path;
+	}
+
+	private static void profile(final AhoCorasickMachine<Character> machine_, final StateProfile<Character> profile_, final String text_)
+			throws IOException
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(text_);
+		textSource.open();
+		try
+		{
+			machine_.profile(textSource, profile_);
+		}
+		finally
+		{
+			textSource.close();
+		}
+	}
+
+	private static List<Integer> sorted(final int... states_)
+	{
+		final List<Integer> states = new ArrayList<>();
+		for (final int state : states_)
+		{
+			states.add(state);
+		}
+		Collections.sort(states);
+		return states;
+	}
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Predicate;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.impl.generic.Factory;
+
+/**
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterSymbolFilterTest
+{
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_Null()
+	{
+		new CharacterSymbolFilter(null);
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		final CharacterSymbolFilter filter = new CharacterSymbolFilter(Collections.<Character> emptyList());
+		for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; ++c)
+		{
+			Assert.assertFalse(filter.test((char) c));
+		}
+		Assert.assertFalse(filter.test((Character) null));
+	}
+
+	@Test
+	public void testTest()
+	{
+		final CharacterSymbolFilter filter = new CharacterSymbolFilter(Arrays.asList('a', 'z', '\u0000', '\uFFFF', '\u4E2D', null));
+		for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; ++c)
+		{
+			final boolean expected = c == 'a' || c == 'z' || c == 0 || c == 0xFFFF || c == 0x4E2D;
+			Assert.assertEquals(expected, filter.test((char) c));
+			Assert.assertEquals(expected, filter.test(Character.valueOf((char) c)));
+		}
+	}
+
+	@Test
+	public void testFactory()
+	{
+		Assert.assertTrue(new CharacterFactory().createSymbolFilter(Arrays.asList('q')).test('q'));
+		Assert.assertFalse(new CharacterFactory().createSymbolFilter(Arrays.asList('q')).test('Q'));
+	}
+
+	@Test
+	public void testFactory_Default()
+	{
+		final Predicate<Character> filter = new Factory<Character>().createSymbolFilter(Arrays.asList('q', null));
+		Assert.assertTrue(filter.test('q'));
+		Assert.assertFalse(filter.test('Q'));
+		Assert.assertFalse(filter.test(null));
+	}
+}
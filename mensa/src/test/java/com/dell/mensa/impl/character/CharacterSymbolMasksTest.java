@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.impl.generic.Factory;
+
+/**
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterSymbolMasksTest
+{
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_Null()
+	{
+		new CharacterSymbolMasks(null);
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		final CharacterSymbolMasks masks = new CharacterSymbolMasks(Collections.<Character, Long> emptyMap());
+		for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; ++c)
+		{
+			Assert.assertEquals(0, masks.applyAsLong((char) c));
+		}
+		Assert.assertEquals(0, masks.applyAsLong((Character) null));
+	}
+
+	@Test
+	public void testApplyAsLong()
+	{
+		final Map<Character, Long> map = new HashMap<>();
+		map.put('a', 0x5L);
+		map.put('z', Long.MIN_VALUE);
+		map.put('\u0000', 0x2L);
+		map.put('中', -1L);
+		map.put(null, 0x8L);
+
+		final CharacterSymbolMasks masks = new CharacterSymbolMasks(map);
+		for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; ++c)
+		{
+			final Long mask = map.get(Character.valueOf((char) c));
+			final long expected = mask == null ? 0 : mask.longValue();
+			Assert.assertEquals(expected, masks.applyAsLong((char) c));
+			Assert.assertEquals(expected, masks.applyAsLong(Character.valueOf((char) c)));
+		}
+	}
+
+	@Test
+	public void testFactory()
+	{
+		final Map<Character, Long> map = Collections.singletonMap('q', 0x3L);
+		Assert.assertEquals(0x3L, new CharacterFactory().createSymbolMasks(map).applyAsLong('q'));
+		Assert.assertEquals(0, new CharacterFactory().createSymbolMasks(map).applyAsLong('Q'));
+	}
+
+	@Test
+	public void testFactory_Default()
+	{
+		final ToLongFunction<Character> masks = new Factory<Character>().createSymbolMasks(Collections.singletonMap('q', 0x3L));
+		Assert.assertEquals(0x3L, masks.applyAsLong('q'));
+		Assert.assertEquals(0, masks.applyAsLong('Q'));
+	}
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.MatchEngine;
+import com.dell.mensa.impl.generic.MatchSemantics;
+import com.dell.mensa.impl.generic.MatchSession;
+
+/**
+ * Tests {@link AhoCorasickMachine#setTransitionCacheSize(int)}.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterTransitionCacheTest extends AbstractCharacterAhoCorasickMachineTestBase
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_TRIALS = 100;
+
+	private static final String[] WORDS = { "he", "she", "his", "hers", "red paint", "paint it", "U.S. Army", "hat trick", "it's red" };
+	private static final String[] TEXT_WORDS = { "he", "she", "his", "hers", "ushers", "red", "paint", "it", "it's", ".", ",", " ", "  ", "U.S.",
+			"Army", "hat", "trick", "RED" };
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testDefault()
+	{
+		final AhoCorasickMachine<Character> machine = new AhoCorasickMachine<>(new CharacterFactory());
+		Assert.assertEquals(0, machine.getTransitionCacheSize());
+
+		machine.setTransitionCacheSize(4096);
+		Assert.assertEquals(4096, machine.getTransitionCacheSize());
+
+		machine.setTransitionCacheSize(0);
+		Assert.assertEquals(0, machine.getTransitionCacheSize());
+
+		machine.setTransitionCacheSize(16);
+		machine.reset();
+		Assert.assertEquals(0, machine.getTransitionCacheSize());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetTransitionCacheSize_Negative()
+	{
+		new AhoCorasickMachine<>(new CharacterFactory()).setTransitionCacheSize(-16);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetTransitionCacheSize_NotPowerOfTwo()
+	{
+		new AhoCorasickMachine<>(new CharacterFactory()).setTransitionCacheSize(100);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetTransitionCacheSize_TooSmall()
+	{
+		new AhoCorasickMachine<>(new CharacterFactory()).setTransitionCacheSize(8);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetTransitionCacheSize_TooLarge()
+	{
+		new AhoCorasickMachine<>(new CharacterFactory()).setTransitionCacheSize(1 << 21);
+	}
+
+	@Test
+	public void testMatch_Random() throws IOException
+	{
+		final Random random = new Random(1);
+		for (final MatchEngine engine : MatchEngine.values())
+		{
+			final AhoCorasickMachine<Character> expected = createMachine(WORDS, true, 0, engine);
+			final List<AhoCorasickMachine<Character>> actuals = new ArrayList<>();
+			for (final boolean bNextMove : new boolean[] { true, false })
+			{
+				// The smallest cache forces frequent replacement.
+				for (final int size : new int[] { 16, 4096 })
+				{
+					actuals.add(createMachine(WORDS, bNextMove, size, engine));
+				}
+			}
+
+			for (final AhoCorasickMachine<Character> actual : actuals)
+			{
+				for (final MatchSemantics semantics : MatchSemantics.values())
+				{
+					final MatchSession<Character> expectedSession = expected.createSession();
+					expectedSession.setMatchSemantics(semantics);
+
+					// The session, and thus its cache, is reused for every text.
+					final MatchSession<Character> actualSession = actual.createSession();
+					actualSession.setMatchSemantics(semantics);
+
+					for (int i = 0; i < NUM_TRIALS; i++)
+					{
+						final String text = createText(random);
+						Assert.assertEquals(text, match(expectedSession, text), match(actualSession, text));
+					}
+					Assert.assertEquals(expectedSession.getTransitions(), actualSession.getTransitions());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMatch_Reset() throws IOException
+	{
+		final String text = "ushers said his red paint";
+
+		final AhoCorasickMachine<Character> machine = createMachine(WORDS, false, 64, MatchEngine.AHO_CORASICK);
+
+		final MatchSession<Character> session = machine.createSession();
+		Assert.assertEquals(match(createMachine(WORDS, true).createSession(), text), match(session, text));
+
+		// Rebuilding with other keywords leaves the session, and its cache, with the machine it was created for.
+		final String[] words = { "hi", "she", "aid", "red" };
+		machine.reset();
+		machine.setTransitionCacheSize(64);
+		machine.build(createKeywords(words));
+		Assert.assertEquals(match(createMachine(WORDS, true).createSession(), text), match(session, text));
+		Assert.assertEquals(match(createMachine(words, true).createSession(), text), match(machine.createSession(), text));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSetTransitionCacheSize_Built()
+	{
+		createMachine(WORDS, true).setTransitionCacheSize(64);
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static AhoCorasickMachine<Character> createMachine(final String[] words_, final boolean bNextMove_)
+	{
+		return createMachine(words_, bNextMove_, 0, MatchEngine.AHO_CORASICK);
+	}
+
+	/**
+	 * Creates a machine that has a next move function, or that has only goto and failure functions.
+	 */
+	private static AhoCorasickMachine<Character> createMachine(final String[] words_, final boolean bNextMove_, final int transitionCacheSize_,
+			final MatchEngine engine_)
+	{
+		final AhoCorasickMachine<Character> machine = new CharacterAhoCorasickMachine();
+		machine.setTransitionCacheSize(transitionCacheSize_);
+		machine.setMatchEngine(engine_);
+		if (bNextMove_)
+		{
+			machine.build(createKeywords(words_));
+		}
+		else
+		{
+			machine.buildGotoFunction(createKeywords(words_));
+			machine.buildFailureFunction();
+		}
+		return machine;
+	}
+
+	private static String createText(final Random random_)
+	{
+		final StringBuilder sb = new StringBuilder();
+		for (int j = 0; j < 20; j++)
+		{
+			sb.append(TEXT_WORDS[random_.nextInt(TEXT_WORDS.length)]);
+			if (random_.nextBoolean())
+			{
+				sb.append(' ');
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.MatchCollector;
+import com.dell.mensa.impl.generic.MatchEngine;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * Tests whole-word matching (i.e., the word-break extension) against a brute-force search.
+ *
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class CharacterWordBreakTest
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final int NUM_TRIALS = 100;
+	private static final int TEXT_LENGTH = 100;
+	private static final String[] KEYWORDS = { "cat", "category", "at", "bobcat", "cats", "a", "ego" };
+	private static final String[] TEXT_WORDS = { "cat", "category", "egory", "at", "bob", "bobcat", "s", "a", "ego", " ", "-", ", ", "  ", "\n\n" };
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test
+	public void testMatch_Random() throws IOException
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		for (final String keyword : KEYWORDS)
+		{
+			keywords.add(new CharacterKeyword(keyword));
+		}
+
+		final List<AhoCorasickMachine<Character>> machines = new ArrayList<>();
+		for (final MatchEngine engine : MatchEngine.values())
+		{
+			final AhoCorasickMachine<Character> machine = new CharacterAhoCorasickMachine();
+			machine.setMatchEngine(engine);
+			machine.build(keywords);
+			machines.add(machine);
+		}
+
+		final Random random = new Random(1);
+		for (int trial = 0; trial < NUM_TRIALS; trial++)
+		{
+			final StringBuilder sb = new StringBuilder();
+			while (sb.length() < TEXT_LENGTH)
+			{
+				sb.append(TEXT_WORDS[random.nextInt(TEXT_WORDS.length)]);
+			}
+			final String text = sb.toString();
+
+			final Set<String> expected = new HashSet<>();
+			for (final String keyword : KEYWORDS)
+			{
+				for (int start = text.indexOf(keyword); start >= 0; start = text.indexOf(keyword, start + 1))
+				{
+					final int end = start + keyword.length();
+					if ((start == 0 || !Character.isLetter(text.charAt(start - 1))) && (end == text.length() || !Character.isLetter(text.charAt(end))))
+					{
+						expected.add(String.format("%s [%d, %d)", keyword, start, end));
+					}
+				}
+			}
+
+			for (final AhoCorasickMachine<Character> machine : machines)
+			{
+				Assert.assertEquals(text, expected, match(machine, text));
+			}
+		}
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static Set<String> match(final AhoCorasickMachine<Character> machine_, final String text_) throws IOException
+	{
+		final MatchCollector<Character> collector = new MatchCollector<>();
+		final ITextSource<Character> textSource = new CharacterStringTextSource(text_);
+		textSource.open();
+		try
+		{
+			machine_.match(textSource, collector);
+		}
+		finally
+		{
+			textSource.close();
+		}
+
+		final Set<String> result = new HashSet<>();
+		for (final IMatch<Character> match : collector.getMatches())
+		{
+			result.add(String.format("%s [%d, %d)", text_.substring((int) match.getStart(), (int) match.getEnd()), match.getStart(), match.getEnd()));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.IMatchSubscriber;
+import com.dell.mensa.IMatchSubscription;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.MatchCollector;
+import com.dell.mensa.impl.generic.MatchPublisher;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class MatchPublisherTest
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final String TEXT = "she ushers in his sheet for hers";
+
+	private AhoCorasickMachine<Character> machine;
+	private List<IMatch<Character>> expectedMatches;
+
+	/**
+	 * A subscriber that records everything it is sent and optionally requests more matches from within
+	 * {@link #onNext(IMatch)}.
+	 */
+	private static class TestSubscriber implements IMatchSubscriber<Character>
+	{
+		private final long requestOnNext;
+		private final List<IMatch<Character>> matches = new ArrayList<>();
+		private IMatchSubscription subscription;
+		private Throwable error;
+		private int numCompleted;
+
+		public TestSubscriber(final long requestOnNext_)
+		{
+			this.requestOnNext = requestOnNext_;
+		}
+
+		@Override
+		public void onComplete()
+		{
+			++numCompleted;
+		}
+
+		@Override
+		public void onError(final Throwable throwable_)
+		{
+			error = throwable_;
+		}
+
+		@Override
+		public void onNext(final IMatch<Character> match_)
+		{
+			matches.add(match_);
+			if (requestOnNext > 0)
+			{
+				subscription.request(requestOnNext);
+			}
+		}
+
+		@Override
+		public void onSubscribe(final IMatchSubscription subscription_)
+		{
+			subscription = subscription_;
+		}
+	}
+
+	@Before
+	public void setUp() throws IOException
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		keywords.add(new CharacterKeyword("he"));
+		keywords.add(new CharacterKeyword("she"));
+		keywords.add(new CharacterKeyword("his"));
+		keywords.add(new CharacterKeyword("hers"));
+
+		machine = new AhoCorasickMachine<>(new CharacterFactory());
+		machine.build(keywords);
+
+		final MatchCollector<Character> collector = new MatchCollector<>();
+		final ITextSource<Character> textSource = new CharacterStringTextSource(TEXT);
+		textSource.open();
+		machine.match(textSource, collector);
+		textSource.close();
+
+		expectedMatches = collector.getMatches();
+		Assert.assertTrue(expectedMatches.size() > 3);
+	}
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test(expected = IllegalStateException.class)
+	public void testConstructor_AlreadyOpen() throws IOException
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(TEXT);
+		textSource.open();
+		try
+		{
+			new MatchPublisher<>(machine, textSource).toString();
+		}
+		finally
+		{
+			textSource.close();
+		}
+	}
+
+	@Test
+	public void testSubscribe_Unbounded()
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(TEXT);
+		final TestSubscriber subscriber = new TestSubscriber(0);
+		new MatchPublisher<>(machine, textSource).subscribe(subscriber);
+
+		// Nothing happens until matches are requested.
+		Assert.assertFalse(textSource.isOpen());
+		Assert.assertTrue(subscriber.matches.isEmpty());
+
+		subscriber.subscription.request(Long.MAX_VALUE);
+		Assert.assertEquals(expectedMatches, subscriber.matches);
+		Assert.assertEquals(1, subscriber.numCompleted);
+		Assert.assertNull(subscriber.error);
+		Assert.assertFalse(textSource.isOpen());
+	}
+
+	@Test
+	public void testSubscribe_Backpressure()
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(TEXT);
+		final TestSubscriber subscriber = new TestSubscriber(0);
+		new MatchPublisher<>(machine, textSource).subscribe(subscriber);
+
+		subscriber.subscription.request(2);
+		Assert.assertEquals(expectedMatches.subList(0, 2), subscriber.matches);
+		Assert.assertEquals(0, subscriber.numCompleted);
+
+		// Scanning paused after the second match; it did not run ahead to end-of-file.
+		Assert.assertTrue(textSource.isOpen());
+		Assert.assertEquals(expectedMatches.get(1).getEnd(), textSource.getPosition());
+
+		subscriber.subscription.request(1);
+		Assert.assertEquals(expectedMatches.subList(0, 3), subscriber.matches);
+		Assert.assertEquals(0, subscriber.numCompleted);
+
+		subscriber.subscription.request(expectedMatches.size());
+		Assert.assertEquals(expectedMatches, subscriber.matches);
+		Assert.assertEquals(1, subscriber.numCompleted);
+		Assert.assertFalse(textSource.isOpen());
+	}
+
+	@Test
+	public void testSubscribe_RequestOnNext()
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(TEXT);
+		final TestSubscriber subscriber = new TestSubscriber(1);
+		new MatchPublisher<>(machine, textSource).subscribe(subscriber);
+
+		subscriber.subscription.request(1);
+		Assert.assertEquals(expectedMatches, subscriber.matches);
+		Assert.assertEquals(1, subscriber.numCompleted);
+	}
+
+	@Test
+	public void testSubscribe_Cancel()
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(TEXT);
+		final TestSubscriber subscriber = new TestSubscriber(0);
+		new MatchPublisher<>(machine, textSource).subscribe(subscriber);
+
+		subscriber.subscription.request(1);
+		Assert.assertTrue(textSource.isOpen());
+
+		subscriber.subscription.cancel();
+		Assert.assertFalse(textSource.isOpen());
+
+		subscriber.subscription.request(1);
+		Assert.assertEquals(expectedMatches.subList(0, 1), subscriber.matches);
+		Assert.assertEquals(0, subscriber.numCompleted);
+		Assert.assertNull(subscriber.error);
+	}
+
+	@Test
+	public void testSubscribe_OnNextThrows()
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(TEXT);
+		final RuntimeException exception = new IllegalStateException("onNext");
+		final TestSubscriber subscriber = new TestSubscriber(0)
+		{
+			@Override
+			public void onNext(final IMatch<Character> match_)
+			{
+				super.onNext(match_);
+				throw exception;
+			}
+		};
+		new MatchPublisher<>(machine, textSource).subscribe(subscriber);
+
+		subscriber.subscription.request(Long.MAX_VALUE);
+		Assert.assertEquals(expectedMatches.subList(0, 1), subscriber.matches);
+		Assert.assertSame(exception, subscriber.error);
+		Assert.assertEquals(0, subscriber.numCompleted);
+		Assert.assertFalse(textSource.isOpen());
+
+		// The subscription was cancelled and released, so further requests deliver nothing.
+		subscriber.subscription.request(1);
+		Assert.assertEquals(expectedMatches.subList(0, 1), subscriber.matches);
+	}
+
+	@Test
+	public void testSubscribe_NonPositiveRequest()
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(TEXT);
+		final TestSubscriber subscriber = new TestSubscriber(0);
+		new MatchPublisher<>(machine, textSource).subscribe(subscriber);
+
+		subscriber.subscription.request(1);
+		subscriber.subscription.request(0);
+		Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+		Assert.assertFalse(textSource.isOpen());
+		Assert.assertEquals(0, subscriber.numCompleted);
+	}
+
+	@Test
+	public void testSubscribe_SecondSubscriber()
+	{
+		final MatchPublisher<Character> publisher = new MatchPublisher<>(machine, new CharacterStringTextSource(TEXT));
+		final TestSubscriber subscriber1 = new TestSubscriber(0);
+		final TestSubscriber subscriber2 = new TestSubscriber(0);
+
+		publisher.subscribe(subscriber1);
+		publisher.subscribe(subscriber2);
+
+		Assert.assertNull(subscriber1.error);
+		Assert.assertTrue(subscriber2.error instanceof IllegalStateException);
+	}
+}
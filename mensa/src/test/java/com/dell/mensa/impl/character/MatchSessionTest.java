@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import com.dell.mensa.IKeyword;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.FrozenMachine;
+import com.dell.mensa.impl.generic.Keywords;
+import com.dell.mensa.impl.generic.Match;
+import com.dell.mensa.impl.generic.MatchCollector;
+import com.dell.mensa.impl.generic.MatchSession;
+
+/**
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class MatchSessionTest
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final String TEXT = "They used red paint.";
+	private static final int NUM_THREADS = 8;
+	private static final int NUM_TASKS = 200;
+
+	private final IKeyword<Character> red = new CharacterKeyword("red");
+	private final IKeyword<Character> paint = new CharacterKeyword("paint");
+	private final IKeyword<Character> redPaint = new CharacterKeyword("red paint");
+
+	private AhoCorasickMachine<Character> machine;
+	private List<IMatch<Character>> allMatches;
+	private List<IMatch<Character>> longestMatches;
+
+	@Before
+	public void setUp()
+	{
+		final IKeywords<Character> keywords = new Keywords<>();
+		keywords.add(red);
+		keywords.add(paint);
+		keywords.add(redPaint);
+
+		machine = new CharacterAhoCorasickMachine();
+		machine.build(keywords);
+
+		allMatches = new ArrayList<>();
+		allMatches.add(new Match<>(machine, red, 10, 13));
+		allMatches.add(new Match<>(machine, redPaint, 10, 19));
+		allMatches.add(new Match<>(machine, paint, 14, 19));
+
+		longestMatches = new ArrayList<>(allMatches);
+		longestMatches.remove(2);
+	}
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@SuppressWarnings("unused")
+	@Test(expected = IllegalArgumentException.class)
+	public void testConstructor_NullMachine()
+	{
+		new MatchSession<Character>(null);
+	}
+
+	@Test
+	public void testCreateSession_Defaults()
+	{
+		machine.setNotifyLongestMatch(true);
+		machine.setNotifyMostPreciseMatch(true);
+		machine.setNotifyRawSymbols(true);
+
+		final MatchSession<Character> session = machine.createSession();
+		Assert.assertTrue(session.getMachine() instanceof FrozenMachine);
+		Assert.assertTrue(session.isNotifyLongestMatch());
+		Assert.assertTrue(session.isNotifyMostPreciseMatch());
+		Assert.assertTrue(session.isNotifyRawSymbols());
+		Assert.assertEquals(0, session.getTransitions());
+
+		// Changing session options does not affect the machine defaults.
+		session.setNotifyLongestMatch(false);
+		session.setNotifyMostPreciseMatch(false);
+		session.setNotifyRawSymbols(false);
+		Assert.assertFalse(session.isNotifyLongestMatch());
+		Assert.assertFalse(session.isNotifyMostPreciseMatch());
+		Assert.assertFalse(session.isNotifyRawSymbols());
+		Assert.assertTrue(machine.isNotifyLongestMatch());
+		Assert.assertTrue(machine.isNotifyMostPreciseMatch());
+		Assert.assertTrue(machine.isNotifyRawSymbols());
+	}
+
+	@Test
+	public void testMatch_SessionOptions() throws IOException
+	{
+		final MatchSession<Character> longest = machine.createSession();
+		longest.setNotifyLongestMatch(true);
+
+		final MatchSession<Character> all = machine.createSession();
+
+		Assert.assertEquals(longestMatches, match(longest));
+		Assert.assertEquals(allMatches, match(all));
+
+		// The machine defaults are unaffected by session options.
+		final MatchCollector<Character> collector = new MatchCollector<>();
+		final ITextSource<Character> textSource = new CharacterStringTextSource(TEXT);
+		textSource.open();
+		machine.match(textSource, collector);
+		textSource.close();
+		Assert.assertEquals(allMatches, collector.getMatches());
+	}
+
+	@Test
+	public void testTransitions() throws IOException
+	{
+		final MatchSession<Character> session = machine.createSession();
+
+		match(session);
+		Assert.assertEquals(TEXT.length(), session.getTransitions());
+
+		match(session);
+		Assert.assertEquals(2 * TEXT.length(), session.getTransitions());
+
+		session.clearTransitions();
+		Assert.assertEquals(0, session.getTransitions());
+	}
+
+	@Test
+	public void testConcurrentSessions() throws InterruptedException, ExecutionException
+	{
+		final ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+		try
+		{
+			final List<Future<Boolean>> futures = new ArrayList<>(NUM_TASKS);
+			for (int i = 0; i < NUM_TASKS; i++)
+			{
+				final boolean bLongest = i % 2 == 0;
+				futures.add(executor.submit(new Callable<Boolean>()
+				{
+					@Override
+					public Boolean call() throws IOException
+					{
+						final MatchSession<Character> session = machine.createSession();
+						session.setNotifyLongestMatch(bLongest);
+
+						final List<IMatch<Character>> actual = match(session);
+						return Boolean.valueOf(actual.equals(bLongest ? longestMatches : allMatches)
+								&& session.getTransitions() == TEXT.length());
+					}
+				}));
+			}
+
+			for (final Future<Boolean> future : futures)
+			{
+				Assert.assertTrue(future.get().booleanValue());
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	// =========================================================================
+	// Helper methods
+	// =========================================================================
+	private static List<IMatch<Character>> match(final MatchSession<Character> session_) throws IOException
+	{
+		final MatchCollector<Character> collector = new MatchCollector<>();
+		final ITextSource<Character> textSource = new CharacterStringTextSource(TEXT);
+		textSource.open();
+		try
+		{
+			session_.match(textSource, collector);
+		}
+		finally
+		{
+			textSource.close();
+		}
+		return collector.getMatches();
+	}
+}
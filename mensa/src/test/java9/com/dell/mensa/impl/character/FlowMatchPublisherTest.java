@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (C) 2014 Dell, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *******************************************************************************/
+package com.dell.mensa.impl.character;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import com.dell.mensa.IKeywords;
+import com.dell.mensa.IMatch;
+import com.dell.mensa.ITextSource;
+import com.dell.mensa.impl.generic.AhoCorasickMachine;
+import com.dell.mensa.impl.generic.FlowMatchPublisher;
+import com.dell.mensa.impl.generic.MatchCollector;
+import com.dell.mensa.impl.generic.OrderedKeywords;
+
+/**
+ * @author <a href="http://www.linkedin.com/in/faseidl/" target="_blank">F. Andy Seidl</a>
+ *
+ */
+public class FlowMatchPublisherTest
+{
+	// =========================================================================
+	// Fixture
+	// =========================================================================
+	private static final String TEXT = "she ushers in his sheet for hers";
+
+	private AhoCorasickMachine<Character> machine;
+	private List<IMatch<Character>> expectedMatches;
+
+	/**
+	 * A subscriber that records everything it is sent.
+	 */
+	private static class TestSubscriber implements Flow.Subscriber<IMatch<Character>>
+	{
+		private final List<IMatch<Character>> matches = new ArrayList<>();
+		private Flow.Subscription subscription;
+		private Throwable error;
+		private int numCompleted;
+
+		@Override
+		public void onComplete()
+		{
+			++numCompleted;
+		}
+
+		@Override
+		public void onError(final Throwable throwable_)
+		{
+			error = throwable_;
+		}
+
+		@Override
+		public void onNext(final IMatch<Character> match_)
+		{
+			matches.add(match_);
+		}
+
+		@Override
+		public void onSubscribe(final Flow.Subscription subscription_)
+		{
+			subscription = subscription_;
+		}
+	}
+
+	@Before
+	public void setUp() throws IOException
+	{
+		final IKeywords<Character> keywords = new OrderedKeywords<>();
+		keywords.add(new CharacterKeyword("he"));
+		keywords.add(new CharacterKeyword("she"));
+		keywords.add(new CharacterKeyword("his"));
+		keywords.add(new CharacterKeyword("hers"));
+
+		machine = new AhoCorasickMachine<>(new CharacterFactory());
+		machine.build(keywords);
+
+		final MatchCollector<Character> collector = new MatchCollector<>();
+		final ITextSource<Character> textSource = new CharacterStringTextSource(TEXT);
+		textSource.open();
+		machine.match(textSource, collector);
+		textSource.close();
+
+		expectedMatches = collector.getMatches();
+		Assert.assertTrue(expectedMatches.size() > 3);
+	}
+
+	// =========================================================================
+	// Test methods
+	// =========================================================================
+	@Test(expected = NullPointerException.class)
+	public void testSubscribe_Null()
+	{
+		new FlowMatchPublisher<>(machine, new CharacterStringTextSource(TEXT)).subscribe(null);
+	}
+
+	@Test
+	public void testSubscribe_Backpressure()
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(TEXT);
+		final TestSubscriber subscriber = new TestSubscriber();
+		new FlowMatchPublisher<>(machine, textSource).subscribe(subscriber);
+		Assert.assertNotNull(subscriber.subscription);
+
+		subscriber.subscription.request(2);
+		Assert.assertEquals(expectedMatches.subList(0, 2), subscriber.matches);
+		Assert.assertEquals(0, subscriber.numCompleted);
+		Assert.assertTrue(textSource.isOpen());
+
+		subscriber.subscription.request(Long.MAX_VALUE);
+		Assert.assertEquals(expectedMatches, subscriber.matches);
+		Assert.assertEquals(1, subscriber.numCompleted);
+		Assert.assertNull(subscriber.error);
+		Assert.assertFalse(textSource.isOpen());
+	}
+
+	@Test
+	public void testSubscribe_Cancel()
+	{
+		final ITextSource<Character> textSource = new CharacterStringTextSource(TEXT);
+		final TestSubscriber subscriber = new TestSubscriber();
+		new FlowMatchPublisher<>(machine.createSession(), textSource).subscribe(subscriber);
+
+		subscriber.subscription.request(1);
+		subscriber.subscription.cancel();
+		subscriber.subscription.request(1);
+		Assert.assertEquals(expectedMatches.subList(0, 1), subscriber.matches);
+		Assert.assertEquals(0, subscriber.numCompleted);
+		Assert.assertFalse(textSource.isOpen());
+	}
+
+	@Test
+	public void testSubscribe_NonPositiveRequest()
+	{
+		final TestSubscriber subscriber = new TestSubscriber();
+		new FlowMatchPublisher<>(machine, new CharacterStringTextSource(TEXT)).subscribe(subscriber);
+
+		subscriber.subscription.request(0);
+		Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+		Assert.assertTrue(subscriber.matches.isEmpty());
+	}
+
+	@Test
+	public void testSubscribe_SecondSubscriber()
+	{
+		final FlowMatchPublisher<Character> publisher = new FlowMatchPublisher<>(machine, new CharacterStringTextSource(TEXT));
+		publisher.subscribe(new TestSubscriber());
+
+		final TestSubscriber subscriber = new TestSubscriber();
+		publisher.subscribe(subscriber);
+		Assert.assertNotNull(subscriber.subscription);
+		Assert.assertTrue(subscriber.error instanceof IllegalStateException);
+	}
+}